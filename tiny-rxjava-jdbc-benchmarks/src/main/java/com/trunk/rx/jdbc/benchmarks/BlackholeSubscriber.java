@@ -0,0 +1,58 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Consumes every event into a {@link Blackhole}, either requesting everything up front,
+ * which takes the producers' fast path, or a fixed number at a time, which takes their back-pressure path.
+ */
+class BlackholeSubscriber<T> extends Subscriber<T> {
+  private final Blackhole blackhole;
+  private final long batch;
+  private long outstanding;
+
+  /**
+   * Subscribe and consume everything, rethrowing any error.
+   */
+  static <T> void drain(Observable<T> observable, Blackhole blackhole) {
+    observable.subscribe(new BlackholeSubscriber<>(blackhole, Long.MAX_VALUE));
+  }
+
+  /**
+   * Subscribe and consume everything requesting batch events at a time, rethrowing any error.
+   */
+  static <T> void drain(Observable<T> observable, Blackhole blackhole, long batch) {
+    observable.subscribe(new BlackholeSubscriber<>(blackhole, batch));
+  }
+
+  private BlackholeSubscriber(Blackhole blackhole, long batch) {
+    this.blackhole = blackhole;
+    this.batch = batch;
+  }
+
+  @Override
+  public void onStart() {
+    outstanding = batch;
+    request(batch);
+  }
+
+  @Override
+  public void onNext(T t) {
+    blackhole.consume(t);
+    if (batch != Long.MAX_VALUE && --outstanding == 0) {
+      outstanding = batch;
+      request(batch);
+    }
+  }
+
+  @Override
+  public void onError(Throwable e) {
+    throw new RuntimeException(e);
+  }
+
+  @Override
+  public void onCompleted() {
+  }
+}
@@ -0,0 +1,89 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.pg.sql.CopyEncoder;
+import com.trunk.rx.jdbc.pg.sql.CopyOut;
+import com.trunk.rx.jdbc.pg.sql.CopyOutFactory;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting a table as CSV in chunks with {@link CopyOut}, against mapping each row with {@link ExecuteQuery}
+ * and encoding it. H2 has no <code>COPY</code>, so this uses {@link CopyOutFactory#JDBC_CSV} and measures the
+ * cost of the chunked stream itself; the gain from <code>COPY</code> on the server needs PostgreSQL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyOutBenchmark {
+  @Param({"10000"})
+  int rows;
+
+  @Param({"65536"})
+  int chunkSize;
+
+  private Connection connection;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(rows);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void copyOut(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      CopyOut.using(connection, CopyOutFactory.JDBC_CSV, Database.SELECT, CopyOut.CSV, () -> ByteBuffer.allocate(chunkSize)),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void executeQueryCsv(Blackhole blackhole) {
+    CopyEncoder<SelectBenchmark.Row> encoder = CopyEncoder.csv(row -> new Object[]{row.id, row.name, row.amount});
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunkSize);
+    DataOutputStream out = new DataOutputStream(bytes);
+    BlackholeSubscriber.drain(
+      ExecuteQuery.using(
+        connection,
+        c -> c.prepareStatement(Database.SELECT),
+        rs -> new SelectBenchmark.Row(rs.getInt(1), rs.getString(2), rs.getDouble(3))
+      )
+        .map(row -> {
+          try {
+            encoder.encode(row, out);
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+          return bytes.size();
+        }),
+      blackhole
+    );
+    blackhole.consume(bytes.toByteArray());
+  }
+}
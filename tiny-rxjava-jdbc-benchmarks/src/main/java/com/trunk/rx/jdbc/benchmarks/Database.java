@@ -0,0 +1,59 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory H2 databases for the benchmarks, and a PostgreSQL database for those that need it.
+ */
+final class Database {
+  static final String SELECT = "SELECT id, name, amount FROM bench";
+
+  private static final AtomicInteger databases = new AtomicInteger();
+
+  private Database() {
+    // prevent instantiation
+  }
+
+  /**
+   * @return a connection to a new database with a <code>bench</code> table of the given number of rows
+   */
+  static Connection create(int rows) throws SQLException {
+    Connection connection = DriverManager.getConnection("jdbc:h2:mem:bench" + databases.incrementAndGet(), "sa", "sa");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE bench (id INT PRIMARY KEY, name VARCHAR(64), amount DOUBLE)");
+      statement.execute(
+        "INSERT INTO bench SELECT x, 'name ' || x, x * 1.5 FROM SYSTEM_RANGE(1, " + rows + ")"
+      );
+      statement.execute("CREATE TABLE target (id INT, name VARCHAR(64), amount DOUBLE)");
+    }
+    return connection;
+  }
+
+  /**
+   * @return a connection, not in auto-commit mode, to the PostgreSQL database given by the <code>bench.pg.url</code>,
+   * <code>bench.pg.user</code> and <code>bench.pg.password</code> system properties, with a <code>returning_target</code>
+   * table with a generated id
+   */
+  static Connection postgres() throws SQLException {
+    Connection connection = DriverManager.getConnection(
+      System.getProperty("bench.pg.url", "jdbc:postgresql://localhost/postgres"),
+      System.getProperty("bench.pg.user", "postgres"),
+      System.getProperty("bench.pg.password", "")
+    );
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS returning_target (id SERIAL PRIMARY KEY, name VARCHAR(64))");
+    }
+    connection.setAutoCommit(false);
+    return connection;
+  }
+
+  static void truncateTarget(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("TRUNCATE TABLE target");
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.pg.sql.CopyEncoder;
+import com.trunk.rx.jdbc.pg.sql.CopyIn;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ExecuteUpdate;
+import com.trunk.rx.jdbc.sql.ExecuteUpdateGeneratedKeys;
+import com.trunk.rx.jdbc.sql.MultiRowInsert;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting rows one statement at a time, as a JDBC batch, and as multi-row <code>VALUES</code> statements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark {
+  private static final String INSERT = "INSERT INTO target (id, name, amount) VALUES (?, ?, ?)";
+
+  @Param({"1000"})
+  int rows;
+
+  @Param({"100"})
+  int rowsPerStatement;
+
+  private Connection connection;
+  private Observable<SelectBenchmark.Row> source;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(0);
+    source = Observable.range(1, rows).map(i -> new SelectBenchmark.Row(i, "name " + i, i * 1.5));
+  }
+
+  @Setup(Level.Invocation)
+  public void truncate() throws Exception {
+    Database.truncateTarget(connection);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void perRow(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      source.concatMap(
+        row -> ExecuteUpdate.using(
+          connection,
+          DefaultPreparedStatementBuilder.of(INSERT)
+            .add(row.id, Types.INTEGER)
+            .add(row.name, Types.VARCHAR)
+            .add(row.amount, Types.DOUBLE)
+        )
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void batch(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      source.buffer(rowsPerStatement)
+        .concatMap(
+          batch -> {
+            DefaultPreparedStatementBuilder builder = DefaultPreparedStatementBuilder.of(INSERT).returningGeneratedKeys();
+            for (SelectBenchmark.Row row : batch) {
+              builder = builder.add(row.id, Types.INTEGER).add(row.name, Types.VARCHAR).add(row.amount, Types.DOUBLE).addBatch();
+            }
+            return ExecuteUpdateGeneratedKeys.usingBatch(connection, builder, rs -> rs.getInt(1));
+          }
+        ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void batchedInserts(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      CopyIn.usingBatchedInserts(
+        connection,
+        "target",
+        Arrays.asList("id", "name", "amount"),
+        source,
+        CopyEncoder.text(row -> new Object[]{row.id, row.name, row.amount}),
+        rowsPerStatement
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void multiRowInsert(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      MultiRowInsert.using(
+        connection,
+        INSERT,
+        source,
+        row -> new Object[]{row.id, row.name, row.amount},
+        Types.INTEGER,
+        Types.VARCHAR,
+        Types.DOUBLE
+      )
+        .withRowsPerStatement(rowsPerStatement),
+      blackhole
+    );
+  }
+}
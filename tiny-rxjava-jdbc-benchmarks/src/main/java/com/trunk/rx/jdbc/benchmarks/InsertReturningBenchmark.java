@@ -0,0 +1,119 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.jooq.sql.InsertReturning;
+import com.trunk.rx.jdbc.jooq.sql.InsertReturningQueryBuilder;
+import org.jooq.Field;
+import org.jooq.InsertResultStep;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * A large <code>INSERT ... RETURNING</code> fetched into a jOOQ {@link org.jooq.Result} by
+ * {@link InsertReturning#using}, against streamed from a cursor by {@link InsertReturning#usingLazy}, with and
+ * without a fetch size. The <code>firstRow</code> benchmarks take only the first returned row, so measure the time
+ * to first row; the others read every returned row. Each insert is rolled back.
+ * <p>
+ * H2 has no <code>RETURNING</code> clause, so this needs PostgreSQL, see {@link Database#postgres()}. Run it with
+ * {@link PeakHeapProfiler} to compare the rows held in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertReturningBenchmark {
+  private static final Table<Record> TARGET = table(name("returning_target"));
+  private static final Field<Integer> ID = field(name("id"), Integer.class);
+  private static final Field<String> NAME = field(name("name"), String.class);
+  // by index, as finding a plain SQL field in a record by name renders it for every row
+  private static final RecordMapper<Record, Integer> ID_MAPPER = record -> record.getValue(0, Integer.class);
+
+  @Param({"100000"})
+  int rows;
+
+  @Param({"1000"})
+  int fetchSize;
+
+  private Connection connection;
+  private InsertReturningQueryBuilder<InsertResultStep<Record>> insert;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.postgres();
+    insert = c -> DSL.using(c, SQLDialect.POSTGRES)
+      .insertInto(TARGET, NAME)
+      .select(DSL.select(field("'name ' || x", String.class)).from("generate_series(1, " + rows + ") x"))
+      .returning(ID);
+  }
+
+  @TearDown(Level.Invocation)
+  public void rollback() throws Exception {
+    connection.rollback();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void fetch(Blackhole blackhole) {
+    BlackholeSubscriber.drain(InsertReturning.using(connection, insert, ID_MAPPER), blackhole);
+  }
+
+  @Benchmark
+  public void fetchFirstRow(Blackhole blackhole) {
+    BlackholeSubscriber.drain(InsertReturning.using(connection, insert, ID_MAPPER).take(1), blackhole);
+  }
+
+  @Benchmark
+  public void lazy(Blackhole blackhole) {
+    BlackholeSubscriber.drain(InsertReturning.usingLazy(connection, insert, ID_MAPPER), blackhole);
+  }
+
+  @Benchmark
+  public void lazyFirstRow(Blackhole blackhole) {
+    BlackholeSubscriber.drain(InsertReturning.usingLazy(connection, insert, ID_MAPPER).take(1), blackhole);
+  }
+
+  @Benchmark
+  public void lazyWithFetchSize(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      InsertReturning.usingLazy(connection, insert, ID_MAPPER, fetchSize),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void lazyWithFetchSizeFirstRow(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      InsertReturning.usingLazy(connection, insert, ID_MAPPER, fetchSize).take(1),
+      blackhole
+    );
+  }
+}
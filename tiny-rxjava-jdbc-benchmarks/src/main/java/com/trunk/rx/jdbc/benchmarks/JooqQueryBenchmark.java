@@ -0,0 +1,129 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.jooq.QueryTemplate;
+import com.trunk.rx.jdbc.jooq.sql.Select;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.param;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * A single row lookup by primary key, where only the bind value changes between executions: written by hand
+ * with the core operators, built with jOOQ for every execution, with and without a {@link JooqContext},
+ * and rendered once as a {@link QueryTemplate}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JooqQueryBenchmark {
+  private static final int ROWS = 1000;
+  private static final String SELECT_BY_ID = "SELECT id, name, amount FROM bench WHERE id = ?";
+  private static final Table<Record> BENCH = table("bench");
+  private static final Field<Integer> ID = field("id", SQLDataType.INTEGER);
+  private static final Field<String> NAME = field("name", SQLDataType.VARCHAR);
+  private static final Field<Double> AMOUNT = field("amount", SQLDataType.DOUBLE);
+
+  private final JooqContext context = JooqContext.of(SQLDialect.H2);
+  private final QueryTemplate template = QueryTemplate.of(
+    context,
+    dsl -> dsl.select(ID, NAME, AMOUNT).from(BENCH).where(ID.eq(param("id", Integer.class)))
+  );
+
+  private Connection connection;
+  private int id = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(ROWS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void core(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      ExecuteQuery.using(
+        connection,
+        DefaultPreparedStatementBuilder.of(SELECT_BY_ID).add(nextId(), Types.INTEGER),
+        rs -> new SelectBenchmark.Row(rs.getInt(1), rs.getString(2), rs.getDouble(3))
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void jooq(Blackhole blackhole) {
+    int id = nextId();
+    BlackholeSubscriber.drain(
+      Select.using(
+        connection,
+        c -> DSL.using(c, SQLDialect.H2).select(ID, NAME, AMOUNT).from(BENCH).where(ID.eq(id)),
+        r -> new SelectBenchmark.Row(r.getValue(ID), r.getValue(NAME), r.getValue(AMOUNT))
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void jooqContext(Blackhole blackhole) {
+    int id = nextId();
+    BlackholeSubscriber.drain(
+      Select.using(
+        connection,
+        context,
+        dsl -> dsl.select(ID, NAME, AMOUNT).from(BENCH).where(ID.eq(id)),
+        r -> new SelectBenchmark.Row(r.getValue(ID), r.getValue(NAME), r.getValue(AMOUNT))
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void jooqTemplate(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      ExecuteQuery.using(
+        connection,
+        template.bind(nextId()),
+        rs -> new SelectBenchmark.Row(rs.getInt(1), rs.getString(2), rs.getDouble(3))
+      ),
+      blackhole
+    );
+  }
+
+  private int nextId() {
+    id = id % ROWS + 1;
+    return id;
+  }
+}
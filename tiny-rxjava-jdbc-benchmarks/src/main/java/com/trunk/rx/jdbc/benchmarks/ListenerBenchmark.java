@@ -0,0 +1,84 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.listener.QueryListener;
+import com.trunk.rx.jdbc.listener.SlowQueryListener;
+import com.trunk.rx.jdbc.listener.StatementStatsListener;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of observing statements with {@link QueryListener}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerBenchmark {
+  @Param({"none", "noop", "slow", "stats"})
+  String listener;
+
+  @Param({"1", "100"})
+  int rows;
+
+  private Connection connection;
+  private ConnectionPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(rows);
+    pool = ConnectionPool.of(connection);
+    switch (listener) {
+      case "noop":
+        pool = pool.withListener(new QueryListener() {
+        });
+        break;
+      case "slow":
+        pool = pool.withListener(SlowQueryListener.of(Duration.ofSeconds(1)));
+        break;
+      case "stats":
+        pool = pool.withListener(StatementStatsListener.create());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void select(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      pool.execute(
+        c -> ExecuteQuery.using(
+          c,
+          connection -> connection.prepareStatement(Database.SELECT),
+          rs -> new SelectBenchmark.Row(rs.getInt(1), rs.getString(2), rs.getDouble(3))
+        )
+      ),
+      blackhole
+    );
+  }
+}
@@ -0,0 +1,91 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reports the most heap in use after any garbage collection in each iteration, an upper bound on the
+ * largest live set, eg the rows a driver or a jOOQ {@link org.jooq.Result} holds at once. Enable it with
+ * <code>-prof com.trunk.rx.jdbc.benchmarks.PeakHeapProfiler</code>. Nothing is reported for an iteration
+ * without a collection.
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+  private final Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+    .filter(pool -> pool.getType() == MemoryType.HEAP)
+    .map(MemoryPoolMXBean::getName)
+    .collect(Collectors.toSet());
+  private final AtomicLong peak = new AtomicLong();
+  private final NotificationListener listener = this::collected;
+
+  @Override
+  public String getDescription() {
+    return "Peak heap in use after garbage collection";
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    peak.set(0);
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+    }
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+    BenchmarkParams benchmarkParams,
+    IterationParams iterationParams,
+    IterationResult result
+  ) {
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      try {
+        ((NotificationEmitter) collector).removeNotificationListener(listener);
+      } catch (Exception e) {
+        // not registered
+      }
+    }
+    long bytes = peak.get();
+    if (bytes == 0) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(
+      new ScalarResult("·heap.peak.afterGc", bytes / (1024.0 * 1024.0), "MB", AggregationPolicy.MAX)
+    );
+  }
+
+  private void collected(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+      GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    long used = 0;
+    for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+      if (heapPools.contains(pool.getKey())) {
+        used += pool.getValue().getUsed();
+      }
+    }
+    peak.accumulateAndGet(used, Math::max);
+  }
+}
@@ -0,0 +1,117 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.NamedParameterPreparedStatementBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of describing parameters with each builder, and of preparing and binding the statement from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreparedStatementBuilderBenchmark {
+  private static final List<Integer> IDS = Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+
+  private Connection connection;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public DefaultPreparedStatementBuilder defaultDescribe() throws Exception {
+    return describeDefault();
+  }
+
+  @Benchmark
+  public NamedParameterPreparedStatementBuilder namedDescribe() throws Exception {
+    return describeNamed();
+  }
+
+  @Benchmark
+  public void defaultBuild(Blackhole blackhole) throws Exception {
+    try (PreparedStatement statement = describeDefault().build(connection)) {
+      blackhole.consume(statement);
+    }
+  }
+
+  @Benchmark
+  public void namedBuild(Blackhole blackhole) throws Exception {
+    try (PreparedStatement statement = describeNamed().build(connection)) {
+      blackhole.consume(statement);
+    }
+  }
+
+  @Benchmark
+  public void defaultBuildIn(Blackhole blackhole) throws Exception {
+    try (
+      PreparedStatement statement = DefaultPreparedStatementBuilder.of("SELECT id FROM bench WHERE id IN (?)")
+        .addIn(IDS, Types.INTEGER)
+        .build(connection)
+    ) {
+      blackhole.consume(statement);
+    }
+  }
+
+  @Benchmark
+  public void namedBuildIn(Blackhole blackhole) throws Exception {
+    try (
+      PreparedStatement statement = NamedParameterPreparedStatementBuilder.of("SELECT id FROM bench WHERE id IN (:ids)")
+        .addIn("ids", IDS, Types.INTEGER)
+        .build(connection)
+    ) {
+      blackhole.consume(statement);
+    }
+  }
+
+  private static DefaultPreparedStatementBuilder describeDefault() {
+    return DefaultPreparedStatementBuilder.of(
+      "SELECT id FROM bench WHERE id > ? AND id < ? AND name <> ? AND amount > ? AND amount < ?"
+    )
+      .add(0, Types.INTEGER)
+      .add(100, Types.INTEGER)
+      .add("name", Types.VARCHAR)
+      .add(0.5, Types.DOUBLE)
+      .add(1000.5, Types.DOUBLE);
+  }
+
+  private static NamedParameterPreparedStatementBuilder describeNamed() throws Exception {
+    return NamedParameterPreparedStatementBuilder.of(
+      "SELECT id FROM bench WHERE id > :low AND id < :high AND name <> :name AND amount > :min AND amount < :max"
+    )
+      .add("low", 0, Types.INTEGER)
+      .add("high", 100, Types.INTEGER)
+      .add("name", "name", Types.VARCHAR)
+      .add("min", 0.5, Types.DOUBLE)
+      .add("max", 1000.5, Types.DOUBLE);
+  }
+}
@@ -0,0 +1,146 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.sql.RowProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RowProducer} emission loop on its own, over preallocated rows rather than a database,
+ * reported in rows per second. Compare with {@link SelectBenchmark} to see the share of the loop in a real read.
+ * Run with <code>-prof gc</code> to check the loop allocates nothing per row, and with
+ * <code>-jvmArgsAppend -XX:+PrintCompilation</code> to check <code>RowProducer::emit</code> is compiled.
+ * <p>
+ * Every producer shares the loop's <code>emitNext</code> call site, so it is only monomorphic while a single
+ * producer class has been used. <code>producerTypes=3</code> first runs two other producer classes through the
+ * loop, as an application using several operators would, to measure the cost of the megamorphic call. Add
+ * <code>-XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining</code> to see whether <code>emitNext</code> is inlined.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowProducerBenchmark {
+  private static final int ROWS = 10000;
+
+  @Param({"1", "128", "unbounded"})
+  String requestBatch;
+
+  @Param({"1", "3"})
+  int producerTypes;
+
+  private Integer[] rows;
+  private Observable<Integer> observable;
+
+  @Setup
+  public void setUp() {
+    rows = new Integer[ROWS];
+    for (int i = 0; i < ROWS; ++i) {
+      rows[i] = i;
+    }
+    observable = Observable.create(subscriber -> subscriber.setProducer(new ArrayProducer(subscriber, rows)));
+    if (producerTypes > 1) {
+      // enough rows to be profiled before the benchmark's own producer is
+      Blackhole blackhole = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+      for (int i = 0; i < 100; ++i) {
+        BlackholeSubscriber.drain(Observable.create(subscriber -> subscriber.setProducer(new OtherProducer(subscriber, rows))), blackhole);
+        BlackholeSubscriber.drain(Observable.create(subscriber -> subscriber.setProducer(new AnotherProducer(subscriber, rows))), blackhole);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void emit(Blackhole blackhole) {
+    if ("unbounded".equals(requestBatch)) {
+      BlackholeSubscriber.drain(observable, blackhole);
+    } else {
+      BlackholeSubscriber.drain(observable, blackhole, Long.parseLong(requestBatch));
+    }
+  }
+
+  private static final class ArrayProducer extends RowProducer<Integer> {
+    private final Integer[] rows;
+    private int index;
+
+    ArrayProducer(Subscriber<? super Integer> subscriber, Integer[] rows) {
+      super(subscriber);
+      this.rows = rows;
+    }
+
+    @Override
+    protected boolean emitNext(Subscriber<? super Integer> subscriber) {
+      if (index == rows.length) {
+        return false;
+      }
+      subscriber.onNext(rows[index++]);
+      return true;
+    }
+
+    @Override
+    protected void close() {
+    }
+  }
+
+  private static final class OtherProducer extends RowProducer<Integer> {
+    private final Integer[] rows;
+    private int index;
+
+    OtherProducer(Subscriber<? super Integer> subscriber, Integer[] rows) {
+      super(subscriber);
+      this.rows = rows;
+    }
+
+    @Override
+    protected boolean emitNext(Subscriber<? super Integer> subscriber) {
+      if (index == rows.length) {
+        return false;
+      }
+      subscriber.onNext(rows[index++]);
+      return true;
+    }
+
+    @Override
+    protected void close() {
+    }
+  }
+
+  private static final class AnotherProducer extends RowProducer<Integer> {
+    private final Integer[] rows;
+    private int index;
+
+    AnotherProducer(Subscriber<? super Integer> subscriber, Integer[] rows) {
+      super(subscriber);
+      this.rows = rows;
+    }
+
+    @Override
+    protected boolean emitNext(Subscriber<? super Integer> subscriber) {
+      if (index == rows.length) {
+        return false;
+      }
+      subscriber.onNext(rows[index++]);
+      return true;
+    }
+
+    @Override
+    protected void close() {
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.sql.ColumnarChunk;
+import com.trunk.rx.jdbc.sql.ColumnarChunkMapper;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import com.trunk.rx.jdbc.jooq.sql.Select;
+import com.trunk.rx.jdbc.jooq.sql.SelectFields;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static com.trunk.rx.jdbc.sql.ColumnarChunk.Type.DOUBLE;
+import static com.trunk.rx.jdbc.sql.ColumnarChunk.Type.INT;
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Reading rows through the core and jOOQ producers: the fast path, taken when everything is requested,
+ * against the back-pressure path, plus chunked and columnar reads. Run with <code>-prof gc</code> to compare
+ * the allocation per row of jOOQ {@link Select}, which creates a {@link Record} per row, with {@link SelectFields}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+  private static final Table<Record> BENCH = table("bench");
+  private static final Field<Integer> ID = field("id", SQLDataType.INTEGER);
+  private static final Field<String> NAME = field("name", SQLDataType.VARCHAR);
+  private static final Field<Double> AMOUNT = field("amount", SQLDataType.DOUBLE);
+
+  @Param({"1", "100", "10000"})
+  int rows;
+
+  @Param({"1", "128"})
+  int requestBatch;
+
+  private Connection connection;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connection = Database.create(rows);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+  }
+
+  @Benchmark
+  public void coreFastPath(Blackhole blackhole) {
+    BlackholeSubscriber.drain(coreSelect(), blackhole);
+  }
+
+  @Benchmark
+  public void coreBackPressure(Blackhole blackhole) {
+    BlackholeSubscriber.drain(coreSelect(), blackhole, requestBatch);
+  }
+
+  @Benchmark
+  public void coreChunks(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      ExecuteQuery.usingChunks(
+        connection,
+        c -> c.prepareStatement(Database.SELECT),
+        rs -> new Row(rs.getInt(1), rs.getString(2), rs.getDouble(3)),
+        1000
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void coreColumnarChunks(Blackhole blackhole) {
+    BlackholeSubscriber.drain(
+      ExecuteQuery.<ColumnarChunk>usingChunks(
+        connection,
+        c -> c.prepareStatement("SELECT id, amount FROM bench"),
+        ColumnarChunkMapper.of(INT, DOUBLE),
+        1000
+      ),
+      blackhole
+    );
+  }
+
+  @Benchmark
+  public void jooqFastPath(Blackhole blackhole) {
+    BlackholeSubscriber.drain(jooqSelect(), blackhole);
+  }
+
+  @Benchmark
+  public void jooqBackPressure(Blackhole blackhole) {
+    BlackholeSubscriber.drain(jooqSelect(), blackhole, requestBatch);
+  }
+
+  @Benchmark
+  public void jooqFieldsFastPath(Blackhole blackhole) {
+    BlackholeSubscriber.drain(jooqFieldsSelect(), blackhole);
+  }
+
+  @Benchmark
+  public void jooqFieldsBackPressure(Blackhole blackhole) {
+    BlackholeSubscriber.drain(jooqFieldsSelect(), blackhole, requestBatch);
+  }
+
+  private ExecuteQuery<Row> coreSelect() {
+    return ExecuteQuery.using(
+      connection,
+      c -> c.prepareStatement(Database.SELECT),
+      rs -> new Row(rs.getInt(1), rs.getString(2), rs.getDouble(3))
+    );
+  }
+
+  private Select<Record, Row> jooqSelect() {
+    return Select.using(
+      connection,
+      c -> DSL.using(c, SQLDialect.H2).resultQuery(Database.SELECT),
+      r -> new Row(r.getValue(0, Integer.class), r.getValue(1, String.class), r.getValue(2, Double.class))
+    );
+  }
+
+  private SelectFields<Row> jooqFieldsSelect() {
+    return SelectFields.using(
+      connection,
+      c -> DSL.using(c, SQLDialect.H2).select(ID, NAME, AMOUNT).from(BENCH),
+      r -> new Row(r.getInt(ID), r.get(NAME), r.getDouble(AMOUNT))
+    );
+  }
+
+  static final class Row {
+    final int id;
+    final String name;
+    final double amount;
+
+    Row(int id, String name, double amount) {
+      this.id = id;
+      this.name = name;
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.trunk.rx.jdbc.benchmarks;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.TransactionContextExecutor;
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ExecuteUpdate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rx.Observable;
+
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of each transaction context around the same updates, acquiring a connection
+ * from an H2 connection pool for each subscription.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionContextBenchmark {
+  @Param({"1", "10"})
+  int updates;
+
+  private H2ConnectionProvider provider;
+  private ConnectionPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    // kept open between subscriptions
+    provider = new H2ConnectionProvider("transactions", ";DB_CLOSE_DELAY=-1");
+    try (Connection connection = provider.call()) {
+      connection.createStatement().execute("CREATE TABLE IF NOT EXISTS bench (id INT PRIMARY KEY, amount DOUBLE)");
+      connection.createStatement().execute("MERGE INTO bench SELECT x, x FROM SYSTEM_RANGE(1, 100)");
+    }
+    pool = ConnectionPool.from(provider);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    pool.close();
+  }
+
+  @Benchmark
+  public void autoCommit(Blackhole blackhole) {
+    BlackholeSubscriber.drain(execute().withAutoCommit(), blackhole);
+  }
+
+  @Benchmark
+  public void singleTransaction(Blackhole blackhole) {
+    BlackholeSubscriber.drain(execute().withSingleTransaction(), blackhole);
+  }
+
+  @Benchmark
+  public void transactionPerEvent(Blackhole blackhole) {
+    BlackholeSubscriber.drain(execute().withTransactionPerEvent(), blackhole);
+  }
+
+  private TransactionContextExecutor<Integer> execute() {
+    return pool.execute(
+      connection -> Observable.range(1, updates)
+        .concatMap(
+          id -> ExecuteUpdate.using(
+            connection,
+            DefaultPreparedStatementBuilder.of("UPDATE bench SET amount = amount + 1 WHERE id = ?").add(id, Types.INTEGER)
+          )
+        )
+    );
+  }
+}
@@ -1,5 +1,7 @@
 package com.trunk.rx.jdbc;
 
+import com.trunk.rx.jdbc.listener.ListeningConnectionProvider;
+import com.trunk.rx.jdbc.listener.QueryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +58,17 @@ public class ConnectionPool implements AutoCloseable {
     this.provider = provider;
   }
 
+  /**
+   * Report the lifecycle of every statement executed on this pool's connections to the given listener.
+   * Listeners added by repeated calls are all notified.
+   *
+   * @param listener the {@link QueryListener} to notify
+   * @return a new ConnectionPool sharing this pool's {@link ConnectionProvider}
+   */
+  public ConnectionPool withListener(QueryListener listener) {
+    return new ConnectionPool(ListeningConnectionProvider.of(provider, listener));
+  }
+
   public <T> TransactionContextExecutor<T> execute(ConnectionConsumer<T> consumer) {
     return new TransactionContextExecutor<>(TransactionContextExecutor.AUTO_COMMIT_TRANSACTION_CONTEXT, provider, consumer);
   }
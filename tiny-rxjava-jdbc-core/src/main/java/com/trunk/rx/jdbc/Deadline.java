@@ -0,0 +1,161 @@
+package com.trunk.rx.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An absolute point in time by which work on a {@link Connection} must be complete.
+ *
+ * @see TransactionContextExecutor#withDeadline(Duration)
+ * @see TransactionContextExecutor#withDeadline(Instant)
+ */
+public final class Deadline {
+  private static final Logger log = LoggerFactory.getLogger(Deadline.class);
+
+  private final Instant instant;
+  private final Clock clock;
+
+  /**
+   * @return a deadline the given duration from now
+   */
+  public static Deadline after(Duration timeout) {
+    return after(timeout, Clock.systemUTC());
+  }
+
+  static Deadline after(Duration timeout, Clock clock) {
+    return new Deadline(clock.instant().plus(timeout), clock);
+  }
+
+  /**
+   * @return a deadline at the given instant
+   */
+  public static Deadline at(Instant instant) {
+    return new Deadline(instant, Clock.systemUTC());
+  }
+
+  private Deadline(Instant instant, Clock clock) {
+    this.instant = instant;
+    this.clock = clock;
+  }
+
+  public Instant instant() {
+    return instant;
+  }
+
+  /**
+   * @return the milliseconds until the deadline, or a negative number if it has passed
+   */
+  public long remainingMillis() {
+    return Duration.between(clock.instant(), instant).toMillis();
+  }
+
+  public boolean isExpired() {
+    return remainingMillis() <= 0;
+  }
+
+  /**
+   * @return the remaining time as a {@link Statement#setQueryTimeout(int) query timeout}, rounded up to a whole second
+   * @throws SQLTimeoutException if the deadline has passed
+   */
+  public int remainingSeconds() throws SQLTimeoutException {
+    long remaining = remainingMillis();
+    if (remaining <= 0) {
+      throw timeoutException();
+    }
+    return (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+  }
+
+  public SQLTimeoutException timeoutException() {
+    return new SQLTimeoutException("Deadline " + instant + " exceeded");
+  }
+
+  /**
+   * Wrap the {@link Connection} so that every {@link Statement} it creates has its
+   * {@link Statement#setQueryTimeout(int) query timeout} set to the time remaining.
+   * Creating a statement after the deadline throws a {@link SQLTimeoutException}.
+   */
+  public Connection limit(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(
+      Deadline.class.getClassLoader(),
+      new Class<?>[]{Connection.class},
+      (proxy, method, args) -> {
+        Object result;
+        try {
+          result = method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+        if (result instanceof Statement) {
+          Statement statement = (Statement) result;
+          try {
+            statement.setQueryTimeout(remainingSeconds());
+          } catch (SQLException e) {
+            statement.close();
+            throw e;
+          }
+        }
+        return result;
+      }
+    );
+  }
+
+  /**
+   * Wrap the {@link ConnectionProvider} so that each {@link Connection} it provides is {@link #limit(Connection) limited}
+   * by this deadline. A connection acquired after the deadline is closed and a {@link SQLTimeoutException} thrown.
+   */
+  public ConnectionProvider limit(ConnectionProvider provider) {
+    return new ConnectionProvider() {
+      @Override
+      public Connection call() {
+        Connection connection = provider.call();
+        if (isExpired()) {
+          Util.closeQuietly(connection);
+          throw new RuntimeException(timeoutException());
+        }
+        return limit(connection);
+      }
+
+      @Override
+      public void close() throws Exception {
+        provider.close();
+      }
+    };
+  }
+
+  /**
+   * Error with a {@link SQLTimeoutException} if the source has not terminated by the deadline.
+   * The source is unsubscribed from at the deadline, which cancels any executing statement
+   * and releases the connection.
+   */
+  public <T> Observable<T> watch(Observable<T> source) {
+    return source.timeout(
+      this::timer,
+      t -> timer(),
+      Observable.defer(() -> {
+        log.debug("Deadline {} exceeded", instant);
+        return Observable.<T>error(timeoutException());
+      })
+    );
+  }
+
+  private Observable<Long> timer() {
+    return Observable.timer(Math.max(0, remainingMillis()), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline{" + instant + '}';
+  }
+}
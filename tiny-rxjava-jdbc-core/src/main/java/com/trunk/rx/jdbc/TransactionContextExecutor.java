@@ -1,11 +1,18 @@
 package com.trunk.rx.jdbc;
 
+import com.trunk.rx.jdbc.listener.Instrumentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.functions.Func0;
+import rx.functions.Func1;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Allows the execution of a {@link ConnectionConsumer} in a transaction context.
@@ -14,6 +21,11 @@ import java.sql.SQLException;
  * <p>
  * TransactionContextExecutor manages the lifecycle of the connection objects it creates
  * by getting a connection from the {@link ConnectionProvider} for each subscription.
+ * <p>
+ * A {@link Deadline} can be set with {@link #withDeadline(Duration)} or {@link #withDeadline(Instant)}
+ * to bound the whole execution, from acquiring the connection to the last event.
+ * <p>
+ * Connections are observed by the {@link com.trunk.rx.jdbc.listener.InstrumentationProvider} on the class path, if any.
  *
  * @see #withAutoCommit()
  * @see #withSingleTransaction()
@@ -26,17 +38,30 @@ public class TransactionContextExecutor<T> extends Observable<T> {
   public static final SingleTransactionTransactionContext SINGLE_TRANSACTION_TRANSACTION_CONTEXT = new SingleTransactionTransactionContext();
   public static final TransactionPerEventTransactionContext TRANSACTION_PER_EVENT_TRANSACTION_CONTEXT = new TransactionPerEventTransactionContext();
 
+  private final TransactionContext transactionContext;
   private final ConnectionProvider provider;
   private final ConnectionConsumer<T> connectionConsumer;
+  private final Func0<Deadline> deadline;
 
   public TransactionContextExecutor(
     TransactionContext transactionContext,
     ConnectionProvider provider,
     ConnectionConsumer<T> connectionConsumer
   ) {
-    super(subscriber -> transactionContext.f(provider, connectionConsumer).subscribe(subscriber));
+    this(transactionContext, provider, connectionConsumer, null);
+  }
+
+  private TransactionContextExecutor(
+    TransactionContext transactionContext,
+    ConnectionProvider provider,
+    ConnectionConsumer<T> connectionConsumer,
+    Func0<Deadline> deadline
+  ) {
+    super(subscriber -> execute(transactionContext, provider, connectionConsumer, deadline).subscribe(subscriber));
+    this.transactionContext = transactionContext;
     this.provider = provider;
     this.connectionConsumer = connectionConsumer;
+    this.deadline = deadline;
   }
 
   /**
@@ -45,7 +70,7 @@ public class TransactionContextExecutor<T> extends Observable<T> {
    * @return the result of executing {@link ConnectionConsumer#call(Connection)} with auto-commit transactions
    */
   public TransactionContextExecutor<T> withAutoCommit() {
-    return new TransactionContextExecutor<>(AUTO_COMMIT_TRANSACTION_CONTEXT, provider, connectionConsumer);
+    return new TransactionContextExecutor<>(AUTO_COMMIT_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
   }
 
   /**
@@ -55,7 +80,7 @@ public class TransactionContextExecutor<T> extends Observable<T> {
    * @return the result of executing {@link ConnectionConsumer#call(Connection)}
    */
   public TransactionContextExecutor<T> withSingleTransaction() {
-    return new TransactionContextExecutor<>(SINGLE_TRANSACTION_TRANSACTION_CONTEXT, provider, connectionConsumer);
+    return new TransactionContextExecutor<>(SINGLE_TRANSACTION_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
   }
 
   /**
@@ -66,7 +91,53 @@ public class TransactionContextExecutor<T> extends Observable<T> {
    * @return the result of executing {@link ConnectionConsumer#call(Connection)}
    */
   public TransactionContextExecutor<T> withTransactionPerEvent() {
-    return new TransactionContextExecutor<>(TRANSACTION_PER_EVENT_TRANSACTION_CONTEXT, provider, connectionConsumer);
+    return new TransactionContextExecutor<>(TRANSACTION_PER_EVENT_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} within the given time of each subscription.
+   *
+   * @param timeout the time allowed for each subscription
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)} with a deadline
+   * @see #withDeadline(Instant)
+   */
+  public TransactionContextExecutor<T> withDeadline(Duration timeout) {
+    return new TransactionContextExecutor<>(transactionContext, provider, connectionConsumer, () -> Deadline.after(timeout));
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} before the given instant.
+   * <p>
+   * Every statement created from the {@link Connection} has its {@link java.sql.Statement#setQueryTimeout(int) query timeout}
+   * set to the time remaining. If the deadline passes, while waiting for a connection or while executing,
+   * the subscription is cancelled, which cancels any executing statement, rolls back any open transaction
+   * and releases the connection, and an {@link SQLTimeoutException} is emitted.
+   * If the deadline has already passed no connection is acquired.
+   *
+   * @param instant the instant by which execution must be complete
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)} with a deadline
+   */
+  public TransactionContextExecutor<T> withDeadline(Instant instant) {
+    Deadline fixed = Deadline.at(instant);
+    return new TransactionContextExecutor<>(transactionContext, provider, connectionConsumer, () -> fixed);
+  }
+
+  private static <T> Observable<T> execute(
+    TransactionContext transactionContext,
+    ConnectionProvider provider,
+    ConnectionConsumer<T> connectionConsumer,
+    Func0<Deadline> deadline
+  ) {
+    ConnectionProvider instrumented = Instrumentation.instrument(provider);
+    if (deadline == null) {
+      return transactionContext.f(instrumented, connectionConsumer);
+    }
+    Deadline d = deadline.call();
+    if (d.isExpired()) {
+      log.debug("{} has already passed", d);
+      return Observable.error(d.timeoutException());
+    }
+    return d.watch(transactionContext.f(d.limit(instrumented), connectionConsumer));
   }
 
   private static <T> Observable<T> withAutoCommit(Connection connection) {
@@ -124,11 +195,6 @@ public class TransactionContextExecutor<T> extends Observable<T> {
     }
   }
 
-  private static void cleanupConnection(Connection connection) {
-    rollBackTransaction(connection);
-    closeConnection(connection);
-  }
-
   private static Observable<Connection> autoclosingConnection(ConnectionProvider provider) {
     return Observable.using(
       provider,
@@ -138,6 +204,29 @@ public class TransactionContextExecutor<T> extends Observable<T> {
     );
   }
 
+  /**
+   * Get a connection for each subscription and close it once the transaction using it terminates or is unsubscribed.
+   * The transaction is subscribed to directly, without prefetching, so it is never completed, and committed, ahead of
+   * the subscriber's requests. If unsubscribed before the transaction terminates it is rolled back before the connection
+   * is closed, as the connection is released before any unsubscribe action of the transaction itself would run.
+   */
+  private static <T> Observable<T> usingTransaction(ConnectionProvider provider, Func1<Connection, Observable<T>> transaction) {
+    return Observable.defer(() -> {
+      AtomicBoolean terminated = new AtomicBoolean();
+      return Observable.using(
+        provider,
+        c -> transaction.call(c).doOnTerminate(() -> terminated.set(true)),
+        c -> {
+          if (!terminated.get()) {
+            rollBackTransaction(c);
+          }
+          closeConnection(c);
+        },
+        true
+      );
+    });
+  }
+
   public interface TransactionContext {
     <T> Observable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer);
   }
@@ -159,36 +248,32 @@ public class TransactionContextExecutor<T> extends Observable<T> {
   public static class SingleTransactionTransactionContext implements TransactionContext {
     @Override
     public <T> Observable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer) {
-      return autoclosingConnection(provider)
-        .flatMap(
-          c -> {
-            UnclosableConnection unclosableConnection = new UnclosableConnection(c);
-            return TransactionContextExecutor.<T>withManualTransactions(c)
-              .concatWith(consumer.call(unclosableConnection))
-              .doOnCompleted(() -> commitTransaction(c))
-              .doOnError(e -> rollBackTransaction(c))
-              .doOnUnsubscribe(() -> cleanupConnection(c))
-              .finallyDo(() -> closeConnection(c));
-          }
-        );
+      return usingTransaction(
+        provider,
+        c -> {
+          UnclosableConnection unclosableConnection = new UnclosableConnection(c);
+          return TransactionContextExecutor.<T>withManualTransactions(c)
+            .concatWith(consumer.call(unclosableConnection))
+            .doOnCompleted(() -> commitTransaction(c))
+            .doOnError(e -> rollBackTransaction(c));
+        }
+      );
     }
   }
 
   public static class TransactionPerEventTransactionContext implements TransactionContext {
     @Override
     public <T> Observable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer) {
-      return autoclosingConnection(provider)
-        .flatMap(
-          c -> {
-            UnclosableConnection unclosableConnection = new UnclosableConnection(c);
-            return TransactionContextExecutor.<T>withManualTransactions(c)
-              .concatWith(consumer.call(unclosableConnection))
-              .doOnNext(t -> commitTransaction(c))
-              .doOnError(e -> rollBackTransaction(c))
-              .doOnUnsubscribe(() -> cleanupConnection(c))
-              .finallyDo(() -> closeConnection(c));
-          }
-        );
+      return usingTransaction(
+        provider,
+        c -> {
+          UnclosableConnection unclosableConnection = new UnclosableConnection(c);
+          return TransactionContextExecutor.<T>withManualTransactions(c)
+            .concatWith(consumer.call(unclosableConnection))
+            .doOnNext(t -> commitTransaction(c))
+            .doOnError(e -> rollBackTransaction(c));
+        }
+      );
     }
   }
 }
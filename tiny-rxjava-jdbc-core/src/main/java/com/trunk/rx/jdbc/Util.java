@@ -6,10 +6,15 @@ package com.trunk.rx.jdbc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Utility methods.
@@ -45,30 +50,14 @@ public final class Util {
   }
 
   /**
-   * Cancels then closes a {@link PreparedStatement} and logs exceptions without throwing. Does nothing if ps is null.
+   * Closes a {@link PreparedStatement} and logs exceptions without throwing. Does nothing if ps is null.
+   * The statement is not cancelled, see {@link #cancelAndCloseQuietly(PreparedStatement)}.
    *
    * @param ps
    */
   public static void closeQuietly(PreparedStatement ps) {
     try {
-      boolean isClosed;
-      try {
-        if (ps != null) {
-          isClosed = ps.isClosed();
-        } else {
-          isClosed = true;
-        }
-      } catch (SQLException e) {
-        log.debug(e.getMessage());
-        isClosed = true;
-      }
-      if (ps != null && !isClosed) {
-        try {
-          ps.cancel();
-          log.debug("cancelled {}", ps);
-        } catch (SQLException e) {
-          log.debug(e.getMessage());
-        }
+      if (ps != null && !isClosed(ps)) {
         ps.close();
         log.debug("closed {}", ps);
       }
@@ -79,6 +68,46 @@ public final class Util {
     }
   }
 
+  /**
+   * Cancels a {@link Statement} that has not been closed and logs exceptions without throwing. Does nothing if
+   * statement is null. Only use this while the statement is executing or its results are being read,
+   * as some drivers, eg PostgreSQL, open a new connection to the server for each cancel.
+   *
+   * @param statement
+   */
+  public static void cancelQuietly(Statement statement) {
+    try {
+      if (statement != null && !isClosed(statement)) {
+        statement.cancel();
+        log.debug("cancelled {}", statement);
+      }
+    } catch (SQLException e) {
+      log.debug(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Cancels then closes a {@link PreparedStatement} and logs exceptions without throwing. Does nothing if ps is null.
+   *
+   * @param ps
+   * @see #cancelQuietly(Statement)
+   */
+  public static void cancelAndCloseQuietly(PreparedStatement ps) {
+    cancelQuietly(ps);
+    closeQuietly(ps);
+  }
+
+  private static boolean isClosed(Statement statement) {
+    try {
+      return statement.isClosed();
+    } catch (SQLException e) {
+      log.debug(e.getMessage());
+      return true;
+    }
+  }
+
   /**
    * Closes a {@link ResultSet} and logs exceptions without throwing.
    *
@@ -96,4 +125,58 @@ public final class Util {
       log.debug(e.getMessage(), e);
     }
   }
+
+  /**
+   * Closes a {@link Closeable} and logs exceptions without throwing. Does nothing if closeable is null.
+   *
+   * @param closeable
+   */
+  public static void closeQuietly(Closeable closeable) {
+    try {
+      if (closeable != null) {
+        closeable.close();
+        log.debug("closed {}", closeable);
+      }
+    } catch (IOException e) {
+      log.debug(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Frees a {@link Blob} and logs exceptions without throwing. Does nothing if blob is null.
+   *
+   * @param blob
+   */
+  public static void freeQuietly(Blob blob) {
+    try {
+      if (blob != null) {
+        blob.free();
+        log.debug("freed {}", blob);
+      }
+    } catch (SQLException e) {
+      log.debug(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Frees a {@link Clob} and logs exceptions without throwing. Does nothing if clob is null.
+   *
+   * @param clob
+   */
+  public static void freeQuietly(Clob clob) {
+    try {
+      if (clob != null) {
+        clob.free();
+        log.debug("freed {}", clob);
+      }
+    } catch (SQLException e) {
+      log.debug(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
 }
@@ -0,0 +1,47 @@
+package com.trunk.rx.jdbc.listener;
+
+/**
+ * Receives the lifecycle events of one {@link java.sql.Connection} acquired by a
+ * {@link com.trunk.rx.jdbc.TransactionContextExecutor}, created by an {@link InstrumentationProvider}
+ * for each acquisition.
+ * <p>
+ * With auto-commit off a transaction begins with the first statement created after auto-commit was turned off
+ * or the last commit or rollback, so transactions without statements are not reported.
+ * Exceptions thrown by a listener are logged and ignored.
+ */
+public interface ConnectionListener {
+
+  /**
+   * The connection has been acquired from the {@link com.trunk.rx.jdbc.ConnectionProvider}.
+   */
+  default void onAcquired() {
+  }
+
+  /**
+   * The {@link com.trunk.rx.jdbc.ConnectionProvider} failed to provide a connection.
+   */
+  default void onAcquireFailed(Throwable error) {
+  }
+
+  default void onBegin() {
+  }
+
+  default void onCommit() {
+  }
+
+  default void onRollback() {
+  }
+
+  /**
+   * The connection has been closed and returned to its pool.
+   */
+  default void onRelease() {
+  }
+
+  /**
+   * @return the listener for the statements of this connection, or null if statements are not observed
+   */
+  default QueryListener queryListener() {
+    return null;
+  }
+}
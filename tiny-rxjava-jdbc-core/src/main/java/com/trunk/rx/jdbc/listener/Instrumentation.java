@@ -0,0 +1,85 @@
+package com.trunk.rx.jdbc.listener;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Applies the {@link InstrumentationProvider} found on the class path, if any, to the
+ * connections acquired by {@link com.trunk.rx.jdbc.TransactionContextExecutor}.
+ * Without a provider connections are not wrapped, so there is no cost.
+ */
+public final class Instrumentation {
+  private static final Logger log = LoggerFactory.getLogger(Instrumentation.class);
+
+  private static final InstrumentationProvider PROVIDER = load();
+
+  private Instrumentation() {
+    // prevent instantiation
+  }
+
+  /**
+   * @return true if an {@link InstrumentationProvider} was found
+   */
+  public static boolean isEnabled() {
+    return PROVIDER != null;
+  }
+
+  /**
+   * @return the given provider, wrapped to be observed by the {@link InstrumentationProvider} if one was found
+   */
+  public static ConnectionProvider instrument(ConnectionProvider provider) {
+    return PROVIDER == null ? provider : instrument(provider, PROVIDER);
+  }
+
+  static ConnectionProvider instrument(ConnectionProvider provider, InstrumentationProvider instrumentation) {
+    return new ConnectionProvider() {
+      @Override
+      public Connection call() {
+        ConnectionListener listener = instrumentation.connectionListener();
+        if (listener == null) {
+          return provider.call();
+        }
+        Connection connection;
+        try {
+          connection = provider.call();
+        } catch (RuntimeException e) {
+          InstrumentedConnection.fire(() -> listener.onAcquireFailed(e));
+          throw e;
+        }
+        InstrumentedConnection.fire(listener::onAcquired);
+        return (Connection) Proxy.newProxyInstance(
+          Instrumentation.class.getClassLoader(),
+          new Class<?>[]{Connection.class},
+          new InstrumentedConnection(connection, listener)
+        );
+      }
+
+      @Override
+      public void close() throws Exception {
+        provider.close();
+      }
+    };
+  }
+
+  private static InstrumentationProvider load() {
+    try {
+      Iterator<InstrumentationProvider> providers =
+        ServiceLoader.load(InstrumentationProvider.class, Instrumentation.class.getClassLoader()).iterator();
+      if (providers.hasNext()) {
+        InstrumentationProvider provider = providers.next();
+        log.info("Instrumenting connections with {}", provider.getClass().getName());
+        return provider;
+      }
+    } catch (ServiceConfigurationError e) {
+      log.warn("Unable to load instrumentation", e);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,17 @@
+package com.trunk.rx.jdbc.listener;
+
+/**
+ * A service, found with {@link java.util.ServiceLoader}, that observes every connection acquired by a
+ * {@link com.trunk.rx.jdbc.TransactionContextExecutor}, eg to record Java Flight Recorder events.
+ *
+ * @see Instrumentation
+ */
+public interface InstrumentationProvider {
+
+  /**
+   * Called before each connection is acquired.
+   *
+   * @return the listener for the connection, or null if it is not to be observed
+   */
+  ConnectionListener connectionListener();
+}
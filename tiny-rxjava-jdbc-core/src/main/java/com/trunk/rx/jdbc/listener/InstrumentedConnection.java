@@ -0,0 +1,94 @@
+package com.trunk.rx.jdbc.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+
+/**
+ * Reports the transactions and release of a {@link Connection} to a {@link ConnectionListener},
+ * and its statements to the listener's {@link QueryListener} through a {@link ListeningConnection}.
+ */
+class InstrumentedConnection implements InvocationHandler {
+  private static final Logger log = LoggerFactory.getLogger(InstrumentedConnection.class);
+
+  private final Connection delegate;
+  private final ConnectionListener listener;
+  private final ListeningConnection statements;
+  private boolean autoCommit = true;
+  private boolean inTransaction;
+  private boolean released;
+
+  InstrumentedConnection(Connection delegate, ConnectionListener listener) {
+    this.delegate = delegate;
+    this.listener = listener;
+    QueryListener queryListener = listener.queryListener();
+    this.statements = queryListener == null ? null : new ListeningConnection(delegate, queryListener);
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (name.startsWith("prepare") || name.equals("createStatement")) {
+      if (!autoCommit && !inTransaction) {
+        // a transaction begins with its first statement
+        inTransaction = true;
+        fire(listener::onBegin);
+      }
+      return statements == null ? invokeDelegate(method, args) : statements.invoke(proxy, method, args);
+    }
+    Object result = invokeDelegate(method, args);
+    switch (name) {
+      case "setAutoCommit":
+        autoCommit = (Boolean) args[0];
+        if (autoCommit) {
+          // turning on auto-commit commits the current transaction
+          end(listener::onCommit);
+        }
+        break;
+      case "commit":
+        end(listener::onCommit);
+        break;
+      case "rollback":
+        if (args == null || args.length == 0) {
+          end(listener::onRollback);
+        }
+        break;
+      case "close":
+        if (!released) {
+          released = true;
+          fire(listener::onRelease);
+        }
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  private void end(Runnable event) {
+    if (inTransaction) {
+      inTransaction = false;
+      fire(event);
+    }
+  }
+
+  private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(delegate, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  static void fire(Runnable event) {
+    try {
+      event.run();
+    } catch (RuntimeException e) {
+      log.warn("Connection listener failed", e);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram of nanosecond latencies: each power of two is split into
+ * 8 buckets, so percentiles are within 12.5% of the recorded values.
+ */
+class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  void record(long nanos) {
+    counts.incrementAndGet(index(Math.max(0, nanos)));
+  }
+
+  /**
+   * @param total the number of values recorded, eg from a consistent counter
+   * @param percentile from 0 to 100
+   * @return the upper bound of the bucket holding the percentile
+   */
+  long percentile(long total, double percentile) {
+    if (total <= 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    int last = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      long count = counts.get(i);
+      if (count > 0) {
+        seen += count;
+        last = i;
+        if (seen >= rank) {
+          return upperBound(i);
+        }
+      }
+    }
+    // counts are read without a lock so may trail the total
+    return upperBound(last);
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    long upper = ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    return upper < 0 ? Long.MAX_VALUE : upper;
+  }
+}
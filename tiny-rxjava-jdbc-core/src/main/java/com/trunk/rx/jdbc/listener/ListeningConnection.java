@@ -0,0 +1,57 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps each {@link Statement} created by the {@link Connection} with a {@link ListeningStatement}.
+ */
+class ListeningConnection implements InvocationHandler {
+  private final Connection delegate;
+  private final QueryListener listener;
+  private final long acquiredNanos;
+
+  ListeningConnection(Connection delegate, QueryListener listener) {
+    this.delegate = delegate;
+    this.listener = listener;
+    this.acquiredNanos = System.nanoTime();
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    Object result;
+    try {
+      result = method.invoke(delegate, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+    if (!(result instanceof Statement)) {
+      return result;
+    }
+    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+    QueryContext context = new QueryContext(sql, acquiredNanos);
+    ListeningStatement handler = new ListeningStatement((Statement) result, context, listener);
+    handler.fire(l -> l.onPrepare(context));
+    return Proxy.newProxyInstance(
+      ListeningConnection.class.getClassLoader(),
+      new Class<?>[]{statementInterface(result)},
+      handler
+    );
+  }
+
+  private static Class<?> statementInterface(Object statement) {
+    if (statement instanceof CallableStatement) {
+      return CallableStatement.class;
+    }
+    if (statement instanceof PreparedStatement) {
+      return PreparedStatement.class;
+    }
+    return Statement.class;
+  }
+}
@@ -0,0 +1,46 @@
+package com.trunk.rx.jdbc.listener;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * A {@link ConnectionProvider} that wraps each {@link Connection} so the statements it creates
+ * report their lifecycle to a {@link QueryListener}.
+ * <p>
+ * {@link Connection#unwrap(Class)} returns the unwrapped driver objects, which are not observed.
+ */
+public class ListeningConnectionProvider implements ConnectionProvider {
+  private final ConnectionProvider provider;
+  private final QueryListener listener;
+
+  /**
+   * @param provider the provider of the connections to be observed
+   * @param listener the listener to notify
+   * @return a new ListeningConnectionProvider
+   */
+  public static ListeningConnectionProvider of(ConnectionProvider provider, QueryListener listener) {
+    return new ListeningConnectionProvider(provider, listener);
+  }
+
+  private ListeningConnectionProvider(ConnectionProvider provider, QueryListener listener) {
+    this.provider = provider;
+    this.listener = listener;
+  }
+
+  @Override
+  public Connection call() {
+    Connection connection = provider.call();
+    return (Connection) Proxy.newProxyInstance(
+      ListeningConnectionProvider.class.getClassLoader(),
+      new Class<?>[]{Connection.class},
+      new ListeningConnection(connection, listener)
+    );
+  }
+
+  @Override
+  public void close() throws Exception {
+    provider.close();
+  }
+}
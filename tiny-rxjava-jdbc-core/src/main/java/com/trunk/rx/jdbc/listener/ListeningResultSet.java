@@ -0,0 +1,45 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+
+/**
+ * Counts the rows read from a {@link ResultSet} and completes its {@link ListeningStatement}
+ * when the rows are exhausted or the {@link ResultSet} is closed.
+ */
+class ListeningResultSet implements InvocationHandler {
+  private final ResultSet delegate;
+  private final ListeningStatement statement;
+
+  ListeningResultSet(ResultSet delegate, ListeningStatement statement) {
+    this.delegate = delegate;
+    this.statement = statement;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (name.equals("close")) {
+      statement.complete();
+    }
+    Object result;
+    try {
+      result = method.invoke(delegate, args);
+    } catch (InvocationTargetException e) {
+      if (name.equals("next")) {
+        statement.error(e.getCause());
+      }
+      throw e.getCause();
+    }
+    if (name.equals("next")) {
+      if (Boolean.TRUE.equals(result)) {
+        statement.row();
+      } else {
+        statement.complete();
+      }
+    }
+    return result;
+  }
+}
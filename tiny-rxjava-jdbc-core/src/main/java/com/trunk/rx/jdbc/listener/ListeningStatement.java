@@ -0,0 +1,153 @@
+package com.trunk.rx.jdbc.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Reports the execution of a {@link Statement} to a {@link QueryListener}, and wraps its
+ * {@link ResultSet}s with a {@link ListeningResultSet} to count rows.
+ */
+class ListeningStatement implements InvocationHandler {
+  private static final Logger log = LoggerFactory.getLogger(ListeningStatement.class);
+
+  private final Statement delegate;
+  private final QueryContext context;
+  private final QueryListener listener;
+
+  ListeningStatement(Statement delegate, QueryContext context, QueryListener listener) {
+    this.delegate = delegate;
+    this.context = context;
+    this.listener = listener;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String name = method.getName();
+    if (name.startsWith("execute")) {
+      return execute(method, args);
+    }
+    if (name.equals("cancel")) {
+      if (context.terminate()) {
+        fire(l -> l.onCancel(context));
+      }
+    } else if (name.equals("close")) {
+      complete();
+    } else if (name.equals("clearParameters")) {
+      context.clearBindings();
+    } else if (isBind(method)) {
+      context.bound();
+    }
+    Object result = invokeDelegate(method, args);
+    if (result instanceof ResultSet && name.equals("getResultSet")) {
+      return wrap((ResultSet) result);
+    }
+    return result;
+  }
+
+  private Object execute(Method method, Object[] args) throws Throwable {
+    if (args != null && args.length > 0 && args[0] instanceof String) {
+      context.sql((String) args[0]);
+    }
+    // a new execution closes any open result set of the last one
+    complete();
+    context.start();
+    fire(l -> l.onExecuteStart(context));
+    Object result;
+    try {
+      result = invokeDelegate(method, args);
+    } catch (Throwable t) {
+      error(t);
+      throw t;
+    }
+    context.executed(result instanceof ResultSet || Boolean.TRUE.equals(result));
+    fire(l -> l.onExecuteEnd(context));
+    if (result instanceof ResultSet) {
+      return wrap((ResultSet) result);
+    }
+    if (!Boolean.TRUE.equals(result)) {
+      // an update count, or no result set for execute
+      context.rows(updateCount(result));
+      complete();
+    }
+    return result;
+  }
+
+  private ResultSet wrap(ResultSet resultSet) {
+    return (ResultSet) Proxy.newProxyInstance(
+      ListeningStatement.class.getClassLoader(),
+      new Class<?>[]{ResultSet.class},
+      new ListeningResultSet(resultSet, this)
+    );
+  }
+
+  void row() {
+    if (context.isActive() && context.row()) {
+      fire(l -> l.onFirstRow(context));
+    }
+  }
+
+  void complete() {
+    if (context.terminate()) {
+      fire(l -> l.onComplete(context));
+    }
+  }
+
+  void error(Throwable t) {
+    if (context.terminate()) {
+      fire(l -> l.onError(context, t));
+    }
+  }
+
+  void fire(Consumer<QueryListener> event) {
+    try {
+      event.accept(listener);
+    } catch (RuntimeException e) {
+      log.warn("Query listener failed", e);
+    }
+  }
+
+  private long updateCount(Object result) throws Exception {
+    if (result instanceof Integer || result instanceof Long) {
+      return ((Number) result).longValue();
+    }
+    if (result instanceof int[]) {
+      long rows = 0;
+      for (int count : (int[]) result) {
+        rows += Math.max(0, count);
+      }
+      return rows;
+    }
+    if (result instanceof long[]) {
+      long rows = 0;
+      for (long count : (long[]) result) {
+        rows += Math.max(0, count);
+      }
+      return rows;
+    }
+    return Math.max(0, delegate.getUpdateCount());
+  }
+
+  private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(delegate, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static boolean isBind(Method method) {
+    Class<?> declaringClass = method.getDeclaringClass();
+    return method.getName().startsWith("set")
+      && (declaringClass == PreparedStatement.class || declaringClass == CallableStatement.class);
+  }
+}
@@ -0,0 +1,174 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The SQL, bind count, timings and row count of a statement passed to {@link QueryListener}s.
+ * Timings are from {@link System#nanoTime()} and are 0 until the event has happened.
+ * <p>
+ * The same context is updated for each execution of a statement, so listeners should copy
+ * any values they keep after the event.
+ */
+public final class QueryContext {
+  private final long connectionAcquiredNanos;
+  private final long preparedNanos;
+  private final AtomicBoolean active = new AtomicBoolean();
+
+  private volatile String sql;
+  private volatile int bindCount;
+  private volatile long executeStartNanos;
+  private volatile long executeEndNanos;
+  private volatile long firstRowNanos;
+  private volatile long completedNanos;
+  private volatile long rows;
+  private volatile boolean resultSet;
+
+  QueryContext(String sql, long connectionAcquiredNanos) {
+    this.sql = sql;
+    this.connectionAcquiredNanos = connectionAcquiredNanos;
+    this.preparedNanos = System.nanoTime();
+  }
+
+  /**
+   * @return the SQL of the statement, or null for a plain {@link java.sql.Statement} that has not been executed
+   */
+  public String sql() {
+    return sql;
+  }
+
+  /**
+   * @return the number of parameters bound since the statement was created or its parameters cleared,
+   * across all rows of a batch
+   */
+  public int bindCount() {
+    return bindCount;
+  }
+
+  /**
+   * @return the rows read from the {@link java.sql.ResultSet}, or the update count
+   */
+  public long rows() {
+    return rows;
+  }
+
+  /**
+   * @return true if the last execution returned a {@link java.sql.ResultSet} whose rows are still being read
+   * or have been read
+   */
+  public boolean hasResultSet() {
+    return resultSet;
+  }
+
+  public long connectionAcquiredNanos() {
+    return connectionAcquiredNanos;
+  }
+
+  public long preparedNanos() {
+    return preparedNanos;
+  }
+
+  public long executeStartNanos() {
+    return executeStartNanos;
+  }
+
+  public long executeEndNanos() {
+    return executeEndNanos;
+  }
+
+  public long firstRowNanos() {
+    return firstRowNanos;
+  }
+
+  public long completedNanos() {
+    return completedNanos;
+  }
+
+  /**
+   * @return the time spent in the execute call
+   */
+  public long executeNanos() {
+    return executeEndNanos == 0 ? 0 : executeEndNanos - executeStartNanos;
+  }
+
+  /**
+   * @return the time from the start of execution until completion, including reading the rows
+   */
+  public long totalNanos() {
+    return completedNanos == 0 ? 0 : completedNanos - executeStartNanos;
+  }
+
+  /**
+   * @return the time from acquiring the connection until completion
+   */
+  public long connectionHeldNanos() {
+    return completedNanos == 0 ? 0 : completedNanos - connectionAcquiredNanos;
+  }
+
+  void sql(String sql) {
+    this.sql = sql;
+  }
+
+  void bound() {
+    ++bindCount;
+  }
+
+  void clearBindings() {
+    bindCount = 0;
+  }
+
+  void start() {
+    executeStartNanos = System.nanoTime();
+    executeEndNanos = 0;
+    firstRowNanos = 0;
+    completedNanos = 0;
+    rows = 0;
+    resultSet = false;
+    active.set(true);
+  }
+
+  void executed(boolean resultSet) {
+    this.resultSet = resultSet;
+    executeEndNanos = System.nanoTime();
+  }
+
+  /**
+   * @return true if this was the first row
+   */
+  boolean row() {
+    if (rows++ == 0) {
+      firstRowNanos = System.nanoTime();
+      return true;
+    }
+    return false;
+  }
+
+  void rows(long rows) {
+    this.rows = rows;
+  }
+
+  boolean isActive() {
+    return active.get();
+  }
+
+  /**
+   * @return true if the context was executing and is now terminated
+   */
+  boolean terminate() {
+    if (active.compareAndSet(true, false)) {
+      completedNanos = System.nanoTime();
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryContext{" +
+      "sql='" + sql + '\'' +
+      ", bindCount=" + bindCount +
+      ", rows=" + rows +
+      ", executeNanos=" + executeNanos() +
+      ", totalNanos=" + totalNanos() +
+      '}';
+  }
+}
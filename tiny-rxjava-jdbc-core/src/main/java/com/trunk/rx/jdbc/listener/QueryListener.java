@@ -0,0 +1,61 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.sql.Statement;
+
+/**
+ * Receives the lifecycle events of each statement executed on a {@link java.sql.Connection}
+ * provided by a {@link ListeningConnectionProvider}, eg using
+ * {@link com.trunk.rx.jdbc.ConnectionPool#withListener(QueryListener)}.
+ * <p>
+ * Events are delivered synchronously on the thread using the statement, except {@link #onCancel(QueryContext)}
+ * which is delivered on the thread calling {@link Statement#cancel()}, so implementations must be thread safe
+ * and fast. Exceptions thrown by a listener are logged and ignored.
+ * <p>
+ * After {@link #onExecuteStart(QueryContext)} exactly one of {@link #onComplete(QueryContext)},
+ * {@link #onError(QueryContext, Throwable)} or {@link #onCancel(QueryContext)} is delivered.
+ */
+public interface QueryListener {
+
+  /**
+   * A statement has been created. The SQL of a plain {@link Statement} is not known until it is executed.
+   */
+  default void onPrepare(QueryContext context) {
+  }
+
+  /**
+   * The statement is about to be executed.
+   */
+  default void onExecuteStart(QueryContext context) {
+  }
+
+  /**
+   * The statement has executed. Rows are still to be read for queries.
+   */
+  default void onExecuteEnd(QueryContext context) {
+  }
+
+  /**
+   * The first row of the {@link java.sql.ResultSet} has been read.
+   */
+  default void onFirstRow(QueryContext context) {
+  }
+
+  /**
+   * The statement has completed: all rows were read, the {@link java.sql.ResultSet} or statement was closed,
+   * or the update counts were returned.
+   */
+  default void onComplete(QueryContext context) {
+  }
+
+  /**
+   * The statement failed executing or reading rows.
+   */
+  default void onError(QueryContext context, Throwable error) {
+  }
+
+  /**
+   * The statement was cancelled with {@link Statement#cancel()} while executing or reading rows.
+   */
+  default void onCancel(QueryContext context) {
+  }
+}
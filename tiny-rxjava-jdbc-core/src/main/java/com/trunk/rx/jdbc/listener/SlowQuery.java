@@ -0,0 +1,87 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.time.Instant;
+
+/**
+ * An immutable record of a statement that took longer than the threshold of a {@link SlowQueryListener}.
+ */
+public final class SlowQuery {
+  /**
+   * How the statement terminated.
+   */
+  public enum Outcome {
+    COMPLETED, FAILED, CANCELLED
+  }
+
+  private final String sql;
+  private final int bindCount;
+  private final long rows;
+  private final long executeNanos;
+  private final long totalNanos;
+  private final long connectionHeldNanos;
+  private final Outcome outcome;
+  private final Instant completedAt;
+
+  SlowQuery(QueryContext context, Outcome outcome) {
+    this.sql = context.sql();
+    this.bindCount = context.bindCount();
+    this.rows = context.rows();
+    this.executeNanos = context.executeNanos();
+    this.totalNanos = context.totalNanos();
+    this.connectionHeldNanos = context.connectionHeldNanos();
+    this.outcome = outcome;
+    this.completedAt = Instant.now();
+  }
+
+  public String sql() {
+    return sql;
+  }
+
+  public int bindCount() {
+    return bindCount;
+  }
+
+  public long rows() {
+    return rows;
+  }
+
+  /**
+   * @return the time spent in the execute call, or 0 if it failed or was cancelled while executing
+   */
+  public long executeNanos() {
+    return executeNanos;
+  }
+
+  /**
+   * @return the time from the start of execution until completion, including reading the rows
+   */
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  public long connectionHeldNanos() {
+    return connectionHeldNanos;
+  }
+
+  public Outcome outcome() {
+    return outcome;
+  }
+
+  public Instant completedAt() {
+    return completedAt;
+  }
+
+  @Override
+  public String toString() {
+    return "SlowQuery{" +
+      "sql='" + sql + '\'' +
+      ", bindCount=" + bindCount +
+      ", rows=" + rows +
+      ", executeNanos=" + executeNanos +
+      ", totalNanos=" + totalNanos +
+      ", connectionHeldNanos=" + connectionHeldNanos +
+      ", outcome=" + outcome +
+      ", completedAt=" + completedAt +
+      '}';
+  }
+}
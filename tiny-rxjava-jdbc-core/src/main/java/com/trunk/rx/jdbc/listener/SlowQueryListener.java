@@ -0,0 +1,115 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link QueryListener} that keeps the most recent statements whose total time, from the start of
+ * execution until the last row is read, is at least the threshold.
+ * <p>
+ * Slow queries are kept in a fixed size ring buffer: recording is a single atomic increment and
+ * an array write, so concurrent statements never block each other, and the oldest entries are overwritten.
+ * A sample rate below 1 records only that fraction of slow queries, while {@link #slowQueries()} counts them all.
+ * <p>
+ * Configure the listener before it is used; each <code>with</code> method returns a new, empty listener.
+ */
+public class SlowQueryListener implements QueryListener {
+  public static final int DEFAULT_CAPACITY = 128;
+
+  private final long thresholdNanos;
+  private final double sampleRate;
+  private final AtomicReferenceArray<SlowQuery> ring;
+  private final AtomicLong sequence = new AtomicLong();
+  private final LongAdder slowQueries = new LongAdder();
+
+  /**
+   * @param threshold the minimum total time of a slow query
+   * @return a new SlowQueryListener recording every slow query in a buffer of {@link #DEFAULT_CAPACITY}
+   */
+  public static SlowQueryListener of(Duration threshold) {
+    return new SlowQueryListener(threshold.toNanos(), 1.0, DEFAULT_CAPACITY);
+  }
+
+  private SlowQueryListener(long thresholdNanos, double sampleRate, int capacity) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + sampleRate);
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.thresholdNanos = thresholdNanos;
+    this.sampleRate = sampleRate;
+    this.ring = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * @param sampleRate the fraction of slow queries to record, from 0 to 1
+   * @return a new SlowQueryListener with the given sample rate
+   */
+  public SlowQueryListener withSampleRate(double sampleRate) {
+    return new SlowQueryListener(thresholdNanos, sampleRate, ring.length());
+  }
+
+  /**
+   * @param capacity the number of recent slow queries to keep
+   * @return a new SlowQueryListener with the given capacity
+   */
+  public SlowQueryListener withCapacity(int capacity) {
+    return new SlowQueryListener(thresholdNanos, sampleRate, capacity);
+  }
+
+  @Override
+  public void onComplete(QueryContext context) {
+    record(context, SlowQuery.Outcome.COMPLETED);
+  }
+
+  @Override
+  public void onError(QueryContext context, Throwable error) {
+    record(context, SlowQuery.Outcome.FAILED);
+  }
+
+  @Override
+  public void onCancel(QueryContext context) {
+    record(context, SlowQuery.Outcome.CANCELLED);
+  }
+
+  /**
+   * @return the number of slow queries seen, including those not sampled or since overwritten
+   */
+  public long slowQueries() {
+    return slowQueries.sum();
+  }
+
+  /**
+   * @return the recorded slow queries still in the buffer, most recent first
+   */
+  public List<SlowQuery> recent() {
+    int capacity = ring.length();
+    long last = sequence.get();
+    List<SlowQuery> recent = new ArrayList<>((int) Math.min(capacity, last));
+    for (long i = last - 1; i >= 0 && i >= last - capacity; --i) {
+      SlowQuery query = ring.get((int) (i % capacity));
+      if (query != null) {
+        recent.add(query);
+      }
+    }
+    return recent;
+  }
+
+  private void record(QueryContext context, SlowQuery.Outcome outcome) {
+    if (context.totalNanos() < thresholdNanos) {
+      return;
+    }
+    slowQueries.increment();
+    if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    long slot = sequence.getAndIncrement();
+    ring.set((int) (slot % ring.length()), new SlowQuery(context, outcome));
+  }
+}
@@ -0,0 +1,193 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.util.regex.Pattern;
+
+/**
+ * A stable identity for the shape of a SQL statement: string and numeric literals and positional
+ * parameters become <code>?</code>, lists of placeholders such as <code>IN</code> lists and multi-row
+ * <code>VALUES</code> are collapsed whatever their length, comments are removed and whitespace is collapsed.
+ * Quoted identifiers and named parameters are kept.
+ * <p>
+ * Statements built with inlined values, eg by jOOQ, then aggregate under the same fingerprint as their
+ * parameterised form.
+ */
+public final class SqlFingerprint {
+  private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(?:, \\?)*\\)");
+  private static final Pattern REPEATED_LIST = Pattern.compile("\\(\\?, \\.\\.\\.\\)(?:, \\(\\?, \\.\\.\\.\\))+");
+
+  private final String value;
+
+  /**
+   * @param sql the SQL to fingerprint
+   * @return the fingerprint of the SQL
+   */
+  public static SqlFingerprint of(String sql) {
+    return new SqlFingerprint(normalize(sql));
+  }
+
+  private SqlFingerprint(String value) {
+    this.value = value;
+  }
+
+  /**
+   * @return the normalised SQL
+   */
+  public String value() {
+    return value;
+  }
+
+  static String normalize(String sql) {
+    if (sql == null) {
+      return "";
+    }
+    StringBuilder out = new StringBuilder(sql.length());
+    int i = 0;
+    int length = sql.length();
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i = skipWhitespace(sql, i);
+        space(out);
+      } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+        space(out);
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+        space(out);
+      } else if (c == '\'') {
+        i = skipQuoted(sql, i, '\'');
+        placeholder(out);
+      } else if (c == '"' || c == '`') {
+        int end = skipQuoted(sql, i, c);
+        out.append(sql, i, end);
+        i = end;
+      } else if (c == '$' && i + 1 < length && Character.isDigit(sql.charAt(i + 1))) {
+        i = skipDigits(sql, i + 1);
+        placeholder(out);
+      } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+        i = skipNumber(sql, i);
+        placeholder(out);
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int end = i + 1;
+        while (end < length && (Character.isJavaIdentifierPart(sql.charAt(end)))) {
+          ++end;
+        }
+        out.append(sql, i, end);
+        i = end;
+      } else if (c == ',') {
+        trimSpace(out);
+        out.append(", ");
+        i = skipWhitespace(sql, i + 1);
+      } else if (c == '(') {
+        out.append(c);
+        i = skipWhitespace(sql, i + 1);
+      } else if (c == ')') {
+        trimSpace(out);
+        out.append(c);
+        ++i;
+      } else if (c == '?') {
+        placeholder(out);
+        ++i;
+      } else {
+        out.append(c);
+        ++i;
+      }
+    }
+    trimSpace(out);
+    if (out.length() > 0 && out.charAt(out.length() - 1) == ';') {
+      out.setLength(out.length() - 1);
+      trimSpace(out);
+    }
+    String collapsed = PLACEHOLDER_LIST.matcher(out).replaceAll("(?, ...)");
+    return REPEATED_LIST.matcher(collapsed).replaceAll("(?, ...), ...");
+  }
+
+  private static void placeholder(StringBuilder out) {
+    out.append('?');
+  }
+
+  private static void space(StringBuilder out) {
+    if (out.length() > 0) {
+      char last = out.charAt(out.length() - 1);
+      if (last != ' ' && last != '(') {
+        out.append(' ');
+      }
+    }
+  }
+
+  private static void trimSpace(StringBuilder out) {
+    while (out.length() > 0 && out.charAt(out.length() - 1) == ' ') {
+      out.setLength(out.length() - 1);
+    }
+  }
+
+  private static int skipWhitespace(String sql, int i) {
+    while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+      ++i;
+    }
+    return i;
+  }
+
+  private static int skipDigits(String sql, int i) {
+    while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+      ++i;
+    }
+    return i;
+  }
+
+  private static int skipNumber(String sql, int i) {
+    if (sql.startsWith("0x", i) || sql.startsWith("0X", i)) {
+      i += 2;
+      while (i < sql.length() && Character.digit(sql.charAt(i), 16) >= 0) {
+        ++i;
+      }
+      return i;
+    }
+    i = skipDigits(sql, i);
+    if (i < sql.length() && sql.charAt(i) == '.') {
+      i = skipDigits(sql, i + 1);
+    }
+    if (i + 1 < sql.length() && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+      int exponent = i + 1;
+      if (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-') {
+        ++exponent;
+      }
+      if (exponent < sql.length() && Character.isDigit(sql.charAt(exponent))) {
+        i = skipDigits(sql, exponent);
+      }
+    }
+    return i;
+  }
+
+  private static int skipQuoted(String sql, int i, char quote) {
+    int end = sql.indexOf(quote, i + 1);
+    while (end >= 0 && end + 1 < sql.length() && sql.charAt(end + 1) == quote) {
+      // escaped by doubling
+      end = sql.indexOf(quote, end + 2);
+    }
+    return end < 0 ? sql.length() : end + 1;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return value.equals(((SqlFingerprint) o).value);
+  }
+
+  @Override
+  public int hashCode() {
+    return value.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+}
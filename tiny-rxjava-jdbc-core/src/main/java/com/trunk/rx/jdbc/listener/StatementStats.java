@@ -0,0 +1,76 @@
+package com.trunk.rx.jdbc.listener;
+
+/**
+ * An immutable snapshot of the statistics of one {@link SqlFingerprint}, from a {@link StatementStatsListener}.
+ * Latencies are the total time from the start of execution until completion, in nanoseconds.
+ */
+public final class StatementStats {
+  private final SqlFingerprint fingerprint;
+  private final long calls;
+  private final long errors;
+  private final long rows;
+  private final long totalNanos;
+  private final long p50Nanos;
+  private final long p99Nanos;
+
+  StatementStats(SqlFingerprint fingerprint, long calls, long errors, long rows, long totalNanos, long p50Nanos, long p99Nanos) {
+    this.fingerprint = fingerprint;
+    this.calls = calls;
+    this.errors = errors;
+    this.rows = rows;
+    this.totalNanos = totalNanos;
+    this.p50Nanos = p50Nanos;
+    this.p99Nanos = p99Nanos;
+  }
+
+  public SqlFingerprint fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return the number of executions, including those that failed or were cancelled
+   */
+  public long calls() {
+    return calls;
+  }
+
+  public long errors() {
+    return errors;
+  }
+
+  /**
+   * @return the total rows read or updated
+   */
+  public long rows() {
+    return rows;
+  }
+
+  public long totalNanos() {
+    return totalNanos;
+  }
+
+  public long meanNanos() {
+    return calls == 0 ? 0 : totalNanos / calls;
+  }
+
+  public long p50Nanos() {
+    return p50Nanos;
+  }
+
+  public long p99Nanos() {
+    return p99Nanos;
+  }
+
+  @Override
+  public String toString() {
+    return "StatementStats{" +
+      "fingerprint='" + fingerprint + '\'' +
+      ", calls=" + calls +
+      ", errors=" + errors +
+      ", rows=" + rows +
+      ", totalNanos=" + totalNanos +
+      ", p50Nanos=" + p50Nanos +
+      ", p99Nanos=" + p99Nanos +
+      '}';
+  }
+}
@@ -0,0 +1,148 @@
+package com.trunk.rx.jdbc.listener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link QueryListener} that aggregates the calls, errors, rows and latency of every statement
+ * by its {@link SqlFingerprint}.
+ * <p>
+ * Counters are {@link LongAdder}s and latencies go into a lock-free histogram, so recording never blocks.
+ * The fingerprint of each distinct SQL string is cached, so repeated prepared statements are not re-parsed.
+ * At most {@link #DEFAULT_MAX_STATEMENTS} fingerprints are tracked by default; later ones are aggregated under
+ * {@link #OTHER}.
+ */
+public class StatementStatsListener implements QueryListener {
+  public static final int DEFAULT_MAX_STATEMENTS = 1000;
+  public static final SqlFingerprint OTHER = SqlFingerprint.of("<other>");
+
+  private final int maxStatements;
+  private final ConcurrentMap<SqlFingerprint, Accumulator> statements = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Accumulator> bySql = new ConcurrentHashMap<>();
+
+  /**
+   * @return a new StatementStatsListener tracking up to {@link #DEFAULT_MAX_STATEMENTS} fingerprints
+   */
+  public static StatementStatsListener create() {
+    return new StatementStatsListener(DEFAULT_MAX_STATEMENTS);
+  }
+
+  private StatementStatsListener(int maxStatements) {
+    if (maxStatements < 1) {
+      throw new IllegalArgumentException("maxStatements must be positive: " + maxStatements);
+    }
+    this.maxStatements = maxStatements;
+  }
+
+  /**
+   * @param maxStatements the number of fingerprints to track before aggregating under {@link #OTHER}
+   * @return a new, empty StatementStatsListener
+   */
+  public StatementStatsListener withMaxStatements(int maxStatements) {
+    return new StatementStatsListener(maxStatements);
+  }
+
+  @Override
+  public void onComplete(QueryContext context) {
+    accumulator(context.sql()).record(context.totalNanos(), context.rows(), false);
+  }
+
+  @Override
+  public void onError(QueryContext context, Throwable error) {
+    accumulator(context.sql()).record(context.totalNanos(), context.rows(), true);
+  }
+
+  @Override
+  public void onCancel(QueryContext context) {
+    accumulator(context.sql()).record(context.totalNanos(), context.rows(), false);
+  }
+
+  /**
+   * @return a snapshot of the statistics of every fingerprint
+   */
+  public List<StatementStats> snapshot() {
+    List<StatementStats> snapshot = new ArrayList<>(statements.size());
+    statements.forEach((fingerprint, accumulator) -> snapshot.add(accumulator.snapshot(fingerprint)));
+    return snapshot;
+  }
+
+  /**
+   * @param n          the number of statements
+   * @param comparator the order of the statements, most expensive first
+   * @return the first n statements
+   */
+  public List<StatementStats> top(int n, Comparator<StatementStats> comparator) {
+    return snapshot().stream().sorted(comparator).limit(n).collect(Collectors.toList());
+  }
+
+  /**
+   * @return the n statements with the highest total latency
+   */
+  public List<StatementStats> top(int n) {
+    return top(n, Comparator.comparingLong(StatementStats::totalNanos).reversed());
+  }
+
+  /**
+   * Remove all statistics.
+   */
+  public void reset() {
+    bySql.clear();
+    statements.clear();
+  }
+
+  private Accumulator accumulator(String sql) {
+    String key = sql == null ? "" : sql;
+    Accumulator accumulator = bySql.get(key);
+    if (accumulator != null) {
+      return accumulator;
+    }
+    SqlFingerprint fingerprint = SqlFingerprint.of(key);
+    accumulator = statements.get(fingerprint);
+    if (accumulator == null) {
+      accumulator = statements.size() < maxStatements
+        ? statements.computeIfAbsent(fingerprint, f -> new Accumulator())
+        : statements.computeIfAbsent(OTHER, f -> new Accumulator());
+    }
+    if (bySql.size() < maxStatements * 4) {
+      // inlined literals make SQL strings unbounded, so only a bounded number are cached
+      bySql.putIfAbsent(key, accumulator);
+    }
+    return accumulator;
+  }
+
+  private static class Accumulator {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    void record(long nanos, long rows, boolean error) {
+      latencies.record(nanos);
+      totalNanos.add(nanos);
+      this.rows.add(rows);
+      if (error) {
+        errors.increment();
+      }
+      calls.increment();
+    }
+
+    StatementStats snapshot(SqlFingerprint fingerprint) {
+      long calls = this.calls.sum();
+      return new StatementStats(
+        fingerprint,
+        calls,
+        errors.sum(),
+        rows.sum(),
+        totalNanos.sum(),
+        latencies.percentile(calls, 50),
+        latencies.percentile(calls, 99)
+      );
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.Util;
+import rx.functions.Action0;
+import rx.functions.Func0;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A source of chunks read on demand, eg from an {@link InputStream} or {@link Reader},
+ * to be emitted by a {@link ChunkSourceProducer}.
+ */
+public interface ChunkSource<B> {
+
+  /**
+   * @return the next chunk, or null if there are no more chunks
+   */
+  B read() throws Exception;
+
+  /**
+   * Release the resources of the source without throwing. Must be idempotent.
+   */
+  void close();
+
+  /**
+   * Read {@link ByteBuffer}s from the given {@link InputStream}. Each buffer from the supplier is cleared,
+   * filled as far as possible and flipped, so every chunk but the last is full.
+   * The supplier may return the same buffer, or buffers from a pool, as long as each is not reused
+   * until the previous chunk has been consumed.
+   *
+   * @param inputStream the stream to read
+   * @param buffers     the supplier of buffers to read into
+   * @param onClose     called after the stream is closed
+   * @return the new ChunkSource
+   */
+  static ChunkSource<ByteBuffer> of(InputStream inputStream, Func0<? extends ByteBuffer> buffers, Action0 onClose) {
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+    return new ChunkSource<ByteBuffer>() {
+      private boolean closed = false;
+
+      @Override
+      public ByteBuffer read() throws IOException {
+        ByteBuffer buffer = buffers.call();
+        buffer.clear();
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+          read = channel.read(buffer);
+        }
+        buffer.flip();
+        return buffer.hasRemaining() ? buffer : null;
+      }
+
+      @Override
+      public void close() {
+        if (!closed) {
+          closed = true;
+          Util.closeQuietly(channel);
+          onClose.call();
+        }
+      }
+    };
+  }
+
+  /**
+   * Read {@link CharBuffer}s from the given {@link Reader}. Each buffer from the supplier is cleared,
+   * filled as far as possible and flipped, so every chunk but the last is full.
+   * The supplier may return the same buffer, or buffers from a pool, as long as each is not reused
+   * until the previous chunk has been consumed.
+   *
+   * @param reader  the reader to read
+   * @param buffers the supplier of buffers to read into
+   * @param onClose called after the reader is closed
+   * @return the new ChunkSource
+   */
+  static ChunkSource<CharBuffer> of(Reader reader, Func0<? extends CharBuffer> buffers, Action0 onClose) {
+    return new ChunkSource<CharBuffer>() {
+      private boolean closed = false;
+
+      @Override
+      public CharBuffer read() throws IOException {
+        CharBuffer buffer = buffers.call();
+        buffer.clear();
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+          read = reader.read(buffer);
+        }
+        buffer.flip();
+        return buffer.hasRemaining() ? buffer : null;
+      }
+
+      @Override
+      public void close() {
+        if (!closed) {
+          closed = true;
+          Util.closeQuietly(reader);
+          onClose.call();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,36 @@
+package com.trunk.rx.jdbc.sql;
+
+import rx.Producer;
+import rx.Subscriber;
+
+/**
+ * A back pressure sensitive {@link Producer} that emits the chunks of a {@link ChunkSource},
+ * reading each chunk only when it has been requested.
+ * The source is closed on completion, on error or if the {@link Subscriber} unsubscribes.
+ *
+ * @see RowProducer
+ */
+public class ChunkSourceProducer<B> extends RowProducer<B> {
+
+  private final ChunkSource<B> source;
+
+  public ChunkSourceProducer(ChunkSource<B> source, Subscriber<? super B> subscriber) {
+    super(subscriber);
+    this.source = source;
+  }
+
+  @Override
+  protected boolean emitNext(Subscriber<? super B> subscriber) throws Exception {
+    B chunk = source.read();
+    if (chunk == null) {
+      return false;
+    }
+    subscriber.onNext(chunk);
+    return true;
+  }
+
+  @Override
+  protected void close() {
+    source.close();
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copywrite https://github.com/davidmoten/rxjava-jdbc/blob/master/LICENSE
+ */
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.Util;
+import rx.Producer;
+import rx.Subscriber;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A back pressure sensitive {@link Producer} over {@link ResultSet}s that emits
+ * chunks of up to chunkSize rows. Requests are counted in chunks.
+ * If the {@link Subscriber} unsubscribes before completion it stops reading.
+ * The {@link ResultSet} and {@link PreparedStatement} are closed, without cancelling, once reading stops.
+ *
+ * @see RowProducer
+ */
+public class ChunkedSelectProducer<C> extends RowProducer<C> {
+
+  private final ResultSetChunkMapper<C> chunkMapper;
+  private final int chunkSize;
+  private final PreparedStatement preparedStatement;
+  private final ResultSet resultSet;
+
+  public ChunkedSelectProducer(
+    ResultSetChunkMapper<C> chunkMapper,
+    int chunkSize,
+    Subscriber<? super C> subscriber,
+    PreparedStatement preparedStatement,
+    ResultSet resultSet
+  ) {
+    super(subscriber);
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.chunkMapper = chunkMapper;
+    this.chunkSize = chunkSize;
+    this.preparedStatement = preparedStatement;
+    this.resultSet = resultSet;
+  }
+
+  /**
+   * Reads up to chunkSize rows of the {@link ResultSet} and emits them as a single chunk.
+   */
+  @Override
+  protected boolean emitNext(Subscriber<? super C> subscriber) throws SQLException {
+    C chunk = null;
+    int rows = 0;
+    boolean more = true;
+    while (rows < chunkSize) {
+      if (!resultSet.next()) {
+        more = false;
+        break;
+      }
+      if (chunk == null) {
+        chunk = chunkMapper.create(chunkSize);
+      }
+      chunkMapper.append(chunk, resultSet);
+      ++rows;
+    }
+    if (chunk != null) {
+      subscriber.onNext(chunk);
+    }
+    return more;
+  }
+
+  /**
+   * Closes connection resources (prepared statement and result set).
+   */
+  @Override
+  protected void close() {
+    Util.closeQuietly(resultSet);
+    Util.closeQuietly(preparedStatement);
+  }
+}
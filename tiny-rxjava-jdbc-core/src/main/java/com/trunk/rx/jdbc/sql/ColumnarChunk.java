@@ -0,0 +1,256 @@
+package com.trunk.rx.jdbc.sql;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * A chunk of rows stored by column in primitive arrays, or in direct {@link ByteBuffer}s
+ * when created off-heap, with a null bitmap per column. Rows are appended without
+ * allocating, so numeric results can be aggregated without an object per row.
+ * <p>
+ * Off-heap chunks are pooled by their {@link ColumnarChunkMapper}: call {@link #release()} once a chunk
+ * has been consumed so it can be reused rather than allocating new direct buffers.
+ *
+ * @see ColumnarChunkMapper
+ */
+public final class ColumnarChunk {
+
+  /**
+   * The supported column types
+   */
+  public enum Type {
+    INT(Integer.BYTES),
+    LONG(Long.BYTES),
+    DOUBLE(Double.BYTES);
+
+    private final int width;
+
+    Type(int width) {
+      this.width = width;
+    }
+
+    /**
+     * @return the number of bytes used by each value in an off-heap column
+     */
+    public int width() {
+      return width;
+    }
+  }
+
+  private final Type[] types;
+  private final int capacity;
+  private final boolean offHeap;
+  private final Object[] values;
+  private final long[][] nulls;
+  private final Queue<ColumnarChunk> pool;
+  private int size;
+
+  ColumnarChunk(Type[] types, int capacity, boolean offHeap, Queue<ColumnarChunk> pool) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if (offHeap) {
+      for (Type type : types) {
+        bytes(type, capacity);
+      }
+    }
+    this.types = types;
+    this.capacity = capacity;
+    this.offHeap = offHeap;
+    this.pool = pool;
+    this.values = new Object[types.length];
+    this.nulls = new long[types.length][(int) ((capacity + 63L) >>> 6)];
+    for (int column = 0; column < types.length; ++column) {
+      values[column] = offHeap
+        ? ByteBuffer.allocateDirect(bytes(types[column], capacity)).order(ByteOrder.nativeOrder())
+        : heapColumn(types[column], capacity);
+    }
+  }
+
+  private static int bytes(Type type, int capacity) {
+    if (capacity > Integer.MAX_VALUE / type.width()) {
+      throw new IllegalArgumentException("capacity " + capacity + " is too large for an off-heap " + type + " column");
+    }
+    return capacity * type.width();
+  }
+
+  private static Object heapColumn(Type type, int capacity) {
+    switch (type) {
+      case INT:
+        return new int[capacity];
+      case LONG:
+        return new long[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      default:
+        throw new IllegalArgumentException("Unsupported type " + type);
+    }
+  }
+
+  /**
+   * @return the number of rows in this chunk
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the maximum number of rows this chunk can hold
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of columns
+   */
+  public int columns() {
+    return types.length;
+  }
+
+  /**
+   * @return the type of the given zero-based column
+   */
+  public Type type(int column) {
+    return types[column];
+  }
+
+  /**
+   * @return true if the column values are stored in direct {@link ByteBuffer}s
+   */
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  public boolean isNull(int column, int row) {
+    return (nulls[column][row >>> 6] & (1L << row)) != 0;
+  }
+
+  public int getInt(int column, int row) {
+    return offHeap ? buffer(column, Type.INT).getInt(row * Integer.BYTES) : ((int[]) values[column])[row];
+  }
+
+  public long getLong(int column, int row) {
+    return offHeap ? buffer(column, Type.LONG).getLong(row * Long.BYTES) : ((long[]) values[column])[row];
+  }
+
+  public double getDouble(int column, int row) {
+    return offHeap ? buffer(column, Type.DOUBLE).getDouble(row * Double.BYTES) : ((double[]) values[column])[row];
+  }
+
+  /**
+   * The backing array of an {@link Type#INT} column. Only the first {@link #size()} values are valid.
+   *
+   * @throws IllegalStateException if the chunk is off-heap
+   */
+  public int[] ints(int column) {
+    return (int[]) heap(column, Type.INT);
+  }
+
+  /**
+   * The backing array of a {@link Type#LONG} column. Only the first {@link #size()} values are valid.
+   *
+   * @throws IllegalStateException if the chunk is off-heap
+   */
+  public long[] longs(int column) {
+    return (long[]) heap(column, Type.LONG);
+  }
+
+  /**
+   * The backing array of a {@link Type#DOUBLE} column. Only the first {@link #size()} values are valid.
+   *
+   * @throws IllegalStateException if the chunk is off-heap
+   */
+  public double[] doubles(int column) {
+    return (double[]) heap(column, Type.DOUBLE);
+  }
+
+  /**
+   * A read-only view of an off-heap column holding {@link #size()} values in native byte order.
+   *
+   * @throws IllegalStateException if the chunk is on-heap
+   */
+  public ByteBuffer buffer(int column) {
+    if (!offHeap) {
+      throw new IllegalStateException("Chunk is not off-heap");
+    }
+    ByteBuffer view = ((ByteBuffer) values[column]).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    view.limit(size * types[column].width());
+    return view;
+  }
+
+  /**
+   * Return this chunk to the pool of the {@link ColumnarChunkMapper} that created it, if any, to be
+   * emptied and reused. Release a chunk at most once, and don't use it, or any buffer or array from it,
+   * after it has been released. Chunks that are not released are just garbage collected.
+   */
+  public void release() {
+    if (pool != null) {
+      size = 0;
+      for (long[] column : nulls) {
+        Arrays.fill(column, 0L);
+      }
+      pool.offer(this);
+    }
+  }
+
+  /**
+   * The null bitmap of a column, with bit <i>row % 64</i> of word <i>row / 64</i> set for each null value.
+   */
+  public long[] nulls(int column) {
+    return nulls[column];
+  }
+
+  void setInt(int column, int value) {
+    if (offHeap) {
+      ((ByteBuffer) values[column]).putInt(size * Integer.BYTES, value);
+    } else {
+      ((int[]) values[column])[size] = value;
+    }
+  }
+
+  void setLong(int column, long value) {
+    if (offHeap) {
+      ((ByteBuffer) values[column]).putLong(size * Long.BYTES, value);
+    } else {
+      ((long[]) values[column])[size] = value;
+    }
+  }
+
+  void setDouble(int column, double value) {
+    if (offHeap) {
+      ((ByteBuffer) values[column]).putDouble(size * Double.BYTES, value);
+    } else {
+      ((double[]) values[column])[size] = value;
+    }
+  }
+
+  void setNull(int column) {
+    nulls[column][size >>> 6] |= 1L << size;
+  }
+
+  void endRow() {
+    ++size;
+  }
+
+  private ByteBuffer buffer(int column, Type type) {
+    checkType(column, type);
+    return (ByteBuffer) values[column];
+  }
+
+  private Object heap(int column, Type type) {
+    if (offHeap) {
+      throw new IllegalStateException("Chunk is off-heap");
+    }
+    checkType(column, type);
+    return values[column];
+  }
+
+  private void checkType(int column, Type type) {
+    if (types[column] != type) {
+      throw new IllegalArgumentException("Column " + column + " is " + types[column] + " not " + type);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.trunk.rx.jdbc.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link ResultSetChunkMapper} that reads numeric columns straight from the {@link ResultSet}
+ * into {@link ColumnarChunk}s, without creating an object per row.
+ * The n<sup>th</sup> type is read from the n<sup>th</sup> column of the ResultSet.
+ *
+ * <pre>{@code
+ * ExecuteQuery.usingChunks(connection, builder, ColumnarChunkMapper.of(LONG, LONG, DOUBLE), 4096)
+ * }</pre>
+ * <p>
+ * Off-heap chunks are pooled, so consumers should {@link ColumnarChunk#release()} each chunk when done with it.
+ */
+public final class ColumnarChunkMapper implements ResultSetChunkMapper<ColumnarChunk> {
+
+  private final ColumnarChunk.Type[] types;
+  private final boolean offHeap;
+  private final Queue<ColumnarChunk> pool;
+
+  /**
+   * The default number of released off-heap chunks kept for reuse
+   */
+  public static final int DEFAULT_POOL_SIZE = 4;
+
+  /**
+   * Create a mapper for on-heap chunks
+   *
+   * @param types the type of each column, in order
+   * @return the new ColumnarChunkMapper
+   */
+  public static ColumnarChunkMapper of(ColumnarChunk.Type... types) {
+    if (types.length == 0) {
+      throw new IllegalArgumentException("At least one column type is required");
+    }
+    return new ColumnarChunkMapper(types.clone(), false, null);
+  }
+
+  private ColumnarChunkMapper(ColumnarChunk.Type[] types, boolean offHeap, Queue<ColumnarChunk> pool) {
+    this.types = types;
+    this.offHeap = offHeap;
+    this.pool = pool;
+  }
+
+  /**
+   * @return a new ColumnarChunkMapper creating chunks backed by direct {@link java.nio.ByteBuffer}s,
+   * keeping up to {@link #DEFAULT_POOL_SIZE} released chunks for reuse
+   * @see #offHeap(int)
+   */
+  public ColumnarChunkMapper offHeap() {
+    return offHeap(DEFAULT_POOL_SIZE);
+  }
+
+  /**
+   * Create chunks backed by direct {@link java.nio.ByteBuffer}s. Direct buffers are slow to allocate and
+   * only freed once they are garbage collected, so chunks given back with {@link ColumnarChunk#release()}
+   * are kept in a pool shared by every query using the returned mapper, and reused by the next
+   * {@link #create(int)} of the same capacity. A pool about the size of the number of chunks in flight,
+   * eg buffered by <code>observeOn</code>, is enough to stop allocating once a query is running.
+   *
+   * @param poolSize the maximum number of released chunks to keep, or 0 not to pool
+   * @return a new ColumnarChunkMapper creating off-heap chunks
+   */
+  public ColumnarChunkMapper offHeap(int poolSize) {
+    if (poolSize < 0) {
+      throw new IllegalArgumentException("poolSize must not be negative: " + poolSize);
+    }
+    return new ColumnarChunkMapper(types, true, poolSize == 0 ? null : new ArrayBlockingQueue<>(poolSize));
+  }
+
+  @Override
+  public ColumnarChunk create(int capacity) {
+    if (pool != null) {
+      ColumnarChunk chunk;
+      while ((chunk = pool.poll()) != null) {
+        if (chunk.capacity() == capacity) {
+          return chunk;
+        }
+        // pooled for another chunk size, leave it to the garbage collector
+      }
+    }
+    return new ColumnarChunk(types, capacity, offHeap, pool);
+  }
+
+  @Override
+  public void append(ColumnarChunk chunk, ResultSet resultSet) throws SQLException {
+    for (int column = 0; column < types.length; ++column) {
+      switch (types[column]) {
+        case INT:
+          chunk.setInt(column, resultSet.getInt(column + 1));
+          break;
+        case LONG:
+          chunk.setLong(column, resultSet.getLong(column + 1));
+          break;
+        case DOUBLE:
+          chunk.setDouble(column, resultSet.getDouble(column + 1));
+          break;
+        default:
+          throw new IllegalStateException("Unsupported type " + types[column]);
+      }
+      if (resultSet.wasNull()) {
+        chunk.setNull(column);
+      }
+    }
+    chunk.endRow();
+  }
+}
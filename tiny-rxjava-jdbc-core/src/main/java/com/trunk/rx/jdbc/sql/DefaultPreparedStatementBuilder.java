@@ -1,21 +1,34 @@
 package com.trunk.rx.jdbc.sql;
 
+import rx.Observable;
+
+import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * An immutable class to simplify building indexed-parameter {@link PreparedStatement}s.
+ * <p>
+ * Collection parameters can be added with {@link #addIn(Collection, int)}, which pads
+ * the list to a small number of statement shapes, or {@link #addArray(Collection, String)},
+ * which binds a single {@link java.sql.Array}. Rows of parameters can be batched with {@link #addBatch()}.
+ * Large objects can be streamed from an {@link Observable} with {@link #addStream(Observable, long)}.
  */
 public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder {
 
   private final String sql;
   private final Collection<SqlObjectConverter<Object>> converters;
-  private final List<TypedObject> parameters;
+  private final List<Parameter> parameters;
+  private final List<List<Parameter>> batches;
+  private final String[] generatedKeyColumns;
 
   /**
    * Create the base builder
@@ -24,13 +37,21 @@ public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder
    * @return the new builder
    */
   public static DefaultPreparedStatementBuilder of(String sql) {
-    return new DefaultPreparedStatementBuilder(sql, Collections.emptyList(), Collections.emptyList());
+    return new DefaultPreparedStatementBuilder(sql, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), null);
   }
 
-  private DefaultPreparedStatementBuilder(String sql, List<TypedObject> parameters, Collection<SqlObjectConverter<Object>> converters) {
+  private DefaultPreparedStatementBuilder(
+    String sql,
+    List<Parameter> parameters,
+    List<List<Parameter>> batches,
+    Collection<SqlObjectConverter<Object>> converters,
+    String[] generatedKeyColumns
+  ) {
     this.sql = sql;
     this.converters = Collections.unmodifiableCollection(converters);
     this.parameters = Collections.unmodifiableList(parameters);
+    this.batches = Collections.unmodifiableList(batches);
+    this.generatedKeyColumns = generatedKeyColumns;
   }
 
   /**
@@ -43,7 +64,44 @@ public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder
     Collection<SqlObjectConverter<Object>> newConverters = new ArrayList<>();
     newConverters.addAll(converters);
     newConverters.add(converter);
-    return new DefaultPreparedStatementBuilder(sql, parameters, newConverters);
+    return new DefaultPreparedStatementBuilder(sql, parameters, batches, newConverters, generatedKeyColumns);
+  }
+
+  /**
+   * Prepare the statement with {@link java.sql.Statement#RETURN_GENERATED_KEYS} so the keys
+   * can be read with {@link ExecuteUpdateGeneratedKeys}.
+   *
+   * @return a new {@link DefaultPreparedStatementBuilder} returning generated keys
+   */
+  public DefaultPreparedStatementBuilder returningGeneratedKeys() {
+    return new DefaultPreparedStatementBuilder(sql, parameters, batches, converters, new String[0]);
+  }
+
+  /**
+   * Prepare the statement returning the given generated columns so they
+   * can be read with {@link ExecuteUpdateGeneratedKeys}.
+   *
+   * @param columnNames the names of the generated columns to be returned
+   * @return a new {@link DefaultPreparedStatementBuilder} returning the given columns
+   */
+  public DefaultPreparedStatementBuilder returningGeneratedKeys(String... columnNames) {
+    return new DefaultPreparedStatementBuilder(sql, parameters, batches, converters, columnNames.clone());
+  }
+
+  /**
+   * End the current row of parameters and start a new one. Each row is bound and
+   * added with {@link PreparedStatement#addBatch()} when the statement is built,
+   * including the last row if it has parameters, so the statement should be run with
+   * {@link PreparedStatement#executeBatch()}, eg by {@link ExecuteUpdateGeneratedKeys#usingBatch}.
+   * Every row must produce the same statement, so <code>IN</code> lists must fall in the same bucket.
+   *
+   * @return a new {@link DefaultPreparedStatementBuilder} with a new empty row of parameters
+   */
+  public DefaultPreparedStatementBuilder addBatch() {
+    List<List<Parameter>> newBatches = new ArrayList<>();
+    newBatches.addAll(batches);
+    newBatches.add(parameters);
+    return new DefaultPreparedStatementBuilder(sql, Collections.emptyList(), newBatches, converters, generatedKeyColumns);
   }
 
   /**
@@ -54,28 +112,168 @@ public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder
    * @return a new {@link DefaultPreparedStatementBuilder} with the added object
    */
   public DefaultPreparedStatementBuilder add(Object o, int type) {
-    List<TypedObject> newParameters = new ArrayList<>();
+    return add(new TypedObject(o, type));
+  }
+
+  /**
+   * Add a new collection parameter for an <code>IN (?)</code> list. The matching placeholder
+   * is expanded to the next power of two of the collection size (1, 2, 4, 8...) and padded
+   * by repeating the last value, so the number of distinct statements stays small.
+   * An empty collection is bound as a single <code>NULL</code>, so <code>IN (NULL)</code> matches no rows.
+   * Beware that <code>NOT IN (NULL)</code> is never true either, so it also matches no rows rather than every row:
+   * check for an empty collection and leave out a <code>NOT IN</code> predicate instead.
+   *
+   * @param values the values to be added
+   * @param type   the type of each value from {@link java.sql.Types}
+   * @return a new {@link DefaultPreparedStatementBuilder} with the added values
+   */
+  public DefaultPreparedStatementBuilder addIn(Collection<?> values, int type) {
+    return add(new InList(new ArrayList<>(values), type));
+  }
+
+  /**
+   * Add a new collection parameter bound as a single {@link java.sql.Array} using
+   * {@link Connection#createArrayOf(String, Object[])}, eg <code>WHERE id = ANY(?)</code> in PostgreSQL.
+   * The statement is the same whatever the size of the collection.
+   *
+   * @param values   the values to be added
+   * @param typeName the SQL name of the element type, as used by {@link Connection#createArrayOf(String, Object[])}
+   * @return a new {@link DefaultPreparedStatementBuilder} with the added array
+   */
+  public DefaultPreparedStatementBuilder addArray(Collection<?> values, String typeName) {
+    return add(new ArrayParameter(new ArrayList<>(values), typeName));
+  }
+
+  /**
+   * Add a new binary parameter read from the given {@link Observable} as the statement is executed,
+   * with {@link PreparedStatement#setBinaryStream(int, java.io.InputStream)}, so the data is never held
+   * in memory. The {@link Observable} is subscribed to each time the statement is built.
+   * Not all drivers support streams of unknown length, see {@link #addStream(Observable, long)}.
+   *
+   * @param data the buffers to be streamed
+   * @return a new {@link DefaultPreparedStatementBuilder} with the added stream
+   * @see ObservableInputStream
+   */
+  public DefaultPreparedStatementBuilder addStream(Observable<ByteBuffer> data) {
+    return add(new StreamParameter(data, -1));
+  }
+
+  /**
+   * Add a new binary parameter of the given length read from the given {@link Observable} as the statement
+   * is executed, with {@link PreparedStatement#setBinaryStream(int, java.io.InputStream, long)}.
+   *
+   * @param data   the buffers to be streamed
+   * @param length the total number of bytes in data
+   * @return a new {@link DefaultPreparedStatementBuilder} with the added stream
+   * @see ObservableInputStream
+   */
+  public DefaultPreparedStatementBuilder addStream(Observable<ByteBuffer> data, long length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("length must not be negative: " + length);
+    }
+    return add(new StreamParameter(data, length));
+  }
+
+  private DefaultPreparedStatementBuilder add(Parameter parameter) {
+    List<Parameter> newParameters = new ArrayList<>();
     newParameters.addAll(parameters);
-    newParameters.add(new TypedObject(o, type));
-    return new DefaultPreparedStatementBuilder(sql, newParameters, converters);
+    newParameters.add(parameter);
+    return new DefaultPreparedStatementBuilder(sql, newParameters, batches, converters, generatedKeyColumns);
   }
 
   @Override
   public PreparedStatement build(Connection connection) throws SQLException {
-    PreparedStatement statement = connection.prepareStatement(sql);
-
-    for (int i = 0; i < parameters.size(); ++i) {
-      TypedObject o = parameters.get(0);
-      if (o.object == null) {
-        statement.setNull(i, o.type);
-      } else {
-        statement.setObject(i, convert(o.object, o.type), o.type);
+    if (batches.isEmpty()) {
+      PreparedStatement statement = prepare(connection, expandedSql(parameters));
+      try {
+        bind(connection, statement, parameters);
+      } catch (SQLException | RuntimeException e) {
+        release(statement);
+        statement.close();
+        throw e;
       }
+      return statement;
     }
 
+    List<List<Parameter>> rows = new ArrayList<>(batches);
+    if (!parameters.isEmpty()) {
+      rows.add(parameters);
+    }
+    String expandedSql = expandedSql(rows.get(0));
+    PreparedStatement statement = prepare(connection, expandedSql);
+    try {
+      for (List<Parameter> row : rows) {
+        if (!expandedSql.equals(expandedSql(row))) {
+          throw new SQLException("Every batched row must produce the same statement: " + expandedSql);
+        }
+        bind(connection, statement, row);
+        statement.addBatch();
+      }
+    } catch (SQLException | RuntimeException e) {
+      release(statement);
+      statement.close();
+      throw e;
+    }
     return statement;
   }
 
+  /**
+   * Close the streams bound to the given statement, unsubscribing from any source still being read.
+   */
+  @Override
+  public void release(PreparedStatement preparedStatement) {
+    for (List<Parameter> row : batches) {
+      release(preparedStatement, row);
+    }
+    release(preparedStatement, parameters);
+  }
+
+  private static void release(PreparedStatement preparedStatement, List<Parameter> row) {
+    for (Parameter parameter : row) {
+      parameter.release(preparedStatement);
+    }
+  }
+
+  private PreparedStatement prepare(Connection connection, String expandedSql) throws SQLException {
+    if (generatedKeyColumns == null) {
+      return connection.prepareStatement(expandedSql);
+    } else if (generatedKeyColumns.length == 0) {
+      return connection.prepareStatement(expandedSql, Statement.RETURN_GENERATED_KEYS);
+    } else {
+      return connection.prepareStatement(expandedSql, generatedKeyColumns);
+    }
+  }
+
+  private void bind(Connection connection, PreparedStatement statement, List<Parameter> row) throws SQLException {
+    int index = 1;
+    for (Parameter parameter : row) {
+      index = parameter.bind(connection, statement, index);
+    }
+  }
+
+  private String expandedSql(List<Parameter> row) {
+    int[] counts = new int[row.size()];
+    boolean expand = false;
+    for (int i = 0; i < counts.length; ++i) {
+      counts[i] = row.get(i).placeholders();
+      expand |= counts[i] != 1;
+    }
+    return expand ? Placeholders.expandIndexed(sql, counts) : sql;
+  }
+
+  /**
+   * Bind values with this builder's converters to a statement that is prepared once and reused,
+   * rather than built with {@link #build(Connection)}.
+   *
+   * @return the index of the next parameter
+   */
+  int bindValues(PreparedStatement statement, int index, Object[] values, int[] types) throws SQLException {
+    for (int i = 0; i < values.length; ++i) {
+      bindObject(statement, index + i, values[i], types[i]);
+    }
+    return index + values.length;
+  }
+
   private Object convert(Object o, int type) {
     return converters.stream()
       .filter(c -> c.matches(o.getClass(), type))
@@ -85,7 +283,33 @@ public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder
       .orElse(o);
   }
 
-  private class TypedObject {
+  private void bindObject(PreparedStatement statement, int index, Object o, int type) throws SQLException {
+    if (o == null) {
+      statement.setNull(index, type);
+    } else {
+      statement.setObject(index, convert(o, type), type);
+    }
+  }
+
+  private interface Parameter {
+    /**
+     * @return the number of placeholders this parameter is rendered as
+     */
+    int placeholders();
+
+    /**
+     * @return the index of the next parameter
+     */
+    int bind(Connection connection, PreparedStatement statement, int index) throws SQLException;
+
+    /**
+     * Close anything bound to the given statement that its driver need not close.
+     */
+    default void release(PreparedStatement statement) {
+    }
+  }
+
+  private class TypedObject implements Parameter {
     private final Object object;
     private final int type;
 
@@ -93,5 +317,101 @@ public class DefaultPreparedStatementBuilder implements PreparedStatementBuilder
       this.object = object;
       this.type = type;
     }
+
+    @Override
+    public int placeholders() {
+      return 1;
+    }
+
+    @Override
+    public int bind(Connection connection, PreparedStatement statement, int index) throws SQLException {
+      bindObject(statement, index, object, type);
+      return index + 1;
+    }
+  }
+
+  private class InList implements Parameter {
+    private final List<?> values;
+    private final int type;
+
+    InList(List<?> values, int type) {
+      this.values = values;
+      this.type = type;
+    }
+
+    @Override
+    public int placeholders() {
+      return Placeholders.bucket(values.size());
+    }
+
+    @Override
+    public int bind(Connection connection, PreparedStatement statement, int index) throws SQLException {
+      int placeholders = placeholders();
+      Object last = values.isEmpty() ? null : values.get(values.size() - 1);
+      for (int i = 0; i < placeholders; ++i) {
+        bindObject(statement, index + i, i < values.size() ? values.get(i) : last, type);
+      }
+      return index + placeholders;
+    }
+  }
+
+  private class ArrayParameter implements Parameter {
+    private final List<?> values;
+    private final String typeName;
+
+    ArrayParameter(List<?> values, String typeName) {
+      this.values = values;
+      this.typeName = typeName;
+    }
+
+    @Override
+    public int placeholders() {
+      return 1;
+    }
+
+    @Override
+    public int bind(Connection connection, PreparedStatement statement, int index) throws SQLException {
+      statement.setArray(index, connection.createArrayOf(typeName, values.toArray()));
+      return index + 1;
+    }
+  }
+
+  private class StreamParameter implements Parameter {
+    private final Observable<ByteBuffer> data;
+    private final long length;
+    // the builder may be shared, so keep the stream bound to each statement until it is released,
+    // weakly in case it never is
+    private final Map<PreparedStatement, ObservableInputStream> streams =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+    StreamParameter(Observable<ByteBuffer> data, long length) {
+      this.data = data;
+      this.length = length;
+    }
+
+    @Override
+    public int placeholders() {
+      return 1;
+    }
+
+    @Override
+    public int bind(Connection connection, PreparedStatement statement, int index) throws SQLException {
+      ObservableInputStream stream = new ObservableInputStream(data);
+      streams.put(statement, stream);
+      if (length < 0) {
+        statement.setBinaryStream(index, stream);
+      } else {
+        statement.setBinaryStream(index, stream, length);
+      }
+      return index + 1;
+    }
+
+    @Override
+    public void release(PreparedStatement statement) {
+      ObservableInputStream stream = streams.remove(statement);
+      if (stream != null) {
+        stream.close();
+      }
+    }
   }
 }
@@ -9,6 +9,7 @@ import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An observable that wraps {@link PreparedStatement#execute()} from the given
@@ -17,7 +18,7 @@ import java.sql.PreparedStatement;
  * execute is a legacy general-purpose methods.
  * <p>
  * The {@link PreparedStatement} will be canceled if the subscriber unsubscribes
- * before completion.
+ * while it is executing, otherwise it is just closed.
  * <p>
  * It manages the lifecycle of the {@link PreparedStatement}
  * and does not close the given {@link Connection}.
@@ -32,9 +33,15 @@ public class Execute extends Observable<Void> {
   private Execute(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
     super(
       subscriber -> {
+        AtomicBoolean executing = new AtomicBoolean(true);
         try (PreparedStatement preparedStatement = preparedStatementBuilder.build(connection)) {
-          setupUnsubscription(subscriber, preparedStatement);
-          preparedStatement.execute();
+          setupUnsubscription(subscriber, preparedStatementBuilder, preparedStatement, executing);
+          try {
+            preparedStatement.execute();
+          } finally {
+            preparedStatementBuilder.release(preparedStatement);
+          }
+          executing.set(false);
           subscriber.onNext(null);
           subscriber.onCompleted();
         } catch (Throwable t) {
@@ -45,10 +52,18 @@ public class Execute extends Observable<Void> {
   }
 
   private static <T> void setupUnsubscription(Subscriber<? super T> subscriber,
-                                              PreparedStatement preparedStatement) {
+                                              PreparedStatementBuilder preparedStatementBuilder,
+                                              PreparedStatement preparedStatement,
+                                              AtomicBoolean executing) {
     subscriber.add(
       Subscriptions.create(
-        () -> Util.closeQuietly(preparedStatement)
+        () -> {
+          if (executing.getAndSet(false)) {
+            // closing streamed parameters first, as the driver may be blocked reading one
+            preparedStatementBuilder.release(preparedStatement);
+            Util.cancelAndCloseQuietly(preparedStatement);
+          }
+        }
       )
     );
   }
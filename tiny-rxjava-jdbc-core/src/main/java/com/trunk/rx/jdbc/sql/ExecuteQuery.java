@@ -4,20 +4,22 @@ import com.trunk.rx.jdbc.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Producer;
 import rx.Subscriber;
 import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.List;
 
 /**
  * An observable that wraps {@link PreparedStatement#executeQuery()} from the given
  * {@link PreparedStatementBuilder} in an {@link Observable}. The given {@link ResultSetMapper}
- * is used to unmarshal each returned row.
+ * is used to unmarshal each returned row, or a {@link ResultSetChunkMapper} to unmarshal chunks of rows.
  * <p>
- * The {@link ResultSet} and {@link PreparedStatement} will be canceled if the subscriber unsubscribes
- * before completion.
+ * The {@link PreparedStatement} will be canceled if the subscriber unsubscribes
+ * while it is executing or its {@link ResultSet} is being read, otherwise they are just closed.
  * <p>
  * It manages the lifecycle of the
  * {@link PreparedStatement} and the required {@link ResultSet} and does not close the given {@link Connection}.
@@ -30,50 +32,109 @@ public class ExecuteQuery<T> extends Observable<T> {
     PreparedStatementBuilder preparedStatementBuilder,
     ResultSetMapper<? extends T> resultSetMapper
   ) {
-    return new ExecuteQuery<>(connection, preparedStatementBuilder, resultSetMapper);
+    return new ExecuteQuery<>(
+      connection,
+      preparedStatementBuilder,
+      (subscriber, preparedStatement, resultSet) ->
+        new SelectProducer<>(resultSetMapper, subscriber, preparedStatement, resultSet)
+    );
+  }
+
+  /**
+   * Emit {@link List}s of up to chunkSize rows, each unmarshalled using the given {@link ResultSetMapper}.
+   * Requests are counted in chunks, so the per event overhead is shared across the rows of a chunk.
+   */
+  public static <T> ExecuteQuery<List<T>> usingChunks(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper,
+    int chunkSize
+  ) {
+    return usingChunks(connection, preparedStatementBuilder, ResultSetChunkMapper.<T>list(resultSetMapper), chunkSize);
+  }
+
+  /**
+   * Emit chunks of up to chunkSize rows, each created and filled by the given {@link ResultSetChunkMapper}.
+   * Requests are counted in chunks, so the per event overhead is shared across the rows of a chunk.
+   */
+  public static <C> ExecuteQuery<C> usingChunks(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetChunkMapper<C> chunkMapper,
+    int chunkSize
+  ) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return new ExecuteQuery<>(
+      connection,
+      preparedStatementBuilder,
+      (subscriber, preparedStatement, resultSet) ->
+        new ChunkedSelectProducer<>(chunkMapper, chunkSize, subscriber, preparedStatement, resultSet)
+    );
   }
 
   private ExecuteQuery(
     Connection connection,
     PreparedStatementBuilder preparedStatementBuilder,
-    ResultSetMapper<? extends T> resultSetMapper
+    ProducerFactory<T> producerFactory
   ) {
     super(
       subscriber -> {
-        try (PreparedStatement preparedStatement = preparedStatementBuilder.build(connection)) {
-          try (ResultSet resultSet = preparedStatement.executeQuery()) {
-            setupUnsubscription(subscriber, preparedStatement, resultSet);
-            subscriber.setProducer(
-              new SelectProducer<>(
-                resultSetMapper,
-                subscriber,
-                preparedStatement,
-                resultSet
-              )
-            );
-          }
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+          preparedStatement = preparedStatementBuilder.build(connection);
+          setupUnsubscription(subscriber, preparedStatementBuilder, preparedStatement);
+          resultSet = preparedStatement.executeQuery();
+          preparedStatementBuilder.release(preparedStatement);
+          setupUnsubscription(subscriber, resultSet);
+          subscriber.setProducer(producerFactory.create(subscriber, preparedStatement, resultSet));
         } catch (Throwable t) {
+          if (preparedStatement != null) {
+            preparedStatementBuilder.release(preparedStatement);
+          }
+          Util.closeQuietly(resultSet);
+          Util.closeQuietly(preparedStatement);
           handleException(t, subscriber);
         }
       }
     );
   }
 
+  /**
+   * The producer closes the {@link PreparedStatement} when the results are complete, so
+   * it is only cancelled if the subscriber unsubscribes while it is executing or being read.
+   */
   private static <T> void setupUnsubscription(
     Subscriber<? super T> subscriber,
-    PreparedStatement preparedStatement,
-    ResultSet resultSet
+    PreparedStatementBuilder preparedStatementBuilder,
+    PreparedStatement preparedStatement
   ) {
     subscriber.add(
       Subscriptions.create(
         () -> {
-          Util.closeQuietly(resultSet);
-          Util.closeQuietly(preparedStatement);
+          // closing streamed parameters first, as the driver may be blocked reading one
+          preparedStatementBuilder.release(preparedStatement);
+          Util.cancelAndCloseQuietly(preparedStatement);
         }
       )
     );
   }
 
+  private static <T> void setupUnsubscription(Subscriber<? super T> subscriber, ResultSet resultSet) {
+    subscriber.add(
+      Subscriptions.create(
+        () -> Util.closeQuietly(resultSet)
+      )
+    );
+  }
+
+  @FunctionalInterface
+  private interface ProducerFactory<T> {
+    Producer create(Subscriber<? super T> subscriber, PreparedStatement preparedStatement, ResultSet resultSet);
+  }
+
   private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
     log.debug("onError: " + t.getMessage());
     if (subscriber.isUnsubscribed()) {
@@ -5,10 +5,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.Subscriber;
+import rx.functions.Func1;
 import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An observable that wraps {@link PreparedStatement#executeUpdate()} from the given
@@ -16,7 +19,7 @@ import java.sql.PreparedStatement;
  * event containing the result of {@link PreparedStatement#executeUpdate() executeUpdate()}.
  * <p>
  * The {@link PreparedStatement} will be canceled if the subscriber unsubscribes
- * before completion.
+ * while it is executing, otherwise it is just closed.
  * <p>
  * It manages the lifecycle of the
  * {@link PreparedStatement} and does not close the given {@link Connection}.
@@ -28,12 +31,45 @@ public class ExecuteUpdate extends Observable<Integer> {
     return new ExecuteUpdate(connection, preparedStatementBuilder);
   }
 
+  /**
+   * Execute an update for each chunk of up to chunkSize keys, eg a bulk delete by a large set of ids
+   * using {@link DefaultPreparedStatementBuilder#addIn(java.util.Collection, int)}. Chunks are executed
+   * one after another on the given {@link Connection}, and keys are requested from the source as
+   * each chunk is needed.
+   *
+   * @param connection    the connection to execute each update on
+   * @param keys          the keys to be chunked
+   * @param chunkSize     the maximum number of keys in each chunk
+   * @param chunkToUpdate creates the {@link PreparedStatementBuilder} for each chunk
+   * @return an {@link Observable} of the updated row counts, one per chunk
+   */
+  public static <K> Observable<Integer> inChunks(
+    Connection connection,
+    Observable<K> keys,
+    int chunkSize,
+    Func1<? super List<K>, ? extends PreparedStatementBuilder> chunkToUpdate
+  ) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return keys
+      .buffer(chunkSize)
+      .concatMap(chunk -> using(connection, chunkToUpdate.call(chunk)));
+  }
+
   private ExecuteUpdate(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
     super(
       subscriber -> {
+        AtomicBoolean executing = new AtomicBoolean(true);
         try (PreparedStatement preparedStatement = preparedStatementBuilder.build(connection)) {
-          setupUnsubscription(subscriber, preparedStatement);
-          int updatedRows = preparedStatement.executeUpdate();
+          setupUnsubscription(subscriber, preparedStatementBuilder, preparedStatement, executing);
+          int updatedRows;
+          try {
+            updatedRows = preparedStatement.executeUpdate();
+          } finally {
+            preparedStatementBuilder.release(preparedStatement);
+          }
+          executing.set(false);
           subscriber.onNext(updatedRows);
           subscriber.onCompleted();
         } catch (Throwable t) {
@@ -44,10 +80,18 @@ public class ExecuteUpdate extends Observable<Integer> {
   }
 
   private static <T> void setupUnsubscription(Subscriber<? super T> subscriber,
-                                              PreparedStatement preparedStatement) {
+                                              PreparedStatementBuilder preparedStatementBuilder,
+                                              PreparedStatement preparedStatement,
+                                              AtomicBoolean executing) {
     subscriber.add(
       Subscriptions.create(
-        () -> Util.closeQuietly(preparedStatement)
+        () -> {
+          if (executing.getAndSet(false)) {
+            // closing streamed parameters first, as the driver may be blocked reading one
+            preparedStatementBuilder.release(preparedStatement);
+            Util.cancelAndCloseQuietly(preparedStatement);
+          }
+        }
       )
     );
   }
@@ -0,0 +1,129 @@
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * An observable that wraps {@link PreparedStatement#executeUpdate()}, or {@link PreparedStatement#executeBatch()},
+ * from the given {@link PreparedStatementBuilder} and emits each row of {@link PreparedStatement#getGeneratedKeys()}.
+ * The given {@link ResultSetMapper} is used to unmarshal each returned row.
+ * <p>
+ * The {@link PreparedStatement} must be prepared to return generated keys, eg with
+ * {@link DefaultPreparedStatementBuilder#returningGeneratedKeys()} or
+ * {@link Connection#prepareStatement(String, int)} using {@link Statement#RETURN_GENERATED_KEYS}.
+ * <p>
+ * The {@link PreparedStatement} will be canceled if the subscriber unsubscribes
+ * while it is executing or the generated keys are being read, otherwise they are just closed.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement} and the generated keys {@link ResultSet} and does not close the given {@link Connection}.
+ */
+public class ExecuteUpdateGeneratedKeys<T> extends Observable<T> {
+  private static final Logger log = LoggerFactory.getLogger(ExecuteUpdateGeneratedKeys.class);
+
+  /**
+   * Execute a single update and emit the generated keys.
+   */
+  public static <T> ExecuteUpdateGeneratedKeys<T> using(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper
+  ) {
+    return new ExecuteUpdateGeneratedKeys<>(connection, preparedStatementBuilder, resultSetMapper, false);
+  }
+
+  /**
+   * Execute a batch, eg built with {@link DefaultPreparedStatementBuilder#addBatch()}, and emit
+   * the generated keys for the whole batch. Not all drivers return keys for every row of a batch.
+   */
+  public static <T> ExecuteUpdateGeneratedKeys<T> usingBatch(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper
+  ) {
+    return new ExecuteUpdateGeneratedKeys<>(connection, preparedStatementBuilder, resultSetMapper, true);
+  }
+
+  private ExecuteUpdateGeneratedKeys(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper,
+    boolean batch
+  ) {
+    super(
+      subscriber -> {
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+          preparedStatement = preparedStatementBuilder.build(connection);
+          setupUnsubscription(subscriber, preparedStatementBuilder, preparedStatement);
+          if (batch) {
+            preparedStatement.executeBatch();
+          } else {
+            preparedStatement.executeUpdate();
+          }
+          preparedStatementBuilder.release(preparedStatement);
+          resultSet = preparedStatement.getGeneratedKeys();
+          setupUnsubscription(subscriber, resultSet);
+          subscriber.setProducer(
+            new SelectProducer<>(
+              resultSetMapper,
+              subscriber,
+              preparedStatement,
+              resultSet
+            )
+          );
+        } catch (Throwable t) {
+          if (preparedStatement != null) {
+            preparedStatementBuilder.release(preparedStatement);
+          }
+          Util.closeQuietly(resultSet);
+          Util.closeQuietly(preparedStatement);
+          handleException(t, subscriber);
+        }
+      }
+    );
+  }
+
+  private static <T> void setupUnsubscription(
+    Subscriber<? super T> subscriber,
+    PreparedStatementBuilder preparedStatementBuilder,
+    PreparedStatement preparedStatement
+  ) {
+    subscriber.add(
+      Subscriptions.create(
+        () -> {
+          // closing streamed parameters first, as the driver may be blocked reading one
+          preparedStatementBuilder.release(preparedStatement);
+          Util.cancelAndCloseQuietly(preparedStatement);
+        }
+      )
+    );
+  }
+
+  private static <T> void setupUnsubscription(Subscriber<? super T> subscriber, ResultSet resultSet) {
+    subscriber.add(
+      Subscriptions.create(
+        () -> Util.closeQuietly(resultSet)
+      )
+    );
+  }
+
+  private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
+    log.debug("onError: " + t.getMessage());
+    if (subscriber.isUnsubscribed()) {
+      log.debug("unsubscribed");
+    } else {
+      subscriber.onError(t);
+    }
+  }
+}
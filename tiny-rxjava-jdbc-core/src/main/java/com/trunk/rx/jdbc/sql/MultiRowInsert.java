@@ -0,0 +1,206 @@
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.functions.Func1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An observable that inserts rows by rewriting a single row insert, eg
+ * <code>INSERT INTO test (id, name) VALUES (?, ?)</code>, into multi-row
+ * <code>VALUES (?, ?), (?, ?), ...</code> statements, so many rows are sent in each statement
+ * even where the driver executes JDBC batches one statement at a time.
+ * It emits a single {@link Integer} event per statement, containing the result of
+ * {@link PreparedStatement#executeUpdate() executeUpdate()}.
+ * <p>
+ * Each statement inserts up to {@link #withRowsPerStatement(int) rowsPerStatement} rows, limited so it has no more than
+ * {@link #withMaxParameters(int) maxParameters} parameters. Rows are requested from the source as each statement
+ * is needed. A {@link PreparedStatement} is prepared once for each distinct number of rows and reused.
+ * Values are bound with any {@link SqlObjectConverter}s added with {@link #with(SqlObjectConverter)}, as
+ * {@link DefaultPreparedStatementBuilder}.
+ * <p>
+ * The rows are the first parenthesised row after <code>VALUES</code>, so clauses after it such as MySQL's
+ * <code>ON DUPLICATE KEY UPDATE a = VALUES(a)</code> are kept, but may not have placeholders of their own.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement}s and does not close the given {@link Connection}.
+ */
+public class MultiRowInsert<T> extends Observable<Integer> {
+  private static final Logger log = LoggerFactory.getLogger(MultiRowInsert.class);
+
+  public static final int DEFAULT_ROWS_PER_STATEMENT = 100;
+  /**
+   * The largest number of parameters PostgreSQL's JDBC driver allows in a statement
+   */
+  public static final int DEFAULT_MAX_PARAMETERS = 32767;
+
+  private final Connection connection;
+  private final String sql;
+  private final Observable<T> rows;
+  private final Func1<? super T, Object[]> values;
+  private final int[] types;
+  private final int rowsPerStatement;
+  private final int maxParameters;
+  private final DefaultPreparedStatementBuilder binder;
+
+  /**
+   * @param sql    a single row insert with a parameter for each column in its <code>VALUES</code>,
+   *               and no other parameters
+   * @param rows   the rows to insert
+   * @param values the values of each row, in parameter order
+   * @param types  the type of each parameter from {@link java.sql.Types}
+   */
+  public static <T> MultiRowInsert<T> using(
+    Connection connection,
+    String sql,
+    Observable<T> rows,
+    Func1<? super T, Object[]> values,
+    int... types
+  ) {
+    int placeholders = Placeholders.valuesPlaceholders(sql);
+    if (placeholders != Placeholders.indexedPlaceholders(sql)) {
+      throw new IllegalArgumentException("Parameters are only supported in the VALUES row of " + sql);
+    }
+    if (placeholders != types.length) {
+      throw new IllegalArgumentException(
+        "Expected " + placeholders + " types for the parameters of " + sql + " but got " + types.length
+      );
+    }
+    return new MultiRowInsert<>(
+      connection,
+      sql,
+      rows,
+      values,
+      types.clone(),
+      DEFAULT_ROWS_PER_STATEMENT,
+      DEFAULT_MAX_PARAMETERS,
+      DefaultPreparedStatementBuilder.of(sql)
+    );
+  }
+
+  private MultiRowInsert(
+    Connection connection,
+    String sql,
+    Observable<T> rows,
+    Func1<? super T, Object[]> values,
+    int[] types,
+    int rowsPerStatement,
+    int maxParameters,
+    DefaultPreparedStatementBuilder binder
+  ) {
+    super(
+      subscriber ->
+        Observable.using(
+          () -> new StatementCache(connection, sql),
+          cache ->
+            rows
+              .buffer(Math.max(1, Math.min(rowsPerStatement, maxParameters / Math.max(1, types.length))))
+              .concatMap(chunk -> insert(cache, chunk, values, types, binder)),
+          StatementCache::close
+        )
+          .unsafeSubscribe(subscriber)
+    );
+    this.connection = connection;
+    this.sql = sql;
+    this.rows = rows;
+    this.values = values;
+    this.types = types;
+    this.rowsPerStatement = rowsPerStatement;
+    this.maxParameters = maxParameters;
+    this.binder = binder;
+  }
+
+  /**
+   * Add an new {@link SqlObjectConverter}. These are tested in the order they are added.
+   *
+   * @param converter the {@link SqlObjectConverter} to add to the list of converters
+   * @return a new {@link MultiRowInsert} with the additional converter
+   */
+  public MultiRowInsert<T> with(SqlObjectConverter<Object> converter) {
+    return new MultiRowInsert<>(connection, sql, rows, values, types, rowsPerStatement, maxParameters, binder.with(converter));
+  }
+
+  /**
+   * @param rowsPerStatement the maximum number of rows inserted by each statement
+   * @return a new {@link MultiRowInsert} with the given rows per statement
+   */
+  public MultiRowInsert<T> withRowsPerStatement(int rowsPerStatement) {
+    if (rowsPerStatement < 1) {
+      throw new IllegalArgumentException("rowsPerStatement must be positive: " + rowsPerStatement);
+    }
+    return new MultiRowInsert<>(connection, sql, rows, values, types, rowsPerStatement, maxParameters, binder);
+  }
+
+  /**
+   * @param maxParameters the maximum number of parameters in each statement
+   * @return a new {@link MultiRowInsert} with the given limit on parameters
+   */
+  public MultiRowInsert<T> withMaxParameters(int maxParameters) {
+    if (maxParameters < types.length) {
+      throw new IllegalArgumentException("maxParameters must allow at least one row: " + maxParameters);
+    }
+    return new MultiRowInsert<>(connection, sql, rows, values, types, rowsPerStatement, maxParameters, binder);
+  }
+
+  private static <T> Observable<Integer> insert(
+    StatementCache cache,
+    List<T> chunk,
+    Func1<? super T, Object[]> values,
+    int[] types,
+    DefaultPreparedStatementBuilder binder
+  ) {
+    return Observable.defer(() -> {
+      try {
+        PreparedStatement preparedStatement = cache.get(chunk.size());
+        int index = 1;
+        for (T row : chunk) {
+          Object[] rowValues = values.call(row);
+          if (rowValues.length != types.length) {
+            throw new SQLException("Expected " + types.length + " values but got " + rowValues.length);
+          }
+          index = binder.bindValues(preparedStatement, index, rowValues, types);
+        }
+        return Observable.just(preparedStatement.executeUpdate());
+      } catch (Throwable t) {
+        log.debug("onError: " + t.getMessage());
+        return Observable.error(t);
+      }
+    });
+  }
+
+  /**
+   * The prepared multi-row statements by number of rows
+   */
+  private static class StatementCache {
+    private final Connection connection;
+    private final String sql;
+    private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+
+    StatementCache(Connection connection, String sql) {
+      this.connection = connection;
+      this.sql = sql;
+    }
+
+    PreparedStatement get(int rows) throws SQLException {
+      PreparedStatement preparedStatement = statements.get(rows);
+      if (preparedStatement == null) {
+        preparedStatement = DefaultPreparedStatementBuilder.of(Placeholders.repeatValues(sql, rows)).build(connection);
+        statements.put(rows, preparedStatement);
+      }
+      return preparedStatement;
+    }
+
+    void close() {
+      statements.values().forEach(Util::closeQuietly);
+      statements.clear();
+    }
+  }
+}
@@ -1,23 +1,35 @@
 package com.trunk.rx.jdbc.sql;
 
 import com.trunk.jdbc.NamedParameterPreparedStatement;
+import rx.Observable;
 
+import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * An immutable class to simplify building named-parameter {@link PreparedStatement}s.
+ * <p>
+ * Collection parameters can be added with {@link #addIn(String, Collection, int)}, which pads
+ * the list to a small number of statement shapes, or {@link #addArray(String, Collection, String)},
+ * which binds a single {@link java.sql.Array}.
+ * Large objects can be streamed from an {@link Observable} with {@link #addStream(String, Observable)}.
  */
 public class NamedParameterPreparedStatementBuilder implements PreparedStatementBuilder {
 
   private final String sql;
   private final Collection<SqlObjectConverter<Object>> converters;
-  private final Collection<NamedTypedObject> parameters;
+  private final Collection<NamedParameter> parameters;
 
   /**
    * Create the base builder
@@ -31,7 +43,7 @@ public class NamedParameterPreparedStatementBuilder implements PreparedStatement
 
   private NamedParameterPreparedStatementBuilder(
     String sql,
-    Collection<NamedTypedObject> parameters,
+    Collection<NamedParameter> parameters,
     Collection<SqlObjectConverter<Object>> converters
   ) {
     this.sql = sql;
@@ -61,25 +73,100 @@ public class NamedParameterPreparedStatementBuilder implements PreparedStatement
    * @return a new {@link NamedParameterPreparedStatementBuilder} with the added object
    */
   public NamedParameterPreparedStatementBuilder add(String name, Object o, int type) throws SQLException {
-    List<NamedTypedObject> newParameters = new ArrayList<>();
+    return add(new NamedTypedObject(name, o, type));
+  }
+
+  /**
+   * Add a new collection parameter for an <code>IN (:name)</code> list. The named placeholder
+   * is expanded to the next power of two of the collection size (1, 2, 4, 8...) and padded
+   * by repeating the last value, so the number of distinct statements stays small.
+   * An empty collection is bound as a single <code>NULL</code>, so <code>IN (NULL)</code> matches no rows.
+   * Beware that <code>NOT IN (NULL)</code> is never true either, so it also matches no rows rather than every row:
+   * check for an empty collection and leave out a <code>NOT IN</code> predicate instead.
+   * Parameters with duplicate names wil replace existing parameters.
+   *
+   * @param name   the name of the parameter as it appears in the query
+   * @param values the values to be added
+   * @param type   the type of each value from {@link java.sql.Types}
+   * @return a new {@link NamedParameterPreparedStatementBuilder} with the added values
+   */
+  public NamedParameterPreparedStatementBuilder addIn(String name, Collection<?> values, int type) {
+    return add(new NamedInList(name, new ArrayList<>(values), type));
+  }
+
+  /**
+   * Add a new collection parameter bound as a single {@link java.sql.Array} using
+   * {@link Connection#createArrayOf(String, Object[])}, eg <code>WHERE id = ANY(:ids)</code> in PostgreSQL.
+   * The statement is the same whatever the size of the collection.
+   * Parameters with duplicate names wil replace existing parameters.
+   *
+   * @param name     the name of the parameter as it appears in the query
+   * @param values   the values to be added
+   * @param typeName the SQL name of the element type, as used by {@link Connection#createArrayOf(String, Object[])}
+   * @return a new {@link NamedParameterPreparedStatementBuilder} with the added array
+   */
+  public NamedParameterPreparedStatementBuilder addArray(String name, Collection<?> values, String typeName) {
+    return add(new NamedArray(name, new ArrayList<>(values), typeName));
+  }
+
+  /**
+   * Add a new binary parameter read from the given {@link Observable} as the statement is executed,
+   * bound as an {@link java.io.InputStream} with {@link Types#LONGVARBINARY}, so the data is never held in memory.
+   * The {@link Observable} is subscribed to each time the statement is built.
+   * Parameters with duplicate names wil replace existing parameters.
+   *
+   * @param name the name of the parameter as it appears in the query
+   * @param data the buffers to be streamed
+   * @return a new {@link NamedParameterPreparedStatementBuilder} with the added stream
+   * @see ObservableInputStream
+   */
+  public NamedParameterPreparedStatementBuilder addStream(String name, Observable<ByteBuffer> data) {
+    return add(new NamedStream(name, data));
+  }
+
+  private NamedParameterPreparedStatementBuilder add(NamedParameter parameter) {
+    List<NamedParameter> newParameters = new ArrayList<>();
     newParameters.addAll(parameters);
-    newParameters.add(new NamedTypedObject(name, o, type));
+    newParameters.add(parameter);
     return new NamedParameterPreparedStatementBuilder(sql, newParameters, converters);
   }
 
   @Override
   public PreparedStatement build(Connection connection) throws SQLException {
-    NamedParameterPreparedStatement statement = NamedParameterPreparedStatement.from(connection, sql);
-    for (NamedTypedObject o : parameters) {
-      if (o.object == null) {
-        statement.setNull(o.name, o.type);
+    Map<String, NamedParameter> byName = new LinkedHashMap<>();
+    Map<String, Integer> expansions = new HashMap<>();
+    for (NamedParameter o : parameters) {
+      byName.put(o.name, o);
+      if (o.expanded()) {
+        expansions.put(o.name, o.placeholders());
       } else {
-        statement.setObject(o.name, convert(o.object, o.type), o.type);
+        expansions.remove(o.name);
       }
     }
+    String expandedSql = expansions.isEmpty() ? sql : Placeholders.expandNamed(sql, expansions);
+    NamedParameterPreparedStatement statement = NamedParameterPreparedStatement.from(connection, expandedSql);
+    try {
+      for (NamedParameter o : byName.values()) {
+        o.bind(connection, statement);
+      }
+    } catch (SQLException | RuntimeException e) {
+      release(statement);
+      statement.close();
+      throw e;
+    }
     return statement;
   }
 
+  /**
+   * Close the streams bound to the given statement, unsubscribing from any source still being read.
+   */
+  @Override
+  public void release(PreparedStatement preparedStatement) {
+    for (NamedParameter parameter : parameters) {
+      parameter.release(preparedStatement);
+    }
+  }
+
   private Object convert(Object o, int type) {
     return converters.stream()
       .filter(c -> c.matches(o.getClass(), type))
@@ -89,15 +176,154 @@ public class NamedParameterPreparedStatementBuilder implements PreparedStatement
       .orElse(o);
   }
 
-  private class NamedTypedObject {
-    private final String name;
+  private void bindObject(NamedParameterPreparedStatement statement, String name, Object o, int type) throws SQLException {
+    if (o == null) {
+      statement.setNull(name, type);
+    } else {
+      statement.setObject(name, convert(o, type), type);
+    }
+  }
+
+  private abstract class NamedParameter {
+    protected final String name;
+
+    NamedParameter(String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return true if the named placeholder is rendered as a list of placeholders
+     */
+    abstract boolean expanded();
+
+    abstract int placeholders();
+
+    abstract void bind(Connection connection, NamedParameterPreparedStatement statement) throws SQLException;
+
+    /**
+     * Close anything bound to the given statement that its driver need not close.
+     */
+    void release(PreparedStatement statement) {
+    }
+  }
+
+  private class NamedTypedObject extends NamedParameter {
     private final Object object;
     private final int type;
 
     NamedTypedObject(String name, Object object, int type) {
-      this.name = name;
+      super(name);
       this.object = object;
       this.type = type;
     }
+
+    @Override
+    boolean expanded() {
+      return false;
+    }
+
+    @Override
+    int placeholders() {
+      return 1;
+    }
+
+    @Override
+    void bind(Connection connection, NamedParameterPreparedStatement statement) throws SQLException {
+      bindObject(statement, name, object, type);
+    }
+  }
+
+  private class NamedInList extends NamedParameter {
+    private final List<?> values;
+    private final int type;
+
+    NamedInList(String name, List<?> values, int type) {
+      super(name);
+      this.values = values;
+      this.type = type;
+    }
+
+    @Override
+    boolean expanded() {
+      return true;
+    }
+
+    @Override
+    int placeholders() {
+      return Placeholders.bucket(values.size());
+    }
+
+    @Override
+    void bind(Connection connection, NamedParameterPreparedStatement statement) throws SQLException {
+      int placeholders = placeholders();
+      Object last = values.isEmpty() ? null : values.get(values.size() - 1);
+      for (int i = 0; i < placeholders; ++i) {
+        bindObject(statement, Placeholders.expandedName(name, i), i < values.size() ? values.get(i) : last, type);
+      }
+    }
+  }
+
+  private class NamedArray extends NamedParameter {
+    private final List<?> values;
+    private final String typeName;
+
+    NamedArray(String name, List<?> values, String typeName) {
+      super(name);
+      this.values = values;
+      this.typeName = typeName;
+    }
+
+    @Override
+    boolean expanded() {
+      return false;
+    }
+
+    @Override
+    int placeholders() {
+      return 1;
+    }
+
+    @Override
+    void bind(Connection connection, NamedParameterPreparedStatement statement) throws SQLException {
+      statement.setObject(name, connection.createArrayOf(typeName, values.toArray()), Types.ARRAY);
+    }
+  }
+
+  private class NamedStream extends NamedParameter {
+    private final Observable<ByteBuffer> data;
+    // the builder may be shared, so keep the stream bound to each statement until it is released,
+    // weakly in case it never is
+    private final Map<PreparedStatement, ObservableInputStream> streams =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+    NamedStream(String name, Observable<ByteBuffer> data) {
+      super(name);
+      this.data = data;
+    }
+
+    @Override
+    boolean expanded() {
+      return false;
+    }
+
+    @Override
+    int placeholders() {
+      return 1;
+    }
+
+    @Override
+    void bind(Connection connection, NamedParameterPreparedStatement statement) throws SQLException {
+      ObservableInputStream stream = new ObservableInputStream(data);
+      streams.put(statement, stream);
+      statement.setObject(name, stream, Types.LONGVARBINARY);
+    }
+
+    @Override
+    void release(PreparedStatement statement) {
+      ObservableInputStream stream = streams.remove(statement);
+      if (stream != null) {
+        stream.close();
+      }
+    }
   }
 }
@@ -0,0 +1,150 @@
+package com.trunk.rx.jdbc.sql;
+
+import rx.Observable;
+import rx.Subscriber;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An {@link InputStream} fed from an {@link Observable} of {@link ByteBuffer}s, so a JDBC driver can read
+ * a large object as it is produced. The source is subscribed to on the first read and a single buffer is
+ * requested at a time, only once the previous buffer has been fully read, so at most one buffer is held.
+ * <p>
+ * The source should support back pressure, otherwise its buffers are queued as they are emitted.
+ * Reads block until the next buffer is emitted. An error from the source is rethrown as an {@link IOException}
+ * from {@link #read()}. Closing the stream, from any thread, unsubscribes from the source and makes a blocked
+ * or later read throw an {@link IOException}, so a driver never sends a truncated value as if it were complete.
+ */
+public class ObservableInputStream extends InputStream {
+
+  private static final Object COMPLETED = new Object();
+  private static final Object CLOSED = new Object();
+
+  private final Observable<ByteBuffer> source;
+  private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+  private volatile BufferSubscriber subscriber;
+  private volatile boolean closed = false;
+  private ByteBuffer current;
+  private boolean done = false;
+
+  public ObservableInputStream(Observable<ByteBuffer> source) {
+    this.source = source;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBuffer()) {
+      return -1;
+    }
+    return current.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextBuffer()) {
+      return -1;
+    }
+    int n = Math.min(len, current.remaining());
+    current.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current == null ? 0 : current.remaining();
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    BufferSubscriber s = subscriber;
+    if (s != null) {
+      s.unsubscribe();
+    }
+    // wakes a read waiting for the next buffer
+    events.add(CLOSED);
+  }
+
+  /**
+   * @return true if there is a buffer with remaining bytes, requesting and waiting for the next buffer if needed
+   */
+  private boolean nextBuffer() throws IOException {
+    while (current == null || !current.hasRemaining()) {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (done) {
+        return false;
+      }
+      BufferSubscriber s = subscriber;
+      if (s == null) {
+        s = new BufferSubscriber();
+        subscriber = s;
+        source.subscribe(s);
+        if (closed) {
+          // closed while subscribing, so close() may not have seen the subscriber
+          s.unsubscribe();
+          throw new IOException("Stream closed");
+        }
+      }
+      s.requestOne();
+      Object event;
+      try {
+        event = events.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new InterruptedIOException("Interrupted waiting for the next buffer");
+      }
+      if (event == CLOSED) {
+        throw new IOException("Stream closed");
+      } else if (event == COMPLETED) {
+        done = true;
+      } else if (event instanceof Throwable) {
+        done = true;
+        throw new IOException("Source failed", (Throwable) event);
+      } else {
+        current = (ByteBuffer) event;
+      }
+    }
+    return true;
+  }
+
+  private class BufferSubscriber extends Subscriber<ByteBuffer> {
+
+    @Override
+    public void onStart() {
+      request(0);
+    }
+
+    void requestOne() {
+      request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+      events.add(buffer);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      events.add(e);
+    }
+
+    @Override
+    public void onCompleted() {
+      events.add(COMPLETED);
+    }
+  }
+}
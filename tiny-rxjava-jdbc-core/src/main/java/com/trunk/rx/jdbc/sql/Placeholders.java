@@ -0,0 +1,259 @@
+package com.trunk.rx.jdbc.sql;
+
+import java.util.Map;
+
+/**
+ * Rewrites parameter placeholders in SQL so collection parameters can be bound
+ * as a list of scalar parameters. Quoted identifiers, string literals and comments
+ * are skipped.
+ */
+final class Placeholders {
+
+  private Placeholders() {
+    // prevent instantiation
+  }
+
+  /**
+   * The number of placeholders used for a collection of the given size: the next power of two,
+   * so only a handful of distinct statement shapes are ever prepared.
+   *
+   * @param size the number of values in the collection
+   * @return the bucketed number of placeholders, at least 1
+   */
+  static int bucket(int size) {
+    if (size <= 1) {
+      return 1;
+    }
+    int highest = Integer.highestOneBit(size);
+    return highest == size ? size : highest << 1;
+  }
+
+  /**
+   * Expand each indexed placeholder into a comma separated list of placeholders.
+   *
+   * @param sql    the SQL with indexed parameters
+   * @param counts the number of placeholders to render for each indexed parameter, in order
+   * @return the rewritten SQL
+   */
+  static String expandIndexed(String sql, int[] counts) {
+    StringBuilder out = new StringBuilder(sql.length() + 16);
+    int parameter = 0;
+    int i = 0;
+    while (i < sql.length()) {
+      int skipped = skipQuotedOrComment(sql, i);
+      if (skipped > i) {
+        out.append(sql, i, skipped);
+        i = skipped;
+        continue;
+      }
+      char c = sql.charAt(i);
+      if (c == '?') {
+        if (parameter >= counts.length) {
+          throw new IllegalArgumentException("More placeholders than parameters in: " + sql);
+        }
+        appendRepeated(out, "?", counts[parameter++]);
+      } else {
+        out.append(c);
+      }
+      ++i;
+    }
+    return out.toString();
+  }
+
+  /**
+   * Expand each named placeholder found in counts into a comma separated list of
+   * placeholders named <i>name__0</i>, <i>name__1</i>...
+   *
+   * @param sql    the SQL with named parameters
+   * @param counts the number of placeholders to render for the named parameters to be expanded
+   * @return the rewritten SQL
+   */
+  static String expandNamed(String sql, Map<String, Integer> counts) {
+    StringBuilder out = new StringBuilder(sql.length() + 16);
+    int i = 0;
+    while (i < sql.length()) {
+      int skipped = skipQuotedOrComment(sql, i);
+      if (skipped > i) {
+        out.append(sql, i, skipped);
+        i = skipped;
+        continue;
+      }
+      char c = sql.charAt(i);
+      if (c == ':' && i + 1 < sql.length() && sql.charAt(i + 1) == ':') {
+        // PostgreSQL cast
+        out.append("::");
+        i += 2;
+        continue;
+      }
+      if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+        int end = i + 1;
+        while (end < sql.length() && Character.isJavaIdentifierPart(sql.charAt(end))) {
+          ++end;
+        }
+        String name = sql.substring(i + 1, end);
+        Integer count = counts.get(name);
+        if (count == null) {
+          out.append(sql, i, end);
+        } else {
+          for (int n = 0; n < count; ++n) {
+            if (n > 0) {
+              out.append(", ");
+            }
+            out.append(':').append(expandedName(name, n));
+          }
+        }
+        i = end;
+        continue;
+      }
+      out.append(c);
+      ++i;
+    }
+    return out.toString();
+  }
+
+  /**
+   * Repeat the parenthesised row after <code>VALUES</code> in a single row insert,
+   * eg <code>INSERT INTO t (a, b) VALUES (?, ?)</code>, to insert the given number of rows.
+   *
+   * @param sql  the single row insert
+   * @param rows the number of rows
+   * @return the multi-row insert
+   */
+  static String repeatValues(String sql, int rows) {
+    int[] group = valuesGroup(sql);
+    StringBuilder out = new StringBuilder(sql.length() + (group[1] - group[0] + 2) * rows);
+    out.append(sql, 0, group[0]);
+    for (int n = 0; n < rows; ++n) {
+      if (n > 0) {
+        out.append(", ");
+      }
+      out.append(sql, group[0], group[1]);
+    }
+    return out.append(sql, group[1], sql.length()).toString();
+  }
+
+  /**
+   * @return the number of indexed placeholders in the parenthesised row after <code>VALUES</code>
+   */
+  static int valuesPlaceholders(String sql) {
+    int[] group = valuesGroup(sql);
+    return countIndexed(sql, group[0], group[1]);
+  }
+
+  /**
+   * @return the number of indexed placeholders in the whole statement
+   */
+  static int indexedPlaceholders(String sql) {
+    return countIndexed(sql, 0, sql.length());
+  }
+
+  private static int countIndexed(String sql, int from, int to) {
+    int count = 0;
+    int i = from;
+    while (i < to) {
+      int skipped = skipQuotedOrComment(sql, i);
+      if (skipped > i) {
+        i = skipped;
+        continue;
+      }
+      if (sql.charAt(i) == '?') {
+        ++count;
+      }
+      ++i;
+    }
+    return count;
+  }
+
+  /**
+   * @return the start and end index of the parenthesised row after the first <code>VALUES</code> outside
+   * any parentheses, so eg <code>ON DUPLICATE KEY UPDATE a = VALUES(a)</code> is ignored
+   */
+  private static int[] valuesGroup(String sql) {
+    int values = -1;
+    int depth = 0;
+    int i = 0;
+    while (i < sql.length() && values < 0) {
+      int skipped = skipQuotedOrComment(sql, i);
+      if (skipped > i) {
+        i = skipped;
+        continue;
+      }
+      char c = sql.charAt(i);
+      if (c == '(') {
+        ++depth;
+      } else if (c == ')') {
+        --depth;
+      } else if (depth == 0
+        && sql.regionMatches(true, i, "VALUES", 0, 6)
+        && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))
+        && (i + 6 == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(i + 6)))) {
+        values = i + 6;
+      }
+      ++i;
+    }
+    if (values < 0) {
+      throw new IllegalArgumentException("No VALUES in: " + sql);
+    }
+    int start = values;
+    while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+      ++start;
+    }
+    if (start == sql.length() || sql.charAt(start) != '(') {
+      throw new IllegalArgumentException("No row after VALUES in: " + sql);
+    }
+    depth = 0;
+    i = start;
+    while (i < sql.length()) {
+      int skipped = skipQuotedOrComment(sql, i);
+      if (skipped > i) {
+        i = skipped;
+        continue;
+      }
+      char c = sql.charAt(i);
+      if (c == '(') {
+        ++depth;
+      } else if (c == ')' && --depth == 0) {
+        return new int[]{start, i + 1};
+      }
+      ++i;
+    }
+    throw new IllegalArgumentException("Unbalanced row after VALUES in: " + sql);
+  }
+
+  static String expandedName(String name, int index) {
+    return name + "__" + index;
+  }
+
+  private static void appendRepeated(StringBuilder out, String placeholder, int count) {
+    for (int n = 0; n < count; ++n) {
+      if (n > 0) {
+        out.append(", ");
+      }
+      out.append(placeholder);
+    }
+  }
+
+  /**
+   * @return the index after the quoted section or comment starting at i, or i if there is none
+   */
+  private static int skipQuotedOrComment(String sql, int i) {
+    char c = sql.charAt(i);
+    if (c == '\'' || c == '"') {
+      int end = sql.indexOf(c, i + 1);
+      while (end >= 0 && end + 1 < sql.length() && sql.charAt(end + 1) == c) {
+        // escaped by doubling
+        end = sql.indexOf(c, end + 2);
+      }
+      return end < 0 ? sql.length() : end + 1;
+    }
+    if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+      int end = sql.indexOf('\n', i);
+      return end < 0 ? sql.length() : end + 1;
+    }
+    if (c == '/' && i + 1 < sql.length() && sql.charAt(i + 1) == '*') {
+      int end = sql.indexOf("*/", i + 2);
+      return end < 0 ? sql.length() : end + 2;
+    }
+    return i;
+  }
+}
@@ -11,6 +11,7 @@ import java.sql.SQLException;
  * @see Execute
  * @see ExecuteQuery
  * @see ExecuteUpdate
+ * @see ExecuteUpdateGeneratedKeys
  */
 @FunctionalInterface
 public interface PreparedStatementBuilder {
@@ -22,4 +23,14 @@ public interface PreparedStatementBuilder {
    * @throws SQLException
    */
   PreparedStatement build(Connection connection) throws SQLException;
+
+  /**
+   * Release anything bound to a {@link PreparedStatement} from {@link #build(Connection)} that its driver
+   * need not close, eg the streams of {@link DefaultPreparedStatementBuilder#addStream(rx.Observable, long)}.
+   * The operators call this once the statement has executed, failed or been cancelled.
+   *
+   * @param preparedStatement a statement built by this builder
+   */
+  default void release(PreparedStatement preparedStatement) {
+  }
 }
@@ -0,0 +1,198 @@
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.subscriptions.Subscriptions;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * An observable that streams a large object column of the first row returned by
+ * {@link PreparedStatement#executeQuery()} as fixed-size chunks, read from
+ * {@link Blob#getBinaryStream()} or {@link Clob#getCharacterStream()} only as they are requested,
+ * so the large object is never held in memory.
+ * <p>
+ * The {@link PreparedStatement}, {@link ResultSet} and large object are held open until the stream
+ * completes, errors or the subscriber unsubscribes. As the large object is only valid while its
+ * {@link Connection} (and for PostgreSQL large objects, its transaction) is open, the ReadLob should be
+ * returned as part of the {@link com.trunk.rx.jdbc.ConnectionConsumer}'s result, eg with
+ * {@link com.trunk.rx.jdbc.TransactionContextExecutor#withSingleTransaction()}.
+ * An empty result completes without emitting.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement}, the {@link ResultSet} and the large object and does not close the given {@link Connection}.
+ */
+public class ReadLob<B> extends Observable<B> {
+  private static final Logger log = LoggerFactory.getLogger(ReadLob.class);
+
+  /**
+   * Stream a {@link Blob} column in newly allocated heap {@link ByteBuffer}s of chunkSize bytes.
+   *
+   * @param column the 1-based index of the column
+   */
+  public static ReadLob<ByteBuffer> blob(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    int column,
+    int chunkSize
+  ) {
+    checkChunkSize(chunkSize);
+    return blob(connection, preparedStatementBuilder, column, () -> ByteBuffer.allocate(chunkSize));
+  }
+
+  /**
+   * Stream a {@link Blob} column in buffers from the given supplier. The supplier may return pooled or
+   * reused buffers, eg a single direct buffer, as long as a buffer is only reused after its chunk has been consumed.
+   *
+   * @param column the 1-based index of the column
+   * @see ChunkSource#of(java.io.InputStream, Func0, rx.functions.Action0)
+   */
+  public static ReadLob<ByteBuffer> blob(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    int column,
+    Func0<? extends ByteBuffer> buffers
+  ) {
+    return new ReadLob<>(
+      connection,
+      preparedStatementBuilder,
+      (preparedStatement, resultSet) -> {
+        Blob blob = resultSet.getBlob(column);
+        if (blob == null) {
+          return null;
+        }
+        return ChunkSource.of(
+          blob.getBinaryStream(),
+          buffers,
+          () -> {
+            Util.freeQuietly(blob);
+            Util.closeQuietly(resultSet);
+            Util.closeQuietly(preparedStatement);
+          }
+        );
+      }
+    );
+  }
+
+  /**
+   * Stream a {@link Clob} column in newly allocated {@link CharBuffer}s of chunkSize characters.
+   *
+   * @param column the 1-based index of the column
+   */
+  public static ReadLob<CharBuffer> clob(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    int column,
+    int chunkSize
+  ) {
+    checkChunkSize(chunkSize);
+    return clob(connection, preparedStatementBuilder, column, () -> CharBuffer.allocate(chunkSize));
+  }
+
+  /**
+   * Stream a {@link Clob} column in buffers from the given supplier. The supplier may return pooled or
+   * reused buffers as long as a buffer is only reused after its chunk has been consumed.
+   *
+   * @param column the 1-based index of the column
+   * @see ChunkSource#of(java.io.Reader, Func0, rx.functions.Action0)
+   */
+  public static ReadLob<CharBuffer> clob(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    int column,
+    Func0<? extends CharBuffer> buffers
+  ) {
+    return new ReadLob<>(
+      connection,
+      preparedStatementBuilder,
+      (preparedStatement, resultSet) -> {
+        Clob clob = resultSet.getClob(column);
+        if (clob == null) {
+          return null;
+        }
+        return ChunkSource.of(
+          clob.getCharacterStream(),
+          buffers,
+          () -> {
+            Util.freeQuietly(clob);
+            Util.closeQuietly(resultSet);
+            Util.closeQuietly(preparedStatement);
+          }
+        );
+      }
+    );
+  }
+
+  private ReadLob(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    SourceFactory<B> sourceFactory
+  ) {
+    super(
+      subscriber -> {
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+          preparedStatement = preparedStatementBuilder.build(connection);
+          resultSet = preparedStatement.executeQuery();
+          preparedStatementBuilder.release(preparedStatement);
+          ChunkSource<B> source = resultSet.next() ? sourceFactory.create(preparedStatement, resultSet) : null;
+          if (source == null) {
+            Util.closeQuietly(resultSet);
+            Util.closeQuietly(preparedStatement);
+            if (!subscriber.isUnsubscribed()) {
+              subscriber.onCompleted();
+            }
+            return;
+          }
+          setupUnsubscription(subscriber, source);
+          subscriber.setProducer(new ChunkSourceProducer<>(source, subscriber));
+        } catch (Throwable t) {
+          if (preparedStatement != null) {
+            preparedStatementBuilder.release(preparedStatement);
+          }
+          Util.closeQuietly(resultSet);
+          Util.closeQuietly(preparedStatement);
+          handleException(t, subscriber);
+        }
+      }
+    );
+  }
+
+  private static void checkChunkSize(int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+  }
+
+  private static <T> void setupUnsubscription(Subscriber<? super T> subscriber, ChunkSource<?> source) {
+    subscriber.add(Subscriptions.create(source::close));
+  }
+
+  @FunctionalInterface
+  private interface SourceFactory<B> {
+    /**
+     * @return the source of the large object in the current row, or null if it is SQL NULL
+     */
+    ChunkSource<B> create(PreparedStatement preparedStatement, ResultSet resultSet) throws Exception;
+  }
+
+  private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
+    log.debug("onError: " + t.getMessage());
+    if (subscriber.isUnsubscribed()) {
+      log.debug("unsubscribed");
+    } else {
+      subscriber.onError(t);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.trunk.rx.jdbc.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map consecutive rows of a {@link ResultSet} into a chunk of type C, so a single
+ * event can carry many rows.
+ *
+ * @param <C> type of the chunk
+ * @see ExecuteQuery#usingChunks(java.sql.Connection, PreparedStatementBuilder, ResultSetChunkMapper, int)
+ */
+public interface ResultSetChunkMapper<C> {
+  /**
+   * Create an empty chunk
+   *
+   * @param capacity the maximum number of rows that will be appended
+   * @return the new chunk
+   */
+  C create(int capacity);
+
+  /**
+   * Append the current row of the {@link ResultSet} to the chunk
+   *
+   * @param chunk     the chunk being filled
+   * @param resultSet the ResultSet positioned on the row to append
+   * @throws SQLException
+   */
+  void append(C chunk, ResultSet resultSet) throws SQLException;
+
+  /**
+   * Chunk rows into {@link List}s using the given {@link ResultSetMapper} for each row
+   *
+   * @param resultSetMapper the mapper for each row
+   * @return a ResultSetChunkMapper creating Lists
+   */
+  static <T> ResultSetChunkMapper<List<T>> list(ResultSetMapper<? extends T> resultSetMapper) {
+    return new ResultSetChunkMapper<List<T>>() {
+      @Override
+      public List<T> create(int capacity) {
+        return new ArrayList<>(capacity);
+      }
+
+      @Override
+      public void append(List<T> chunk, ResultSet resultSet) throws SQLException {
+        chunk.add(resultSetMapper.f(resultSet));
+      }
+    };
+  }
+}
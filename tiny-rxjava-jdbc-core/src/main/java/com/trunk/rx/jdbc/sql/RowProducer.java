@@ -0,0 +1,133 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Producer;
+import rx.Subscriber;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static rx.internal.operators.BackpressureUtils.getAndAddRequest;
+
+/**
+ * The back pressure sensitive emission loop shared by the producers over {@link java.sql.ResultSet}s,
+ * jOOQ cursors and {@link ChunkSource}s. Subclasses only emit the next event with {@link #emitNext(Subscriber)}
+ * and close their resources with {@link #close()}.
+ * <p>
+ * Outstanding requests are kept in a private {@link AtomicLong}, which is only touched once per request and
+ * once each time the requested events have all been emitted, never per event, so an unbounded request costs
+ * no atomic operations after the first. The loop's counters are locals of the thread that emits, and it
+ * does no logging.
+ * <p>
+ * The {@link Subscriber} is checked for unsubscription before the first event and then every
+ * {@link #UNSUBSCRIBED_CHECK_INTERVAL} events, so a few more events may be read after it unsubscribes.
+ * Operators that cancel or close their statement on unsubscription, eg {@link ExecuteQuery}, stop reading sooner.
+ * Resources are closed, without cancelling, once reading stops.
+ * <p>
+ * Every producer shares the loop's {@link #emitNext(Subscriber)} call site, so once more than two producer classes
+ * have run, eg {@link ExecuteQuery} and a jOOQ select, the JIT can no longer inline it into the loop and each event
+ * is a virtual call, unless the whole subscription is inlined from where the producer is created.
+ *
+ * @param <T> the type of each event
+ */
+public abstract class RowProducer<T> implements Producer {
+  private static final Logger log = LoggerFactory.getLogger(RowProducer.class);
+
+  /**
+   * The number of events emitted between checks of {@link Subscriber#isUnsubscribed()}.
+   */
+  public static final int UNSUBSCRIBED_CHECK_INTERVAL = 64;
+
+  private final AtomicLong requested = new AtomicLong();
+  private final Subscriber<? super T> subscriber;
+
+  protected RowProducer(Subscriber<? super T> subscriber) {
+    this.subscriber = subscriber;
+  }
+
+  /**
+   * Read and emit the next event with {@link Subscriber#onNext(Object)}, if there is one.
+   *
+   * @param subscriber the subscriber to emit to
+   * @return false if there are no more events, after emitting any last one, eg a final partial chunk
+   */
+  protected abstract boolean emitNext(Subscriber<? super T> subscriber) throws Exception;
+
+  /**
+   * Close the resources quietly.
+   */
+  protected abstract void close();
+
+  @Override
+  public final void request(long n) {
+    // requests are added while the loop is running, and picked up when it has emitted what it had
+    if (n > 0 && getAndAddRequest(requested, n) == 0L) {
+      emit(n);
+    }
+  }
+
+  private void emit(long n) {
+    final Subscriber<? super T> s = subscriber;
+    long r = n;
+    long emitted = 0L;
+    int untilCheck = 0;
+    try {
+      while (true) {
+        while (emitted != r) {
+          if (untilCheck == 0) {
+            if (s.isUnsubscribed()) {
+              unsubscribed();
+              return;
+            }
+            untilCheck = UNSUBSCRIBED_CHECK_INTERVAL;
+          }
+          --untilCheck;
+          if (!emitNext(s)) {
+            complete(s);
+            return;
+          }
+          ++emitted;
+        }
+        // unbounded requests never get here, as emitted can't reach Long.MAX_VALUE
+        r = requested.get();
+        if (emitted == r) {
+          r = requested.addAndGet(-emitted);
+          if (r == 0L) {
+            return;
+          }
+          emitted = 0L;
+        }
+      }
+    } catch (Exception e) {
+      closeAndHandleException(s, e);
+    }
+  }
+
+  private void unsubscribed() {
+    log.debug("unsubscribed");
+    close();
+  }
+
+  private void complete(Subscriber<? super T> s) {
+    close();
+    if (s.isUnsubscribed()) {
+      log.debug("unsubscribed");
+    } else {
+      log.debug("onCompleted");
+      s.onCompleted();
+    }
+  }
+
+  private void closeAndHandleException(Subscriber<? super T> s, Exception e) {
+    try {
+      close();
+    } finally {
+      log.debug("onError: " + e.getMessage());
+      if (s.isUnsubscribed()) {
+        log.debug("unsubscribed");
+      } else {
+        s.onError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.trunk.rx.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A test {@link Driver} that wraps another driver and counts calls to {@link Statement#cancel()}
+ * on the statements of its connections. <code>jdbc:cancel-counting:h2:mem:test</code> connects
+ * to <code>jdbc:h2:mem:test</code>.
+ */
+public class CancelCountingDriver implements Driver {
+  public static final String PREFIX = "jdbc:cancel-counting:";
+
+  private static final CancelCountingDriver INSTANCE = new CancelCountingDriver();
+  private static final AtomicInteger cancels = new AtomicInteger();
+
+  static {
+    try {
+      DriverManager.registerDriver(INSTANCE);
+    } catch (SQLException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Connect to the given url of the wrapped driver, eg <code>h2:mem:test</code>
+   */
+  public static Connection connect(String url) throws SQLException {
+    return DriverManager.getConnection(PREFIX + url);
+  }
+
+  /**
+   * @return the number of statements cancelled since the last {@link #reset()}
+   */
+  public static int cancels() {
+    return cancels.get();
+  }
+
+  public static void reset() {
+    cancels.set(0);
+  }
+
+  @Override
+  public Connection connect(String url, Properties info) throws SQLException {
+    if (!acceptsURL(url)) {
+      return null;
+    }
+    Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), info);
+    return wrap(Connection.class, connection);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T wrap(Class<T> type, T target) {
+    return (T) Proxy.newProxyInstance(
+      CancelCountingDriver.class.getClassLoader(),
+      new Class<?>[]{type},
+      (proxy, method, args) -> {
+        if (method.getName().equals("cancel") && target instanceof Statement) {
+          cancels.incrementAndGet();
+        }
+        Object result;
+        try {
+          result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+        if (result instanceof Statement && method.getReturnType().isInterface()) {
+          return wrap((Class<Object>) method.getReturnType(), result);
+        }
+        return result;
+      }
+    );
+  }
+
+  @Override
+  public boolean acceptsURL(String url) {
+    return url != null && url.startsWith(PREFIX);
+  }
+
+  @Override
+  public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+    return new DriverPropertyInfo[0];
+  }
+
+  @Override
+  public int getMajorVersion() {
+    return 1;
+  }
+
+  @Override
+  public int getMinorVersion() {
+    return 0;
+  }
+
+  @Override
+  public boolean jdbcCompliant() {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+}
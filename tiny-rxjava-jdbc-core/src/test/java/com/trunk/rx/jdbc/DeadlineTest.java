@@ -0,0 +1,63 @@
+package com.trunk.rx.jdbc;
+
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class DeadlineTest {
+  private static final Instant NOW = Instant.parse("2016-01-01T00:00:00Z");
+
+  @Test
+  public void shouldRoundRemainingSecondsUp() throws Exception {
+    Deadline deadline = Deadline.after(Duration.ofMillis(1500), Clock.fixed(NOW, ZoneOffset.UTC));
+    assertEquals(deadline.remainingMillis(), 1500);
+    assertEquals(deadline.remainingSeconds(), 2);
+    assertFalse(deadline.isExpired());
+  }
+
+  @Test(expectedExceptions = SQLTimeoutException.class)
+  public void shouldThrowRemainingSecondsWhenExpired() throws Exception {
+    Deadline deadline = Deadline.after(Duration.ZERO, Clock.fixed(NOW, ZoneOffset.UTC));
+    assertTrue(deadline.isExpired());
+    deadline.remainingSeconds();
+  }
+
+  @Test
+  public void shouldSetQueryTimeoutOnCreatedStatements() throws Exception {
+    Connection c = mock(Connection.class);
+    Statement s = mock(Statement.class);
+    when(c.createStatement()).thenReturn(s);
+    Deadline deadline = Deadline.after(Duration.ofSeconds(3), Clock.fixed(NOW, ZoneOffset.UTC));
+    assertEquals(deadline.limit(c).createStatement(), s);
+    verify(s, times(1)).setQueryTimeout(3);
+  }
+
+  @Test
+  public void shouldCloseStatementCreatedAfterDeadline() throws Exception {
+    Connection c = mock(Connection.class);
+    Statement s = mock(Statement.class);
+    when(c.createStatement()).thenReturn(s);
+    Deadline deadline = Deadline.after(Duration.ZERO, Clock.fixed(NOW, ZoneOffset.UTC));
+    try {
+      deadline.limit(c).createStatement();
+    } catch (SQLTimeoutException e) {
+      verify(s, times(1)).close();
+      return;
+    }
+    throw new AssertionError("Expected SQLTimeoutException");
+  }
+}
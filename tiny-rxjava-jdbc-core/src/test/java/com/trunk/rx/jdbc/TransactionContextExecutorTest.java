@@ -1,16 +1,27 @@
 package com.trunk.rx.jdbc;
 
 import org.testng.annotations.Test;
+import rx.Observable;
 import rx.observers.TestSubscriber;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertTrue;
+import static rx.Observable.defer;
 import static rx.Observable.error;
 import static rx.Observable.just;
 
@@ -253,4 +264,75 @@ public class TransactionContextExecutorTest {
       .toBlocking().subscribe(o -> {}, throwable -> {});
     verify(c, times(1)).close();
   }
+
+  @Test
+  public void deadlineShouldSetQueryTimeout() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement("SELECT 1")).thenReturn(ps);
+    ConnectionPool.of(c)
+      .execute(connection -> defer(() -> {
+        try {
+          return just(connection.prepareStatement("SELECT 1"));
+        } catch (Exception e) {
+          return error(e);
+        }
+      }))
+      .withDeadline(Duration.ofSeconds(10))
+      .toBlocking().subscribe(o -> {}, throwable -> {});
+    verify(ps, times(1)).setQueryTimeout(10);
+  }
+
+  @Test
+  public void deadlineShouldBeKeptWithTransactionContext() throws Exception {
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    Connection c = mock(Connection.class);
+    ConnectionPool.of(c)
+      .execute(connection -> Observable.never())
+      .withDeadline(Duration.ofMillis(50))
+      .withSingleTransaction()
+      .subscribe(t);
+    t.awaitTerminalEvent(5, TimeUnit.SECONDS);
+    t.assertError(SQLTimeoutException.class);
+  }
+
+  @Test
+  public void deadlineShouldRollBackAndCloseWhenExceeded() throws Exception {
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    Connection c = mock(Connection.class);
+    CountDownLatch closed = new CountDownLatch(1);
+    when(c.isClosed()).then(invocation -> closed.getCount() == 0);
+    doAnswer(invocation -> {
+      closed.countDown();
+      return null;
+    }).when(c).close();
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    when(provider.call()).thenReturn(c);
+    ConnectionPool.from(provider)
+      .execute(connection -> just(1).concatWith(Observable.never()))
+      .withSingleTransaction()
+      .withDeadline(Duration.ofMillis(50))
+      .subscribe(t);
+    t.awaitTerminalEvent(5, TimeUnit.SECONDS);
+    t.assertValues(1);
+    t.assertError(SQLTimeoutException.class);
+    // the timeout is emitted before the source is unsubscribed from, releasing the connection
+    assertTrue(closed.await(5, TimeUnit.SECONDS));
+    verify(c, times(1)).rollback();
+    verify(c, never()).commit();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void expiredDeadlineShouldNotAcquireConnection() throws Exception {
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    ConnectionPool.from(provider)
+      .execute(connection -> just(1))
+      .withDeadline(Instant.now().minusSeconds(1))
+      .subscribe(t);
+    t.assertNoValues();
+    t.assertError(SQLTimeoutException.class);
+    verify(provider, never()).call();
+  }
 }
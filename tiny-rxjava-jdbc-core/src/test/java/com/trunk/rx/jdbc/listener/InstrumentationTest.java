@@ -0,0 +1,154 @@
+package com.trunk.rx.jdbc.listener;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.testng.annotations.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static rx.Observable.defer;
+import static rx.Observable.error;
+import static rx.Observable.just;
+
+public class InstrumentationTest {
+
+  @Test
+  public void shouldReportSingleTransaction() throws Exception {
+    List<String> events = new ArrayList<>();
+    Connection c = mock(Connection.class);
+    ConnectionPool.from(Instrumentation.instrument(provider(c), () -> new RecordingListener(events)))
+      .execute(connection -> prepare(connection, just(1, 2)))
+      .withSingleTransaction()
+      .subscribe(new TestSubscriber<>());
+
+    assertEquals(events, Arrays.asList("acquired", "begin", "commit", "release"));
+  }
+
+  @Test
+  public void shouldReportRollback() throws Exception {
+    List<String> events = new ArrayList<>();
+    Connection c = mock(Connection.class);
+    ConnectionPool.from(Instrumentation.instrument(provider(c), () -> new RecordingListener(events)))
+      .execute(connection -> prepare(connection, error(new Exception())))
+      .withSingleTransaction()
+      .subscribe(new TestSubscriber<>());
+
+    assertEquals(events, Arrays.asList("acquired", "begin", "rollback", "release"));
+  }
+
+  @Test
+  public void shouldReportTransactionPerEvent() throws Exception {
+    List<String> events = new ArrayList<>();
+    Connection c = mock(Connection.class);
+    ConnectionPool.from(Instrumentation.instrument(provider(c), () -> new RecordingListener(events)))
+      .execute(connection -> prepare(connection, just(1)).concatWith(prepare(connection, just(2))))
+      .withTransactionPerEvent()
+      .subscribe(new TestSubscriber<>());
+
+    assertEquals(events, Arrays.asList("acquired", "begin", "commit", "begin", "commit", "release"));
+  }
+
+  @Test
+  public void shouldNotReportTransactionsWithAutoCommit() throws Exception {
+    List<String> events = new ArrayList<>();
+    Connection c = mock(Connection.class);
+    ConnectionPool.from(Instrumentation.instrument(provider(c), () -> new RecordingListener(events)))
+      .execute(connection -> prepare(connection, just(1)))
+      .withAutoCommit()
+      .subscribe(new TestSubscriber<>());
+
+    assertEquals(events, Arrays.asList("acquired", "release"));
+  }
+
+  @Test
+  public void shouldReportAcquireFailure() throws Exception {
+    List<String> events = new ArrayList<>();
+    ConnectionProvider failing = mock(ConnectionProvider.class);
+    when(failing.call()).thenThrow(new RuntimeException("no connection"));
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    ConnectionPool.from(Instrumentation.instrument(failing, () -> new RecordingListener(events)))
+      .execute(connection -> just(1))
+      .subscribe(t);
+
+    t.assertError(RuntimeException.class);
+    assertEquals(events, Arrays.asList("failed"));
+  }
+
+  @Test
+  public void shouldNotWrapWhenNotObserved() throws Exception {
+    Connection c = mock(Connection.class);
+    ConnectionProvider provider = provider(c);
+    assertEquals(Instrumentation.instrument(provider, () -> null).call(), c);
+  }
+
+  private static <T> Observable<T> prepare(Connection connection, Observable<T> result) {
+    return defer(() -> {
+      try {
+        connection.prepareStatement("SELECT 1");
+        return result;
+      } catch (SQLException e) {
+        return error(e);
+      }
+    });
+  }
+
+  private static ConnectionProvider provider(Connection connection) {
+    return new ConnectionProvider() {
+      @Override
+      public Connection call() {
+        return connection;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  private static class RecordingListener implements ConnectionListener {
+    private final List<String> events;
+
+    RecordingListener(List<String> events) {
+      this.events = events;
+    }
+
+    @Override
+    public void onAcquired() {
+      events.add("acquired");
+    }
+
+    @Override
+    public void onAcquireFailed(Throwable error) {
+      events.add("failed");
+    }
+
+    @Override
+    public void onBegin() {
+      events.add("begin");
+    }
+
+    @Override
+    public void onCommit() {
+      events.add("commit");
+    }
+
+    @Override
+    public void onRollback() {
+      events.add("rollback");
+    }
+
+    @Override
+    public void onRelease() {
+      events.add("release");
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.trunk.rx.jdbc.listener;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import com.trunk.rx.jdbc.sql.ExecuteUpdate;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ListeningConnectionProviderTest {
+  private Connection connection;
+  private RecordingListener listener;
+  private ConnectionPool pool;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    connection = DriverManager.getConnection("jdbc:h2:mem:listener");
+    connection.createStatement().execute("CREATE TABLE test (id INT)");
+    connection.createStatement().execute("INSERT INTO test SELECT x FROM SYSTEM_RANGE(1, 10)");
+    listener = new RecordingListener();
+    pool = ConnectionPool.of(connection).withListener(listener);
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    connection.createStatement().execute("DROP TABLE test");
+    connection.close();
+  }
+
+  @Test
+  public void shouldReportQueryLifecycle() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    pool.execute(
+      c -> ExecuteQuery.using(
+        c,
+        connection -> {
+          PreparedStatement ps = connection.prepareStatement("SELECT id FROM test WHERE id > ?");
+          ps.setInt(1, 7);
+          return ps;
+        },
+        rs -> rs.getInt(1)
+      )
+    ).subscribe(t);
+
+    t.assertValues(8, 9, 10);
+    assertEquals(listener.events, Arrays.asList("prepare", "start", "end", "first", "complete"));
+    assertEquals(listener.last.sql(), "SELECT id FROM test WHERE id > ?");
+    assertEquals(listener.last.bindCount(), 1);
+    assertEquals(listener.last.rows(), 3);
+    assertTrue(listener.last.totalNanos() >= listener.last.executeNanos());
+    assertTrue(listener.last.connectionHeldNanos() >= listener.last.totalNanos());
+  }
+
+  @Test
+  public void shouldReportUpdateCount() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    pool.execute(c -> ExecuteUpdate.using(c, connection -> connection.prepareStatement("UPDATE test SET id = id"))).subscribe(t);
+
+    t.assertValues(10);
+    assertEquals(listener.events, Arrays.asList("prepare", "start", "end", "complete"));
+    assertEquals(listener.last.rows(), 10);
+  }
+
+  @Test
+  public void shouldReportError() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    pool.execute(c -> ExecuteUpdate.using(c, connection -> connection.prepareStatement("UPDATE test SET id = 1 / (id - id)"))).subscribe(t);
+
+    t.assertError(Exception.class);
+    assertEquals(listener.events, Arrays.asList("prepare", "start", "error"));
+  }
+
+  @Test
+  public void shouldReportCancelWhenUnsubscribedWhileStreaming() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    pool.execute(c -> ExecuteQuery.using(c, connection -> connection.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1)))
+      .take(2)
+      .subscribe(t);
+
+    t.assertValues(1, 2);
+    assertEquals(listener.events, Arrays.asList("prepare", "start", "end", "first", "cancel"));
+    assertEquals(listener.last.rows(), 2);
+  }
+
+  @Test
+  public void shouldIgnoreListenerErrors() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ConnectionPool.of(connection)
+      .withListener(new QueryListener() {
+        @Override
+        public void onExecuteStart(QueryContext context) {
+          throw new IllegalStateException();
+        }
+      })
+      .execute(c -> ExecuteUpdate.using(c, connection -> connection.prepareStatement("UPDATE test SET id = id")))
+      .subscribe(t);
+
+    t.assertValues(10);
+  }
+
+  private static class RecordingListener implements QueryListener {
+    final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    volatile QueryContext last;
+
+    @Override
+    public void onPrepare(QueryContext context) {
+      record("prepare", context);
+    }
+
+    @Override
+    public void onExecuteStart(QueryContext context) {
+      record("start", context);
+    }
+
+    @Override
+    public void onExecuteEnd(QueryContext context) {
+      record("end", context);
+    }
+
+    @Override
+    public void onFirstRow(QueryContext context) {
+      record("first", context);
+    }
+
+    @Override
+    public void onComplete(QueryContext context) {
+      record("complete", context);
+    }
+
+    @Override
+    public void onError(QueryContext context, Throwable error) {
+      record("error", context);
+    }
+
+    @Override
+    public void onCancel(QueryContext context) {
+      record("cancel", context);
+    }
+
+    private void record(String event, QueryContext context) {
+      events.add(event);
+      last = context;
+    }
+  }
+}
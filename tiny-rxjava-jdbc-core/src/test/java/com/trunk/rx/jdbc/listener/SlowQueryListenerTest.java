@@ -0,0 +1,75 @@
+package com.trunk.rx.jdbc.listener;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SlowQueryListenerTest {
+
+  @Test
+  public void shouldIgnoreFastQueries() throws Exception {
+    SlowQueryListener listener = SlowQueryListener.of(Duration.ofHours(1));
+    listener.onComplete(completed("SELECT 1"));
+
+    assertEquals(listener.slowQueries(), 0);
+    assertTrue(listener.recent().isEmpty());
+  }
+
+  @Test
+  public void shouldRecordSlowQueries() throws Exception {
+    SlowQueryListener listener = SlowQueryListener.of(Duration.ZERO);
+    QueryContext context = completed("SELECT 1");
+    listener.onComplete(context);
+    listener.onError(completed("SELECT 2"), new Exception());
+
+    List<SlowQuery> recent = listener.recent();
+    assertEquals(recent.size(), 2);
+    assertEquals(recent.get(0).sql(), "SELECT 2");
+    assertEquals(recent.get(0).outcome(), SlowQuery.Outcome.FAILED);
+    assertEquals(recent.get(1).sql(), "SELECT 1");
+    assertEquals(recent.get(1).outcome(), SlowQuery.Outcome.COMPLETED);
+    assertEquals(recent.get(1).rows(), 1);
+    assertEquals(recent.get(1).totalNanos(), context.totalNanos());
+  }
+
+  @Test
+  public void shouldKeepMostRecentWhenFull() throws Exception {
+    SlowQueryListener listener = SlowQueryListener.of(Duration.ZERO).withCapacity(2);
+    listener.onComplete(completed("SELECT 1"));
+    listener.onComplete(completed("SELECT 2"));
+    listener.onCancel(completed("SELECT 3"));
+
+    List<SlowQuery> recent = listener.recent();
+    assertEquals(listener.slowQueries(), 3);
+    assertEquals(recent.size(), 2);
+    assertEquals(recent.get(0).sql(), "SELECT 3");
+    assertEquals(recent.get(1).sql(), "SELECT 2");
+  }
+
+  @Test
+  public void shouldCountUnsampledQueries() throws Exception {
+    SlowQueryListener listener = SlowQueryListener.of(Duration.ZERO).withSampleRate(0);
+    listener.onComplete(completed("SELECT 1"));
+
+    assertEquals(listener.slowQueries(), 1);
+    assertTrue(listener.recent().isEmpty());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectInvalidSampleRate() throws Exception {
+    SlowQueryListener.of(Duration.ZERO).withSampleRate(2);
+  }
+
+  private static QueryContext completed(String sql) {
+    QueryContext context = new QueryContext(sql, System.nanoTime());
+    context.start();
+    context.executed(false);
+    context.row();
+    context.terminate();
+    return context;
+  }
+}
@@ -0,0 +1,50 @@
+package com.trunk.rx.jdbc.listener;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+public class SqlFingerprintTest {
+
+  @Test
+  public void shouldReplaceLiterals() throws Exception {
+    assertEquals(
+      SqlFingerprint.of("SELECT a1, 1.5e10, -3, 0x1F FROM t WHERE name = 'o''brien' AND id = $1").value(),
+      "SELECT a1, ?, -?, ? FROM t WHERE name = ? AND id = ?"
+    );
+  }
+
+  @Test
+  public void shouldCollapseWhitespaceAndComments() throws Exception {
+    assertEquals(
+      SqlFingerprint.of("  SELECT *\n\tFROM t -- comment\n WHERE /* c */ id = ? ;").value(),
+      "SELECT * FROM t WHERE id = ?"
+    );
+  }
+
+  @Test
+  public void shouldCollapseInLists() throws Exception {
+    assertEquals(
+      SqlFingerprint.of("SELECT * FROM t WHERE id IN (1, 2, 3)"),
+      SqlFingerprint.of("SELECT * FROM t WHERE id IN ( ? )")
+    );
+  }
+
+  @Test
+  public void shouldCollapseMultiRowValues() throws Exception {
+    assertEquals(
+      SqlFingerprint.of("INSERT INTO t (a, b) VALUES (1, 'x'), (2, 'y')").value(),
+      "INSERT INTO t (a, b) VALUES (?, ...), ..."
+    );
+  }
+
+  @Test
+  public void shouldKeepQuotedIdentifiersAndNamedParameters() throws Exception {
+    assertEquals(
+      SqlFingerprint.of("SELECT \"Col 1\" FROM t WHERE id = :id AND x::int = 2").value(),
+      "SELECT \"Col 1\" FROM t WHERE id = :id AND x::int = ?"
+    );
+    assertNotEquals(SqlFingerprint.of("SELECT a FROM t"), SqlFingerprint.of("SELECT b FROM t"));
+  }
+}
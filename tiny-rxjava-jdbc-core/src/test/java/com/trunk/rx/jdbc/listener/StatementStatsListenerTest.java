@@ -0,0 +1,77 @@
+package com.trunk.rx.jdbc.listener;
+
+import org.testng.annotations.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class StatementStatsListenerTest {
+
+  @Test
+  public void shouldAggregateByFingerprint() throws Exception {
+    StatementStatsListener listener = StatementStatsListener.create();
+    listener.onComplete(completed("SELECT * FROM t WHERE id = 1", 1));
+    listener.onComplete(completed("SELECT * FROM t WHERE id = 2", 1));
+    listener.onError(completed("SELECT * FROM t WHERE id = 3", 0), new Exception());
+
+    List<StatementStats> snapshot = listener.snapshot();
+    assertEquals(snapshot.size(), 1);
+    StatementStats stats = snapshot.get(0);
+    assertEquals(stats.fingerprint().value(), "SELECT * FROM t WHERE id = ?");
+    assertEquals(stats.calls(), 3);
+    assertEquals(stats.errors(), 1);
+    assertEquals(stats.rows(), 2);
+    assertTrue(stats.p50Nanos() <= stats.p99Nanos());
+  }
+
+  @Test
+  public void shouldOrderTop() throws Exception {
+    StatementStatsListener listener = StatementStatsListener.create();
+    listener.onComplete(completed("SELECT a FROM t", 0));
+    for (int i = 0; i < 10; ++i) {
+      listener.onComplete(completed("SELECT b FROM t", 0));
+    }
+
+    List<StatementStats> top = listener.top(1, Comparator.comparingLong(StatementStats::calls).reversed());
+    assertEquals(top.size(), 1);
+    assertEquals(top.get(0).fingerprint().value(), "SELECT b FROM t");
+  }
+
+  @Test
+  public void shouldAggregateBeyondMaxStatementsAsOther() throws Exception {
+    StatementStatsListener listener = StatementStatsListener.create().withMaxStatements(1);
+    listener.onComplete(completed("SELECT a FROM t", 0));
+    listener.onComplete(completed("SELECT b FROM t", 0));
+    listener.onComplete(completed("SELECT c FROM t", 0));
+
+    assertEquals(listener.snapshot().size(), 2);
+    assertEquals(
+      listener.snapshot().stream().filter(s -> s.fingerprint().equals(StatementStatsListener.OTHER)).findFirst().get().calls(),
+      2
+    );
+  }
+
+  @Test
+  public void shouldEstimatePercentiles() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; ++i) {
+      histogram.record(i * 1000L);
+    }
+    long p50 = histogram.percentile(100, 50);
+    long p99 = histogram.percentile(100, 99);
+    assertTrue(p50 >= 50_000 && p50 <= 50_000 * 1.125, "p50 " + p50);
+    assertTrue(p99 >= 99_000 && p99 <= 99_000 * 1.125, "p99 " + p99);
+  }
+
+  private static QueryContext completed(String sql, int rows) {
+    QueryContext context = new QueryContext(sql, System.nanoTime());
+    context.start();
+    context.executed(false);
+    context.rows(rows);
+    context.terminate();
+    return context;
+  }
+}
@@ -0,0 +1,106 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+
+import static com.trunk.rx.jdbc.sql.ColumnarChunk.Type.DOUBLE;
+import static com.trunk.rx.jdbc.sql.ColumnarChunk.Type.INT;
+import static com.trunk.rx.jdbc.sql.ColumnarChunk.Type.LONG;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class ColumnarChunkMapperTest {
+  @Test
+  public void shouldFillPrimitiveColumns() throws Exception {
+    ColumnarChunkMapper mapper = ColumnarChunkMapper.of(LONG, INT, DOUBLE);
+    ColumnarChunk chunk = mapper.create(4);
+
+    mapper.append(chunk, row(7L, 1, 0.5, false));
+    mapper.append(chunk, row(8L, 0, 1.5, true));
+
+    assertEquals(chunk.size(), 2);
+    assertEquals(chunk.capacity(), 4);
+    assertEquals(chunk.longs(0)[1], 8L);
+    assertEquals(chunk.getInt(1, 0), 1);
+    assertEquals(chunk.doubles(2)[0], 0.5);
+    assertFalse(chunk.isNull(1, 0));
+    assertTrue(chunk.isNull(1, 1));
+  }
+
+  @Test
+  public void shouldFillOffHeapColumns() throws Exception {
+    ColumnarChunkMapper mapper = ColumnarChunkMapper.of(LONG, INT, DOUBLE).offHeap();
+    ColumnarChunk chunk = mapper.create(4);
+
+    mapper.append(chunk, row(7L, 1, 0.5, false));
+    mapper.append(chunk, row(8L, 2, 1.5, false));
+
+    assertTrue(chunk.isOffHeap());
+    assertEquals(chunk.getLong(0, 1), 8L);
+    assertEquals(chunk.getDouble(2, 1), 1.5);
+    ByteBuffer ints = chunk.buffer(1);
+    assertEquals(ints.remaining(), 2 * Integer.BYTES);
+    assertEquals(ints.getInt(Integer.BYTES), 2);
+  }
+
+  @Test
+  public void shouldReuseReleasedOffHeapChunks() throws Exception {
+    ColumnarChunkMapper mapper = ColumnarChunkMapper.of(INT).offHeap(1);
+    ColumnarChunk chunk = mapper.create(4);
+    ColumnarChunk other = mapper.create(4);
+    assertNotSame(other, chunk);
+
+    chunk.setInt(0, 3);
+    chunk.setNull(0);
+    chunk.endRow();
+    chunk.release();
+    other.release();
+    ColumnarChunk reused = mapper.create(4);
+
+    assertSame(reused, chunk);
+    assertEquals(reused.size(), 0);
+    assertFalse(reused.isNull(0, 0));
+    assertNotSame(mapper.create(4), chunk);
+  }
+
+  @Test
+  public void shouldNotReuseChunksOfAnotherCapacity() throws Exception {
+    ColumnarChunkMapper mapper = ColumnarChunkMapper.of(INT).offHeap();
+    ColumnarChunk chunk = mapper.create(4);
+    chunk.release();
+
+    assertEquals(mapper.create(8).capacity(), 8);
+    assertNotSame(mapper.create(4), chunk);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectOffHeapColumnsOver2GB() throws Exception {
+    ColumnarChunkMapper.of(LONG).offHeap().create(Integer.MAX_VALUE / 4);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectWrongColumnType() throws Exception {
+    ColumnarChunkMapper.of(LONG).create(1).doubles(0);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void shouldNotExposeArraysOffHeap() throws Exception {
+    ColumnarChunkMapper.of(LONG).offHeap().create(1).longs(0);
+  }
+
+  private static ResultSet row(long l, int i, double d, boolean intIsNull) throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getLong(1)).thenReturn(l);
+    when(rs.getInt(2)).thenReturn(i);
+    when(rs.getDouble(3)).thenReturn(d);
+    when(rs.wasNull()).thenReturn(false, intIsNull, false);
+    return rs;
+  }
+}
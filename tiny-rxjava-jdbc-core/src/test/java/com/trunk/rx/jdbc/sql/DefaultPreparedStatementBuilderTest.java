@@ -0,0 +1,232 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static rx.Observable.just;
+
+public class DefaultPreparedStatementBuilderTest {
+  @Test
+  public void shouldBindParametersFromIndexOne() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("SELECT id FROM test WHERE id = ? AND name = ?")
+      .add(7, Types.INTEGER)
+      .add(null, Types.VARCHAR)
+      .build(c);
+
+    verify(c).prepareStatement("SELECT id FROM test WHERE id = ? AND name = ?");
+    verify(ps).setObject(1, 7, Types.INTEGER);
+    verify(ps).setNull(2, Types.VARCHAR);
+  }
+
+  @Test
+  public void shouldPadInListToNextPowerOfTwo() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("DELETE FROM test WHERE id IN (?) AND name <> '?'")
+      .addIn(Arrays.asList(1, 2, 3), Types.INTEGER)
+      .build(c);
+
+    verify(c).prepareStatement("DELETE FROM test WHERE id IN (?, ?, ?, ?) AND name <> '?'");
+    verify(ps).setObject(1, 1, Types.INTEGER);
+    verify(ps).setObject(2, 2, Types.INTEGER);
+    verify(ps).setObject(3, 3, Types.INTEGER);
+    verify(ps).setObject(4, 3, Types.INTEGER);
+  }
+
+  @Test
+  public void shouldBindParametersAfterInList() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("SELECT id FROM test WHERE id IN (?) AND name = ?")
+      .addIn(Arrays.asList(1, 2), Types.INTEGER)
+      .add("foo", Types.VARCHAR)
+      .build(c);
+
+    verify(c).prepareStatement("SELECT id FROM test WHERE id IN (?, ?) AND name = ?");
+    verify(ps).setObject(3, "foo", Types.VARCHAR);
+  }
+
+  @Test
+  public void shouldBindEmptyInListAsNull() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("SELECT id FROM test WHERE id IN (?)")
+      .addIn(Collections.emptyList(), Types.INTEGER)
+      .build(c);
+
+    verify(c).prepareStatement("SELECT id FROM test WHERE id IN (?)");
+    verify(ps).setNull(1, Types.INTEGER);
+  }
+
+  @Test
+  public void shouldBindArrayParameter() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    Array array = mock(Array.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(c.createArrayOf("integer", new Object[]{1, 2, 3})).thenReturn(array);
+
+    DefaultPreparedStatementBuilder.of("SELECT id FROM test WHERE id = ANY(?)")
+      .addArray(Arrays.asList(1, 2, 3), "integer")
+      .build(c);
+
+    verify(c).prepareStatement("SELECT id FROM test WHERE id = ANY(?)");
+    verify(ps).setArray(1, array);
+  }
+
+  @Test
+  public void shouldBindStreamParameter() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("INSERT INTO test (id, data) VALUES (?, ?)")
+      .add(7, Types.INTEGER)
+      .addStream(just(ByteBuffer.wrap(new byte[]{1, 2, 3})), 3)
+      .build(c);
+
+    verify(ps).setObject(1, 7, Types.INTEGER);
+    verify(ps).setBinaryStream(eq(2), any(ObservableInputStream.class), eq(3L));
+  }
+
+  @Test
+  public void shouldUnsubscribeStreamWhenExecuteFails() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    AtomicReference<InputStream> stream = new AtomicReference<>();
+    doAnswer(invocation -> {
+      stream.set(invocation.getArgumentAt(1, InputStream.class));
+      return null;
+    }).when(ps).setBinaryStream(eq(1), any(InputStream.class), anyLong());
+    when(ps.executeUpdate()).thenAnswer(invocation -> {
+      stream.get().read();
+      throw new SQLException("boom");
+    });
+    AtomicBoolean unsubscribed = new AtomicBoolean();
+
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ExecuteUpdate.using(
+      c,
+      DefaultPreparedStatementBuilder.of("INSERT INTO test (data) VALUES (?)")
+        .addStream(just(ByteBuffer.wrap(new byte[]{1}), ByteBuffer.wrap(new byte[]{2})).doOnUnsubscribe(() -> unsubscribed.set(true)), 2)
+    ).subscribe(t);
+
+    t.assertError(SQLException.class);
+    assertTrue(unsubscribed.get());
+  }
+
+  @Test
+  public void shouldAddEachRowToBatch() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(ps);
+
+    DefaultPreparedStatementBuilder.of("INSERT INTO test (name) VALUES (?)")
+      .returningGeneratedKeys()
+      .add("foo", Types.VARCHAR)
+      .addBatch()
+      .add("bar", Types.VARCHAR)
+      .build(c);
+
+    verify(c).prepareStatement("INSERT INTO test (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+    verify(ps).setObject(1, "foo", Types.VARCHAR);
+    verify(ps).setObject(1, "bar", Types.VARCHAR);
+    verify(ps, times(2)).addBatch();
+  }
+
+  @Test
+  public void generatedKeysShouldEmitEachKey() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet keys = mock(ResultSet.class);
+    when(c.prepareStatement(anyString(), eq(Statement.RETURN_GENERATED_KEYS))).thenReturn(ps);
+    when(ps.getGeneratedKeys()).thenReturn(keys);
+    when(keys.next()).thenReturn(true, true, false);
+    when(keys.getInt(1)).thenReturn(1, 2);
+
+    ExecuteUpdateGeneratedKeys.usingBatch(
+      c,
+      DefaultPreparedStatementBuilder.of("INSERT INTO test (name) VALUES (?)")
+        .returningGeneratedKeys()
+        .add("foo", Types.VARCHAR)
+        .addBatch()
+        .add("bar", Types.VARCHAR),
+      resultSet -> resultSet.getInt(1)
+    )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(1, 2);
+    verify(ps, times(1)).executeBatch();
+  }
+
+  @Test
+  public void bucketsShouldBePowersOfTwo() throws Exception {
+    assertEquals(Placeholders.bucket(0), 1);
+    assertEquals(Placeholders.bucket(1), 1);
+    assertEquals(Placeholders.bucket(2), 2);
+    assertEquals(Placeholders.bucket(3), 4);
+    assertEquals(Placeholders.bucket(8), 8);
+    assertEquals(Placeholders.bucket(9), 16);
+  }
+
+  @Test
+  public void inChunksShouldExecuteAnUpdatePerChunk() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeUpdate()).thenReturn(2, 1);
+
+    ExecuteUpdate.inChunks(
+      c,
+      just(1, 2, 3),
+      2,
+      chunk -> DefaultPreparedStatementBuilder.of("DELETE FROM test WHERE id IN (?)").addIn(chunk, Types.INTEGER)
+    )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertValues(2, 1);
+    verify(c, times(1)).prepareStatement("DELETE FROM test WHERE id IN (?, ?)");
+    verify(c, times(1)).prepareStatement("DELETE FROM test WHERE id IN (?)");
+  }
+}
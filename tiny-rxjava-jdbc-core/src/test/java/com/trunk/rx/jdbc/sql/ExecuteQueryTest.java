@@ -0,0 +1,74 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExecuteQueryTest {
+  @Test
+  public void shouldEmitEachRow() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ExecuteQuery.using(connectionWithRows(1, 2, 3), c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(1, 2, 3);
+  }
+
+  @Test
+  public void shouldEmitRowsInChunks() throws Exception {
+    TestSubscriber<List<Integer>> t = new TestSubscriber<>();
+    ExecuteQuery.<Integer>usingChunks(
+      connectionWithRows(1, 2, 3, 4, 5),
+      c -> c.prepareStatement("SELECT id FROM test"),
+      rs -> rs.getInt(1),
+      2
+    )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+  }
+
+  @Test
+  public void shouldCountRequestsInChunks() throws Exception {
+    TestSubscriber<List<Integer>> t = new TestSubscriber<>(1);
+    ExecuteQuery.<Integer>usingChunks(
+      connectionWithRows(1, 2, 3, 4, 5),
+      c -> c.prepareStatement("SELECT id FROM test"),
+      rs -> rs.getInt(1),
+      2
+    )
+      .subscribe(t);
+
+    t.assertValues(Arrays.asList(1, 2));
+    t.requestMore(1);
+    t.assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4));
+    t.assertNotCompleted();
+  }
+
+  private static Connection connectionWithRows(Integer first, Integer... rest) throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet rs = mock(ResultSet.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeQuery()).thenReturn(rs);
+    Boolean[] more = new Boolean[rest.length + 1];
+    Arrays.fill(more, true);
+    more[rest.length] = false;
+    when(rs.next()).thenReturn(true, more);
+    when(rs.getInt(1)).thenReturn(first, rest);
+    return c;
+  }
+}
@@ -0,0 +1,138 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class MultiRowInsertTest {
+  @Test
+  public void shouldRepeatValuesRow() throws Exception {
+    assertEquals(
+      Placeholders.repeatValues("INSERT INTO test (id, name) values (?, lower(?)) RETURNING id", 3),
+      "INSERT INTO test (id, name) values (?, lower(?)), (?, lower(?)), (?, lower(?)) RETURNING id"
+    );
+    assertEquals(Placeholders.valuesPlaceholders("INSERT INTO test (id, name) VALUES (?, '?')"), 1);
+  }
+
+  @Test
+  public void shouldInsertRowsPerStatementAndReuseStatements() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement two = mock(PreparedStatement.class);
+    PreparedStatement one = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(two, one);
+    when(two.executeUpdate()).thenReturn(2);
+    when(one.executeUpdate()).thenReturn(1);
+
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    MultiRowInsert.using(
+      c,
+      "INSERT INTO test (id, name) VALUES (?, ?)",
+      Observable.range(1, 5),
+      i -> new Object[]{i, i == 4 ? null : "n" + i},
+      Types.INTEGER,
+      Types.VARCHAR
+    )
+      .withRowsPerStatement(2)
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(2, 2, 1);
+    verify(c).prepareStatement("INSERT INTO test (id, name) VALUES (?, ?), (?, ?)");
+    verify(c).prepareStatement("INSERT INTO test (id, name) VALUES (?, ?)");
+    verify(two, times(2)).executeUpdate();
+    verify(two).setObject(4, "n2", Types.VARCHAR);
+    verify(two).setNull(4, Types.VARCHAR);
+    verify(one).setObject(1, 5, Types.INTEGER);
+    verify(two).close();
+    verify(one).close();
+  }
+
+  @Test
+  public void shouldLimitRowsByMaxParameters() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    MultiRowInsert.using(
+      c,
+      "INSERT INTO test (id, name) VALUES (?, ?)",
+      Observable.range(1, 3),
+      i -> new Object[]{i, "n" + i},
+      Types.INTEGER,
+      Types.VARCHAR
+    )
+      .withMaxParameters(5)
+      .subscribe(new TestSubscriber<>());
+
+    verify(c).prepareStatement("INSERT INTO test (id, name) VALUES (?, ?), (?, ?)");
+    verify(c).prepareStatement("INSERT INTO test (id, name) VALUES (?, ?)");
+  }
+
+  @Test
+  public void shouldRepeatFirstValuesRowOnly() throws Exception {
+    assertEquals(
+      Placeholders.repeatValues("INSERT INTO test (id, name) VALUES (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)", 2),
+      "INSERT INTO test (id, name) VALUES (?, ?), (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)"
+    );
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectParametersOutsideValuesRow() throws Exception {
+    MultiRowInsert.using(
+      mock(Connection.class),
+      "INSERT INTO test (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = ?",
+      Observable.empty(),
+      i -> null,
+      Types.INTEGER,
+      Types.VARCHAR
+    );
+  }
+
+  @Test
+  public void shouldBindWithConverters() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    MultiRowInsert.using(
+      c,
+      "INSERT INTO test (id, name) VALUES (?, ?)",
+      Observable.just(1),
+      i -> new Object[]{i, new StringBuilder("one")},
+      Types.INTEGER,
+      Types.VARCHAR
+    )
+      .with(new SqlObjectConverter<Object>() {
+        @Override
+        public Object convert(Object in) {
+          return in.toString();
+        }
+
+        @Override
+        public boolean matches(Class<?> iClass, int type) {
+          return iClass == StringBuilder.class;
+        }
+      })
+      .subscribe(new TestSubscriber<>());
+
+    verify(ps).setObject(1, 1, Types.INTEGER);
+    verify(ps).setObject(2, "one", Types.VARCHAR);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void shouldRejectMismatchedTypes() throws Exception {
+    MultiRowInsert.using(mock(Connection.class), "INSERT INTO test (id, name) VALUES (?, ?)", Observable.empty(), i -> null, Types.INTEGER);
+  }
+}
@@ -0,0 +1,57 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class NamedParameterPreparedStatementBuilderTest {
+  @Test
+  public void shouldExpandNamedInListToIndexedNames() throws Exception {
+    Map<String, Integer> counts = new HashMap<>();
+    counts.put("ids", 4);
+
+    assertEquals(
+      Placeholders.expandNamed("SELECT id FROM test WHERE id IN (:ids) AND name = :name AND note <> ':ids'", counts),
+      "SELECT id FROM test WHERE id IN (:ids__0, :ids__1, :ids__2, :ids__3) AND name = :name AND note <> ':ids'"
+    );
+  }
+
+  @Test
+  public void shouldLeaveCastsAndOtherNamesAlone() throws Exception {
+    assertEquals(
+      Placeholders.expandNamed("SELECT :id::text FROM test WHERE id IN (:ids)", Collections.singletonMap("ids", 2)),
+      "SELECT :id::text FROM test WHERE id IN (:ids__0, :ids__1)"
+    );
+  }
+
+  @Test
+  public void shouldPadNamedInListToNextPowerOfTwo() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    NamedParameterPreparedStatementBuilder.of("SELECT id FROM test WHERE id IN (:ids) AND name = :name")
+      .addIn("ids", Arrays.asList(1, 2, 3), Types.INTEGER)
+      .add("name", "foo", Types.VARCHAR)
+      .build(c);
+
+    verify(c).prepareStatement("SELECT id FROM test WHERE id IN (?, ?, ?, ?) AND name = ?");
+    verify(ps).setObject(1, 1, Types.INTEGER);
+    verify(ps).setObject(2, 2, Types.INTEGER);
+    verify(ps).setObject(3, 3, Types.INTEGER);
+    verify(ps).setObject(4, 3, Types.INTEGER);
+    verify(ps).setObject(5, "foo", Types.VARCHAR);
+  }
+}
@@ -0,0 +1,95 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.Observable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ObservableInputStreamTest {
+  @Test
+  public void shouldReadAllBuffers() throws Exception {
+    InputStream in = new ObservableInputStream(
+      Observable.from(Arrays.asList(ByteBuffer.wrap(new byte[]{1, 2, 3}), ByteBuffer.wrap(new byte[0]), ByteBuffer.wrap(new byte[]{4})))
+    );
+
+    byte[] b = new byte[8];
+    assertEquals(in.read(b, 0, 8), 3);
+    assertEquals(in.read(), 4);
+    assertEquals(in.read(), -1);
+    assertEquals(b[2], 3);
+  }
+
+  @Test
+  public void shouldRequestOneBufferAtATime() throws Exception {
+    AtomicInteger emitted = new AtomicInteger();
+    InputStream in = new ObservableInputStream(
+      Observable.from(Arrays.asList(ByteBuffer.wrap(new byte[]{1, 2}), ByteBuffer.wrap(new byte[]{3})))
+        .doOnNext(buffer -> emitted.incrementAndGet())
+    );
+
+    assertEquals(emitted.get(), 0);
+    assertEquals(in.read(), 1);
+    assertEquals(emitted.get(), 1);
+    assertEquals(in.read(), 2);
+    assertEquals(emitted.get(), 1);
+    assertEquals(in.read(), 3);
+    assertEquals(emitted.get(), 2);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldRethrowSourceErrors() throws Exception {
+    InputStream in = new ObservableInputStream(Observable.error(new IllegalStateException("boom")));
+
+    in.read();
+  }
+
+  @Test(timeOut = 5000)
+  public void shouldUnblockReadAndUnsubscribeWhenClosed() throws Exception {
+    CountDownLatch requested = new CountDownLatch(1);
+    CountDownLatch unsubscribed = new CountDownLatch(1);
+    InputStream in = new ObservableInputStream(
+      Observable.<ByteBuffer>never()
+        .doOnRequest(n -> requested.countDown())
+        .doOnUnsubscribe(unsubscribed::countDown)
+    );
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> read = executor.submit(() -> in.read());
+      requested.await();
+
+      in.close();
+
+      try {
+        read.get();
+        fail("read should have failed");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IOException);
+      }
+      assertTrue(unsubscribed.await(1, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void shouldThrowWhenReadAfterClose() throws Exception {
+    InputStream in = new ObservableInputStream(Observable.just(ByteBuffer.wrap(new byte[]{1})));
+    in.close();
+
+    in.read();
+  }
+}
@@ -0,0 +1,107 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class ReadLobTest {
+  @Test
+  public void shouldStreamBlobInChunks() throws Exception {
+    Blob blob = mock(Blob.class);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+    Connection c = connectionWithRow();
+    ResultSet rs = c.prepareStatement("").executeQuery();
+    when(rs.getBlob(1)).thenReturn(blob);
+
+    TestSubscriber<ByteBuffer> t = new TestSubscriber<>();
+    ReadLob.blob(c, connection -> connection.prepareStatement("SELECT data FROM test"), 1, 4).subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    List<Integer> sizes = t.getOnNextEvents().stream().map(ByteBuffer::remaining).collect(Collectors.toList());
+    assertEquals(sizes, Arrays.asList(4, 4, 2));
+    assertEquals(t.getOnNextEvents().get(2).get(1), 10);
+    verify(blob).free();
+    verify(rs).close();
+  }
+
+  @Test
+  public void shouldReadOnlyRequestedChunks() throws Exception {
+    Blob blob = mock(Blob.class);
+    when(blob.getBinaryStream()).thenReturn(new ByteArrayInputStream(new byte[10]));
+    Connection c = connectionWithRow();
+    when(c.prepareStatement("").executeQuery().getBlob(1)).thenReturn(blob);
+    ByteBuffer shared = ByteBuffer.allocateDirect(4);
+
+    TestSubscriber<ByteBuffer> t = new TestSubscriber<>(1);
+    ReadLob.blob(c, connection -> connection.prepareStatement("SELECT data FROM test"), 1, () -> shared).subscribe(t);
+
+    t.assertValueCount(1);
+    t.assertNotCompleted();
+    verify(blob, never()).free();
+    t.requestMore(5);
+    t.assertValueCount(3);
+    t.assertCompleted();
+    verify(blob).free();
+  }
+
+  @Test
+  public void shouldStreamClobInChunks() throws Exception {
+    Clob clob = mock(Clob.class);
+    when(clob.getCharacterStream()).thenReturn(new StringReader("hello world"));
+    Connection c = connectionWithRow();
+    when(c.prepareStatement("").executeQuery().getClob(1)).thenReturn(clob);
+
+    TestSubscriber<CharBuffer> t = new TestSubscriber<>();
+    ReadLob.clob(c, connection -> connection.prepareStatement("SELECT data FROM test"), 1, 6).subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    List<String> chunks = t.getOnNextEvents().stream().map(CharBuffer::toString).collect(Collectors.toList());
+    assertEquals(chunks, Arrays.asList("hello ", "world"));
+    verify(clob).free();
+  }
+
+  @Test
+  public void shouldCompleteWithoutRows() throws Exception {
+    Connection c = connectionWithRow();
+    ResultSet rs = c.prepareStatement("").executeQuery();
+    when(rs.next()).thenReturn(false);
+
+    TestSubscriber<ByteBuffer> t = new TestSubscriber<>();
+    ReadLob.blob(c, connection -> connection.prepareStatement("SELECT data FROM test"), 1, 4).subscribe(t);
+
+    t.assertNoValues();
+    t.assertCompleted();
+    verify(rs).close();
+  }
+
+  private static Connection connectionWithRow() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet rs = mock(ResultSet.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeQuery()).thenReturn(rs);
+    when(rs.next()).thenReturn(true, false);
+    return c;
+  }
+}
@@ -0,0 +1,135 @@
+package com.trunk.rx.jdbc.sql;
+
+import org.testng.annotations.Test;
+import rx.Subscriber;
+import rx.observers.TestSubscriber;
+
+import java.sql.SQLException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RowProducerTest {
+  @Test
+  public void shouldEmitEverythingWhenUnbounded() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    CountingProducer producer = new CountingProducer(t, 3);
+    t.setProducer(producer);
+
+    t.assertValues(1, 2, 3);
+    t.assertCompleted();
+    assertTrue(producer.closed);
+  }
+
+  @Test
+  public void shouldEmitOnlyWhatIsRequested() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>(2);
+    CountingProducer producer = new CountingProducer(t, 5);
+    // requests the initial amount, as subscribing would
+    t.onStart();
+    t.setProducer(producer);
+
+    t.assertValues(1, 2);
+    assertEquals(producer.read, 2);
+    t.requestMore(2);
+    t.assertValues(1, 2, 3, 4);
+    t.assertNotCompleted();
+    assertFalse(producer.closed);
+    t.requestMore(2);
+    t.assertValues(1, 2, 3, 4, 5);
+    t.assertCompleted();
+    assertTrue(producer.closed);
+  }
+
+  @Test
+  public void shouldAddRequestsMadeWhileEmitting() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<Integer>(1) {
+      @Override
+      public void onNext(Integer i) {
+        super.onNext(i);
+        requestMore(1);
+      }
+    };
+    CountingProducer producer = new CountingProducer(t, 1000);
+    t.setProducer(producer);
+
+    t.assertValueCount(1000);
+    t.assertCompleted();
+  }
+
+  @Test
+  public void shouldStopWithinCheckIntervalOnceUnsubscribed() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<Integer>() {
+      @Override
+      public void onNext(Integer i) {
+        super.onNext(i);
+        if (i == 1) {
+          unsubscribe();
+        }
+      }
+    };
+    CountingProducer producer = new CountingProducer(t, 1000);
+    t.setProducer(producer);
+
+    assertEquals(producer.read, RowProducer.UNSUBSCRIBED_CHECK_INTERVAL);
+    assertTrue(producer.closed);
+    t.assertNotCompleted();
+  }
+
+  @Test
+  public void shouldNotReadWhenUnsubscribedBeforeRequesting() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>(0);
+    CountingProducer producer = new CountingProducer(t, 3);
+    // requests the initial amount, as subscribing would
+    t.onStart();
+    t.setProducer(producer);
+    t.unsubscribe();
+    producer.request(1);
+
+    assertEquals(producer.read, 0);
+    assertTrue(producer.closed);
+  }
+
+  @Test
+  public void shouldCloseAndEmitErrors() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    CountingProducer producer = new CountingProducer(t, 3);
+    producer.failAt = 2;
+    t.setProducer(producer);
+
+    t.assertValues(1);
+    t.assertError(SQLException.class);
+    assertTrue(producer.closed);
+  }
+
+  private static class CountingProducer extends RowProducer<Integer> {
+    private final int rows;
+    private int read;
+    private int failAt = -1;
+    private boolean closed;
+
+    CountingProducer(Subscriber<? super Integer> subscriber, int rows) {
+      super(subscriber);
+      this.rows = rows;
+    }
+
+    @Override
+    protected boolean emitNext(Subscriber<? super Integer> subscriber) throws SQLException {
+      if (read == rows) {
+        return false;
+      }
+      ++read;
+      if (read == failAt) {
+        throw new SQLException("failed");
+      }
+      subscriber.onNext(read);
+      return true;
+    }
+
+    @Override
+    protected void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.trunk.rx.jdbc.sql;
+
+import com.trunk.rx.jdbc.CancelCountingDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+
+import static org.testng.Assert.assertEquals;
+
+public class StatementCancellationTest {
+  private Connection connection;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    connection = CancelCountingDriver.connect("h2:mem:cancellation");
+    connection.createStatement().execute("CREATE TABLE test (id INT)");
+    connection.createStatement().execute("INSERT INTO test SELECT x FROM SYSTEM_RANGE(1, 10)");
+    CancelCountingDriver.reset();
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    connection.createStatement().execute("DROP TABLE test");
+    connection.close();
+  }
+
+  @Test
+  public void shouldNotCancelCompletedStatements() throws Exception {
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    Execute.using(connection, c -> c.prepareStatement("UPDATE test SET id = id"))
+      .cast(Object.class)
+      .concatWith(ExecuteUpdate.using(connection, c -> c.prepareStatement("UPDATE test SET id = id")))
+      .concatWith(ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1)))
+      .concatWith(
+        ExecuteQuery.<Integer>usingChunks(connection, c -> c.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1), 3)
+      )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValueCount(1 + 1 + 10 + 4);
+    assertEquals(CancelCountingDriver.cancels(), 0);
+  }
+
+  @Test
+  public void shouldCancelWhenUnsubscribedWhileStreaming() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1))
+      .take(2)
+      .subscribe(t);
+
+    t.assertValues(1, 2);
+    assertEquals(CancelCountingDriver.cancels(), 1);
+  }
+
+  @Test
+  public void shouldKeepResultSetOpenForLaterRequests() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>(1);
+    ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1))
+      .subscribe(t);
+
+    t.assertValues(1);
+    t.requestMore(20);
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValueCount(10);
+    assertEquals(CancelCountingDriver.cancels(), 0);
+  }
+}
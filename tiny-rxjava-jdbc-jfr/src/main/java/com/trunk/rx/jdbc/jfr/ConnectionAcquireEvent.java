@@ -0,0 +1,16 @@
+package com.trunk.rx.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.trunk.rx.jdbc.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category(JfrEvents.CATEGORY)
+@Description("Waiting for a connection from the ConnectionProvider")
+class ConnectionAcquireEvent extends Event {
+  @Label("Error")
+  String error;
+}
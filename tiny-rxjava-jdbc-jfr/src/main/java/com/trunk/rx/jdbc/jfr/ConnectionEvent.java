@@ -0,0 +1,19 @@
+package com.trunk.rx.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.trunk.rx.jdbc.Connection")
+@Label("Connection")
+@Category(JfrEvents.CATEGORY)
+@Description("A connection held from acquisition until release")
+class ConnectionEvent extends Event {
+  @Label("Transactions")
+  int transactions;
+
+  @Label("Statements")
+  int statements;
+}
@@ -0,0 +1,70 @@
+package com.trunk.rx.jdbc.jfr;
+
+import com.trunk.rx.jdbc.listener.ConnectionListener;
+import com.trunk.rx.jdbc.listener.QueryListener;
+
+/**
+ * Records the events of one connection. The acquire event begins when the listener is created,
+ * just before the connection is requested.
+ */
+class JfrConnectionListener implements ConnectionListener {
+  private final ConnectionAcquireEvent acquire = new ConnectionAcquireEvent();
+  private final ConnectionEvent connection = new ConnectionEvent();
+  private final JfrQueryListener queryListener;
+  private TransactionEvent transaction;
+
+  JfrConnectionListener(boolean statements) {
+    this.queryListener = statements ? new JfrQueryListener() : null;
+    acquire.begin();
+  }
+
+  @Override
+  public void onAcquired() {
+    acquire.commit();
+    connection.begin();
+  }
+
+  @Override
+  public void onAcquireFailed(Throwable error) {
+    acquire.error = error.toString();
+    acquire.commit();
+  }
+
+  @Override
+  public void onBegin() {
+    transaction = new TransactionEvent();
+    transaction.begin();
+  }
+
+  @Override
+  public void onCommit() {
+    endTransaction("commit");
+  }
+
+  @Override
+  public void onRollback() {
+    endTransaction("rollback");
+  }
+
+  @Override
+  public void onRelease() {
+    // a transaction still open on release was abandoned by the connection's owner
+    endTransaction("released");
+    connection.statements = queryListener == null ? 0 : queryListener.statements();
+    connection.commit();
+  }
+
+  @Override
+  public QueryListener queryListener() {
+    return queryListener;
+  }
+
+  private void endTransaction(String outcome) {
+    if (transaction != null) {
+      transaction.outcome = outcome;
+      transaction.commit();
+      transaction = null;
+      ++connection.transactions;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.trunk.rx.jdbc.jfr;
+
+import com.trunk.rx.jdbc.listener.ConnectionListener;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Access to the Flight Recorder API, only loaded once it is known to be available.
+ */
+final class JfrEvents {
+  static final String CATEGORY = "tiny-rxjava-jdbc";
+
+  private static final EventType CONNECTION_ACQUIRE = EventType.getEventType(ConnectionAcquireEvent.class);
+  private static final EventType CONNECTION = EventType.getEventType(ConnectionEvent.class);
+  private static final EventType TRANSACTION = EventType.getEventType(TransactionEvent.class);
+  private static final EventType STATEMENT_EXECUTE = EventType.getEventType(StatementExecuteEvent.class);
+  private static final EventType RESULT_SET_STREAM = EventType.getEventType(ResultSetStreamEvent.class);
+
+  private JfrEvents() {
+    // prevent instantiation
+  }
+
+  static boolean isAvailable() {
+    return FlightRecorder.isAvailable();
+  }
+
+  /**
+   * @return a listener for a new connection, or null if no events are enabled
+   */
+  static ConnectionListener connectionListener() {
+    boolean connections = CONNECTION_ACQUIRE.isEnabled() || CONNECTION.isEnabled() || TRANSACTION.isEnabled();
+    boolean statements = STATEMENT_EXECUTE.isEnabled() || RESULT_SET_STREAM.isEnabled();
+    if (!connections && !statements) {
+      return null;
+    }
+    return new JfrConnectionListener(statements);
+  }
+}
@@ -0,0 +1,34 @@
+package com.trunk.rx.jdbc.jfr;
+
+import com.trunk.rx.jdbc.listener.ConnectionListener;
+import com.trunk.rx.jdbc.listener.InstrumentationProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records Java Flight Recorder events for connections, transactions and statements.
+ * It is found with {@link java.util.ServiceLoader} when this module is on the class path.
+ * <p>
+ * Nothing is observed when the JVM does not support Flight Recorder or when no recording
+ * has enabled the events, so there is no cost outside of a recording.
+ */
+public class JfrInstrumentationProvider implements InstrumentationProvider {
+  private static final Logger log = LoggerFactory.getLogger(JfrInstrumentationProvider.class);
+
+  private static final boolean AVAILABLE = isAvailable();
+
+  @Override
+  public ConnectionListener connectionListener() {
+    return AVAILABLE ? JfrEvents.connectionListener() : null;
+  }
+
+  private static boolean isAvailable() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder");
+      return JfrEvents.isAvailable();
+    } catch (ClassNotFoundException | LinkageError e) {
+      log.debug("Flight Recorder is not available", e);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.trunk.rx.jdbc.jfr;
+
+import com.trunk.rx.jdbc.listener.QueryContext;
+import com.trunk.rx.jdbc.listener.QueryListener;
+import com.trunk.rx.jdbc.listener.SqlFingerprint;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records statement execute and result set stream events for the statements of one connection.
+ * Events are kept by {@link QueryContext} between the start and end of each execution, as a
+ * statement may be cancelled from another thread.
+ */
+class JfrQueryListener implements QueryListener {
+  private static final int MAX_CACHED_FINGERPRINTS = 4096;
+  private static final ConcurrentMap<String, String> FINGERPRINTS = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<QueryContext, StatementExecuteEvent> executing = new ConcurrentHashMap<>();
+  private final ConcurrentMap<QueryContext, ResultSetStreamEvent> streaming = new ConcurrentHashMap<>();
+  private final AtomicInteger statements = new AtomicInteger();
+
+  int statements() {
+    return statements.get();
+  }
+
+  @Override
+  public void onExecuteStart(QueryContext context) {
+    statements.incrementAndGet();
+    StatementExecuteEvent event = new StatementExecuteEvent();
+    event.begin();
+    executing.put(context, event);
+  }
+
+  @Override
+  public void onExecuteEnd(QueryContext context) {
+    StatementExecuteEvent execute = executing.get(context);
+    if (execute != null) {
+      execute.end();
+    }
+    if (context.hasResultSet()) {
+      // the execution is complete once rows are returned, and reading them is a separate event
+      commit(executing.remove(context), context, "executed");
+      ResultSetStreamEvent stream = new ResultSetStreamEvent();
+      stream.begin();
+      streaming.put(context, stream);
+    }
+  }
+
+  @Override
+  public void onComplete(QueryContext context) {
+    end(context, "completed");
+  }
+
+  @Override
+  public void onError(QueryContext context, Throwable error) {
+    end(context, "failed");
+  }
+
+  @Override
+  public void onCancel(QueryContext context) {
+    end(context, "cancelled");
+  }
+
+  private void end(QueryContext context, String outcome) {
+    StatementExecuteEvent execute = executing.remove(context);
+    if (execute != null) {
+      // an update, or terminated while executing
+      if (context.executeEndNanos() == 0) {
+        execute.end();
+      }
+      execute.rows = context.rows();
+      commit(execute, context, outcome);
+    }
+    ResultSetStreamEvent stream = streaming.remove(context);
+    if (stream != null) {
+      stream.end();
+      if (stream.shouldCommit()) {
+        stream.fingerprint = fingerprint(context.sql());
+        stream.rows = context.rows();
+        stream.timeToFirstRow = context.firstRowNanos() == 0 ? 0 : context.firstRowNanos() - context.executeEndNanos();
+        stream.outcome = outcome;
+        stream.commit();
+      }
+    }
+  }
+
+  private static void commit(StatementExecuteEvent execute, QueryContext context, String outcome) {
+    if (execute != null && execute.shouldCommit()) {
+      execute.fingerprint = fingerprint(context.sql());
+      execute.bindCount = context.bindCount();
+      execute.outcome = outcome;
+      execute.commit();
+    }
+  }
+
+  private static String fingerprint(String sql) {
+    if (sql == null) {
+      return null;
+    }
+    String fingerprint = FINGERPRINTS.get(sql);
+    if (fingerprint == null) {
+      fingerprint = SqlFingerprint.of(sql).value();
+      if (FINGERPRINTS.size() < MAX_CACHED_FINGERPRINTS) {
+        FINGERPRINTS.putIfAbsent(sql, fingerprint);
+      }
+    }
+    return fingerprint;
+  }
+}
@@ -0,0 +1,27 @@
+package com.trunk.rx.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.trunk.rx.jdbc.ResultSetStream")
+@Label("Result Set Stream")
+@Category(JfrEvents.CATEGORY)
+@Description("Reading the rows of a result set after execution, as they are requested")
+class ResultSetStreamEvent extends Event {
+  @Label("SQL Fingerprint")
+  String fingerprint;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Time To First Row")
+  @Timespan(Timespan.NANOSECONDS)
+  long timeToFirstRow;
+
+  @Label("Outcome")
+  String outcome;
+}
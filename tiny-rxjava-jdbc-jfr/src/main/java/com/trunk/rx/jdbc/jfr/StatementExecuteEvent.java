@@ -0,0 +1,25 @@
+package com.trunk.rx.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.trunk.rx.jdbc.StatementExecute")
+@Label("Statement Execute")
+@Category(JfrEvents.CATEGORY)
+@Description("Executing a statement, until the first rows or update count are returned")
+class StatementExecuteEvent extends Event {
+  @Label("SQL Fingerprint")
+  String fingerprint;
+
+  @Label("Bind Count")
+  int bindCount;
+
+  @Label("Update Count")
+  long rows;
+
+  @Label("Outcome")
+  String outcome;
+}
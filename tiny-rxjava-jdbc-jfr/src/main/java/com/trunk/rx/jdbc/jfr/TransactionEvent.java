@@ -0,0 +1,16 @@
+package com.trunk.rx.jdbc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.trunk.rx.jdbc.Transaction")
+@Label("Transaction")
+@Category(JfrEvents.CATEGORY)
+@Description("A transaction from its start until commit or rollback")
+class TransactionEvent extends Event {
+  @Label("Outcome")
+  String outcome;
+}
@@ -0,0 +1,95 @@
+package com.trunk.rx.jdbc.jfr;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import com.trunk.rx.jdbc.sql.ExecuteUpdate;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class JfrInstrumentationProviderTest {
+  private Connection connection;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    connection = DriverManager.getConnection("jdbc:h2:mem:jfr");
+    connection.createStatement().execute("CREATE TABLE test (id INT)");
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    connection.createStatement().execute("DROP TABLE test");
+    connection.close();
+  }
+
+  @Test
+  public void shouldNotObserveConnectionsWithoutRecording() throws Exception {
+    assertNull(new JfrInstrumentationProvider().connectionListener());
+  }
+
+  @Test
+  public void shouldRecordEvents() throws Exception {
+    Path file = Files.createTempFile("tiny-rxjava-jdbc", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.trunk.rx.jdbc.ConnectionAcquire");
+      recording.enable("com.trunk.rx.jdbc.Connection");
+      recording.enable("com.trunk.rx.jdbc.Transaction");
+      recording.enable("com.trunk.rx.jdbc.StatementExecute");
+      recording.enable("com.trunk.rx.jdbc.ResultSetStream");
+      recording.start();
+
+      TestSubscriber<Object> t = new TestSubscriber<>();
+      ConnectionPool.of(connection)
+        .execute(
+          c -> ExecuteUpdate.using(c, connection -> connection.prepareStatement("INSERT INTO test VALUES (1), (2)"))
+            .cast(Object.class)
+            .concatWith(ExecuteQuery.using(c, connection -> connection.prepareStatement("SELECT id FROM test WHERE id > 0"), rs -> rs.getInt(1)))
+        )
+        .withSingleTransaction()
+        .subscribe(t);
+      t.assertValues(2, 1, 2);
+
+      recording.stop();
+      recording.dump(file);
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    Files.delete(file);
+
+    assertEquals(names(events, "ConnectionAcquire"), 1);
+    assertEquals(names(events, "Connection"), 1);
+    assertEquals(names(events, "Transaction"), 1);
+    assertEquals(names(events, "StatementExecute"), 2);
+    assertEquals(names(events, "ResultSetStream"), 1);
+
+    RecordedEvent stream = events.stream()
+      .filter(e -> e.getEventType().getName().equals("com.trunk.rx.jdbc.ResultSetStream"))
+      .findFirst()
+      .get();
+    assertEquals(stream.getString("fingerprint"), "SELECT id FROM test WHERE id > ?");
+    assertEquals(stream.getLong("rows"), 2);
+    assertTrue(events.stream()
+      .filter(e -> e.getEventType().getName().equals("com.trunk.rx.jdbc.StatementExecute"))
+      .anyMatch(e -> e.getLong("rows") == 2 && e.getString("outcome").equals("completed")));
+  }
+
+  private static long names(List<RecordedEvent> events, String name) {
+    return events.stream()
+      .filter(e -> e.getEventType().getName().equals("com.trunk.rx.jdbc." + name))
+      .collect(Collectors.counting());
+  }
+}
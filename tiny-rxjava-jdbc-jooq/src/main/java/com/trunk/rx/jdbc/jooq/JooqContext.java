@@ -0,0 +1,126 @@
+package com.trunk.rx.jdbc.jooq;
+
+import org.jooq.Configuration;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.conf.StatementType;
+import org.jooq.impl.DSL;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+
+/**
+ * A template jOOQ {@link Configuration}, created once, eg per {@link com.trunk.rx.jdbc.ConnectionPool},
+ * from which a {@link DSLContext} is derived for each {@link Connection}.
+ * <p>
+ * <code>DSL.using(connection, dialect)</code> creates a new configuration and copies the default
+ * {@link Settings} for every query. A JooqContext derives from one configuration, and each thread
+ * keeps the {@link DSLContext} for the last connection it used, so consecutive queries on a connection
+ * reuse the same context. jOOQ copies the settings when deriving, so they are copied once per connection
+ * rather than once per query. The cached context does not keep its connection from being garbage collected.
+ * <p>
+ * Pass a JooqContext to the <code>using</code> methods of {@link com.trunk.rx.jdbc.jooq.sql.Select},
+ * {@link com.trunk.rx.jdbc.jooq.sql.Execute} and {@link com.trunk.rx.jdbc.jooq.sql.InsertReturning}
+ * that take a {@link com.trunk.rx.jdbc.jooq.sql.ContextQueryBuilder}.
+ */
+public final class JooqContext {
+  private final Configuration configuration;
+  private final ThreadLocal<Cached> cache = new ThreadLocal<>();
+
+  /**
+   * @return a context for the dialect with {@link #defaultSettings()}
+   */
+  public static JooqContext of(SQLDialect dialect) {
+    return new JooqContext(DSL.using(dialect, defaultSettings()).configuration());
+  }
+
+  /**
+   * @param configuration the template configuration; its {@link ConnectionProvider} is replaced for each connection
+   * @return a context deriving from the configuration
+   */
+  public static JooqContext of(Configuration configuration) {
+    return new JooqContext(configuration);
+  }
+
+  /**
+   * Settings for executing queries built per subscription:
+   * <ul>
+   * <li>no execute logging, which otherwise adds a logging {@link org.jooq.ExecuteListener} to every query</li>
+   * <li>{@link StatementType#PREPARED_STATEMENT prepared statements} with unformatted SQL, so the
+   * rendered SQL of structurally identical queries is identical and can be reused by the driver's statement cache</li>
+   * <li>reflection caching for {@link org.jooq.RecordMapper}s created with <code>into(Class)</code></li>
+   * </ul>
+   *
+   * @return a new copy of the default settings
+   */
+  public static Settings defaultSettings() {
+    return new Settings()
+      .withExecuteLogging(false)
+      .withStatementType(StatementType.PREPARED_STATEMENT)
+      .withRenderFormatted(false)
+      .withReflectionCaching(true);
+  }
+
+  private JooqContext(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * @return a new context with the same dialect and the given settings
+   */
+  public JooqContext withSettings(Settings settings) {
+    return new JooqContext(configuration.derive(settings));
+  }
+
+  public SQLDialect dialect() {
+    return configuration.dialect();
+  }
+
+  public Configuration configuration() {
+    return configuration;
+  }
+
+  /**
+   * @return a {@link DSLContext} using the given connection, reused while the current thread uses the same connection
+   */
+  public DSLContext dsl(Connection connection) {
+    Cached cached = cache.get();
+    if (cached != null && cached.connection.get() == connection) {
+      return cached.dsl;
+    }
+    cached = new Cached(connection, configuration);
+    cache.set(cached);
+    return cached.dsl;
+  }
+
+  @Override
+  public String toString() {
+    return "JooqContext{" + configuration.dialect() + '}';
+  }
+
+  private static final class Cached implements ConnectionProvider {
+    private final WeakReference<Connection> connection;
+    private final DSLContext dsl;
+
+    Cached(Connection connection, Configuration configuration) {
+      this.connection = new WeakReference<>(connection);
+      this.dsl = DSL.using(configuration.derive(this));
+    }
+
+    @Override
+    public Connection acquire() {
+      Connection c = connection.get();
+      if (c == null) {
+        throw new IllegalStateException("Connection has been garbage collected");
+      }
+      return c;
+    }
+
+    @Override
+    public void release(Connection connection) {
+      // the connection's lifecycle is managed by the TransactionContextExecutor
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.trunk.rx.jdbc.jooq;
+
+import com.trunk.rx.jdbc.jooq.sql.ContextQueryBuilder;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import org.jooq.DSLContext;
+import org.jooq.Param;
+import org.jooq.Query;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A jOOQ query rendered to SQL once and bound to new values for each execution, so the jOOQ
+ * query is not rebuilt and re-rendered every time only its bind values change.
+ * <p>
+ * Build the query with named parameters, ie {@link DSL#param(String, Class)}, for the values that change.
+ * The rendered SQL and the position of each parameter are kept, and {@link #bind(Map)} returns a
+ * {@link DefaultPreparedStatementBuilder} for the core operators, eg
+ * {@link com.trunk.rx.jdbc.sql.ExecuteQuery} or {@link com.trunk.rx.jdbc.sql.ExecuteUpdate}.
+ * Unnamed bind values, and named parameters that are not bound, keep the value they were built with.
+ * <p>
+ * Values are bound as given, with the SQL type of their parameter, so parameters whose data type has a
+ * {@link org.jooq.Converter} or {@link org.jooq.Binding} are not supported.
+ * <p>
+ * Create templates once, eg as constants, and share them; they are immutable.
+ */
+public final class QueryTemplate {
+  private final String sql;
+  private final List<String> parameters;
+  private final List<Position> positions;
+
+  /**
+   * Build and render the query.
+   *
+   * @param context      the dialect and settings to render with
+   * @param queryBuilder builds the query, using the given {@link DSLContext} which has no connection
+   * @return the rendered template
+   */
+  public static QueryTemplate of(JooqContext context, ContextQueryBuilder<? extends Query> queryBuilder) {
+    DSLContext dsl = DSL.using(context.configuration());
+    return of(dsl, queryBuilder.build(dsl));
+  }
+
+  private static QueryTemplate of(DSLContext dsl, Query query) {
+    String sql = dsl.renderContext().paramType(ParamType.INDEXED).render(query);
+    List<String> tokens = namedParameters(dsl.renderNamedParams(query));
+    List<Object> bindValues = query.getBindValues();
+    if (tokens.size() != bindValues.size()) {
+      throw new IllegalArgumentException(
+        "Cannot find the " + bindValues.size() + " bind values of: " + sql + ", found " + tokens
+      );
+    }
+    Map<String, Param<?>> params = query.getParams();
+    Set<String> names = new LinkedHashSet<>();
+    List<Position> positions = new ArrayList<>(tokens.size());
+    for (int i = 0; i < tokens.size(); ++i) {
+      String token = tokens.get(i);
+      Param<?> param = params.get(token);
+      int type = param == null ? Types.OTHER : param.getDataType().getSQLType();
+      boolean named = !token.isEmpty() && !Character.isDigit(token.charAt(0));
+      if (named) {
+        names.add(token);
+      }
+      positions.add(new Position(named ? token : null, bindValues.get(i), type));
+    }
+    return new QueryTemplate(sql, new ArrayList<>(names), positions);
+  }
+
+  private QueryTemplate(String sql, List<String> parameters, List<Position> positions) {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(parameters);
+    this.positions = Collections.unmodifiableList(positions);
+  }
+
+  /**
+   * @return the rendered SQL with indexed placeholders
+   */
+  public String sql() {
+    return sql;
+  }
+
+  /**
+   * @return the names of the named parameters, in the order they first appear in the SQL
+   */
+  public List<String> parameters() {
+    return parameters;
+  }
+
+  /**
+   * @param values the values of named parameters, by name
+   * @return a builder for the rendered SQL with the given values bound
+   * @throws IllegalArgumentException if a value is given for a parameter the query does not have
+   */
+  public DefaultPreparedStatementBuilder bind(Map<String, ?> values) {
+    for (String name : values.keySet()) {
+      if (!parameters.contains(name)) {
+        throw new IllegalArgumentException("Unknown parameter " + name + " in: " + sql);
+      }
+    }
+    DefaultPreparedStatementBuilder builder = DefaultPreparedStatementBuilder.of(sql);
+    for (Position position : positions) {
+      Object value = position.name != null && values.containsKey(position.name)
+        ? values.get(position.name)
+        : position.value;
+      builder = builder.add(value, position.type);
+    }
+    return builder;
+  }
+
+  /**
+   * @param values the values of the named parameters, in the order of {@link #parameters()}
+   * @return a builder for the rendered SQL with the given values bound
+   */
+  public DefaultPreparedStatementBuilder bind(Object... values) {
+    if (values.length != parameters.size()) {
+      throw new IllegalArgumentException("Expected " + parameters.size() + " values for " + parameters);
+    }
+    Map<String, Object> byName = new HashMap<>();
+    for (int i = 0; i < values.length; ++i) {
+      byName.put(parameters.get(i), values[i]);
+    }
+    return bind(byName);
+  }
+
+  @Override
+  public String toString() {
+    return "QueryTemplate{" + sql + '}';
+  }
+
+  /**
+   * @return the name, or index for unnamed parameters, of each <code>:name</code> placeholder in order.
+   * Quoted sections, comments and PostgreSQL casts are skipped.
+   */
+  private static List<String> namedParameters(String sql) {
+    List<String> names = new ArrayList<>();
+    int i = 0;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`' || c == '[') {
+        char close = c == '[' ? ']' : c;
+        int end = sql.indexOf(close, i + 1);
+        while (end >= 0 && end + 1 < sql.length() && sql.charAt(end + 1) == close) {
+          // escaped by doubling
+          end = sql.indexOf(close, end + 2);
+        }
+        i = end < 0 ? sql.length() : end + 1;
+      } else if (c == '-' && sql.startsWith("--", i)) {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? sql.length() : end + 1;
+      } else if (c == '/' && sql.startsWith("/*", i)) {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? sql.length() : end + 2;
+      } else if (c == ':' && sql.startsWith("::", i)) {
+        i += 2;
+      } else if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierPart(sql.charAt(i + 1))) {
+        int end = i + 1;
+        while (end < sql.length() && Character.isJavaIdentifierPart(sql.charAt(end))) {
+          ++end;
+        }
+        names.add(sql.substring(i + 1, end));
+        i = end;
+      } else {
+        ++i;
+      }
+    }
+    return names;
+  }
+
+  private static final class Position {
+    private final String name;
+    private final Object value;
+    private final int type;
+
+    Position(String name, Object value, int type) {
+      this.name = name;
+      this.value = value;
+      this.type = type;
+    }
+  }
+}
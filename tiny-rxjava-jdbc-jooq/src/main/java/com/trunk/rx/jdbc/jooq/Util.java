@@ -27,13 +27,11 @@ public class Util {
   }
 
   /**
-   * Cancel and close the query quietly.
+   * Close the query quietly. The query is not cancelled, see {@link #cancelAndCloseQuietly(Query)}.
    */
   public static void closeQuietly(Query query) {
     try {
       if (query != null) {
-        query.cancel();
-        log.debug("cancelled {}", query);
         query.close();
         log.debug("closed {}", query);
       }
@@ -42,4 +40,29 @@ public class Util {
     }
   }
 
+  /**
+   * Cancel the query quietly. Only use this while the query is executing or its results are being read,
+   * as some drivers, eg PostgreSQL, open a new connection to the server for each cancel.
+   */
+  public static void cancelQuietly(Query query) {
+    try {
+      if (query != null) {
+        query.cancel();
+        log.debug("cancelled {}", query);
+      }
+    } catch (Exception e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Cancel and close the query quietly.
+   *
+   * @see #cancelQuietly(Query)
+   */
+  public static void cancelAndCloseQuietly(Query query) {
+    cancelQuietly(query);
+    closeQuietly(query);
+  }
+
 }
@@ -0,0 +1,78 @@
+/**
+ * Copywrite https://github.com/davidmoten/rxjava-jdbc/blob/master/LICENSE
+ */
+package com.trunk.rx.jdbc.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.Util;
+import com.trunk.rx.jdbc.sql.RowProducer;
+import org.jooq.Cursor;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
+import rx.Producer;
+import rx.Subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A back pressure sensitive {@link Producer} over {@link Cursor}s that emits
+ * {@link List}s of up to chunkSize rows. Requests are counted in chunks.
+ *
+ * @see RowProducer
+ */
+public class ChunkedSelectProducer<R extends Record, T> extends RowProducer<List<T>> {
+  private final ResultQuery<? extends R> query;
+  private final Cursor<? extends R> cursor;
+  private final RecordMapper<? super R, ? extends T> recordMapper;
+  private final int chunkSize;
+
+  public ChunkedSelectProducer(
+    Subscriber<? super List<T>> subscriber,
+    ResultQuery<? extends R> query,
+    Cursor<? extends R> cursor,
+    RecordMapper<? super R, ? extends T> recordMapper,
+    int chunkSize
+  ) {
+    super(subscriber);
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+    this.query = query;
+    this.cursor = cursor;
+    this.recordMapper = recordMapper;
+  }
+
+  /**
+   * Reads up to chunkSize rows of the {@link Cursor} and emits them as a single {@link List}.
+   */
+  @Override
+  protected boolean emitNext(Subscriber<? super List<T>> subscriber) {
+    List<T> chunk = null;
+    boolean more = true;
+    while (chunk == null || chunk.size() < chunkSize) {
+      if (!cursor.hasNext()) {
+        more = false;
+        break;
+      }
+      if (chunk == null) {
+        chunk = new ArrayList<>(chunkSize);
+      }
+      chunk.add(recordMapper.map(cursor.fetchOne()));
+    }
+    if (chunk != null) {
+      subscriber.onNext(chunk);
+    }
+    return more;
+  }
+
+  /**
+   * Closes connection resources (query and cursor).
+   */
+  @Override
+  protected void close() {
+    Util.closeQuietly(cursor);
+    Util.closeQuietly(query);
+  }
+}
@@ -0,0 +1,18 @@
+package com.trunk.rx.jdbc.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+
+/**
+ * A functional interface to defer the creation of {@link Query Queries} until needed,
+ * given a {@link DSLContext} from a {@link JooqContext} that is already bound to the connection.
+ *
+ * @see Execute
+ * @see Select
+ * @see InsertReturning
+ */
+@FunctionalInterface
+public interface ContextQueryBuilder<T extends Query> {
+  T build(DSLContext dsl);
+}
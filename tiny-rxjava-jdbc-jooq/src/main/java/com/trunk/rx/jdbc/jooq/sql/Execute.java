@@ -1,5 +1,6 @@
 package com.trunk.rx.jdbc.jooq.sql;
 
+import com.trunk.rx.jdbc.jooq.JooqContext;
 import com.trunk.rx.jdbc.jooq.Util;
 import org.jooq.Query;
 import org.slf4j.Logger;
@@ -9,13 +10,14 @@ import rx.Subscriber;
 import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An {@link Observable} that wraps {@link Query#execute()} and emits a single
  * event containing the result of {@link Query#execute() execute()}.
  * <p>
  * The Query will be canceled if the subscriber unsubscribes
- * before completion.
+ * while it is executing, otherwise it is just closed.
  * <p>
  * This manages the lifecycle of the Query and does not close the {@link Connection}.
  */
@@ -26,16 +28,26 @@ public class Execute extends Observable<Integer> {
     return new Execute(connection, queryBuilder);
   }
 
+  /**
+   * Build the query with a {@link org.jooq.DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static Execute using(Connection connection, JooqContext context, ContextQueryBuilder<? extends Query> queryBuilder) {
+    return new Execute(connection, c -> queryBuilder.build(context.dsl(c)));
+  }
+
   private Execute(
     Connection connection,
     QueryBuilder<? extends Query> queryBuilder
   ) {
     super(
       subscriber -> {
+        AtomicBoolean executing = new AtomicBoolean(true);
         try (Query query = queryBuilder.build(connection)) {
-          setupUnsubscription(subscriber, query);
+          setupUnsubscription(subscriber, query, executing);
           log.debug("Execute {}", query);
           int i = query.execute();
+          executing.set(false);
           if (!subscriber.isUnsubscribed()) {
             subscriber.onNext(i);
             subscriber.onCompleted();
@@ -49,13 +61,16 @@ public class Execute extends Observable<Integer> {
 
   private static <T> void setupUnsubscription(
     Subscriber<? super T> subscriber,
-    Query query
+    Query query,
+    AtomicBoolean executing
   ) {
     subscriber.add(
       Subscriptions.create(
         () -> {
-          log.debug("cancelling {}", query);
-          Util.closeQuietly(query);
+          if (executing.getAndSet(false)) {
+            log.debug("cancelling {}", query);
+            Util.cancelAndCloseQuietly(query);
+          }
         }
       )
     );
@@ -0,0 +1,179 @@
+package com.trunk.rx.jdbc.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import org.jooq.Batch;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.TableRecord;
+import org.jooq.UpdatableRecord;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.JDBCUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * An {@link Observable} that executes jOOQ {@link Batch}es of up to {@link #withBatchSize(int) batchSize}
+ * rows from a source {@link Observable}, and emits the update counts of each batch from {@link Batch#execute()}.
+ * <p>
+ * Rows are requested from the source as each batch is needed. Batches are executed one after another
+ * on the given {@link Connection}, so with {@link com.trunk.rx.jdbc.TransactionContextExecutor#withTransactionPerEvent()}
+ * each batch is committed in its own transaction.
+ * <p>
+ * jOOQ batches cannot be canceled, so a batch that is executing when the subscriber unsubscribes runs to completion.
+ * <p>
+ * This does not close the given {@link Connection}.
+ */
+public class ExecuteBatch<T> extends Observable<int[]> {
+  private static final Logger log = LoggerFactory.getLogger(ExecuteBatch.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final Connection connection;
+  private final Observable<T> rows;
+  private final Func1<Connection, Func2<DSLContext, List<T>, Batch>> batchFactory;
+  private final Func1<Connection, DSLContext> dsl;
+  private final int batchSize;
+
+  /**
+   * Execute a single query shape, eg <code>insertInto(TABLE, ID, NAME).values((Integer) null, null)</code>,
+   * with each array of bind values using {@link DSLContext#batch(Query)}.
+   *
+   * @param queryBuilder builds the query whose bind values are replaced
+   * @param bindValues   the bind values for each execution of the query, in parameter order
+   */
+  public static ExecuteBatch<Object[]> using(
+    Connection connection,
+    QueryBuilder<? extends Query> queryBuilder,
+    Observable<Object[]> bindValues
+  ) {
+    return new ExecuteBatch<>(connection, bindValues, bindBatch(queryBuilder), ExecuteBatch::dsl, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Execute a single query shape with each array of bind values, using a {@link DSLContext} from the
+   * given {@link JooqContext}.
+   */
+  public static ExecuteBatch<Object[]> using(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends Query> queryBuilder,
+    Observable<Object[]> bindValues
+  ) {
+    return new ExecuteBatch<>(
+      connection,
+      bindValues,
+      bindBatch(c -> queryBuilder.build(context.dsl(c))),
+      context::dsl,
+      DEFAULT_BATCH_SIZE
+    );
+  }
+
+  /**
+   * Insert each record using {@link DSLContext#batchInsert(java.util.Collection)}.
+   */
+  public static <R extends TableRecord<?>> ExecuteBatch<R> usingRecords(
+    Connection connection,
+    Observable<R> records
+  ) {
+    return new ExecuteBatch<>(connection, records, c -> DSLContext::batchInsert, ExecuteBatch::dsl, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Insert each record using {@link DSLContext#batchInsert(java.util.Collection)}, using a {@link DSLContext}
+   * from the given {@link JooqContext}.
+   */
+  public static <R extends TableRecord<?>> ExecuteBatch<R> usingRecords(
+    Connection connection,
+    JooqContext context,
+    Observable<R> records
+  ) {
+    return new ExecuteBatch<>(connection, records, c -> DSLContext::batchInsert, context::dsl, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Insert or update each record, depending on whether it is new, using
+   * {@link DSLContext#batchStore(java.util.Collection)}.
+   */
+  public static <R extends UpdatableRecord<?>> ExecuteBatch<R> usingUpdatableRecords(
+    Connection connection,
+    Observable<R> records
+  ) {
+    return new ExecuteBatch<>(connection, records, c -> DSLContext::batchStore, ExecuteBatch::dsl, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Insert or update each record, depending on whether it is new, using
+   * {@link DSLContext#batchStore(java.util.Collection)} and a {@link DSLContext} from the given {@link JooqContext}.
+   */
+  public static <R extends UpdatableRecord<?>> ExecuteBatch<R> usingUpdatableRecords(
+    Connection connection,
+    JooqContext context,
+    Observable<R> records
+  ) {
+    return new ExecuteBatch<>(connection, records, c -> DSLContext::batchStore, context::dsl, DEFAULT_BATCH_SIZE);
+  }
+
+  private ExecuteBatch(
+    Connection connection,
+    Observable<T> rows,
+    Func1<Connection, Func2<DSLContext, List<T>, Batch>> batchFactory,
+    Func1<Connection, DSLContext> dsl,
+    int batchSize
+  ) {
+    super(
+      subscriber ->
+        Observable.defer(() -> {
+          // built once per subscription, eg to build the query whose bind values are replaced
+          Func2<DSLContext, List<T>, Batch> factory = batchFactory.call(connection);
+          DSLContext context = dsl.call(connection);
+          return rows
+            .buffer(batchSize)
+            .concatMap(chunk -> execute(factory, context, chunk));
+        })
+          .unsafeSubscribe(subscriber)
+    );
+    this.connection = connection;
+    this.rows = rows;
+    this.batchFactory = batchFactory;
+    this.dsl = dsl;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @param batchSize the maximum number of rows in each batch
+   * @return a new {@link ExecuteBatch} with the given batch size
+   */
+  public ExecuteBatch<T> withBatchSize(int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    return new ExecuteBatch<>(connection, rows, batchFactory, dsl, batchSize);
+  }
+
+  private static <T> Observable<int[]> execute(Func2<DSLContext, List<T>, Batch> factory, DSLContext dsl, List<T> chunk) {
+    return Observable.defer(() -> {
+      Batch batch = factory.call(dsl, chunk);
+      log.debug("ExecuteBatch of {}", chunk.size());
+      return Observable.just(batch.execute());
+    });
+  }
+
+  private static Func1<Connection, Func2<DSLContext, List<Object[]>, Batch>> bindBatch(
+    QueryBuilder<? extends Query> queryBuilder
+  ) {
+    return connection -> {
+      Query query = queryBuilder.build(connection);
+      return (dsl, chunk) -> dsl.batch(query).bind(chunk.toArray(new Object[chunk.size()][]));
+    };
+  }
+
+  private static DSLContext dsl(Connection connection) {
+    return DSL.using(connection, JDBCUtils.dialect(connection));
+  }
+}
@@ -0,0 +1,197 @@
+package com.trunk.rx.jdbc.jooq.sql;
+
+import org.jooq.Converter;
+import org.jooq.Field;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The current row of a {@link ResultSet}, read by the {@link Field}s of the jOOQ select that produced it.
+ * <p>
+ * Each field's column index and how to read its type are worked out once per query, so reading a value
+ * is an array lookup and a typed {@link ResultSet} getter, and no jOOQ {@link org.jooq.Record} is created.
+ * Fields are found by identity, and other instances equal to a selected field are matched once per query.
+ * The primitive getters, eg {@link #getInt(Field)}, do not box the value and return 0 or false for <code>NULL</code>,
+ * as {@link ResultSet} does. Values of fields with a {@link Converter} are converted from their database type.
+ * {@link #get(Field)} reads the numeric, string, temporal and binary types with their typed getters, so eg a
+ * <code>Field&lt;Short&gt;</code> gets a {@link Short}, and any other type as the driver's
+ * {@link ResultSet#getObject(int)}.
+ * <p>
+ * The same instance is reused for every row of a query, so do not keep it beyond {@link FieldRowMapper#map(FieldRow)}.
+ *
+ * @see SelectFields
+ */
+public final class FieldRow {
+  private final Field<?>[] fields;
+  private final Reader[] readers;
+  private final Map<Field<?>, Integer> resolved = new IdentityHashMap<>();
+  private ResultSet resultSet;
+
+  FieldRow(List<? extends Field<?>> fields) {
+    this.fields = fields.toArray(new Field<?>[fields.size()]);
+    this.readers = new Reader[this.fields.length];
+    for (int i = 0; i < this.fields.length; ++i) {
+      readers[i] = reader(this.fields[i]);
+    }
+  }
+
+  FieldRow at(ResultSet resultSet) {
+    this.resultSet = resultSet;
+    return this;
+  }
+
+  /**
+   * @return the value of the field, converted by its {@link Converter} if it has one
+   * @throws IllegalArgumentException if the field is not selected
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Field<T> field) throws SQLException {
+    int index = index(field);
+    return (T) readers[index].read(resultSet, index + 1);
+  }
+
+  public int getInt(Field<?> field) throws SQLException {
+    return resultSet.getInt(index(field) + 1);
+  }
+
+  public long getLong(Field<?> field) throws SQLException {
+    return resultSet.getLong(index(field) + 1);
+  }
+
+  public double getDouble(Field<?> field) throws SQLException {
+    return resultSet.getDouble(index(field) + 1);
+  }
+
+  public boolean getBoolean(Field<?> field) throws SQLException {
+    return resultSet.getBoolean(index(field) + 1);
+  }
+
+  /**
+   * @return the underlying {@link ResultSet}, positioned on the current row
+   */
+  public ResultSet resultSet() {
+    return resultSet;
+  }
+
+  private int index(Field<?> field) {
+    // the selected fields are usually the same instances as those read
+    for (int i = 0; i < fields.length; ++i) {
+      if (fields[i] == field) {
+        return i;
+      }
+    }
+    Integer index = resolved.get(field);
+    if (index == null) {
+      // jOOQ compares fields by rendering their SQL, so only do it once for each instance
+      index = resolve(field);
+      resolved.put(field, index);
+    }
+    return index;
+  }
+
+  private int resolve(Field<?> field) {
+    for (int i = 0; i < fields.length; ++i) {
+      if (fields[i].equals(field)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Field " + field + " is not selected");
+  }
+
+  @FunctionalInterface
+  private interface Reader {
+    Object read(ResultSet resultSet, int index) throws SQLException;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Reader reader(Field<?> field) {
+    Converter<Object, Object> converter = field.getDataType() == null
+      ? null
+      : (Converter<Object, Object>) field.getDataType().getConverter();
+    if (converter == null || converter.fromType() == converter.toType()) {
+      return reader(field.getType());
+    }
+    Reader reader = reader(converter.fromType());
+    return (resultSet, index) -> converter.from(reader.read(resultSet, index));
+  }
+
+  private static Reader reader(Class<?> type) {
+    if (type == Integer.class) {
+      return (resultSet, index) -> {
+        int value = resultSet.getInt(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Long.class) {
+      return (resultSet, index) -> {
+        long value = resultSet.getLong(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Short.class) {
+      return (resultSet, index) -> {
+        short value = resultSet.getShort(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Byte.class) {
+      return (resultSet, index) -> {
+        byte value = resultSet.getByte(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Double.class) {
+      return (resultSet, index) -> {
+        double value = resultSet.getDouble(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Float.class) {
+      return (resultSet, index) -> {
+        float value = resultSet.getFloat(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == Boolean.class) {
+      return (resultSet, index) -> {
+        boolean value = resultSet.getBoolean(index);
+        return resultSet.wasNull() ? null : value;
+      };
+    }
+    if (type == String.class) {
+      return ResultSet::getString;
+    }
+    if (type == BigDecimal.class) {
+      return ResultSet::getBigDecimal;
+    }
+    if (type == BigInteger.class) {
+      return (resultSet, index) -> {
+        BigDecimal value = resultSet.getBigDecimal(index);
+        return value == null ? null : value.toBigInteger();
+      };
+    }
+    if (type == Timestamp.class) {
+      return ResultSet::getTimestamp;
+    }
+    if (type == Date.class) {
+      return ResultSet::getDate;
+    }
+    if (type == Time.class) {
+      return ResultSet::getTime;
+    }
+    if (type == byte[].class) {
+      return ResultSet::getBytes;
+    }
+    // the driver's type for the column, which may not be the field's, eg Integer for a SMALLINT in PostgreSQL
+    return ResultSet::getObject;
+  }
+}
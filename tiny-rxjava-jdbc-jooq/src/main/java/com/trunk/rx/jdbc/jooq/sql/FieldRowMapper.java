@@ -0,0 +1,14 @@
+package com.trunk.rx.jdbc.jooq.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Map the current {@link FieldRow} to a typed object.
+ *
+ * @param <T> type of the result
+ * @see SelectFields
+ */
+@FunctionalInterface
+public interface FieldRowMapper<T> {
+  T map(FieldRow row) throws SQLException;
+}
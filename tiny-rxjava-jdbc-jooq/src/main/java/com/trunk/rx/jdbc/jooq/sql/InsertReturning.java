@@ -1,18 +1,26 @@
 package com.trunk.rx.jdbc.jooq.sql;
 
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
 import org.jooq.InsertResultStep;
 import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.RecordMapper;
 import org.jooq.Result;
+import org.jooq.ResultQuery;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.JDBCUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.Subscriber;
+import rx.functions.Func1;
 import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
 
+import static com.trunk.rx.jdbc.jooq.Util.cancelQuietly;
 import static com.trunk.rx.jdbc.jooq.Util.closeQuietly;
 
 /**
@@ -20,10 +28,13 @@ import static com.trunk.rx.jdbc.jooq.Util.closeQuietly;
  * event for row of the returned {@link Result}. Each row is unmarshalled using
  * the given {@link RecordMapper}.
  * <p>
- * The Query will be canceled if the subscriber unsubscribes
- * before completion, but since this is an insert the Query will
- * <i>not</i> be canceled if the subscriber unsubscribes
- * after the first {@link Record} is retrieved.
+ * Since this is an insert the whole {@link Result} is fetched before the first {@link Record} is emitted,
+ * so the Query is closed, and <i>not</i> canceled, if the subscriber unsubscribes.
+ * <p>
+ * {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)} streams the returned rows
+ * from a {@link Cursor} instead of fetching the whole {@link Result} first. Its Query is canceled
+ * if the subscriber unsubscribes before the first row is read, and after that just closed, so an insert
+ * is never aborted once any of its returned rows, eg generated keys, may have been emitted.
  * <p>
  * This manages the lifecycle of the Query and does not close the {@link Connection}.
  */
@@ -38,6 +49,118 @@ public class InsertReturning<R extends Record, T> extends Observable<T> {
     return new InsertReturning<>(connection, queryBuilder, recordMapper);
   }
 
+  /**
+   * Build the insert with a {@link DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static <R extends Record, T> InsertReturning<R, T> using(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder,
+    RecordMapper<? super R, ? extends T> recordMapper
+  ) {
+    return new InsertReturning<>(connection, c -> queryBuilder.build(context.dsl(c)), recordMapper);
+  }
+
+  /**
+   * Execute the insert as a {@link ResultQuery} and emit each returned row from
+   * {@link ResultQuery#fetchLazy()} with the same back pressure as {@link Select}, so
+   * the returned rows of large multi-row inserts are not built into a jOOQ {@link Result}.
+   * The rendered SQL of the insert must contain the returning clause, eg for
+   * {@link org.jooq.SQLDialect#POSTGRES}, and each {@link Record} only has the returned fields.
+   * <p>
+   * No fetch size is set, so the driver may still buffer every returned row, eg the PostgreSQL
+   * driver always does so. Use {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper, int)}
+   * to bound the rows the driver holds.
+   */
+  public static <T> InsertReturning<Record, T> usingLazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper
+  ) {
+    return usingLazy(connection, queryBuilder, recordMapper, 0);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)},
+   * with {@link ResultQuery#fetchSize(int)} so the driver reads them fetchSize rows at a time.
+   * <p>
+   * Drivers may ignore the fetch size, eg the PostgreSQL driver only honours it when the connection is
+   * not in auto-commit mode, so subscribe within a transaction such as
+   * {@link com.trunk.rx.jdbc.TransactionContextExecutor#withSingleTransaction()}. This bounds the rows held
+   * in memory, not the time to the first row, as the database still completes the insert before
+   * returning any rows.
+   *
+   * @param fetchSize the number of rows to read per round trip, or 0 for the driver's default
+   */
+  public static <T> InsertReturning<Record, T> usingLazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    return lazy(connection, queryBuilder, c -> DSL.using(c, JDBCUtils.dialect(c)), recordMapper, fetchSize);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)},
+   * building the insert and the query that executes it with a {@link DSLContext} from the given {@link JooqContext}.
+   */
+  public static <T> InsertReturning<Record, T> usingLazy(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper
+  ) {
+    return usingLazy(connection, context, queryBuilder, recordMapper, 0);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper, int)},
+   * building the insert and the query that executes it with a {@link DSLContext} from the given {@link JooqContext}.
+   */
+  public static <T> InsertReturning<Record, T> usingLazy(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    return lazy(connection, c -> queryBuilder.build(context.dsl(c)), context::dsl, recordMapper, fetchSize);
+  }
+
+  private static <T> InsertReturning<Record, T> lazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    Func1<Connection, DSLContext> dsl,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    if (fetchSize < 0) {
+      throw new IllegalArgumentException("fetchSize must not be negative: " + fetchSize);
+    }
+    return new InsertReturning<>(
+      subscriber -> {
+        try (InsertResultStep<?> insert = queryBuilder.build(connection)) {
+          ResultQuery<Record> query = dsl.call(connection)
+            .resultQuery(insert.getSQL(), insert.getBindValues().toArray())
+            .fetchSize(fetchSize);
+          Cursor<Record> cursor = query.fetchLazy();
+          LazyProducer<T> producer = new LazyProducer<>(subscriber, query, cursor, recordMapper);
+          setupUnsubscription(subscriber, query, cursor, producer);
+          log.debug("InsertReturning setProducer for lazy {}", query);
+          subscriber.setProducer(producer);
+        } catch (Throwable t) {
+          handleException(t, subscriber);
+        }
+      }
+    );
+  }
+
+  private InsertReturning(OnSubscribe<T> onSubscribe) {
+    super(onSubscribe);
+  }
+
   private InsertReturning(
     Connection connection,
     InsertReturningQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder,
@@ -72,6 +195,50 @@ public class InsertReturning<R extends Record, T> extends Observable<T> {
     );
   }
 
+  private static <T> void setupUnsubscription(
+    Subscriber<? super T> subscriber,
+    Query query,
+    Cursor<?> cursor,
+    LazyProducer<T> producer
+  ) {
+    subscriber.add(
+      Subscriptions.create(
+        () -> {
+          // the producer closes the cursor when the results are complete
+          if (!producer.reading && !cursor.isClosed()) {
+            cancelQuietly(query);
+          }
+          closeQuietly(cursor);
+          closeQuietly(query);
+        }
+      )
+    );
+  }
+
+  /**
+   * Notes when the first row is read, after which the insert must not be canceled.
+   */
+  private static class LazyProducer<T> extends SelectProducer<Record, T> {
+    private volatile boolean reading;
+
+    LazyProducer(
+      Subscriber<? super T> subscriber,
+      ResultQuery<Record> query,
+      Cursor<Record> cursor,
+      RecordMapper<? super Record, ? extends T> recordMapper
+    ) {
+      super(subscriber, query, cursor, recordMapper);
+    }
+
+    @Override
+    protected boolean emitNext(Subscriber<? super T> subscriber) {
+      if (!reading) {
+        reading = true;
+      }
+      return super.emitNext(subscriber);
+    }
+  }
+
   private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
     log.debug("onError: ", t);
     if (subscriber.isUnsubscribed()) {
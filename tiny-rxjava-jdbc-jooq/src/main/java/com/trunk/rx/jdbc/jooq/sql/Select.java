@@ -1,5 +1,6 @@
 package com.trunk.rx.jdbc.jooq.sql;
 
+import com.trunk.rx.jdbc.jooq.JooqContext;
 import com.trunk.rx.jdbc.sql.ExecuteQuery;
 import org.jooq.Cursor;
 import org.jooq.Record;
@@ -8,20 +9,23 @@ import org.jooq.ResultQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Producer;
 import rx.Subscriber;
 import rx.subscriptions.Subscriptions;
 
 import java.sql.Connection;
+import java.util.List;
 
+import static com.trunk.rx.jdbc.jooq.Util.cancelQuietly;
 import static com.trunk.rx.jdbc.jooq.Util.closeQuietly;
 
 /**
  * An {@link Observable} that wraps {@link ResultQuery#fetchLazy()} and emits an
  * event for row of the returned {@link Cursor}. Each row is unmarshalled using
- * the given {@link RecordMapper}.
+ * the given {@link RecordMapper}, or chunks of rows are emitted as {@link List}s.
  * <p>
  * The Cursor will be closed and the Query canceled if the subscriber unsubscribes
- * before completion.
+ * before the Cursor is complete, otherwise they are just closed.
  * <p>
  * This manages the lifecycle of the Query and Cursor, and does not close the {@link Connection}.
  */
@@ -31,27 +35,70 @@ public class Select<R extends Record, T> extends Observable<T> {
   public static <R extends Record, T> Select<R, T> using(Connection connection,
                                                          QueryBuilder<ResultQuery<? extends R>> queryBuilder,
                                                          RecordMapper<? super R, ? extends T> recordMapper) {
-    return new Select<>(connection, queryBuilder, recordMapper);
+    return new Select<>(
+      connection,
+      queryBuilder,
+      (subscriber, query, cursor) -> new SelectProducer<>(subscriber, query, cursor, recordMapper)
+    );
+  }
+
+  /**
+   * Build the query with a {@link org.jooq.DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static <R extends Record, T> Select<R, T> using(Connection connection,
+                                                         JooqContext context,
+                                                         ContextQueryBuilder<? extends ResultQuery<? extends R>> queryBuilder,
+                                                         RecordMapper<? super R, ? extends T> recordMapper) {
+    return using(connection, c -> queryBuilder.build(context.dsl(c)), recordMapper);
+  }
+
+  /**
+   * Emit {@link List}s of up to chunkSize rows, each unmarshalled using the given {@link RecordMapper}.
+   * Requests are counted in chunks, so the per event overhead is shared across the rows of a chunk.
+   */
+  public static <R extends Record, T> Select<R, List<T>> usingChunks(Connection connection,
+                                                                     QueryBuilder<ResultQuery<? extends R>> queryBuilder,
+                                                                     RecordMapper<? super R, ? extends T> recordMapper,
+                                                                     int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return new Select<>(
+      connection,
+      queryBuilder,
+      (subscriber, query, cursor) -> new ChunkedSelectProducer<>(subscriber, query, cursor, recordMapper, chunkSize)
+    );
+  }
+
+  /**
+   * Emit {@link List}s of up to chunkSize rows, building the query with a {@link org.jooq.DSLContext}
+   * from the given {@link JooqContext}.
+   */
+  public static <R extends Record, T> Select<R, List<T>> usingChunks(Connection connection,
+                                                                     JooqContext context,
+                                                                     ContextQueryBuilder<? extends ResultQuery<? extends R>> queryBuilder,
+                                                                     RecordMapper<? super R, ? extends T> recordMapper,
+                                                                     int chunkSize) {
+    return usingChunks(connection, c -> queryBuilder.build(context.dsl(c)), recordMapper, chunkSize);
   }
 
   private Select(
     Connection connection,
     QueryBuilder<ResultQuery<? extends R>> queryBuilder,
-    RecordMapper<? super R, ? extends T> recordMapper
+    ProducerFactory<R, T> producerFactory
   ) {
     super(
       subscriber -> {
-        try (ResultQuery<? extends R> query = queryBuilder.build(connection)) {
+        ResultQuery<? extends R> query = null;
+        try {
+          query = queryBuilder.build(connection);
           Cursor<? extends R> cursor = query.fetchLazy();
           setupUnsubscription(subscriber, query, cursor);
           log.debug("Select setProducer for  {}", query);
-          subscriber.setProducer(new SelectProducer<>(
-            subscriber,
-            query,
-            cursor,
-            recordMapper
-          ));
+          subscriber.setProducer(producerFactory.create(subscriber, query, cursor));
         } catch (Throwable t) {
+          closeQuietly(query);
           handleException(t, subscriber);
         }
       }
@@ -66,6 +113,10 @@ public class Select<R extends Record, T> extends Observable<T> {
     subscriber.add(
       Subscriptions.create(
         () -> {
+          // the producer closes the cursor when the results are complete
+          if (!cursor.isClosed()) {
+            cancelQuietly(query);
+          }
           closeQuietly(cursor);
           closeQuietly(query);
         }
@@ -73,6 +124,11 @@ public class Select<R extends Record, T> extends Observable<T> {
     );
   }
 
+  @FunctionalInterface
+  private interface ProducerFactory<R extends Record, T> {
+    Producer create(Subscriber<? super T> subscriber, ResultQuery<? extends R> query, Cursor<? extends R> cursor);
+  }
+
   private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
     log.debug("onError: ", t);
     if (subscriber.isUnsubscribed()) {
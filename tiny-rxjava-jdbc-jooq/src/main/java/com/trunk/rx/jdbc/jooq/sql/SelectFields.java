@@ -0,0 +1,97 @@
+package com.trunk.rx.jdbc.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import org.jooq.Select;
+import org.jooq.conf.ParamType;
+import rx.Observable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * An {@link Observable} that builds a query with jOOQ but executes it as a core {@link ExecuteQuery},
+ * mapping each row directly from the {@link java.sql.ResultSet} with a {@link FieldRowMapper}.
+ * <p>
+ * {@link com.trunk.rx.jdbc.jooq.sql.Select} creates a jOOQ {@link org.jooq.Record} for every row, with its
+ * values and change flags, before the {@link org.jooq.RecordMapper} copies the values out. SelectFields reads
+ * each value straight from the {@link java.sql.ResultSet} by the index of its {@link org.jooq.Field}, so the only
+ * per-row allocation is the mapped object. Select the fields to read explicitly, eg <code>select(ID, NAME)</code>,
+ * so their positions are known.
+ * <p>
+ * The query's SQL is rendered with indexed placeholders, whatever the statement type of its settings, and
+ * its bind values set with {@link PreparedStatement#setObject(int, Object)}, so bind values of types that
+ * need a jOOQ {@link org.jooq.Converter} or {@link org.jooq.Binding} are not supported.
+ * Cancellation and back pressure are those of {@link ExecuteQuery}.
+ * <p>
+ * This does not close the given {@link Connection}.
+ */
+public class SelectFields<T> extends Observable<T> {
+
+  public static <T> SelectFields<T> using(
+    Connection connection,
+    QueryBuilder<? extends Select<?>> queryBuilder,
+    FieldRowMapper<? extends T> mapper
+  ) {
+    return new SelectFields<>(connection, queryBuilder, mapper);
+  }
+
+  /**
+   * Build the query with a {@link org.jooq.DSLContext} from the given {@link JooqContext}.
+   */
+  public static <T> SelectFields<T> using(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends Select<?>> queryBuilder,
+    FieldRowMapper<? extends T> mapper
+  ) {
+    return new SelectFields<>(connection, c -> queryBuilder.build(context.dsl(c)), mapper);
+  }
+
+  private SelectFields(
+    Connection connection,
+    QueryBuilder<? extends Select<?>> queryBuilder,
+    FieldRowMapper<? extends T> mapper
+  ) {
+    super(
+      subscriber ->
+        Observable.defer(() -> {
+          // the row is created with the query, once per subscription
+          FieldRow[] row = new FieldRow[1];
+          return ExecuteQuery.<T>using(
+            connection,
+            c -> {
+              Select<?> query = queryBuilder.build(c);
+              row[0] = new FieldRow(query.getSelect());
+              return prepare(c, query);
+            },
+            resultSet -> mapper.map(row[0].at(resultSet))
+          );
+        })
+          .unsafeSubscribe(subscriber)
+    );
+  }
+
+  private static PreparedStatement prepare(Connection connection, Select<?> query) throws SQLException {
+    // always render placeholders for the bind values, whatever the statement type in the query's settings
+    PreparedStatement statement = connection.prepareStatement(query.getSQL(ParamType.INDEXED));
+    try {
+      List<Object> values = query.getBindValues();
+      for (int i = 0; i < values.size(); ++i) {
+        Object value = values.get(i);
+        if (value == null) {
+          statement.setNull(i + 1, Types.NULL);
+        } else {
+          statement.setObject(i + 1, value);
+        }
+      }
+    } catch (SQLException | RuntimeException e) {
+      statement.close();
+      throw e;
+    }
+    return statement;
+  }
+}
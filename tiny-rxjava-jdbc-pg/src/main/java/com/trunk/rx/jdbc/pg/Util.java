@@ -0,0 +1,56 @@
+package com.trunk.rx.jdbc.pg;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Utility methods
+ */
+public class Util {
+  private static final Logger log = LoggerFactory.getLogger(Util.class);
+
+  private Util() {
+    // prevent instantiation
+  }
+
+  /**
+   * @return true if the connection is, or wraps, a PostgreSQL {@link PGConnection}
+   */
+  public static boolean isPostgres(Connection connection) {
+    if (connection instanceof PGConnection) {
+      return true;
+    }
+    try {
+      return connection.isWrapperFor(PGConnection.class);
+    } catch (SQLException e) {
+      log.debug(e.getMessage(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Get the {@link CopyManager} of the PostgreSQL connection, unwrapping pooled connections.
+   *
+   * @throws SQLException if the connection is not a PostgreSQL connection
+   */
+  public static CopyManager copyManager(Connection connection) throws SQLException {
+    return pgConnection(connection).getCopyAPI();
+  }
+
+  /**
+   * Get the {@link PGConnection}, unwrapping pooled connections.
+   *
+   * @throws SQLException if the connection is not a PostgreSQL connection
+   */
+  public static PGConnection pgConnection(Connection connection) throws SQLException {
+    if (connection instanceof PGConnection) {
+      return (PGConnection) connection;
+    }
+    return connection.unwrap(PGConnection.class);
+  }
+}
@@ -0,0 +1,120 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import rx.functions.Func1;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * COPY binary format
+ */
+class BinaryCopyEncoder<T> implements CopyEncoder<T> {
+  private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+  private static final LocalDate PG_EPOCH_DATE = LocalDate.of(2000, 1, 1);
+  private static final Instant PG_EPOCH = PG_EPOCH_DATE.atStartOfDay().toInstant(ZoneOffset.UTC);
+
+  private final Func1<? super T, Object[]> values;
+
+  BinaryCopyEncoder(Func1<? super T, Object[]> values) {
+    this.values = values;
+  }
+
+  @Override
+  public String options() {
+    return "(FORMAT binary)";
+  }
+
+  @Override
+  public Object[] values(T row) {
+    return values.call(row);
+  }
+
+  @Override
+  public void start(DataOutputStream out) throws IOException {
+    out.write(SIGNATURE);
+    // flags
+    out.writeInt(0);
+    // header extension length
+    out.writeInt(0);
+  }
+
+  @Override
+  public void encode(T row, DataOutputStream out) throws IOException {
+    Object[] columns = values(row);
+    out.writeShort(columns.length);
+    for (Object value : columns) {
+      write(value, out);
+    }
+  }
+
+  @Override
+  public void finish(DataOutputStream out) throws IOException {
+    out.writeShort(-1);
+  }
+
+  private static void write(Object value, DataOutputStream out) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else if (value instanceof Integer) {
+      out.writeInt(4);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeInt(8);
+      out.writeLong((Long) value);
+    } else if (value instanceof Short) {
+      out.writeInt(2);
+      out.writeShort((Short) value);
+    } else if (value instanceof Double) {
+      out.writeInt(8);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Float) {
+      out.writeInt(4);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Boolean) {
+      out.writeInt(1);
+      out.writeByte((Boolean) value ? 1 : 0);
+    } else if (value instanceof String) {
+      byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    } else if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    } else if (value instanceof UUID) {
+      out.writeInt(16);
+      out.writeLong(((UUID) value).getMostSignificantBits());
+      out.writeLong(((UUID) value).getLeastSignificantBits());
+    } else if (value instanceof java.sql.Date) {
+      writeDate(((java.sql.Date) value).toLocalDate(), out);
+    } else if (value instanceof LocalDate) {
+      writeDate((LocalDate) value, out);
+    } else if (value instanceof Timestamp) {
+      writeTimestamp(((Timestamp) value).toLocalDateTime().toInstant(ZoneOffset.UTC), out);
+    } else if (value instanceof LocalDateTime) {
+      writeTimestamp(((LocalDateTime) value).toInstant(ZoneOffset.UTC), out);
+    } else if (value instanceof Instant) {
+      writeTimestamp((Instant) value, out);
+    } else {
+      throw new IllegalArgumentException("Unsupported type for binary COPY: " + value.getClass().getName());
+    }
+  }
+
+  private static void writeDate(LocalDate date, DataOutputStream out) throws IOException {
+    out.writeInt(4);
+    out.writeInt((int) ChronoUnit.DAYS.between(PG_EPOCH_DATE, date));
+  }
+
+  private static void writeTimestamp(Instant instant, DataOutputStream out) throws IOException {
+    out.writeInt(8);
+    out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, instant));
+  }
+}
@@ -0,0 +1,38 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.SQLException;
+
+/**
+ * Collects encoded rows and writes them to the {@link org.postgresql.copy.CopyIn} in blocks
+ * of at least the given size, so at most a block and a row are held in memory.
+ */
+class CopyBuffer extends ByteArrayOutputStream {
+  private final org.postgresql.copy.CopyIn copyIn;
+  private final int blockSize;
+
+  CopyBuffer(org.postgresql.copy.CopyIn copyIn, int blockSize) {
+    super(blockSize + 256);
+    this.copyIn = copyIn;
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Write the buffered block if it is full
+   */
+  void flushIfFull() throws SQLException {
+    if (count >= blockSize) {
+      flushBlock();
+    }
+  }
+
+  /**
+   * Write any buffered bytes
+   */
+  void flushBlock() throws SQLException {
+    if (count > 0) {
+      copyIn.writeToCopy(buf, 0, count);
+      reset();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import rx.functions.Func1;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes rows for PostgreSQL's <code>COPY ... FROM STDIN</code> in one of its formats.
+ * The values of each row, in column order, are given by a function so the same rows can
+ * be inserted with plain JDBC where <code>COPY</code> is not available.
+ *
+ * @see CopyIn
+ */
+public interface CopyEncoder<T> {
+
+  /**
+   * @return the options of the COPY statement, eg <code>(FORMAT csv)</code>
+   */
+  String options();
+
+  /**
+   * @return the values of the row, in column order
+   */
+  Object[] values(T row);
+
+  /**
+   * Write anything required before the first row
+   */
+  default void start(DataOutputStream out) throws IOException {
+  }
+
+  /**
+   * Write a single row
+   */
+  void encode(T row, DataOutputStream out) throws IOException;
+
+  /**
+   * Write anything required after the last row
+   */
+  default void finish(DataOutputStream out) throws IOException {
+  }
+
+  /**
+   * The text format: tab separated values with backslash escapes and <code>\N</code> for null.
+   * Values are written using {@link Object#toString()}, except <code>byte[]</code> which is written as hex.
+   */
+  static <T> CopyEncoder<T> text(Func1<? super T, Object[]> values) {
+    return new TextCopyEncoder<>(values);
+  }
+
+  /**
+   * The CSV format: comma separated values, quoted where needed, with an empty unquoted value for null.
+   * Values are written using {@link Object#toString()}, except <code>byte[]</code> which is written as hex.
+   */
+  static <T> CopyEncoder<T> csv(Func1<? super T, Object[]> values) {
+    return new CsvCopyEncoder<>(values);
+  }
+
+  /**
+   * The binary format, which avoids parsing text on the server. The Java type of each value must match
+   * the column type: {@link Short} (int2), {@link Integer} (int4), {@link Long} (int8), {@link Float} (float4),
+   * {@link Double} (float8), {@link Boolean}, {@link String} (text, varchar), <code>byte[]</code> (bytea),
+   * {@link java.util.UUID}, {@link java.time.LocalDate} or {@link java.sql.Date} (date),
+   * {@link java.time.LocalDateTime} or {@link java.sql.Timestamp} (timestamp) and {@link java.time.Instant} (timestamptz).
+   */
+  static <T> CopyEncoder<T> binary(Func1<? super T, Object[]> values) {
+    return new BinaryCopyEncoder<>(values);
+  }
+}
@@ -0,0 +1,238 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import com.trunk.rx.jdbc.pg.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
+
+import java.io.DataOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * An observable that bulk loads the given rows into a table with PostgreSQL's
+ * <code>COPY table (columns) FROM STDIN</code>, using the given {@link CopyEncoder}.
+ * It emits a single {@link Long} event with the number of rows copied.
+ * <p>
+ * Encoded rows are collected into blocks of bufferSize bytes before being written, and rows are
+ * requested one at a time as they are written, so memory use is bounded whatever the number of rows.
+ * The copy is canceled if the rows error or the subscriber unsubscribes before completion.
+ * <p>
+ * On connections that are not PostgreSQL, eg H2 in tests, the rows are inserted with batched
+ * <code>INSERT INTO table (columns) VALUES (...)</code> statements using {@link CopyEncoder#values(Object)},
+ * so the same pipeline can be run against either.
+ * <p>
+ * It does not close the given {@link Connection}.
+ */
+public class CopyIn extends Observable<Long> {
+  private static final Logger log = LoggerFactory.getLogger(CopyIn.class);
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /**
+   * Copy the rows using the connection's {@link org.postgresql.copy.CopyManager}, or batched inserts
+   * if the connection is not a PostgreSQL connection.
+   */
+  public static <T> Observable<Long> using(
+    Connection connection,
+    String table,
+    List<String> columns,
+    Observable<T> rows,
+    CopyEncoder<? super T> encoder
+  ) {
+    if (Util.isPostgres(connection)) {
+      return using(connection, CopyInFactory.POSTGRES, table, columns, rows, encoder, DEFAULT_BUFFER_SIZE);
+    }
+    log.debug("Not a PostgreSQL connection, inserting in batches");
+    return usingBatchedInserts(connection, table, columns, rows, encoder, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Copy the rows with a {@link org.postgresql.copy.CopyIn} from the given {@link CopyInFactory}.
+   *
+   * @param bufferSize the number of bytes to collect before each write
+   */
+  public static <T> CopyIn using(
+    Connection connection,
+    CopyInFactory copyInFactory,
+    String table,
+    List<String> columns,
+    Observable<T> rows,
+    CopyEncoder<? super T> encoder,
+    int bufferSize
+  ) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+    }
+    return new CopyIn(connection, copyInFactory, copySql(table, columns, encoder), rows, encoder, bufferSize);
+  }
+
+  /**
+   * Insert the rows with batches of up to batchSize <code>INSERT</code>s, one batch after another.
+   * This works with any database, and is used where <code>COPY</code> is not available.
+   */
+  public static <T> Observable<Long> usingBatchedInserts(
+    Connection connection,
+    String table,
+    List<String> columns,
+    Observable<T> rows,
+    CopyEncoder<? super T> encoder,
+    int batchSize
+  ) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    String sql = insertSql(table, columns);
+    return rows
+      .buffer(batchSize)
+      .concatMap(batch -> insertBatch(connection, sql, batch, encoder))
+      .reduce(0L, (total, inserted) -> total + inserted);
+  }
+
+  private <T> CopyIn(
+    Connection connection,
+    CopyInFactory copyInFactory,
+    String sql,
+    Observable<T> rows,
+    CopyEncoder<? super T> encoder,
+    int bufferSize
+  ) {
+    super(
+      subscriber -> {
+        org.postgresql.copy.CopyIn copyIn;
+        try {
+          log.debug("Starting {}", sql);
+          copyIn = copyInFactory.copyIn(connection, sql);
+        } catch (Throwable t) {
+          handleException(t, subscriber);
+          return;
+        }
+        subscriber.add(Subscriptions.create(() -> cancelQuietly(copyIn)));
+        CopyBuffer buffer = new CopyBuffer(copyIn, bufferSize);
+        DataOutputStream out = new DataOutputStream(buffer);
+        Subscriber<T> rowSubscriber = new Subscriber<T>() {
+          @Override
+          public void onStart() {
+            try {
+              encoder.start(out);
+            } catch (Throwable t) {
+              onError(t);
+              return;
+            }
+            request(1);
+          }
+
+          @Override
+          public void onNext(T row) {
+            try {
+              encoder.encode(row, out);
+              buffer.flushIfFull();
+            } catch (Throwable t) {
+              unsubscribe();
+              fail(t);
+              return;
+            }
+            request(1);
+          }
+
+          @Override
+          public void onError(Throwable e) {
+            fail(e);
+          }
+
+          @Override
+          public void onCompleted() {
+            long copied;
+            try {
+              encoder.finish(out);
+              buffer.flushBlock();
+              copied = copyIn.endCopy();
+            } catch (Throwable t) {
+              fail(t);
+              return;
+            }
+            log.debug("Copied {} rows", copied);
+            if (!subscriber.isUnsubscribed()) {
+              subscriber.onNext(copied);
+              subscriber.onCompleted();
+            }
+          }
+
+          private void fail(Throwable t) {
+            cancelQuietly(copyIn);
+            handleException(t, subscriber);
+          }
+        };
+        subscriber.add(rowSubscriber);
+        rows.unsafeSubscribe(rowSubscriber);
+      }
+    );
+  }
+
+  private static <T> String copySql(String table, List<String> columns, CopyEncoder<? super T> encoder) {
+    return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH " + encoder.options();
+  }
+
+  private static String insertSql(String table, List<String> columns) {
+    StringBuilder sql = new StringBuilder("INSERT INTO ")
+      .append(table)
+      .append(" (")
+      .append(String.join(", ", columns))
+      .append(") VALUES (");
+    for (int i = 0; i < columns.size(); ++i) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    return sql.append(')').toString();
+  }
+
+  private static <T> Observable<Long> insertBatch(
+    Connection connection,
+    String sql,
+    List<T> batch,
+    CopyEncoder<? super T> encoder
+  ) {
+    return Observable.defer(() -> {
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        for (T row : batch) {
+          Object[] values = encoder.values(row);
+          for (int i = 0; i < values.length; ++i) {
+            preparedStatement.setObject(i + 1, values[i]);
+          }
+          preparedStatement.addBatch();
+        }
+        long inserted = 0;
+        for (int count : preparedStatement.executeBatch()) {
+          inserted += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return Observable.just(inserted);
+      } catch (SQLException e) {
+        return Observable.error(e);
+      }
+    });
+  }
+
+  private static void cancelQuietly(org.postgresql.copy.CopyIn copyIn) {
+    try {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+        log.debug("cancelled copy");
+      }
+    } catch (SQLException | RuntimeException e) {
+      log.debug(e.getMessage(), e);
+    }
+  }
+
+  private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
+    log.debug("onError: " + t.getMessage());
+    if (subscriber.isUnsubscribed()) {
+      log.debug("unsubscribed");
+    } else {
+      subscriber.onError(t);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import com.trunk.rx.jdbc.pg.Util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Starts a <code>COPY ... FROM STDIN</code> on a {@link Connection}. The default uses the
+ * connection's {@link org.postgresql.copy.CopyManager}; tests can return a mock
+ * {@link org.postgresql.copy.CopyIn}.
+ */
+@FunctionalInterface
+public interface CopyInFactory {
+
+  CopyInFactory POSTGRES = (connection, sql) -> Util.copyManager(connection).copyIn(sql);
+
+  org.postgresql.copy.CopyIn copyIn(Connection connection, String sql) throws SQLException;
+}
@@ -0,0 +1,95 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.ChunkSource;
+import com.trunk.rx.jdbc.sql.ChunkSourceProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.subscriptions.Subscriptions;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+
+/**
+ * An observable that streams the output of PostgreSQL's <code>COPY (query) TO STDOUT</code> as
+ * fixed-size {@link ByteBuffer} chunks, read only as they are requested, without decoding rows,
+ * so exports can be written straight to files or sockets.
+ * <p>
+ * The copy is canceled if the subscriber unsubscribes before completion.
+ * <p>
+ * It does not close the given {@link Connection}.
+ */
+public class CopyOut extends Observable<ByteBuffer> {
+  private static final Logger log = LoggerFactory.getLogger(CopyOut.class);
+
+  public static final String CSV = "(FORMAT csv)";
+
+  /**
+   * Copy out using the connection's {@link org.postgresql.copy.CopyManager} in newly allocated
+   * heap buffers of chunkSize bytes.
+   *
+   * @param query   the query to copy the results of
+   * @param options the COPY options, eg {@link #CSV}
+   */
+  public static CopyOut using(Connection connection, String query, String options, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return using(connection, CopyOutFactory.POSTGRES, query, options, () -> ByteBuffer.allocate(chunkSize));
+  }
+
+  /**
+   * Copy out using the given {@link CopyOutFactory}, eg {@link CopyOutFactory#JDBC_CSV} in tests,
+   * into buffers from the given supplier, which may return pooled or reused buffers as long as a
+   * buffer is only reused after its chunk has been consumed.
+   *
+   * @param query   the query to copy the results of
+   * @param options the COPY options, eg {@link #CSV}
+   */
+  public static CopyOut using(
+    Connection connection,
+    CopyOutFactory copyOutFactory,
+    String query,
+    String options,
+    Func0<? extends ByteBuffer> buffers
+  ) {
+    return new CopyOut(connection, copyOutFactory, query, options, buffers);
+  }
+
+  private CopyOut(
+    Connection connection,
+    CopyOutFactory copyOutFactory,
+    String query,
+    String options,
+    Func0<? extends ByteBuffer> buffers
+  ) {
+    super(
+      subscriber -> {
+        InputStream inputStream = null;
+        try {
+          log.debug("Copying out {}", query);
+          inputStream = copyOutFactory.copyOut(connection, query, options);
+          ChunkSource<ByteBuffer> source = ChunkSource.of(inputStream, buffers, () -> log.debug("closed copy"));
+          subscriber.add(Subscriptions.create(source::close));
+          subscriber.setProducer(new ChunkSourceProducer<>(source, subscriber));
+        } catch (Throwable t) {
+          Util.closeQuietly(inputStream);
+          handleException(t, subscriber);
+        }
+      }
+    );
+  }
+
+  private static <T> void handleException(Throwable t, Subscriber<? super T> subscriber) {
+    log.debug("onError: " + t.getMessage());
+    if (subscriber.isUnsubscribed()) {
+      log.debug("unsubscribed");
+    } else {
+      subscriber.onError(t);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import com.trunk.rx.jdbc.pg.Util;
+import org.postgresql.copy.PGCopyInputStream;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Starts a <code>COPY (query) TO STDOUT</code> on a {@link Connection} and returns its output as an
+ * {@link InputStream}. Closing the stream before the end should cancel the copy.
+ */
+@FunctionalInterface
+public interface CopyOutFactory {
+
+  /**
+   * Copy out using the connection's {@link org.postgresql.copy.CopyManager}
+   */
+  CopyOutFactory POSTGRES =
+    (connection, query, options) ->
+      new PGCopyInputStream(Util.pgConnection(connection), "COPY (" + query + ") TO STDOUT WITH " + options);
+
+  /**
+   * A stand-in for databases without <code>COPY</code>, eg H2 in tests, that runs the query with JDBC and
+   * writes each row as CSV as the stream is read. Only <code>(FORMAT csv)</code> is supported.
+   */
+  CopyOutFactory JDBC_CSV =
+    (connection, query, options) -> {
+      if (!"(FORMAT csv)".equalsIgnoreCase(options)) {
+        throw new SQLFeatureNotSupportedException("Only (FORMAT csv) is supported, not " + options);
+      }
+      return new ResultSetCsvInputStream(connection.prepareStatement(query));
+    };
+
+  InputStream copyOut(Connection connection, String query, String options) throws SQLException;
+}
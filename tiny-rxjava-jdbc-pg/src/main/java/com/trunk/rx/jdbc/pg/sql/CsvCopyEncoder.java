@@ -0,0 +1,66 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import rx.functions.Func1;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * COPY CSV format
+ */
+class CsvCopyEncoder<T> implements CopyEncoder<T> {
+
+  private final Func1<? super T, Object[]> values;
+
+  CsvCopyEncoder(Func1<? super T, Object[]> values) {
+    this.values = values;
+  }
+
+  @Override
+  public String options() {
+    return "(FORMAT csv)";
+  }
+
+  @Override
+  public Object[] values(T row) {
+    return values.call(row);
+  }
+
+  @Override
+  public void encode(T row, DataOutputStream out) throws IOException {
+    Object[] columns = values(row);
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < columns.length; ++i) {
+      if (i > 0) {
+        line.append(',');
+      }
+      if (columns[i] != null) {
+        quote(line, TextCopyEncoder.format(columns[i]));
+      }
+    }
+    line.append('\n');
+    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void quote(StringBuilder line, String value) {
+    boolean quote = value.isEmpty();
+    for (int i = 0; i < value.length() && !quote; ++i) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r' || c == '\\';
+    }
+    if (!quote) {
+      line.append(value);
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < value.length(); ++i) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        line.append('"');
+      }
+      line.append(c);
+    }
+    line.append('"');
+  }
+}
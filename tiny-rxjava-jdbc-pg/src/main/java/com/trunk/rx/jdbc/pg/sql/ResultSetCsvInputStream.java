@@ -0,0 +1,105 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import com.trunk.rx.jdbc.Util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * An {@link InputStream} of the rows of a query as CSV, encoded a row at a time as it is read.
+ *
+ * @see CopyOutFactory#JDBC_CSV
+ */
+class ResultSetCsvInputStream extends InputStream {
+  private final PreparedStatement preparedStatement;
+  private final CopyEncoder<ResultSet> encoder;
+  private final Row row = new Row();
+  private final DataOutputStream out = new DataOutputStream(row);
+  private ResultSet resultSet;
+  private int position = 0;
+  private boolean done = false;
+
+  ResultSetCsvInputStream(PreparedStatement preparedStatement) {
+    this.preparedStatement = preparedStatement;
+    this.encoder = CopyEncoder.csv(ResultSetCsvInputStream::values);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return row.buffer()[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    int n = Math.min(len, row.size() - position);
+    System.arraycopy(row.buffer(), position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    Util.closeQuietly(resultSet);
+    Util.closeQuietly(preparedStatement);
+  }
+
+  /**
+   * @return true if there are unread bytes, encoding the next row if needed
+   */
+  private boolean fill() throws IOException {
+    while (position >= row.size()) {
+      if (done) {
+        return false;
+      }
+      try {
+        if (resultSet == null) {
+          resultSet = preparedStatement.executeQuery();
+        }
+        row.reset();
+        position = 0;
+        if (resultSet.next()) {
+          encoder.encode(resultSet, out);
+        } else {
+          close();
+        }
+      } catch (SQLException e) {
+        close();
+        throw new IOException(e);
+      }
+    }
+    return true;
+  }
+
+  private static Object[] values(ResultSet resultSet) {
+    try {
+      Object[] values = new Object[resultSet.getMetaData().getColumnCount()];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = resultSet.getObject(i + 1);
+      }
+      return values;
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static class Row extends ByteArrayOutputStream {
+    byte[] buffer() {
+      return buf;
+    }
+  }
+}
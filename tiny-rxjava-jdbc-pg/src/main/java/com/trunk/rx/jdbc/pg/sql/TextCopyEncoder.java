@@ -0,0 +1,85 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import rx.functions.Func1;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * COPY text format
+ */
+class TextCopyEncoder<T> implements CopyEncoder<T> {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Func1<? super T, Object[]> values;
+
+  TextCopyEncoder(Func1<? super T, Object[]> values) {
+    this.values = values;
+  }
+
+  @Override
+  public String options() {
+    return "(FORMAT text)";
+  }
+
+  @Override
+  public Object[] values(T row) {
+    return values.call(row);
+  }
+
+  @Override
+  public void encode(T row, DataOutputStream out) throws IOException {
+    Object[] columns = values(row);
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < columns.length; ++i) {
+      if (i > 0) {
+        line.append('\t');
+      }
+      if (columns[i] == null) {
+        line.append("\\N");
+      } else {
+        escape(line, format(columns[i]));
+      }
+    }
+    line.append('\n');
+    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String format(Object value) {
+    if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      char[] hex = new char[2 + bytes.length * 2];
+      hex[0] = '\\';
+      hex[1] = 'x';
+      for (int i = 0; i < bytes.length; ++i) {
+        hex[2 + i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+        hex[3 + i * 2] = HEX[bytes[i] & 0xf];
+      }
+      return new String(hex);
+    }
+    return value.toString();
+  }
+
+  private static void escape(StringBuilder line, String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        default:
+          line.append(c);
+      }
+    }
+  }
+}
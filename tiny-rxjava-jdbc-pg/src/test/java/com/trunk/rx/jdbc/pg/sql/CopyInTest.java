@@ -0,0 +1,155 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import org.testng.annotations.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class CopyInTest {
+  private static final List<String> COLUMNS = Arrays.asList("id", "name");
+
+  @Test
+  public void shouldWriteCsvRowsAndEmitCount() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    org.postgresql.copy.CopyIn copyIn = recordingCopyIn(written);
+    when(copyIn.endCopy()).thenReturn(3L);
+    String[] sql = new String[1];
+
+    TestSubscriber<Long> t = new TestSubscriber<>();
+    CopyIn.using(
+      mock(Connection.class),
+      (connection, copySql) -> {
+        sql[0] = copySql;
+        return copyIn;
+      },
+      "test",
+      COLUMNS,
+      Observable.just(new Object[]{1, "a"}, new Object[]{2, "b,c"}, new Object[]{3, null}),
+      CopyEncoder.<Object[]>csv(row -> row),
+      4
+    )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertValue(3L);
+    t.assertCompleted();
+    assertEquals(sql[0], "COPY test (id, name) FROM STDIN WITH (FORMAT csv)");
+    assertEquals(new String(written.toByteArray(), StandardCharsets.UTF_8), "1,a\n2,\"b,c\"\n3,\n");
+    verify(copyIn, never()).cancelCopy();
+  }
+
+  @Test
+  public void shouldEscapeTextRows() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    org.postgresql.copy.CopyIn copyIn = recordingCopyIn(written);
+
+    CopyIn.using(
+      mock(Connection.class),
+      (connection, copySql) -> copyIn,
+      "test",
+      COLUMNS,
+      Observable.just(new Object[]{1, "a\tb\\c"}, new Object[]{2, null}),
+      CopyEncoder.<Object[]>text(row -> row),
+      CopyIn.DEFAULT_BUFFER_SIZE
+    )
+      .subscribe(new TestSubscriber<>());
+
+    assertEquals(new String(written.toByteArray(), StandardCharsets.UTF_8), "1\ta\\tb\\\\c\n2\t\\N\n");
+  }
+
+  @Test
+  public void shouldWriteBinaryHeaderAndTrailer() throws Exception {
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    org.postgresql.copy.CopyIn copyIn = recordingCopyIn(written);
+
+    CopyIn.using(
+      mock(Connection.class),
+      (connection, copySql) -> copyIn,
+      "test",
+      COLUMNS,
+      Observable.just(new Object[]{7, "a"}),
+      CopyEncoder.<Object[]>binary(row -> row),
+      CopyIn.DEFAULT_BUFFER_SIZE
+    )
+      .subscribe(new TestSubscriber<>());
+
+    byte[] bytes = written.toByteArray();
+    // signature, flags, extension, field count, int4, text, trailer
+    assertEquals(bytes.length, 11 + 4 + 4 + 2 + (4 + 4) + (4 + 1) + 2);
+    assertEquals(new String(bytes, 0, 6, StandardCharsets.US_ASCII), "PGCOPY");
+    assertEquals(bytes[bytes.length - 1], (byte) 0xff);
+  }
+
+  @Test
+  public void shouldCancelCopyOnError() throws Exception {
+    org.postgresql.copy.CopyIn copyIn = recordingCopyIn(new ByteArrayOutputStream());
+    when(copyIn.isActive()).thenReturn(true);
+
+    TestSubscriber<Long> t = new TestSubscriber<>();
+    CopyIn.using(
+      mock(Connection.class),
+      (connection, copySql) -> copyIn,
+      "test",
+      COLUMNS,
+      Observable.<Object[]>just(new Object[]{1, "a"}).concatWith(Observable.error(new IllegalStateException("boom"))),
+      CopyEncoder.<Object[]>csv(row -> row),
+      CopyIn.DEFAULT_BUFFER_SIZE
+    )
+      .subscribe(t);
+
+    t.assertError(IllegalStateException.class);
+    verify(copyIn).cancelCopy();
+    verify(copyIn, never()).endCopy();
+  }
+
+  @Test
+  public void shouldFallBackToBatchedInserts() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:copy_in_test")) {
+      connection.createStatement().execute("CREATE TABLE test (id INT, name VARCHAR(10))");
+
+      TestSubscriber<Long> t = new TestSubscriber<>();
+      CopyIn.using(
+        connection,
+        "test",
+        COLUMNS,
+        Observable.range(1, 5).map(i -> new Object[]{i, "n" + i}),
+        CopyEncoder.<Object[]>csv(row -> row)
+      )
+        .subscribe(t);
+
+      t.assertNoErrors();
+      t.assertValue(5L);
+      ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM test");
+      resultSet.next();
+      assertEquals(resultSet.getInt(1), 5);
+    }
+  }
+
+  private static org.postgresql.copy.CopyIn recordingCopyIn(ByteArrayOutputStream written) throws Exception {
+    org.postgresql.copy.CopyIn copyIn = mock(org.postgresql.copy.CopyIn.class);
+    doAnswer(
+      invocation -> {
+        Object[] arguments = invocation.getArguments();
+        written.write((byte[]) arguments[0], (Integer) arguments[1], (Integer) arguments[2]);
+        return null;
+      }
+    ).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    return copyIn;
+  }
+}
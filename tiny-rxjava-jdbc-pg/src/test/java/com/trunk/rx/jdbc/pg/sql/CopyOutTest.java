@@ -0,0 +1,70 @@
+package com.trunk.rx.jdbc.pg.sql;
+
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+
+public class CopyOutTest {
+  @Test
+  public void shouldEmitCopyOutputInChunks() throws Exception {
+    InputStream output = spy(new ByteArrayInputStream("1,a\n2,b\n".getBytes(StandardCharsets.UTF_8)));
+    String[] sql = new String[1];
+
+    TestSubscriber<ByteBuffer> t = new TestSubscriber<>(1);
+    CopyOut.using(
+      mock(Connection.class),
+      (connection, query, options) -> {
+        sql[0] = query + " " + options;
+        return output;
+      },
+      "SELECT id, name FROM test",
+      CopyOut.CSV,
+      () -> ByteBuffer.allocate(3)
+    )
+      .subscribe(t);
+
+    t.assertValueCount(1);
+    t.assertNotCompleted();
+    t.requestMore(10);
+    t.assertValueCount(3);
+    t.assertCompleted();
+    assertEquals(sql[0], "SELECT id, name FROM test (FORMAT csv)");
+    assertEquals(t.getOnNextEvents().get(2).remaining(), 2);
+    verify(output).close();
+  }
+
+  @Test
+  public void shouldCopyOutWithJdbcStandIn() throws Exception {
+    try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:copy_out_test")) {
+      connection.createStatement().execute("CREATE TABLE test (id INT, name VARCHAR(10))");
+      connection.createStatement().execute("INSERT INTO test VALUES (1, 'a'), (2, 'b,c'), (3, NULL)");
+
+      TestSubscriber<ByteBuffer> t = new TestSubscriber<>();
+      CopyOut.using(
+        connection,
+        CopyOutFactory.JDBC_CSV,
+        "SELECT id, name FROM test ORDER BY id",
+        CopyOut.CSV,
+        () -> ByteBuffer.allocate(4)
+      )
+        .subscribe(t);
+
+      t.assertNoErrors();
+      t.assertCompleted();
+      StringBuilder csv = new StringBuilder();
+      t.getOnNextEvents().forEach(b -> csv.append(StandardCharsets.UTF_8.decode(b)));
+      assertEquals(csv.toString(), "1,a\n2,\"b,c\"\n3,\n");
+    }
+  }
+}
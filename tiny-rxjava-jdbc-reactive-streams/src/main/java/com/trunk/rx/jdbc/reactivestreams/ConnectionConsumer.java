@@ -0,0 +1,16 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import org.reactivestreams.Publisher;
+
+import java.sql.Connection;
+
+/**
+ * A function to convert a {@link Connection}s to a {@link Publisher} of Ts.
+ * <p>
+ * Consumers do not need to close the connection when this is used in {@link TransactionPublisher}.
+ * Connections are protected from being closed by the {@link com.trunk.rx.jdbc.UnclosableConnection}.
+ */
+@FunctionalInterface
+public interface ConnectionConsumer<T> {
+  Publisher<T> call(Connection connection);
+}
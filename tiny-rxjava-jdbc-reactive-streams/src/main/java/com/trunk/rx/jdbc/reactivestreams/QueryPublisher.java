@@ -0,0 +1,116 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.PreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ResultSetMapper;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * A {@link Publisher} that wraps {@link PreparedStatement#executeQuery()} from the given
+ * {@link PreparedStatementBuilder} and emits each row, unmarshalled using the given {@link ResultSetMapper}.
+ * Reactive Streams do not allow null elements, so the mapper must not return null.
+ * <p>
+ * The statement is executed on the first request and {@link ResultSet#next()} is called once for each
+ * element requested, on the requesting thread.
+ * <p>
+ * The {@link PreparedStatement} will be canceled if the subscriber cancels
+ * while it is executing or its {@link ResultSet} is being read, otherwise they are just closed.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement} and the required {@link ResultSet} and does not close the given {@link Connection}.
+ */
+public class QueryPublisher<T> implements Publisher<T> {
+
+  private final Connection connection;
+  private final PreparedStatementBuilder preparedStatementBuilder;
+  private final ResultSetMapper<? extends T> resultSetMapper;
+
+  public static <T> QueryPublisher<T> using(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper
+  ) {
+    return new QueryPublisher<>(connection, preparedStatementBuilder, resultSetMapper);
+  }
+
+  private QueryPublisher(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper
+  ) {
+    this.connection = connection;
+    this.preparedStatementBuilder = preparedStatementBuilder;
+    this.resultSetMapper = resultSetMapper;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    subscriber.onSubscribe(new ResultSetSubscription<>(subscriber, connection, preparedStatementBuilder, resultSetMapper));
+  }
+
+  private static class ResultSetSubscription<T> extends RowSubscription<T> {
+    private final Connection connection;
+    private final PreparedStatementBuilder preparedStatementBuilder;
+    private final ResultSetMapper<? extends T> resultSetMapper;
+
+    private volatile PreparedStatement preparedStatement;
+    private volatile ResultSet resultSet;
+
+    ResultSetSubscription(
+      Subscriber<? super T> subscriber,
+      Connection connection,
+      PreparedStatementBuilder preparedStatementBuilder,
+      ResultSetMapper<? extends T> resultSetMapper
+    ) {
+      super(subscriber);
+      this.connection = connection;
+      this.preparedStatementBuilder = preparedStatementBuilder;
+      this.resultSetMapper = resultSetMapper;
+    }
+
+    @Override
+    void open() throws SQLException {
+      preparedStatement = preparedStatementBuilder.build(connection);
+      resultSet = preparedStatement.executeQuery();
+      preparedStatementBuilder.release(preparedStatement);
+    }
+
+    @Override
+    T next() throws SQLException {
+      if (!resultSet.next()) {
+        return null;
+      }
+      return Objects.requireNonNull(resultSetMapper.f(resultSet), "The ResultSetMapper returned a null value");
+    }
+
+    @Override
+    void close() {
+      release();
+      Util.closeQuietly(resultSet);
+      Util.closeQuietly(preparedStatement);
+    }
+
+    @Override
+    void cancelAndClose() {
+      // closing streamed parameters first, as the driver may be blocked reading one
+      release();
+      Util.cancelAndCloseQuietly(preparedStatement);
+      Util.closeQuietly(resultSet);
+    }
+
+    private void release() {
+      PreparedStatement statement = preparedStatement;
+      if (statement != null) {
+        preparedStatementBuilder.release(statement);
+      }
+    }
+  }
+}
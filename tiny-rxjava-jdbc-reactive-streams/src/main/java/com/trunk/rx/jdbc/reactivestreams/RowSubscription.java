@@ -0,0 +1,189 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Subscription} that reads one row for each element requested, eg with {@link java.sql.ResultSet#next()},
+ * on the thread calling {@link #request(long)}, so demand reaches the cursor without any buffering.
+ * The statement is executed on the first request, so it can be cancelled while executing.
+ * <p>
+ * Signals are serialised with a work-in-progress counter, so requests from within
+ * {@link Subscriber#onNext(Object)}, or from other threads, are added to the demand of the running loop.
+ * <p>
+ * If the subscriber cancels before completion the execution is cancelled, otherwise
+ * resources are just closed once reading stops.
+ *
+ * @param <T> the type of each row
+ */
+abstract class RowSubscription<T> implements Subscription {
+  private static final Logger log = LoggerFactory.getLogger(RowSubscription.class);
+
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicLong requested = new AtomicLong();
+
+  private volatile Subscriber<? super T> subscriber;
+  private volatile boolean cancelled;
+  private volatile boolean done;
+  private volatile Throwable invalidRequest;
+  private boolean opened;
+
+  RowSubscription(Subscriber<? super T> subscriber) {
+    this.subscriber = subscriber;
+  }
+
+  /**
+   * Prepare and execute the statement.
+   */
+  abstract void open() throws Exception;
+
+  /**
+   * @return the next row, or null if there are no more rows
+   */
+  abstract T next() throws Exception;
+
+  /**
+   * Close the resources quietly, without cancelling.
+   */
+  abstract void close();
+
+  /**
+   * @return true if the last row has been read, so completion needn't wait for another request
+   */
+  boolean exhausted() {
+    return false;
+  }
+
+  /**
+   * Cancel the execution, if any, and close the resources quietly.
+   */
+  abstract void cancelAndClose();
+
+  @Override
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest = new IllegalArgumentException("Rule 3.9 violated: positive request amount required but it was " + n);
+    } else {
+      add(n);
+    }
+    drain();
+  }
+
+  @Override
+  public void cancel() {
+    if (cancelled) {
+      return;
+    }
+    cancelled = true;
+    if (!done) {
+      log.debug("cancelling");
+      cancelAndClose();
+    }
+    drain();
+  }
+
+  private void add(long n) {
+    while (true) {
+      long current = requested.get();
+      if (current == Long.MAX_VALUE) {
+        return;
+      }
+      long next = current + n;
+      if (next < 0) {
+        next = Long.MAX_VALUE;
+      }
+      if (requested.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    while (true) {
+      if (cancelled || done) {
+        // drop the subscriber, rule 3.13
+        subscriber = null;
+      } else if (invalidRequest != null) {
+        fail(invalidRequest, true);
+      } else {
+        emit();
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  private void emit() {
+    Subscriber<? super T> s = subscriber;
+    long r = requested.get();
+    long emitted = 0L;
+    try {
+      while (emitted != r) {
+        if (cancelled) {
+          return;
+        }
+        T row = read();
+        if (row == null) {
+          complete(s);
+          return;
+        }
+        s.onNext(row);
+        ++emitted;
+        if (exhausted() && !cancelled) {
+          complete(s);
+          return;
+        }
+      }
+    } catch (Throwable t) {
+      fail(t, false);
+      return;
+    }
+    if (emitted != 0L && r != Long.MAX_VALUE) {
+      requested.addAndGet(-emitted);
+    }
+  }
+
+  private void complete(Subscriber<? super T> s) {
+    done = true;
+    close();
+    log.debug("onComplete");
+    s.onComplete();
+    subscriber = null;
+  }
+
+  private T read() throws Exception {
+    if (!opened) {
+      opened = true;
+      open();
+    }
+    return next();
+  }
+
+  private void fail(Throwable t, boolean cancel) {
+    done = true;
+    if (cancel) {
+      cancelAndClose();
+    } else {
+      close();
+    }
+    log.debug("onError: " + t.getMessage());
+    Subscriber<? super T> s = subscriber;
+    subscriber = null;
+    if (cancelled) {
+      log.debug("cancelled");
+    } else {
+      s.onError(t);
+    }
+  }
+}
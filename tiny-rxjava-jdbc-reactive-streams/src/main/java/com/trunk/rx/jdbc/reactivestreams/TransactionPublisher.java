@@ -0,0 +1,349 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import com.trunk.rx.jdbc.UnclosableConnection;
+import com.trunk.rx.jdbc.listener.Instrumentation;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Publisher} that executes a {@link ConnectionConsumer} in a transaction context,
+ * the Reactive Streams equivalent of {@link com.trunk.rx.jdbc.TransactionContextExecutor}.
+ * Defaults to using auto-commit transactions.
+ * <p>
+ * A connection is acquired from the {@link ConnectionProvider} for each subscription once
+ * {@link Subscriber#onSubscribe(Subscription)} has returned, unless it cancelled, so a failure to acquire one
+ * is signalled whether or not anything has been requested. Requests made before the {@link Publisher} from the
+ * {@link ConnectionConsumer} subscribes are kept for it. The connection is released when that {@link Publisher}
+ * terminates. If cancelled it is released once no request to, or signal from,
+ * that {@link Publisher} is in progress, so it is not rolled back or closed under a row being read.
+ * Requests are passed on to that {@link Publisher}, eg a {@link QueryPublisher}, without being buffered.
+ * <p>
+ * Connections are observed by the {@link com.trunk.rx.jdbc.listener.InstrumentationProvider} on the class path, if any.
+ *
+ * @see #withAutoCommit()
+ * @see #withSingleTransaction()
+ * @see #withTransactionPerEvent()
+ */
+public class TransactionPublisher<T> implements Publisher<T> {
+  private static final Logger log = LoggerFactory.getLogger(TransactionPublisher.class);
+
+  private enum Mode {
+    AUTO_COMMIT,
+    SINGLE_TRANSACTION,
+    TRANSACTION_PER_EVENT
+  }
+
+  private final Mode mode;
+  private final ConnectionProvider provider;
+  private final ConnectionConsumer<T> connectionConsumer;
+
+  public static <T> TransactionPublisher<T> using(ConnectionProvider provider, ConnectionConsumer<T> connectionConsumer) {
+    return new TransactionPublisher<>(Mode.AUTO_COMMIT, provider, connectionConsumer);
+  }
+
+  private TransactionPublisher(Mode mode, ConnectionProvider provider, ConnectionConsumer<T> connectionConsumer) {
+    this.mode = mode;
+    this.provider = provider;
+    this.connectionConsumer = connectionConsumer;
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using {@link Connection#setAutoCommit(boolean)} true.
+   *
+   * @return a new TransactionPublisher
+   */
+  public TransactionPublisher<T> withAutoCommit() {
+    return new TransactionPublisher<>(Mode.AUTO_COMMIT, provider, connectionConsumer);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using a single transaction that will be committed on completion.
+   * On an error or early cancellation the whole transaction will be rolled back.
+   *
+   * @return a new TransactionPublisher
+   */
+  public TransactionPublisher<T> withSingleTransaction() {
+    return new TransactionPublisher<>(Mode.SINGLE_TRANSACTION, provider, connectionConsumer);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using a transaction committed per event,
+   * before the event is signalled. On an error or early cancellation any currently running
+   * transaction will be rolled back.
+   *
+   * @return a new TransactionPublisher
+   */
+  public TransactionPublisher<T> withTransactionPerEvent() {
+    return new TransactionPublisher<>(Mode.TRANSACTION_PER_EVENT, provider, connectionConsumer);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    TransactionSubscriber<T> transaction = new TransactionSubscriber<>(subscriber, mode, provider, connectionConsumer);
+    subscriber.onSubscribe(transaction);
+    transaction.start();
+  }
+
+  private static void closeConnection(Connection connection) {
+    try {
+      if (!connection.isClosed()) {
+        log.debug("Closing connection");
+        connection.close();
+      }
+    } catch (SQLException e) {
+      log.warn("Unexpected error closing connection", e);
+    }
+  }
+
+  private static void commitTransaction(Connection connection) throws SQLException {
+    if (!connection.isClosed()) {
+      log.debug("Committing transaction");
+      connection.commit();
+    } else {
+      log.warn("Commit called on closed connection");
+    }
+  }
+
+  private static void rollBackTransaction(Connection connection) {
+    try {
+      if (!connection.isClosed()) {
+        log.debug("Rolling-back transaction");
+        connection.rollback();
+      }
+    } catch (SQLException rollbackError) {
+      log.warn("Rollback error", rollbackError);
+    }
+  }
+
+  /**
+   * Acquires the connection after onSubscribe, then commits and releases it around the signals
+   * of the consumer's {@link Publisher}.
+   */
+  private static class TransactionSubscriber<T> implements Subscriber<T>, Subscription {
+    private final Mode mode;
+    private final ConnectionProvider provider;
+    private final ConnectionConsumer<T> connectionConsumer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private volatile Subscriber<? super T> subscriber;
+    private volatile Subscription subscription;
+    private volatile Connection connection;
+    private volatile boolean cancelled;
+    private boolean done;
+
+    TransactionSubscriber(
+      Subscriber<? super T> subscriber,
+      Mode mode,
+      ConnectionProvider provider,
+      ConnectionConsumer<T> connectionConsumer
+    ) {
+      this.subscriber = subscriber;
+      this.mode = mode;
+      this.provider = provider;
+      this.connectionConsumer = connectionConsumer;
+    }
+
+    @Override
+    public void request(long n) {
+      if (cancelled) {
+        return;
+      }
+      active.getAndIncrement();
+      try {
+        Subscription s = subscription;
+        if (s != null) {
+          s.request(n);
+          return;
+        }
+        // the consumer's publisher has not subscribed yet, so keep the request for it
+        addPending(n);
+        s = subscription;
+        if (s != null) {
+          requestPending(s);
+        }
+      } finally {
+        exit();
+      }
+    }
+
+    void start() {
+      if (cancelled) {
+        return;
+      }
+      // counted as in progress, so a cancel from another thread releases the connection once it is acquired
+      active.getAndIncrement();
+      try {
+        Publisher<T> publisher;
+        try {
+          Connection c = Instrumentation.instrument(provider).call();
+          connection = c;
+          log.debug("With {}", mode);
+          c.setAutoCommit(mode == Mode.AUTO_COMMIT);
+          publisher = connectionConsumer.call(new UnclosableConnection(c));
+        } catch (Throwable t) {
+          onError(t);
+          return;
+        }
+        publisher.subscribe(this);
+      } finally {
+        exit();
+      }
+    }
+
+    private void addPending(long n) {
+      while (true) {
+        long current = pending.get();
+        if (current < 0 || current == Long.MAX_VALUE) {
+          return;
+        }
+        // an invalid request is kept as -1 and passed on, for the consumer's publisher to signal the error
+        long next = n <= 0 ? -1L : current + n;
+        if (next < 0 && n > 0) {
+          next = Long.MAX_VALUE;
+        }
+        if (pending.compareAndSet(current, next)) {
+          return;
+        }
+      }
+    }
+
+    private void requestPending(Subscription s) {
+      long n = pending.getAndSet(0L);
+      if (n != 0L) {
+        s.request(n);
+      }
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      if (this.subscription != null) {
+        subscription.cancel();
+        return;
+      }
+      active.getAndIncrement();
+      try {
+        this.subscription = subscription;
+        if (cancelled) {
+          subscription.cancel();
+        } else {
+          requestPending(subscription);
+        }
+      } finally {
+        exit();
+      }
+    }
+
+    @Override
+    public void onNext(T t) {
+      active.getAndIncrement();
+      try {
+        Subscriber<? super T> s = subscriber;
+        if (done || s == null) {
+          // terminated or cancelled
+          return;
+        }
+        if (mode == Mode.TRANSACTION_PER_EVENT) {
+          try {
+            commitTransaction(connection);
+          } catch (SQLException e) {
+            subscription.cancel();
+            onError(e);
+            return;
+          }
+        }
+        s.onNext(t);
+      } finally {
+        exit();
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (done) {
+        return;
+      }
+      done = true;
+      log.debug("onError: " + t.getMessage());
+      Subscriber<? super T> s = subscriber;
+      subscriber = null;
+      if (release(true) && s != null) {
+        s.onError(t);
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      if (done) {
+        return;
+      }
+      if (mode == Mode.SINGLE_TRANSACTION) {
+        try {
+          commitTransaction(connection);
+        } catch (SQLException e) {
+          onError(e);
+          return;
+        }
+      }
+      done = true;
+      Subscriber<? super T> s = subscriber;
+      subscriber = null;
+      if (release(false) && s != null) {
+        s.onComplete();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      subscriber = null;
+      Subscription s = subscription;
+      if (s != null) {
+        s.cancel();
+      }
+      // a request or signal in progress may still be using the connection, so the last one out releases it
+      if (active.get() == 0) {
+        release(true);
+      }
+    }
+
+    private void exit() {
+      if (active.decrementAndGet() == 0 && cancelled) {
+        release(true);
+      }
+    }
+
+    /**
+     * @return false if the connection was already released, eg by cancelling
+     */
+    private boolean release(boolean rollBack) {
+      if (!released.compareAndSet(false, true)) {
+        return false;
+      }
+      Connection c = connection;
+      if (c != null) {
+        if (rollBack && mode != Mode.AUTO_COMMIT) {
+          rollBackTransaction(c);
+        }
+        closeConnection(c);
+      }
+      return true;
+    }
+  }
+}
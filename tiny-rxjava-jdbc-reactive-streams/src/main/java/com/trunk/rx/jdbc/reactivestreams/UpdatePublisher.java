@@ -0,0 +1,106 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.PreparedStatementBuilder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * A {@link Publisher} that wraps {@link PreparedStatement#executeUpdate()} from the given
+ * {@link PreparedStatementBuilder} and emits a single {@link Integer} containing its result.
+ * <p>
+ * The statement is executed on the first request, and canceled if the subscriber cancels
+ * while it is executing, otherwise it is just closed.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement} and does not close the given {@link Connection}.
+ */
+public class UpdatePublisher implements Publisher<Integer> {
+
+  private final Connection connection;
+  private final PreparedStatementBuilder preparedStatementBuilder;
+
+  public static UpdatePublisher using(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    return new UpdatePublisher(connection, preparedStatementBuilder);
+  }
+
+  private UpdatePublisher(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    this.connection = connection;
+    this.preparedStatementBuilder = preparedStatementBuilder;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super Integer> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    subscriber.onSubscribe(new UpdateSubscription(subscriber, connection, preparedStatementBuilder));
+  }
+
+  private static class UpdateSubscription extends RowSubscription<Integer> {
+    private final Connection connection;
+    private final PreparedStatementBuilder preparedStatementBuilder;
+
+    private volatile PreparedStatement preparedStatement;
+    private boolean executed;
+
+    UpdateSubscription(
+      Subscriber<? super Integer> subscriber,
+      Connection connection,
+      PreparedStatementBuilder preparedStatementBuilder
+    ) {
+      super(subscriber);
+      this.connection = connection;
+      this.preparedStatementBuilder = preparedStatementBuilder;
+    }
+
+    @Override
+    void open() throws SQLException {
+      preparedStatement = preparedStatementBuilder.build(connection);
+    }
+
+    @Override
+    Integer next() throws SQLException {
+      if (executed) {
+        return null;
+      }
+      executed = true;
+      int updatedRows;
+      try {
+        updatedRows = preparedStatement.executeUpdate();
+      } finally {
+        preparedStatementBuilder.release(preparedStatement);
+      }
+      Util.closeQuietly(preparedStatement);
+      return updatedRows;
+    }
+
+    @Override
+    boolean exhausted() {
+      return executed;
+    }
+
+    @Override
+    void close() {
+      release();
+      Util.closeQuietly(preparedStatement);
+    }
+
+    @Override
+    void cancelAndClose() {
+      // closing streamed parameters first, as the driver may be blocked reading one
+      release();
+      Util.cancelAndCloseQuietly(preparedStatement);
+    }
+
+    private void release() {
+      PreparedStatement statement = preparedStatement;
+      if (statement != null) {
+        preparedStatementBuilder.release(statement);
+      }
+    }
+  }
+}
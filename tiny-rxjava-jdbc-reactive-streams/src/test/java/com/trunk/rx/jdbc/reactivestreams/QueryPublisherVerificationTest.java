@@ -0,0 +1,69 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Types;
+
+/**
+ * Runs the Reactive Streams TCK against a {@link QueryPublisher} of H2's <code>SYSTEM_RANGE</code>
+ * in a {@link TransactionPublisher}
+ */
+public class QueryPublisherVerificationTest extends PublisherVerification<Long> {
+
+  private final ConnectionProvider provider = new H2ConnectionProvider("QueryPublisherVerificationTest");
+
+  public QueryPublisherVerificationTest() {
+    super(new TestEnvironment());
+  }
+
+  @AfterClass
+  public void closeProvider() throws Exception {
+    provider.close();
+  }
+
+  @Override
+  public Publisher<Long> createPublisher(long elements) {
+    return TransactionPublisher.using(
+      provider,
+      connection -> QueryPublisher.using(
+        connection,
+        DefaultPreparedStatementBuilder.of("SELECT X FROM SYSTEM_RANGE(1, ?)").add(elements, Types.BIGINT),
+        rs -> rs.getLong(1)
+      )
+    )
+      .withSingleTransaction();
+  }
+
+  @Override
+  public Publisher<Long> createFailedPublisher() {
+    return TransactionPublisher.using(
+      new ConnectionProvider() {
+        @Override
+        public Connection call() {
+          throw new RuntimeException(new SQLTransientConnectionException("no connections"));
+        }
+
+        @Override
+        public void close() {
+        }
+      },
+      connection -> QueryPublisher.using(connection, c -> c.prepareStatement("SELECT 1"), rs -> rs.getLong(1))
+    );
+  }
+
+  /**
+   * Every element is a row read from the database, so keep the streams the TCK asks for small
+   */
+  @Override
+  public long maxElementsFromPublisher() {
+    return 1024;
+  }
+}
@@ -0,0 +1,248 @@
+package com.trunk.rx.jdbc.reactivestreams;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.mockito.InOrder;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TransactionPublisherTest {
+  @Test
+  public void shouldReadOneRowPerRequest() throws Exception {
+    Connection c = connectionWithRows(1, 2, 3);
+    ResultSet rs = c.prepareStatement("").executeQuery();
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(providerOf(c), connection -> query(connection)).subscribe(s);
+
+    verify(c, never()).prepareStatement("SELECT id FROM test");
+    s.subscription.request(2);
+    assertEquals(s.values, Arrays.asList(1, 2));
+    verify(rs, times(2)).next();
+    s.subscription.request(2);
+    assertEquals(s.values, Arrays.asList(1, 2, 3));
+    assertTrue(s.completed);
+    verify(c, times(1)).setAutoCommit(eq(true));
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void singleTransactionShouldCommitOnComplete() throws Exception {
+    Connection c = connectionWithRows(1, 2);
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(providerOf(c), connection -> query(connection)).withSingleTransaction().subscribe(s);
+
+    s.subscription.request(Long.MAX_VALUE);
+    assertEquals(s.values, Arrays.asList(1, 2));
+    assertTrue(s.completed);
+    verify(c, times(1)).setAutoCommit(eq(false));
+    verify(c, times(1)).commit();
+    verify(c, never()).rollback();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void singleTransactionShouldRollBackWhenCancelled() throws Exception {
+    Connection c = connectionWithRows(1, 2);
+    PreparedStatement ps = c.prepareStatement("");
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(providerOf(c), connection -> query(connection)).withSingleTransaction().subscribe(s);
+
+    s.subscription.request(1);
+    s.subscription.cancel();
+    assertEquals(s.values, Arrays.asList(1));
+    verify(ps, times(1)).cancel();
+    verify(c, never()).commit();
+    verify(c, times(1)).rollback();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void shouldAcquireConnectionAfterOnSubscribe() throws Exception {
+    Connection c = connectionWithRows(1);
+    ResultSet rs = c.prepareStatement("").executeQuery();
+    boolean[] acquired = new boolean[1];
+    boolean[] acquiredInOnSubscribe = new boolean[1];
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    when(provider.call()).thenAnswer(invocation -> {
+      acquired[0] = true;
+      return c;
+    });
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<Integer>() {
+      @Override
+      public void onSubscribe(Subscription subscription) {
+        super.onSubscribe(subscription);
+        acquiredInOnSubscribe[0] = acquired[0];
+      }
+    };
+    TransactionPublisher.using(provider, connection -> query(connection)).subscribe(s);
+
+    assertFalse(acquiredInOnSubscribe[0]);
+    verify(provider, times(1)).call();
+    verify(c, times(1)).setAutoCommit(eq(true));
+    verify(rs, never()).next();
+    s.subscription.request(1);
+    assertEquals(s.values, Arrays.asList(1));
+  }
+
+  @Test
+  public void shouldNotAcquireConnectionWhenCancelledInOnSubscribe() throws Exception {
+    ConnectionProvider provider = providerOf(connectionWithRows(1));
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<Integer>() {
+      @Override
+      public void onSubscribe(Subscription subscription) {
+        super.onSubscribe(subscription);
+        subscription.cancel();
+      }
+    };
+    TransactionPublisher.using(provider, connection -> query(connection)).subscribe(s);
+
+    s.subscription.request(1);
+    verify(provider, never()).call();
+    assertTrue(s.values.isEmpty());
+  }
+
+  @Test
+  public void shouldSignalConnectionFailureWithoutRequests() throws Exception {
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    RuntimeException failure = new RuntimeException("no connections");
+    when(provider.call()).thenThrow(failure);
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(provider, connection -> query(connection)).subscribe(s);
+
+    assertNotNull(s.subscription);
+    assertEquals(s.error, failure);
+  }
+
+  @Test
+  public void shouldReleaseAfterReadingStopsWhenCancelledFromOnNext() throws Exception {
+    Connection c = connectionWithRows(1, 2, 3);
+    PreparedStatement ps = c.prepareStatement("");
+    boolean[] inOnNext = new boolean[1];
+    boolean[] releasedInOnNext = new boolean[1];
+    doAnswer(invocation -> {
+      releasedInOnNext[0] |= inOnNext[0];
+      return null;
+    }).when(c).rollback();
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<Integer>() {
+      @Override
+      public void onNext(Integer t) {
+        inOnNext[0] = true;
+        super.onNext(t);
+        subscription.cancel();
+        inOnNext[0] = false;
+      }
+    };
+    TransactionPublisher.using(providerOf(c), connection -> query(connection)).withSingleTransaction().subscribe(s);
+
+    s.subscription.request(Long.MAX_VALUE);
+    assertEquals(s.values, Arrays.asList(1));
+    assertFalse(releasedInOnNext[0]);
+    InOrder inOrder = inOrder(ps, c);
+    inOrder.verify(ps).cancel();
+    inOrder.verify(c).rollback();
+    inOrder.verify(c).close();
+  }
+
+  @Test
+  public void transactionPerEventShouldCommitPerEvent() throws Exception {
+    Connection c = connectionWithRows(1, 2, 3);
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(providerOf(c), connection -> query(connection)).withTransactionPerEvent().subscribe(s);
+
+    s.subscription.request(Long.MAX_VALUE);
+    assertTrue(s.completed);
+    verify(c, times(3)).commit();
+  }
+
+  @Test
+  public void updateShouldEmitUpdatedRows() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeUpdate()).thenReturn(4);
+    RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+    TransactionPublisher.using(providerOf(c), connection -> UpdatePublisher.using(connection, con -> con.prepareStatement("DELETE FROM test")))
+      .withSingleTransaction()
+      .subscribe(s);
+
+    s.subscription.request(1);
+    assertEquals(s.values, Arrays.asList(4));
+    assertTrue(s.completed);
+    assertNull(s.error);
+    verify(c, times(1)).commit();
+  }
+
+  private static Publisher<Integer> query(Connection connection) {
+    return QueryPublisher.using(connection, c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1));
+  }
+
+  private static ConnectionProvider providerOf(Connection c) {
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    when(provider.call()).thenReturn(c);
+    return provider;
+  }
+
+  private static Connection connectionWithRows(Integer first, Integer... rest) throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet rs = mock(ResultSet.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeQuery()).thenReturn(rs);
+    Boolean[] more = new Boolean[rest.length + 1];
+    Arrays.fill(more, true);
+    more[rest.length] = false;
+    when(rs.next()).thenReturn(true, more);
+    when(rs.getInt(1)).thenReturn(first, rest);
+    return c;
+  }
+
+  private static class RecordingSubscriber<T> implements Subscriber<T> {
+    private final List<T> values = new ArrayList<>();
+    Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T t) {
+      values.add(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.trunk.rx.jdbc.rx2.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.sql.QueryBuilder;
+import com.trunk.rx.jdbc.rx2.sql.RowSubscription;
+import org.jooq.Cursor;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+import java.util.Objects;
+
+import static com.trunk.rx.jdbc.jooq.Util.cancelQuietly;
+import static com.trunk.rx.jdbc.jooq.Util.closeQuietly;
+
+/**
+ * Reads each row of the {@link Cursor} from {@link ResultQuery#fetchLazy()}.
+ * When cancelled the query is canceled too, unless it is an insert and its first row has been read.
+ */
+class CursorSubscription<R extends Record, T> extends RowSubscription<T> {
+  private final Connection connection;
+  private final QueryBuilder<? extends ResultQuery<? extends R>> queryBuilder;
+  private final RecordMapper<? super R, ? extends T> recordMapper;
+  private final boolean insert;
+
+  private volatile boolean reading;
+  private volatile ResultQuery<? extends R> query;
+  private volatile Cursor<? extends R> cursor;
+
+  CursorSubscription(
+    Subscriber<? super T> subscriber,
+    Connection connection,
+    QueryBuilder<? extends ResultQuery<? extends R>> queryBuilder,
+    RecordMapper<? super R, ? extends T> recordMapper,
+    boolean insert
+  ) {
+    super(subscriber);
+    this.connection = connection;
+    this.queryBuilder = queryBuilder;
+    this.recordMapper = recordMapper;
+    this.insert = insert;
+  }
+
+  @Override
+  protected void open() throws Exception {
+    query = queryBuilder.build(connection);
+    cursor = query.fetchLazy();
+  }
+
+  @Override
+  protected T next() {
+    if (!reading) {
+      reading = true;
+    }
+    return cursor.hasNext()
+      ? Objects.requireNonNull(recordMapper.map(cursor.fetchOne()), "The RecordMapper returned a null value")
+      : null;
+  }
+
+  @Override
+  protected void close() {
+    closeQuietly(cursor);
+    closeQuietly(query);
+  }
+
+  @Override
+  protected void cancelAndClose() {
+    // returned rows, eg generated keys, may have been emitted, so don't abort the insert
+    if (!insert || !reading) {
+      cancelQuietly(query);
+    }
+    close();
+  }
+}
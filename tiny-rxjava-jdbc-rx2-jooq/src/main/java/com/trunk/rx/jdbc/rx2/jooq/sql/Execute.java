@@ -0,0 +1,72 @@
+package com.trunk.rx.jdbc.rx2.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.jooq.Util;
+import com.trunk.rx.jdbc.jooq.sql.ContextQueryBuilder;
+import com.trunk.rx.jdbc.jooq.sql.QueryBuilder;
+import com.trunk.rx.jdbc.rx2.sql.Execution;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.exceptions.Exceptions;
+import org.jooq.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+
+/**
+ * The RxJava 2 equivalent of {@link com.trunk.rx.jdbc.jooq.sql.Execute}. A {@link Single} that wraps
+ * {@link Query#execute()} and emits the result of {@link Query#execute() execute()}.
+ * <p>
+ * The Query will be canceled if the observer disposes
+ * while it is executing, otherwise it is just closed.
+ * <p>
+ * This manages the lifecycle of the Query and does not close the {@link Connection}.
+ */
+public class Execute extends Single<Integer> {
+  private static final Logger log = LoggerFactory.getLogger(Execute.class);
+
+  private final Connection connection;
+  private final QueryBuilder<? extends Query> queryBuilder;
+
+  public static Execute using(Connection connection, QueryBuilder<? extends Query> queryBuilder) {
+    return new Execute(connection, queryBuilder);
+  }
+
+  /**
+   * Build the query with a {@link org.jooq.DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static Execute using(Connection connection, JooqContext context, ContextQueryBuilder<? extends Query> queryBuilder) {
+    return new Execute(connection, c -> queryBuilder.build(context.dsl(c)));
+  }
+
+  private Execute(Connection connection, QueryBuilder<? extends Query> queryBuilder) {
+    this.connection = connection;
+    this.queryBuilder = queryBuilder;
+  }
+
+  @Override
+  protected void subscribeActual(SingleObserver<? super Integer> observer) {
+    Execution execution = new Execution();
+    observer.onSubscribe(execution);
+    try (Query query = queryBuilder.build(connection)) {
+      if (!execution.start(() -> Util.cancelAndCloseQuietly(query))) {
+        return;
+      }
+      log.debug("Execute {}", query);
+      int i = query.execute();
+      if (execution.finish()) {
+        observer.onSuccess(i);
+      }
+    } catch (Throwable t) {
+      Exceptions.throwIfFatal(t);
+      log.debug("onError: ", t);
+      if (execution.isDisposed()) {
+        log.debug("disposed");
+      } else {
+        observer.onError(t);
+      }
+    }
+  }
+}
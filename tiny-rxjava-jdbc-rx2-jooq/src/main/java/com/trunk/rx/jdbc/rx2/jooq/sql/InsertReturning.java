@@ -0,0 +1,216 @@
+package com.trunk.rx.jdbc.rx2.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.jooq.sql.ContextQueryBuilder;
+import com.trunk.rx.jdbc.jooq.sql.InsertReturningQueryBuilder;
+import com.trunk.rx.jdbc.rx2.sql.RowSubscription;
+import io.reactivex.Flowable;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.InsertResultStep;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.Result;
+import org.jooq.ResultQuery;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.JDBCUtils;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static com.trunk.rx.jdbc.jooq.Util.cancelQuietly;
+import static com.trunk.rx.jdbc.jooq.Util.closeQuietly;
+
+/**
+ * The RxJava 2 equivalent of {@link com.trunk.rx.jdbc.jooq.sql.InsertReturning}. A {@link Flowable} that
+ * wraps {@link InsertResultStep#fetch()} and emits an event for row of the returned {@link Result}.
+ * Each row is unmarshalled using the given {@link RecordMapper}, which must not return null.
+ * <p>
+ * The insert is executed on the first request, and canceled if the subscriber cancels while it is executing.
+ * Since the whole {@link Result} is fetched before the first {@link Record} is emitted, the Query is
+ * then just closed.
+ * <p>
+ * {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)} streams the returned rows
+ * from a {@link Cursor} instead, as {@link Select}, but only cancels the insert before its first row is read.
+ * <p>
+ * This manages the lifecycle of the Query and does not close the {@link Connection}.
+ */
+public class InsertReturning<T> extends Flowable<T> {
+
+  private final Function<Subscriber<? super T>, RowSubscription<T>> subscriptionFactory;
+
+  public static <R extends Record, T> InsertReturning<T> using(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder,
+    RecordMapper<? super R, ? extends T> recordMapper
+  ) {
+    return new InsertReturning<>(subscriber -> new ResultSubscription<>(subscriber, connection, queryBuilder, recordMapper));
+  }
+
+  /**
+   * Build the insert with a {@link DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static <R extends Record, T> InsertReturning<T> using(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder,
+    RecordMapper<? super R, ? extends T> recordMapper
+  ) {
+    return using(connection, c -> queryBuilder.build(context.dsl(c)), recordMapper);
+  }
+
+  /**
+   * Execute the insert as a {@link ResultQuery} and emit each returned row from
+   * {@link ResultQuery#fetchLazy()}, so the returned rows of large multi-row inserts are not built
+   * into a jOOQ {@link Result}. The rendered SQL of the insert must contain the returning clause, eg for
+   * {@link org.jooq.SQLDialect#POSTGRES}, and each {@link Record} only has the returned fields.
+   * <p>
+   * The insert is canceled if the subscriber cancels before the first row is read, and after that
+   * just closed. No fetch size is set, so the driver may still buffer every returned row, eg the
+   * PostgreSQL driver always does so. Use {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper, int)}
+   * to bound the rows the driver holds.
+   */
+  public static <T> InsertReturning<T> usingLazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper
+  ) {
+    return usingLazy(connection, queryBuilder, recordMapper, 0);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)},
+   * with {@link ResultQuery#fetchSize(int)} so the driver reads them fetchSize rows at a time.
+   * <p>
+   * Drivers may ignore the fetch size, eg the PostgreSQL driver only honours it when the connection is
+   * not in auto-commit mode, so subscribe within a transaction such as
+   * {@link com.trunk.rx.jdbc.rx2.TransactionContextExecutor#withSingleTransaction()}. This bounds the rows
+   * held in memory, not the time to the first row, as the database still completes the insert before
+   * returning any rows.
+   *
+   * @param fetchSize the number of rows to read per round trip, or 0 for the driver's default
+   */
+  public static <T> InsertReturning<T> usingLazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    return lazy(connection, queryBuilder, c -> DSL.using(c, JDBCUtils.dialect(c)), recordMapper, fetchSize);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper)},
+   * building the insert and the query that executes it with a {@link DSLContext} from the given {@link JooqContext}.
+   */
+  public static <T> InsertReturning<T> usingLazy(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper
+  ) {
+    return usingLazy(connection, context, queryBuilder, recordMapper, 0);
+  }
+
+  /**
+   * Stream the returned rows as {@link #usingLazy(Connection, InsertReturningQueryBuilder, RecordMapper, int)},
+   * building the insert and the query that executes it with a {@link DSLContext} from the given {@link JooqContext}.
+   */
+  public static <T> InsertReturning<T> usingLazy(
+    Connection connection,
+    JooqContext context,
+    ContextQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    return lazy(connection, c -> queryBuilder.build(context.dsl(c)), context::dsl, recordMapper, fetchSize);
+  }
+
+  private static <T> InsertReturning<T> lazy(
+    Connection connection,
+    InsertReturningQueryBuilder<? extends InsertResultStep<?>> queryBuilder,
+    Function<Connection, DSLContext> dsl,
+    RecordMapper<? super Record, ? extends T> recordMapper,
+    int fetchSize
+  ) {
+    if (fetchSize < 0) {
+      throw new IllegalArgumentException("fetchSize must not be negative: " + fetchSize);
+    }
+    return new InsertReturning<>(
+      subscriber -> new CursorSubscription<Record, T>(
+        subscriber,
+        connection,
+        c -> {
+          try (InsertResultStep<?> insert = queryBuilder.build(c)) {
+            return dsl.apply(c)
+              .resultQuery(insert.getSQL(), insert.getBindValues().toArray())
+              .fetchSize(fetchSize);
+          }
+        },
+        recordMapper,
+        true
+      )
+    );
+  }
+
+  private InsertReturning(Function<Subscriber<? super T>, RowSubscription<T>> subscriptionFactory) {
+    this.subscriptionFactory = subscriptionFactory;
+  }
+
+  @Override
+  protected void subscribeActual(Subscriber<? super T> subscriber) {
+    subscriber.onSubscribe(subscriptionFactory.apply(subscriber));
+  }
+
+  private static class ResultSubscription<R extends Record, T> extends RowSubscription<T> {
+    private final Connection connection;
+    private final InsertReturningQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder;
+    private final RecordMapper<? super R, ? extends T> recordMapper;
+
+    private volatile InsertResultStep<? extends R> query;
+    private volatile Iterator<? extends R> result;
+
+    ResultSubscription(
+      Subscriber<? super T> subscriber,
+      Connection connection,
+      InsertReturningQueryBuilder<? extends InsertResultStep<? extends R>> queryBuilder,
+      RecordMapper<? super R, ? extends T> recordMapper
+    ) {
+      super(subscriber);
+      this.connection = connection;
+      this.queryBuilder = queryBuilder;
+      this.recordMapper = recordMapper;
+    }
+
+    @Override
+    protected void open() {
+      query = queryBuilder.build(connection);
+      result = query.fetch().iterator();
+    }
+
+    @Override
+    protected T next() {
+      return result.hasNext()
+        ? Objects.requireNonNull(recordMapper.map(result.next()), "The RecordMapper returned a null value")
+        : null;
+    }
+
+    @Override
+    protected void close() {
+      closeQuietly(query);
+    }
+
+    @Override
+    protected void cancelAndClose() {
+      if (result == null) {
+        // still executing
+        cancelQuietly(query);
+      }
+      closeQuietly(query);
+    }
+  }
+}
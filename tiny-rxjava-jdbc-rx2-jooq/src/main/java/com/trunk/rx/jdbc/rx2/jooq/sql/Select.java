@@ -0,0 +1,61 @@
+package com.trunk.rx.jdbc.rx2.jooq.sql;
+
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.jooq.sql.ContextQueryBuilder;
+import com.trunk.rx.jdbc.jooq.sql.QueryBuilder;
+import io.reactivex.Flowable;
+import org.jooq.Cursor;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.ResultQuery;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+
+/**
+ * The RxJava 2 equivalent of {@link com.trunk.rx.jdbc.jooq.sql.Select}. A {@link Flowable} that wraps
+ * {@link ResultQuery#fetchLazy()} and emits an event for row of the returned {@link Cursor}.
+ * Each row is unmarshalled using the given {@link RecordMapper}, which must not return null.
+ * <p>
+ * The query is executed on the first request, and supports synchronous fusion, see
+ * {@link com.trunk.rx.jdbc.rx2.sql.RowSubscription}. The Cursor will be closed and the Query canceled
+ * if the subscriber cancels before the Cursor is complete, otherwise they are just closed.
+ * <p>
+ * This manages the lifecycle of the Query and Cursor, and does not close the {@link Connection}.
+ */
+public class Select<R extends Record, T> extends Flowable<T> {
+
+  private final Connection connection;
+  private final QueryBuilder<? extends ResultQuery<? extends R>> queryBuilder;
+  private final RecordMapper<? super R, ? extends T> recordMapper;
+
+  public static <R extends Record, T> Select<R, T> using(Connection connection,
+                                                         QueryBuilder<ResultQuery<? extends R>> queryBuilder,
+                                                         RecordMapper<? super R, ? extends T> recordMapper) {
+    return new Select<>(connection, queryBuilder, recordMapper);
+  }
+
+  /**
+   * Build the query with a {@link org.jooq.DSLContext} from the given {@link JooqContext}, rather than
+   * creating a new one for the query.
+   */
+  public static <R extends Record, T> Select<R, T> using(Connection connection,
+                                                         JooqContext context,
+                                                         ContextQueryBuilder<? extends ResultQuery<? extends R>> queryBuilder,
+                                                         RecordMapper<? super R, ? extends T> recordMapper) {
+    return new Select<>(connection, c -> queryBuilder.build(context.dsl(c)), recordMapper);
+  }
+
+  private Select(Connection connection,
+                 QueryBuilder<? extends ResultQuery<? extends R>> queryBuilder,
+                 RecordMapper<? super R, ? extends T> recordMapper) {
+    this.connection = connection;
+    this.queryBuilder = queryBuilder;
+    this.recordMapper = recordMapper;
+  }
+
+  @Override
+  protected void subscribeActual(Subscriber<? super T> subscriber) {
+    subscriber.onSubscribe(new CursorSubscription<>(subscriber, connection, queryBuilder, recordMapper, false));
+  }
+}
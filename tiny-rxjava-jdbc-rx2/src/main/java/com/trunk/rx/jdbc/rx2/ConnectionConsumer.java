@@ -0,0 +1,19 @@
+package com.trunk.rx.jdbc.rx2;
+
+import io.reactivex.Flowable;
+
+import java.sql.Connection;
+
+/**
+ * A function to convert a {@link Connection}s to a {@link Flowable} of Ts.
+ * <p>
+ * Consumers do not need to close the connection when this is used in
+ * {@link ConnectionPool#execute(ConnectionConsumer)} and {@link TransactionContextExecutor}.
+ * Connections are protected from being closed by the {@link com.trunk.rx.jdbc.UnclosableConnection}.
+ * A {@link io.reactivex.Single} or {@link io.reactivex.Completable}, eg from
+ * {@link com.trunk.rx.jdbc.rx2.sql.ExecuteUpdate}, can be returned with <code>toFlowable()</code>.
+ */
+@FunctionalInterface
+public interface ConnectionConsumer<T> {
+  Flowable<T> call(Connection connection);
+}
@@ -0,0 +1,284 @@
+package com.trunk.rx.jdbc.rx2;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import com.trunk.rx.jdbc.Deadline;
+import com.trunk.rx.jdbc.UnclosableConnection;
+import com.trunk.rx.jdbc.listener.Instrumentation;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import org.reactivestreams.Subscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The RxJava 2 equivalent of {@link com.trunk.rx.jdbc.TransactionContextExecutor}. Allows the execution of
+ * a {@link ConnectionConsumer} in a transaction context. Defaults to using auto-commit transactions.
+ * It can be subscribed to as the result of the given {@link ConnectionConsumer}.
+ * <p>
+ * TransactionContextExecutor manages the lifecycle of the connection objects it creates
+ * by getting a connection from the {@link ConnectionProvider} for each subscription.
+ * <p>
+ * A {@link Deadline} can be set with {@link #withDeadline(Duration)} or {@link #withDeadline(Instant)}
+ * to bound the whole execution, from acquiring the connection to the last event.
+ * <p>
+ * Connections are observed by the {@link com.trunk.rx.jdbc.listener.InstrumentationProvider} on the class path, if any.
+ *
+ * @see #withAutoCommit()
+ * @see #withSingleTransaction()
+ * @see #withTransactionPerEvent()
+ */
+public class TransactionContextExecutor<T> extends Flowable<T> {
+  private static final Logger log = LoggerFactory.getLogger(TransactionContext.class);
+
+  public static final AutoCommitTransactionContext AUTO_COMMIT_TRANSACTION_CONTEXT = new AutoCommitTransactionContext();
+  public static final SingleTransactionTransactionContext SINGLE_TRANSACTION_TRANSACTION_CONTEXT = new SingleTransactionTransactionContext();
+  public static final TransactionPerEventTransactionContext TRANSACTION_PER_EVENT_TRANSACTION_CONTEXT = new TransactionPerEventTransactionContext();
+
+  private final TransactionContext transactionContext;
+  private final ConnectionProvider provider;
+  private final ConnectionConsumer<T> connectionConsumer;
+  private final Supplier<Deadline> deadline;
+
+  public TransactionContextExecutor(
+    TransactionContext transactionContext,
+    ConnectionProvider provider,
+    ConnectionConsumer<T> connectionConsumer
+  ) {
+    this(transactionContext, provider, connectionConsumer, null);
+  }
+
+  private TransactionContextExecutor(
+    TransactionContext transactionContext,
+    ConnectionProvider provider,
+    ConnectionConsumer<T> connectionConsumer,
+    Supplier<Deadline> deadline
+  ) {
+    this.transactionContext = transactionContext;
+    this.provider = provider;
+    this.connectionConsumer = connectionConsumer;
+    this.deadline = deadline;
+  }
+
+  @Override
+  protected void subscribeActual(Subscriber<? super T> subscriber) {
+    execute(transactionContext, provider, connectionConsumer, deadline).subscribe(subscriber);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using {@link Connection#setAutoCommit(boolean)} true.
+   *
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)} with auto-commit transactions
+   */
+  public TransactionContextExecutor<T> withAutoCommit() {
+    return new TransactionContextExecutor<>(AUTO_COMMIT_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using a single transaction that will be committed on completion.
+   * On an error or early cancellation the whole transaction will be rolled back.
+   *
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)}
+   */
+  public TransactionContextExecutor<T> withSingleTransaction() {
+    return new TransactionContextExecutor<>(SINGLE_TRANSACTION_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} using a transaction committed
+   * per event emitted from the {@link ConnectionConsumer}.
+   * On an error or early cancellation any currently running transaction will be rolled back.
+   *
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)}
+   */
+  public TransactionContextExecutor<T> withTransactionPerEvent() {
+    return new TransactionContextExecutor<>(TRANSACTION_PER_EVENT_TRANSACTION_CONTEXT, provider, connectionConsumer, deadline);
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} within the given time of each subscription.
+   *
+   * @param timeout the time allowed for each subscription
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)} with a deadline
+   * @see #withDeadline(Instant)
+   */
+  public TransactionContextExecutor<T> withDeadline(Duration timeout) {
+    return new TransactionContextExecutor<>(transactionContext, provider, connectionConsumer, () -> Deadline.after(timeout));
+  }
+
+  /**
+   * Execute the {@link ConnectionConsumer} before the given instant, as
+   * {@link com.trunk.rx.jdbc.TransactionContextExecutor#withDeadline(Instant)}.
+   * If the deadline passes the subscription is cancelled and an {@link SQLTimeoutException} is emitted.
+   *
+   * @param instant the instant by which execution must be complete
+   * @return the result of executing {@link ConnectionConsumer#call(Connection)} with a deadline
+   */
+  public TransactionContextExecutor<T> withDeadline(Instant instant) {
+    Deadline fixed = Deadline.at(instant);
+    return new TransactionContextExecutor<>(transactionContext, provider, connectionConsumer, () -> fixed);
+  }
+
+  private static <T> Flowable<T> execute(
+    TransactionContext transactionContext,
+    ConnectionProvider provider,
+    ConnectionConsumer<T> connectionConsumer,
+    Supplier<Deadline> deadline
+  ) {
+    ConnectionProvider instrumented = Instrumentation.instrument(provider);
+    if (deadline == null) {
+      return transactionContext.f(instrumented, connectionConsumer);
+    }
+    Deadline d = deadline.get();
+    if (d.isExpired()) {
+      log.debug("{} has already passed", d);
+      return Flowable.error(d.timeoutException());
+    }
+    return watch(d, transactionContext.f(d.limit(instrumented), connectionConsumer));
+  }
+
+  /**
+   * Error with a {@link SQLTimeoutException} if the source has not terminated by the deadline,
+   * as {@link Deadline#watch(rx.Observable)}.
+   */
+  private static <T> Flowable<T> watch(Deadline deadline, Flowable<T> source) {
+    Flowable<Long> timer = Flowable.defer(
+      () -> Flowable.timer(Math.max(0, deadline.remainingMillis()), TimeUnit.MILLISECONDS)
+    );
+    return source.timeout(
+      timer,
+      t -> timer,
+      Flowable.defer(() -> {
+        log.debug("Deadline {} exceeded", deadline.instant());
+        return Flowable.<T>error(deadline.timeoutException());
+      })
+    );
+  }
+
+  private static Completable withAutoCommit(Connection connection) {
+    return Completable.fromAction(() -> {
+      log.debug("With auto commit transactions");
+      connection.setAutoCommit(true);
+    });
+  }
+
+  private static Completable withManualTransactions(Connection connection) {
+    return Completable.fromAction(() -> {
+      log.debug("With manual transactions");
+      connection.setAutoCommit(false);
+    });
+  }
+
+  private static void closeConnection(Connection connection) {
+    try {
+      if (!connection.isClosed()) {
+        log.debug("Closing connection");
+        connection.close();
+      }
+    } catch (SQLException e) {
+      log.warn("Unexpected error closing connection", e);
+    }
+  }
+
+  private static void commitTransaction(Connection connection) throws SQLException {
+    if (!connection.isClosed()) {
+      log.debug("Committing transaction");
+      connection.commit();
+    } else {
+      log.warn("Commit called on closed connection");
+    }
+  }
+
+  private static void rollBackTransaction(Connection connection) {
+    try {
+      if (!connection.isClosed()) {
+        log.debug("Rolling-back transaction");
+        connection.rollback();
+      }
+    } catch (SQLException rollbackError) {
+      log.warn("Rollback error", rollbackError);
+    }
+  }
+
+  /**
+   * Get a connection for each subscription and close it once the Flowable using it terminates or is cancelled.
+   * The using Flowable is subscribed to directly, without prefetching, so a transaction is never completed, and
+   * committed, ahead of the subscriber's requests. On cancellation the using Flowable is cancelled, eg rolling back,
+   * before the connection is closed.
+   */
+  private static <T> Flowable<T> usingConnection(ConnectionProvider provider, Function<Connection, Flowable<T>> using) {
+    return Flowable.using(
+      provider::call,
+      using::apply,
+      TransactionContextExecutor::closeConnection,
+      false
+    );
+  }
+
+  /**
+   * Roll back if cancelled before the source terminates. Using cancels its source after it terminates too,
+   * once the transaction has been committed or rolled back.
+   */
+  private static <T> Flowable<T> rollBackWhenCancelled(Connection connection, Flowable<T> source) {
+    AtomicBoolean terminated = new AtomicBoolean();
+    return source
+      .doOnTerminate(() -> terminated.set(true))
+      .doOnCancel(() -> {
+        if (!terminated.get()) {
+          rollBackTransaction(connection);
+        }
+      });
+  }
+
+  public interface TransactionContext {
+    <T> Flowable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer);
+  }
+
+  public static class AutoCommitTransactionContext implements TransactionContext {
+    @Override
+    public <T> Flowable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer) {
+      return usingConnection(
+        provider,
+        c -> withAutoCommit(c)
+          .andThen(consumer.call(new UnclosableConnection(c)))
+      );
+    }
+  }
+
+  public static class SingleTransactionTransactionContext implements TransactionContext {
+    @Override
+    public <T> Flowable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer) {
+      return usingConnection(
+        provider,
+        c -> withManualTransactions(c)
+          .andThen(consumer.call(new UnclosableConnection(c)))
+          .doOnComplete(() -> commitTransaction(c))
+          .doOnError(e -> rollBackTransaction(c))
+          .compose(f -> rollBackWhenCancelled(c, f))
+      );
+    }
+  }
+
+  public static class TransactionPerEventTransactionContext implements TransactionContext {
+    @Override
+    public <T> Flowable<T> f(ConnectionProvider provider, ConnectionConsumer<T> consumer) {
+      return usingConnection(
+        provider,
+        c -> withManualTransactions(c)
+          .andThen(consumer.call(new UnclosableConnection(c)))
+          .doOnNext(t -> commitTransaction(c))
+          .doOnError(e -> rollBackTransaction(c))
+          .compose(f -> rollBackWhenCancelled(c, f))
+      );
+    }
+  }
+}
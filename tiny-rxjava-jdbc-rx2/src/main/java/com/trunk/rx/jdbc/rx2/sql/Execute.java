@@ -0,0 +1,70 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.PreparedStatementBuilder;
+import io.reactivex.Completable;
+import io.reactivex.CompletableObserver;
+import io.reactivex.exceptions.Exceptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * A {@link Completable} that wraps {@link PreparedStatement#execute()} from the given
+ * {@link PreparedStatementBuilder}. It completes once the statement has executed - the output is
+ * suppressed since execute is a legacy general-purpose methods.
+ * <p>
+ * The {@link PreparedStatement} will be canceled if the observer disposes
+ * while it is executing, otherwise it is just closed.
+ * <p>
+ * It manages the lifecycle of the {@link PreparedStatement}
+ * and does not close the given {@link Connection}.
+ */
+public class Execute extends Completable {
+  private static final Logger log = LoggerFactory.getLogger(Execute.class);
+
+  private final Connection connection;
+  private final PreparedStatementBuilder preparedStatementBuilder;
+
+  public static Execute using(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    return new Execute(connection, preparedStatementBuilder);
+  }
+
+  private Execute(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    this.connection = connection;
+    this.preparedStatementBuilder = preparedStatementBuilder;
+  }
+
+  @Override
+  protected void subscribeActual(CompletableObserver observer) {
+    Execution execution = new Execution();
+    observer.onSubscribe(execution);
+    try (PreparedStatement preparedStatement = preparedStatementBuilder.build(connection)) {
+      if (!execution.start(() -> {
+        // closing streamed parameters first, as the driver may be blocked reading one
+        preparedStatementBuilder.release(preparedStatement);
+        Util.cancelAndCloseQuietly(preparedStatement);
+      })) {
+        return;
+      }
+      try {
+        preparedStatement.execute();
+      } finally {
+        preparedStatementBuilder.release(preparedStatement);
+      }
+      if (execution.finish()) {
+        observer.onComplete();
+      }
+    } catch (Throwable t) {
+      Exceptions.throwIfFatal(t);
+      log.debug("onError: " + t.getMessage());
+      if (execution.isDisposed()) {
+        log.debug("disposed");
+      } else {
+        observer.onError(t);
+      }
+    }
+  }
+}
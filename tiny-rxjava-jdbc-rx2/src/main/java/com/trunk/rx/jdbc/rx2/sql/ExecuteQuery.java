@@ -0,0 +1,171 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.PreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ResultSetChunkMapper;
+import com.trunk.rx.jdbc.sql.ResultSetMapper;
+import io.reactivex.Flowable;
+import org.reactivestreams.Subscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link Flowable} that wraps {@link PreparedStatement#executeQuery()} from the given
+ * {@link PreparedStatementBuilder}. The given {@link ResultSetMapper} is used to unmarshal each
+ * returned row, or a {@link ResultSetChunkMapper} to unmarshal chunks of rows. Since RxJava 2 does not
+ * allow null events the mapper must not return null.
+ * <p>
+ * The statement is executed on the first request and rows are read as they are requested, or polled
+ * by a fusing consumer, see {@link RowSubscription}.
+ * <p>
+ * The {@link PreparedStatement} will be canceled if the subscriber cancels
+ * while it is executing or its {@link ResultSet} is being read, otherwise they are just closed.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement} and the required {@link ResultSet} and does not close the given {@link Connection}.
+ */
+public class ExecuteQuery<T> extends Flowable<T> {
+
+  private final Connection connection;
+  private final PreparedStatementBuilder preparedStatementBuilder;
+  private final RowReader<T> rowReader;
+
+  public static <T> ExecuteQuery<T> using(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper
+  ) {
+    return new ExecuteQuery<>(
+      connection,
+      preparedStatementBuilder,
+      resultSet -> resultSet.next()
+        ? Objects.requireNonNull(resultSetMapper.f(resultSet), "The ResultSetMapper returned a null value")
+        : null
+    );
+  }
+
+  /**
+   * Emit {@link List}s of up to chunkSize rows, each unmarshalled using the given {@link ResultSetMapper}.
+   * Requests are counted in chunks, so the per event overhead is shared across the rows of a chunk.
+   */
+  public static <T> ExecuteQuery<List<T>> usingChunks(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetMapper<? extends T> resultSetMapper,
+    int chunkSize
+  ) {
+    return usingChunks(connection, preparedStatementBuilder, ResultSetChunkMapper.<T>list(resultSetMapper), chunkSize);
+  }
+
+  /**
+   * Emit chunks of up to chunkSize rows, each created and filled by the given {@link ResultSetChunkMapper}.
+   * Requests are counted in chunks, so the per event overhead is shared across the rows of a chunk.
+   */
+  public static <C> ExecuteQuery<C> usingChunks(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    ResultSetChunkMapper<C> chunkMapper,
+    int chunkSize
+  ) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return new ExecuteQuery<>(
+      connection,
+      preparedStatementBuilder,
+      resultSet -> {
+        C chunk = null;
+        for (int rows = 0; rows < chunkSize && resultSet.next(); ++rows) {
+          if (chunk == null) {
+            chunk = chunkMapper.create(chunkSize);
+          }
+          chunkMapper.append(chunk, resultSet);
+        }
+        return chunk;
+      }
+    );
+  }
+
+  private ExecuteQuery(
+    Connection connection,
+    PreparedStatementBuilder preparedStatementBuilder,
+    RowReader<T> rowReader
+  ) {
+    this.connection = connection;
+    this.preparedStatementBuilder = preparedStatementBuilder;
+    this.rowReader = rowReader;
+  }
+
+  @Override
+  protected void subscribeActual(Subscriber<? super T> subscriber) {
+    subscriber.onSubscribe(new ResultSetSubscription<>(subscriber, connection, preparedStatementBuilder, rowReader));
+  }
+
+  @FunctionalInterface
+  private interface RowReader<T> {
+    /**
+     * @return the next event read from the {@link ResultSet}, or null if there are no more rows
+     */
+    T read(ResultSet resultSet) throws SQLException;
+  }
+
+  private static class ResultSetSubscription<T> extends RowSubscription<T> {
+    private final Connection connection;
+    private final PreparedStatementBuilder preparedStatementBuilder;
+    private final RowReader<T> rowReader;
+
+    private volatile PreparedStatement preparedStatement;
+    private volatile ResultSet resultSet;
+
+    ResultSetSubscription(
+      Subscriber<? super T> subscriber,
+      Connection connection,
+      PreparedStatementBuilder preparedStatementBuilder,
+      RowReader<T> rowReader
+    ) {
+      super(subscriber);
+      this.connection = connection;
+      this.preparedStatementBuilder = preparedStatementBuilder;
+      this.rowReader = rowReader;
+    }
+
+    @Override
+    protected void open() throws SQLException {
+      preparedStatement = preparedStatementBuilder.build(connection);
+      resultSet = preparedStatement.executeQuery();
+      preparedStatementBuilder.release(preparedStatement);
+    }
+
+    @Override
+    protected T next() throws SQLException {
+      return rowReader.read(resultSet);
+    }
+
+    @Override
+    protected void close() {
+      release();
+      Util.closeQuietly(resultSet);
+      Util.closeQuietly(preparedStatement);
+    }
+
+    @Override
+    protected void cancelAndClose() {
+      // closing streamed parameters first, as the driver may be blocked reading one
+      release();
+      Util.cancelAndCloseQuietly(preparedStatement);
+      Util.closeQuietly(resultSet);
+    }
+
+    private void release() {
+      PreparedStatement statement = preparedStatement;
+      if (statement != null) {
+        preparedStatementBuilder.release(statement);
+      }
+    }
+  }
+}
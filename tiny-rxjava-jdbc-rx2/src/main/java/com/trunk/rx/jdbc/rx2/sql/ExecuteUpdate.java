@@ -0,0 +1,99 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import com.trunk.rx.jdbc.Util;
+import com.trunk.rx.jdbc.sql.PreparedStatementBuilder;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * A {@link Single} that wraps {@link PreparedStatement#executeUpdate()} from the given
+ * {@link PreparedStatementBuilder}. It emits the result of {@link PreparedStatement#executeUpdate() executeUpdate()}.
+ * <p>
+ * The {@link PreparedStatement} will be canceled if the observer disposes
+ * while it is executing, otherwise it is just closed.
+ * <p>
+ * It manages the lifecycle of the
+ * {@link PreparedStatement} and does not close the given {@link Connection}.
+ */
+public class ExecuteUpdate extends Single<Integer> {
+  private static final Logger log = LoggerFactory.getLogger(ExecuteUpdate.class);
+
+  private final Connection connection;
+  private final PreparedStatementBuilder preparedStatementBuilder;
+
+  public static ExecuteUpdate using(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    return new ExecuteUpdate(connection, preparedStatementBuilder);
+  }
+
+  /**
+   * Execute an update for each chunk of up to chunkSize keys, eg a bulk delete by a large set of ids
+   * using {@link com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder#addIn(java.util.Collection, int)}.
+   * Chunks are executed one after another on the given {@link Connection}, and keys are requested from
+   * the source as each chunk is needed.
+   *
+   * @param connection    the connection to execute each update on
+   * @param keys          the keys to be chunked
+   * @param chunkSize     the maximum number of keys in each chunk
+   * @param chunkToUpdate creates the {@link PreparedStatementBuilder} for each chunk
+   * @return a {@link Flowable} of the updated row counts, one per chunk
+   */
+  public static <K> Flowable<Integer> inChunks(
+    Connection connection,
+    Flowable<K> keys,
+    int chunkSize,
+    Function<? super List<K>, ? extends PreparedStatementBuilder> chunkToUpdate
+  ) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    return keys
+      .buffer(chunkSize)
+      .concatMapSingle(chunk -> using(connection, chunkToUpdate.apply(chunk)));
+  }
+
+  private ExecuteUpdate(Connection connection, PreparedStatementBuilder preparedStatementBuilder) {
+    this.connection = connection;
+    this.preparedStatementBuilder = preparedStatementBuilder;
+  }
+
+  @Override
+  protected void subscribeActual(SingleObserver<? super Integer> observer) {
+    Execution execution = new Execution();
+    observer.onSubscribe(execution);
+    try (PreparedStatement preparedStatement = preparedStatementBuilder.build(connection)) {
+      if (!execution.start(() -> {
+        // closing streamed parameters first, as the driver may be blocked reading one
+        preparedStatementBuilder.release(preparedStatement);
+        Util.cancelAndCloseQuietly(preparedStatement);
+      })) {
+        return;
+      }
+      int updatedRows;
+      try {
+        updatedRows = preparedStatement.executeUpdate();
+      } finally {
+        preparedStatementBuilder.release(preparedStatement);
+      }
+      if (execution.finish()) {
+        observer.onSuccess(updatedRows);
+      }
+    } catch (Throwable t) {
+      Exceptions.throwIfFatal(t);
+      log.debug("onError: " + t.getMessage());
+      if (execution.isDisposed()) {
+        log.debug("disposed");
+      } else {
+        observer.onError(t);
+      }
+    }
+  }
+}
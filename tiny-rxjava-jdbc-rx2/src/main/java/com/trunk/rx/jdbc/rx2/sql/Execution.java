@@ -0,0 +1,57 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Disposable} for a single statement execution, eg for a {@link io.reactivex.Single} or
+ * {@link io.reactivex.Completable}. Disposing while the statement is executing cancels it, otherwise
+ * the statement is just closed by its owner.
+ */
+public final class Execution implements Disposable {
+  private static final Logger log = LoggerFactory.getLogger(Execution.class);
+
+  private final AtomicBoolean executing = new AtomicBoolean(true);
+  private volatile Runnable canceller;
+  private volatile boolean disposed;
+
+  /**
+   * Start executing.
+   *
+   * @param canceller cancels and closes the statement if this is disposed while executing
+   * @return false if this has already been disposed, so the statement should not be executed
+   */
+  public boolean start(Runnable canceller) {
+    this.canceller = canceller;
+    return !disposed;
+  }
+
+  /**
+   * Finish executing.
+   *
+   * @return false if this was disposed while executing, so the result should not be emitted
+   */
+  public boolean finish() {
+    return executing.getAndSet(false) && !disposed;
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    if (executing.getAndSet(false)) {
+      Runnable c = canceller;
+      if (c != null) {
+        log.debug("cancelling");
+        c.run();
+      }
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+}
@@ -0,0 +1,278 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.fuseable.QueueSubscription;
+import io.reactivex.plugins.RxJavaPlugins;
+import org.reactivestreams.Subscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A back pressure sensitive {@link org.reactivestreams.Subscription} that reads rows one at a time,
+ * eg from a {@link java.sql.ResultSet}. The statement is executed on the first request, or the first
+ * {@link #poll()} when fused, so it can be cancelled while executing.
+ * <p>
+ * Synchronous fusion is supported, so a fusing consumer reads rows with {@link #poll()} directly rather
+ * than through {@link Subscriber#onNext(Object)} and its own queue. Fusion across an asynchronous boundary,
+ * eg {@link io.reactivex.Flowable#observeOn(io.reactivex.Scheduler)}, is refused so rows are never read,
+ * and statements never executed, on the consumer's scheduler.
+ * <p>
+ * Fusion is negotiated through {@link QueueSubscription}, which RxJava 2 only provides in its internal
+ * <code>io.reactivex.internal.fuseable</code> package. That package is not covered by RxJava's semantic versioning,
+ * so this class, and the module, depend on the RxJava 2 version range declared in its build, and may need changing
+ * for other versions. Nothing else internal to RxJava is used.
+ * <p>
+ * Cancellation is checked before the first row and then every {@link #CANCELLED_CHECK_INTERVAL} rows,
+ * as cancelling also cancels or closes the statement, which stops reading sooner.
+ * If the subscriber cancels before completion the execution is cancelled, otherwise
+ * resources are just closed once reading stops.
+ *
+ * @param <T> the type of each row
+ */
+public abstract class RowSubscription<T> implements QueueSubscription<T> {
+  private static final Logger log = LoggerFactory.getLogger(RowSubscription.class);
+
+  /**
+   * The number of rows emitted between checks for cancellation.
+   */
+  public static final int CANCELLED_CHECK_INTERVAL = 64;
+
+  private final AtomicLong requested = new AtomicLong();
+  private final Subscriber<? super T> subscriber;
+
+  private volatile boolean cancelled;
+  private volatile boolean done;
+  private boolean opened;
+  private T peeked;
+
+  protected RowSubscription(Subscriber<? super T> subscriber) {
+    this.subscriber = subscriber;
+  }
+
+  /**
+   * Prepare and execute the statement.
+   */
+  protected abstract void open() throws Exception;
+
+  /**
+   * @return the next row, or null if there are no more rows
+   */
+  protected abstract T next() throws Exception;
+
+  /**
+   * Close the resources quietly, without cancelling.
+   */
+  protected abstract void close();
+
+  /**
+   * Cancel the execution, if any, and close the resources quietly.
+   */
+  protected abstract void cancelAndClose();
+
+  @Override
+  public final void request(long n) {
+    if (n <= 0) {
+      RxJavaPlugins.onError(new IllegalArgumentException("n > 0 required but it was " + n));
+      return;
+    }
+    if (add(n) == 0L) {
+      if (n == Long.MAX_VALUE) {
+        requestAll();
+      } else {
+        requestSome(n);
+      }
+    }
+  }
+
+  private long add(long n) {
+    while (true) {
+      long current = requested.get();
+      if (current == Long.MAX_VALUE) {
+        return current;
+      }
+      long next = current + n;
+      if (next < 0) {
+        next = Long.MAX_VALUE;
+      }
+      if (requested.compareAndSet(current, next)) {
+        return current;
+      }
+    }
+  }
+
+  private void requestAll() {
+    // fast path
+    final Subscriber<? super T> s = subscriber;
+    int untilCheck = 0;
+    try {
+      while (true) {
+        if (untilCheck == 0) {
+          if (cancelled) {
+            close();
+            return;
+          }
+          untilCheck = CANCELLED_CHECK_INTERVAL;
+        }
+        --untilCheck;
+        T row = read();
+        if (row == null) {
+          complete();
+          return;
+        }
+        s.onNext(row);
+      }
+    } catch (Throwable t) {
+      closeAndHandleException(t);
+    }
+  }
+
+  private void requestSome(long n) {
+    // back pressure path
+    final Subscriber<? super T> s = subscriber;
+    long emitted = 0L;
+    int untilCheck = 0;
+    try {
+      while (true) {
+        while (emitted != n) {
+          if (untilCheck == 0) {
+            if (cancelled) {
+              close();
+              return;
+            }
+            untilCheck = CANCELLED_CHECK_INTERVAL;
+          }
+          --untilCheck;
+          T row = read();
+          if (row == null) {
+            complete();
+            return;
+          }
+          s.onNext(row);
+          ++emitted;
+        }
+        n = requested.get();
+        if (emitted == n) {
+          n = requested.addAndGet(-emitted);
+          if (n == 0L) {
+            return;
+          }
+          emitted = 0L;
+        }
+      }
+    } catch (Throwable t) {
+      closeAndHandleException(t);
+    }
+  }
+
+  private T read() throws Exception {
+    // the emission loops stop at the last row, so only polling needs to check done first
+    T row;
+    try {
+      if (!opened) {
+        opened = true;
+        open();
+      }
+      row = next();
+    } catch (Exception e) {
+      done = true;
+      close();
+      throw e;
+    }
+    if (row == null) {
+      done = true;
+      close();
+    }
+    return row;
+  }
+
+  private void complete() {
+    if (cancelled) {
+      log.debug("cancelled");
+    } else {
+      log.debug("onComplete");
+      subscriber.onComplete();
+    }
+  }
+
+  private void closeAndHandleException(Throwable t) {
+    Exceptions.throwIfFatal(t);
+    done = true;
+    try {
+      close();
+    } finally {
+      log.debug("onError: " + t.getMessage());
+      if (cancelled) {
+        log.debug("cancelled");
+      } else {
+        subscriber.onError(t);
+      }
+    }
+  }
+
+  @Override
+  public final void cancel() {
+    if (cancelled) {
+      return;
+    }
+    cancelled = true;
+    if (done) {
+      close();
+    } else {
+      log.debug("cancelling");
+      cancelAndClose();
+    }
+  }
+
+  @Override
+  public final int requestFusion(int mode) {
+    if ((mode & BOUNDARY) != 0) {
+      return NONE;
+    }
+    return mode & SYNC;
+  }
+
+  @Override
+  public final T poll() throws Exception {
+    T row = peeked;
+    if (row != null) {
+      peeked = null;
+      return row;
+    }
+    return done ? null : read();
+  }
+
+  @Override
+  public final boolean isEmpty() {
+    if (peeked != null) {
+      return false;
+    }
+    if (done) {
+      return true;
+    }
+    try {
+      peeked = read();
+    } catch (Exception e) {
+      throw Exceptions.propagate(e);
+    }
+    return peeked == null;
+  }
+
+  @Override
+  public final void clear() {
+    peeked = null;
+    done = true;
+    close();
+  }
+
+  @Override
+  public final boolean offer(T value) {
+    throw new UnsupportedOperationException("Should not be called");
+  }
+
+  @Override
+  public final boolean offer(T v1, T v2) {
+    throw new UnsupportedOperationException("Should not be called");
+  }
+}
@@ -0,0 +1,141 @@
+package com.trunk.rx.jdbc.rx2;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import com.trunk.rx.jdbc.rx2.sql.ExecuteUpdate;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static io.reactivex.Flowable.error;
+import static io.reactivex.Flowable.just;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TransactionContextExecutorTest {
+  @Test
+  public void autoCommitShouldSetAutoCommitTrueAndCloseConnection() throws Exception {
+    Connection c = mock(Connection.class);
+    poolOf(c)
+      .execute(connection -> just(1, 2))
+      .withAutoCommit()
+      .test()
+      .assertResult(1, 2);
+    verify(c, times(1)).setAutoCommit(eq(true));
+    verify(c, never()).commit();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void singleTransactionShouldCallCommitOnce() throws Exception {
+    Connection c = mock(Connection.class);
+    poolOf(c)
+      .execute(connection -> just(1, 2))
+      .withSingleTransaction()
+      .test()
+      .assertResult(1, 2);
+    verify(c, times(1)).setAutoCommit(eq(false));
+    verify(c, times(1)).commit();
+    verify(c, never()).rollback();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void singleTransactionShouldCallRollbackOnceOnErrorAndNotCallCommit() throws Exception {
+    Connection c = mock(Connection.class);
+    poolOf(c)
+      .execute(connection -> just(1).concatWith(error(new Exception())))
+      .withSingleTransaction()
+      .test()
+      .assertFailure(Exception.class, 1);
+    verify(c, never()).commit();
+    verify(c, times(1)).rollback();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void singleTransactionShouldRollBackWhenCancelled() throws Exception {
+    Connection c = mock(Connection.class);
+    TestSubscriber<Integer> t = poolOf(c)
+      .execute(connection -> just(1, 2))
+      .withSingleTransaction()
+      .test(1);
+    t.cancel();
+    t.assertValues(1);
+    verify(c, never()).commit();
+    verify(c, times(1)).rollback();
+  }
+
+  @Test
+  public void transactionPerEventShouldCallCommitPerEvent() throws Exception {
+    Connection c = mock(Connection.class);
+    poolOf(c)
+      .execute(connection -> just(1, 2, 3))
+      .withTransactionPerEvent()
+      .test()
+      .assertResult(1, 2, 3);
+    verify(c, times(3)).commit();
+    verify(c, never()).rollback();
+  }
+
+  @Test
+  public void shouldExecuteSingleAsFlowable() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeUpdate()).thenReturn(3);
+    poolOf(c)
+      .execute(connection -> ExecuteUpdate.using(connection, con -> con.prepareStatement("DELETE FROM test")).toFlowable())
+      .withSingleTransaction()
+      .test()
+      .assertResult(3);
+    verify(ps, times(1)).close();
+    verify(c, times(1)).commit();
+  }
+
+  @Test
+  public void deadlineShouldRollBackAndCloseWhenExceeded() throws Exception {
+    Connection c = mock(Connection.class);
+    poolOf(c)
+      .execute(connection -> just(1).concatWith(Flowable.never()))
+      .withSingleTransaction()
+      .withDeadline(Duration.ofMillis(50))
+      .test()
+      .awaitDone(5, TimeUnit.SECONDS)
+      .assertFailure(SQLTimeoutException.class, 1);
+    verify(c, times(1)).rollback();
+    verify(c, never()).commit();
+    verify(c, times(1)).close();
+  }
+
+  @Test
+  public void expiredDeadlineShouldNotAcquireConnection() throws Exception {
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    ConnectionPool.from(provider)
+      .execute(connection -> just(1))
+      .withDeadline(Instant.now().minusSeconds(1))
+      .test()
+      .assertFailure(SQLTimeoutException.class);
+    verify(provider, never()).call();
+  }
+
+  /**
+   * A pool that provides the mock connection itself, rather than an unclosable wrapper, so closing can be verified
+   */
+  private static ConnectionPool poolOf(Connection c) {
+    ConnectionProvider provider = mock(ConnectionProvider.class);
+    when(provider.call()).thenReturn(c);
+    return ConnectionPool.from(provider);
+  }
+}
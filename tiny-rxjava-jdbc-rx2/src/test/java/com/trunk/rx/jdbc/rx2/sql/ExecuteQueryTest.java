@@ -0,0 +1,172 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.internal.fuseable.QueueSubscription;
+import io.reactivex.subscribers.TestSubscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ExecuteQueryTest {
+  @Test
+  public void shouldEmitEachRow() throws Exception {
+    ExecuteQuery.using(connectionWithRows(1, 2, 3), c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+      .assertValues(1, 2, 3);
+  }
+
+  @Test
+  public void shouldEmitRowsInChunks() throws Exception {
+    ExecuteQuery.<Integer>usingChunks(
+      connectionWithRows(1, 2, 3, 4, 5),
+      c -> c.prepareStatement("SELECT id FROM test"),
+      rs -> rs.getInt(1),
+      2
+    )
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+      .assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+  }
+
+  @Test
+  public void shouldNotExecuteUntilRequested() throws Exception {
+    Connection connection = connectionWithRows(1, 2, 3);
+    TestSubscriber<Integer> t = ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .test(0);
+
+    verify(connection, never()).prepareStatement(anyString());
+    t.requestMore(2);
+    t.assertValues(1, 2);
+    t.assertNotComplete();
+    t.requestMore(2);
+    t.assertValues(1, 2, 3);
+    t.assertComplete();
+  }
+
+  @Test
+  public void shouldErrorWhenMapperReturnsNull() throws Exception {
+    ExecuteQuery.using(connectionWithRows(1), c -> c.prepareStatement("SELECT id FROM test"), rs -> null)
+      .test()
+      .assertError(NullPointerException.class);
+  }
+
+  @Test
+  public void shouldPollRowsWhenFused() throws Exception {
+    Connection connection = connectionWithRows(1, 2, 3);
+    PreparedStatement ps = connection.prepareStatement("SELECT id FROM test");
+    List<Integer> polled = new ArrayList<>();
+    int[] mode = new int[1];
+    ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .subscribe(new FusingSubscriber<Integer>(QueueSubscription.SYNC) {
+        @Override
+        void onFused(int fusionMode, QueueSubscription<Integer> qs) throws Exception {
+          mode[0] = fusionMode;
+          assertFalse(qs.isEmpty());
+          for (Integer v = qs.poll(); v != null; v = qs.poll()) {
+            polled.add(v);
+          }
+          assertTrue(qs.isEmpty());
+        }
+      });
+
+    assertEquals(mode[0], QueueSubscription.SYNC);
+    assertEquals(polled, Arrays.asList(1, 2, 3));
+    verify(ps, times(1)).close();
+  }
+
+  @Test
+  public void shouldRefuseFusionAcrossBoundary() throws Exception {
+    int[] mode = new int[]{-1};
+    ExecuteQuery.using(connectionWithRows(1), c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .subscribe(new FusingSubscriber<Integer>(QueueSubscription.ANY | QueueSubscription.BOUNDARY) {
+        @Override
+        void onFused(int fusionMode, QueueSubscription<Integer> qs) {
+          mode[0] = fusionMode;
+          qs.cancel();
+        }
+      });
+
+    assertEquals(mode[0], QueueSubscription.NONE);
+  }
+
+  @Test
+  public void shouldCancelStatementWhenCancelledWhileReading() throws Exception {
+    Connection connection = connectionWithRows(1, 2, 3);
+    PreparedStatement ps = connection.prepareStatement("SELECT id FROM test");
+    TestSubscriber<Integer> t = ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test"), rs -> rs.getInt(1))
+      .test(1);
+
+    t.cancel();
+
+    t.assertValues(1);
+    verify(ps, times(1)).cancel();
+    verify(ps, times(1)).close();
+  }
+
+  // a FlowableSubscriber is subscribed as is, where a plain Subscriber would be wrapped and never see the subscription
+  private abstract static class FusingSubscriber<T> implements FlowableSubscriber<T> {
+    private final int requestedMode;
+
+    FusingSubscriber(int requestedMode) {
+      this.requestedMode = requestedMode;
+    }
+
+    abstract void onFused(int fusionMode, QueueSubscription<T> qs) throws Exception;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onSubscribe(Subscription s) {
+      QueueSubscription<T> qs = (QueueSubscription<T>) s;
+      try {
+        onFused(qs.requestFusion(requestedMode), qs);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public void onNext(T t) {
+    }
+
+    @Override
+    public void onError(Throwable t) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+
+  private static Connection connectionWithRows(Integer first, Integer... rest) throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    ResultSet rs = mock(ResultSet.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeQuery()).thenReturn(rs);
+    Boolean[] more = new Boolean[rest.length + 1];
+    Arrays.fill(more, true);
+    more[rest.length] = false;
+    when(rs.next()).thenReturn(true, more);
+    when(rs.getInt(1)).thenReturn(first, rest);
+    return c;
+  }
+}
@@ -0,0 +1,82 @@
+package com.trunk.rx.jdbc.rx2.sql;
+
+import io.reactivex.Flowable;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExecuteTest {
+  @Test
+  public void executeShouldComplete() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    Execute.using(c, con -> con.prepareStatement("CREATE TABLE test (id INT)"))
+      .test()
+      .assertResult();
+    verify(ps, times(1)).execute();
+    verify(ps, times(1)).close();
+    verify(ps, never()).cancel();
+  }
+
+  @Test
+  public void executeUpdateShouldEmitUpdatedRows() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeUpdate()).thenReturn(2);
+
+    ExecuteUpdate.using(c, con -> con.prepareStatement("DELETE FROM test"))
+      .test()
+      .assertResult(2);
+    verify(ps, times(1)).close();
+  }
+
+  @Test
+  public void executeUpdateShouldError() throws Exception {
+    Connection c = mock(Connection.class);
+    when(c.prepareStatement(anyString())).thenThrow(new SQLException("bad"));
+
+    ExecuteUpdate.using(c, con -> con.prepareStatement("DELETE FROM test"))
+      .test()
+      .assertError(SQLException.class);
+  }
+
+  @Test
+  public void executeUpdateShouldNotExecuteWhenDisposed() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+
+    ExecuteUpdate.using(c, con -> con.prepareStatement("DELETE FROM test"))
+      .test(true)
+      .assertNoValues();
+    verify(ps, never()).executeUpdate();
+    verify(ps, times(1)).close();
+  }
+
+  @Test
+  public void inChunksShouldExecuteAnUpdatePerChunk() throws Exception {
+    Connection c = mock(Connection.class);
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(c.prepareStatement(anyString())).thenReturn(ps);
+    when(ps.executeUpdate()).thenReturn(2, 1);
+
+    ExecuteUpdate.inChunks(c, Flowable.just(1, 2, 3), 2, chunk -> con -> con.prepareStatement("DELETE FROM test WHERE id IN " + chunk))
+      .test()
+      .assertResult(2, 1);
+    verify(c, times(1)).prepareStatement("DELETE FROM test WHERE id IN " + Arrays.asList(1, 2));
+    verify(c, times(1)).prepareStatement("DELETE FROM test WHERE id IN " + Arrays.asList(3));
+  }
+}
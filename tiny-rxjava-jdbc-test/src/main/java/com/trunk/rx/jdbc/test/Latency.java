@@ -0,0 +1,73 @@
+package com.trunk.rx.jdbc.test;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * A distribution of latencies to inject with a {@link LatencyInjectingConnectionProvider}.
+ */
+@FunctionalInterface
+public interface Latency {
+
+  /**
+   * @param random the source of randomness, so runs can be reproduced with a seed
+   * @return a latency sampled from the distribution, in nanoseconds
+   */
+  long sample(Random random);
+
+  /**
+   * @return this distribution with uniformly distributed jitter of up to the given duration added
+   */
+  default Latency withJitter(Duration jitter) {
+    long jitterNanos = jitter.toNanos();
+    return random -> sample(random) + (long) (random.nextDouble() * jitterNanos);
+  }
+
+  /**
+   * @return no latency
+   */
+  static Latency none() {
+    return random -> 0;
+  }
+
+  /**
+   * @return always the given latency
+   */
+  static Latency fixed(Duration latency) {
+    long nanos = latency.toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * @return a latency uniformly distributed between min and max
+   */
+  static Latency uniform(Duration min, Duration max) {
+    long minNanos = min.toNanos();
+    long range = max.toNanos() - minNanos;
+    if (range < 0) {
+      throw new IllegalArgumentException("max must not be less than min: " + min + ", " + max);
+    }
+    return random -> minNanos + (long) (random.nextDouble() * range);
+  }
+
+  /**
+   * @return a normally distributed latency, never negative
+   */
+  static Latency normal(Duration mean, Duration standardDeviation) {
+    long meanNanos = mean.toNanos();
+    long deviationNanos = standardDeviation.toNanos();
+    return random -> Math.max(0, meanNanos + (long) (random.nextGaussian() * deviationNanos));
+  }
+
+  /**
+   * A log-normal distribution, whose long tail is typical of network and database latency.
+   *
+   * @param median the median latency
+   * @param sigma  the standard deviation of the log of the latency, eg 0.5 puts p99 at about 3.2 times the median
+   * @return a log-normally distributed latency
+   */
+  static Latency logNormal(Duration median, double sigma) {
+    double medianNanos = median.toNanos();
+    return random -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+  }
+}
@@ -0,0 +1,311 @@
+package com.trunk.rx.jdbc.test;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrap a {@link ConnectionProvider}, eg an in-memory H2 database, and inject latency and failures
+ * into connecting, preparing, executing, fetching and committing to simulate a remote database.
+ * <p>
+ * Execution latency is abandoned with a {@link SQLException} if the statement is {@link Statement#cancel() cancelled},
+ * and with a {@link SQLTimeoutException} if it exceeds the {@link Statement#setQueryTimeout(int) query timeout},
+ * as a driver would. Injected failures are {@link SQLTransientException}s; a failure to connect is thrown wrapped in a
+ * {@link RuntimeException} as other {@link ConnectionProvider}s do.
+ * <p>
+ * This class is immutable; the <code>withX</code> methods return a new provider wrapping the same underlying provider.
+ */
+public class LatencyInjectingConnectionProvider implements ConnectionProvider {
+  private static final Logger log = LoggerFactory.getLogger(LatencyInjectingConnectionProvider.class);
+
+  public static final int DEFAULT_ROWS_PER_FETCH = 100;
+
+  /**
+   * The operations latency and failures can be injected into.
+   */
+  public enum Operation {
+    CONNECT,
+    PREPARE,
+    EXECUTE,
+    /**
+     * Reading a batch of rows from the server, on the first {@link ResultSet#next()} of each batch
+     */
+    FETCH,
+    COMMIT
+  }
+
+  private final ConnectionProvider provider;
+  private final Map<Operation, Latency> latencies;
+  private final Map<Operation, Double> failureRates;
+  private final int rowsPerFetch;
+  private final Random random;
+
+  public static LatencyInjectingConnectionProvider of(ConnectionProvider provider) {
+    return new LatencyInjectingConnectionProvider(
+      provider,
+      new EnumMap<>(Operation.class),
+      new EnumMap<>(Operation.class),
+      DEFAULT_ROWS_PER_FETCH,
+      new Random()
+    );
+  }
+
+  private LatencyInjectingConnectionProvider(
+    ConnectionProvider provider,
+    Map<Operation, Latency> latencies,
+    Map<Operation, Double> failureRates,
+    int rowsPerFetch,
+    Random random
+  ) {
+    this.provider = provider;
+    this.latencies = Collections.unmodifiableMap(latencies);
+    this.failureRates = Collections.unmodifiableMap(failureRates);
+    this.rowsPerFetch = rowsPerFetch;
+    this.random = random;
+  }
+
+  public LatencyInjectingConnectionProvider withConnectLatency(Latency latency) {
+    return withLatency(Operation.CONNECT, latency);
+  }
+
+  public LatencyInjectingConnectionProvider withPrepareLatency(Latency latency) {
+    return withLatency(Operation.PREPARE, latency);
+  }
+
+  public LatencyInjectingConnectionProvider withExecuteLatency(Latency latency) {
+    return withLatency(Operation.EXECUTE, latency);
+  }
+
+  /**
+   * @param latency      the latency of each round trip to fetch rows
+   * @param rowsPerFetch the number of rows read per round trip, like {@link Statement#setFetchSize(int)}
+   */
+  public LatencyInjectingConnectionProvider withFetchLatency(Latency latency, int rowsPerFetch) {
+    if (rowsPerFetch < 1) {
+      throw new IllegalArgumentException("rowsPerFetch must be positive: " + rowsPerFetch);
+    }
+    LatencyInjectingConnectionProvider withLatency = withLatency(Operation.FETCH, latency);
+    return new LatencyInjectingConnectionProvider(provider, withLatency.latencies, failureRates, rowsPerFetch, random);
+  }
+
+  public LatencyInjectingConnectionProvider withCommitLatency(Latency latency) {
+    return withLatency(Operation.COMMIT, latency);
+  }
+
+  public LatencyInjectingConnectionProvider withLatency(Operation operation, Latency latency) {
+    Map<Operation, Latency> newLatencies = new EnumMap<>(Operation.class);
+    newLatencies.putAll(latencies);
+    newLatencies.put(operation, latency);
+    return new LatencyInjectingConnectionProvider(provider, newLatencies, failureRates, rowsPerFetch, random);
+  }
+
+  /**
+   * @param rate the probability, from 0 to 1, that the operation fails with a {@link SQLTransientException}
+   */
+  public LatencyInjectingConnectionProvider withFailureRate(Operation operation, double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("rate must be between 0 and 1: " + rate);
+    }
+    Map<Operation, Double> newFailureRates = new EnumMap<>(Operation.class);
+    newFailureRates.putAll(failureRates);
+    newFailureRates.put(operation, rate);
+    return new LatencyInjectingConnectionProvider(provider, latencies, newFailureRates, rowsPerFetch, random);
+  }
+
+  /**
+   * Sample latencies and failures from a seeded random number generator, so single-threaded runs are repeatable.
+   */
+  public LatencyInjectingConnectionProvider withSeed(long seed) {
+    return new LatencyInjectingConnectionProvider(provider, latencies, failureRates, rowsPerFetch, new Random(seed));
+  }
+
+  @Override
+  public Connection call() {
+    try {
+      delay(Operation.CONNECT);
+      failMaybe(Operation.CONNECT);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+    Connection connection = provider.call();
+    return proxy(Connection.class, new LatencyConnection(connection));
+  }
+
+  @Override
+  public void close() throws Exception {
+    provider.close();
+  }
+
+  private long sample(Operation operation) {
+    Latency latency = latencies.get(operation);
+    return latency == null ? 0 : Math.max(0, latency.sample(random));
+  }
+
+  private void failMaybe(Operation operation) throws SQLTransientException {
+    Double rate = failureRates.get(operation);
+    if (rate != null && random.nextDouble() < rate) {
+      log.debug("Injecting failure on {}", operation);
+      String message = "Injected failure on " + operation;
+      throw operation == Operation.CONNECT
+        ? new SQLTransientConnectionException(message)
+        : new SQLTransientException(message);
+    }
+  }
+
+  private void delay(Operation operation) throws SQLException {
+    long nanos = sample(operation);
+    if (nanos > 0) {
+      await(new CountDownLatch(1), nanos);
+    }
+  }
+
+  /**
+   * @return true if the latch was released before the time elapsed
+   */
+  private static boolean await(CountDownLatch latch, long nanos) throws SQLException {
+    try {
+      return latch.await(nanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while injecting latency", e);
+    }
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(
+      Proxy.newProxyInstance(LatencyInjectingConnectionProvider.class.getClassLoader(), new Class<?>[]{type}, handler)
+    );
+  }
+
+  private class LatencyConnection implements InvocationHandler {
+    private final Connection connection;
+
+    LatencyConnection(Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.equals("prepareStatement") || name.equals("prepareCall")) {
+        delay(Operation.PREPARE);
+        failMaybe(Operation.PREPARE);
+      } else if (name.equals("commit")) {
+        delay(Operation.COMMIT);
+        failMaybe(Operation.COMMIT);
+      }
+      Object result = LatencyInjectingConnectionProvider.invoke(connection, method, args);
+      if (result instanceof Statement) {
+        return wrap((Connection) proxy, (Statement) result);
+      }
+      return result;
+    }
+
+    private Statement wrap(Connection proxy, Statement statement) {
+      LatencyStatement handler = new LatencyStatement(proxy, statement);
+      if (statement instanceof CallableStatement) {
+        return proxy(CallableStatement.class, handler);
+      }
+      if (statement instanceof PreparedStatement) {
+        return proxy(PreparedStatement.class, handler);
+      }
+      return proxy(Statement.class, handler);
+    }
+  }
+
+  private class LatencyStatement implements InvocationHandler {
+    private final Connection connection;
+    private final Statement statement;
+    private volatile CountDownLatch cancelled = new CountDownLatch(1);
+
+    LatencyStatement(Connection connection, Statement statement) {
+      this.connection = connection;
+      this.statement = statement;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.startsWith("execute")) {
+        execute();
+      } else if (name.equals("cancel")) {
+        cancelled.countDown();
+      } else if (name.equals("getConnection")) {
+        return connection;
+      }
+      Object result = LatencyInjectingConnectionProvider.invoke(statement, method, args);
+      if (result instanceof ResultSet) {
+        return proxy(ResultSet.class, new LatencyResultSet((Statement) proxy, (ResultSet) result));
+      }
+      return result;
+    }
+
+    private void execute() throws SQLException {
+      CountDownLatch latch = new CountDownLatch(1);
+      cancelled = latch;
+      long nanos = sample(Operation.EXECUTE);
+      int timeout = statement.getQueryTimeout();
+      long timeoutNanos = timeout > 0 ? TimeUnit.SECONDS.toNanos(timeout) : Long.MAX_VALUE;
+      if (nanos > 0 && await(latch, Math.min(nanos, timeoutNanos))) {
+        throw new SQLException("Statement cancelled", "57014");
+      }
+      if (nanos > timeoutNanos) {
+        throw new SQLTimeoutException("Query timeout of " + timeout + "s exceeded", "57014");
+      }
+      failMaybe(Operation.EXECUTE);
+    }
+  }
+
+  private class LatencyResultSet implements InvocationHandler {
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private long rows = 0;
+
+    LatencyResultSet(Statement statement, ResultSet resultSet) {
+      this.statement = statement;
+      this.resultSet = resultSet;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.equals("next")) {
+        if (rows++ % rowsPerFetch == 0) {
+          delay(Operation.FETCH);
+          failMaybe(Operation.FETCH);
+        }
+      } else if (name.equals("getStatement")) {
+        return statement;
+      }
+      return LatencyInjectingConnectionProvider.invoke(resultSet, method, args);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Measures how long each {@link Connection} takes to acquire and how many are in use, to show pool saturation.
+ */
+final class GaugedConnectionProvider implements ConnectionProvider {
+  private final ConnectionProvider provider;
+  private final Recorder acquire = new Recorder(3);
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final LongAccumulator maxInUse = new LongAccumulator(Math::max, 0);
+
+  GaugedConnectionProvider(ConnectionProvider provider) {
+    this.provider = provider;
+  }
+
+  @Override
+  public Connection call() {
+    long start = System.nanoTime();
+    Connection connection = provider.call();
+    acquire.recordValue(System.nanoTime() - start);
+    maxInUse.accumulate(inUse.incrementAndGet());
+    AtomicBoolean closed = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(
+      GaugedConnectionProvider.class.getClassLoader(),
+      new Class<?>[]{Connection.class},
+      (proxy, method, args) -> {
+        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+          inUse.decrementAndGet();
+        }
+        try {
+          return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    );
+  }
+
+  /**
+   * @return the acquisition times since the last call
+   */
+  Histogram acquireTimes() {
+    return acquire.getIntervalHistogram();
+  }
+
+  /**
+   * @return the most connections in use at once since the last call
+   */
+  int maxInUse() {
+    long max = maxInUse.getThenReset();
+    maxInUse.accumulate(inUse.get());
+    return (int) max;
+  }
+
+  @Override
+  public void close() throws Exception {
+    provider.close();
+  }
+}
@@ -0,0 +1,287 @@
+package com.trunk.rx.jdbc.test.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of a {@link LoadTest}, excluding its warm up.
+ * <p>
+ * Response times are measured from each request's intended start time, so requests delayed by
+ * a saturated pool or worker threads are not under-reported (coordinated omission).
+ * Service times are measured from when each request was actually subscribed to.
+ * All times are in nanoseconds.
+ */
+public final class LoadReport {
+  private final String scenario;
+  private final int rate;
+  private final Duration duration;
+  private final List<Interval> intervals;
+  private final Map<String, Histogram> responseTimes;
+  private final Histogram serviceTimes;
+  private final long completed;
+  private final long errors;
+  private final long incomplete;
+
+  LoadReport(
+    String scenario,
+    int rate,
+    Duration duration,
+    List<Interval> intervals,
+    Map<String, Histogram> responseTimes,
+    Histogram serviceTimes,
+    long completed,
+    long errors,
+    long incomplete
+  ) {
+    this.scenario = scenario;
+    this.rate = rate;
+    this.duration = duration;
+    this.intervals = Collections.unmodifiableList(new ArrayList<>(intervals));
+    this.responseTimes = Collections.unmodifiableMap(new LinkedHashMap<>(responseTimes));
+    this.serviceTimes = serviceTimes;
+    this.completed = completed;
+    this.errors = errors;
+    this.incomplete = incomplete;
+  }
+
+  public String scenario() {
+    return scenario;
+  }
+
+  /**
+   * @return the intended requests per second
+   */
+  public int rate() {
+    return rate;
+  }
+
+  public Duration duration() {
+    return duration;
+  }
+
+  public List<Interval> intervals() {
+    return intervals;
+  }
+
+  /**
+   * @return the response times of every successful request
+   */
+  public Histogram responseTimes() {
+    Histogram all = new Histogram(3);
+    for (Histogram h : responseTimes.values()) {
+      all.add(h);
+    }
+    return all;
+  }
+
+  /**
+   * @return the response times of the operation's successful requests
+   */
+  public Histogram responseTimes(String operation) {
+    Histogram histogram = responseTimes.get(operation);
+    if (histogram == null) {
+      throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+    return histogram;
+  }
+
+  /**
+   * @return the service times of every successful request
+   */
+  public Histogram serviceTimes() {
+    return serviceTimes;
+  }
+
+  public long completed() {
+    return completed;
+  }
+
+  public long errors() {
+    return errors;
+  }
+
+  /**
+   * @return the requests still running when the load test gave up waiting for them
+   */
+  public long incomplete() {
+    return incomplete;
+  }
+
+  /**
+   * @return the completed requests per second
+   */
+  public double throughput() {
+    return duration.isZero() ? 0 : completed * 1e9 / duration.toNanos();
+  }
+
+  public void print(PrintStream out) {
+    out.printf("%s at %d/s for %s%n", scenario, rate, duration);
+    out.printf(
+      "%8s %8s %6s %10s %10s %10s %10s %10s %6s %6s %10s %6s%n",
+      "time(s)", "tput/s", "errors", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "svc99(ms)",
+      "flight", "conns", "acq99(ms)", "sat"
+    );
+    for (Interval i : intervals) {
+      out.printf(
+        "%8.1f %8.1f %6d %10.3f %10.3f %10.3f %10.3f %10.3f %6d %6d %10.3f %6s%n",
+        i.end.toMillis() / 1e3, i.throughput(), i.errors,
+        millis(i.p50), millis(i.p99), millis(i.p999), millis(i.max), millis(i.serviceP99),
+        i.maxInFlight, i.maxConnectionsInUse, millis(i.acquireP99),
+        Double.isNaN(i.saturation) ? "-" : String.format("%.0f%%", i.saturation * 100)
+      );
+    }
+    out.printf(
+      "completed %d, errors %d, incomplete %d, throughput %.1f/s%n",
+      completed, errors, incomplete, throughput()
+    );
+    out.printf("%-16s %10s %10s %10s %10s %10s%n", "operation", "count", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+    for (Map.Entry<String, Histogram> e : responseTimes.entrySet()) {
+      print(out, e.getKey(), e.getValue());
+    }
+    print(out, "all", responseTimes());
+    print(out, "all (service)", serviceTimes);
+  }
+
+  private static void print(PrintStream out, String name, Histogram h) {
+    out.printf(
+      "%-16s %10d %10.3f %10.3f %10.3f %10.3f%n",
+      name, h.getTotalCount(),
+      millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+      millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue())
+    );
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  /**
+   * The results of one reporting interval.
+   */
+  public static final class Interval {
+    private final Duration end;
+    private final Duration length;
+    private final long completed;
+    private final long errors;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+    private final long serviceP99;
+    private final int maxInFlight;
+    private final int maxConnectionsInUse;
+    private final long acquireP99;
+    private final double saturation;
+
+    Interval(
+      Duration end,
+      Duration length,
+      long completed,
+      long errors,
+      Histogram responseTimes,
+      Histogram serviceTimes,
+      int maxInFlight,
+      int maxConnectionsInUse,
+      Histogram acquireTimes,
+      int poolSize
+    ) {
+      this.end = end;
+      this.length = length;
+      this.completed = completed;
+      this.errors = errors;
+      this.p50 = responseTimes.getValueAtPercentile(50);
+      this.p99 = responseTimes.getValueAtPercentile(99);
+      this.p999 = responseTimes.getValueAtPercentile(99.9);
+      this.max = responseTimes.getMaxValue();
+      this.serviceP99 = serviceTimes.getValueAtPercentile(99);
+      this.maxInFlight = maxInFlight;
+      this.maxConnectionsInUse = maxConnectionsInUse;
+      this.acquireP99 = acquireTimes.getValueAtPercentile(99);
+      this.saturation = poolSize > 0 ? (double) maxConnectionsInUse / poolSize : Double.NaN;
+    }
+
+    /**
+     * @return the time from the start of measurement to the end of the interval
+     */
+    public Duration end() {
+      return end;
+    }
+
+    public long completed() {
+      return completed;
+    }
+
+    public long errors() {
+      return errors;
+    }
+
+    /**
+     * @return the completed requests per second
+     */
+    public double throughput() {
+      return length.isZero() ? 0 : completed * 1e9 / length.toNanos();
+    }
+
+    public long p50() {
+      return p50;
+    }
+
+    public long p99() {
+      return p99;
+    }
+
+    public long p999() {
+      return p999;
+    }
+
+    public long max() {
+      return max;
+    }
+
+    public long serviceP99() {
+      return serviceP99;
+    }
+
+    /**
+     * @return the most requests dispatched but not yet terminated at once, including those waiting for a worker
+     */
+    public int maxInFlight() {
+      return maxInFlight;
+    }
+
+    public int maxConnectionsInUse() {
+      return maxConnectionsInUse;
+    }
+
+    /**
+     * @return the 99th percentile time to acquire a connection
+     */
+    public long acquireP99() {
+      return acquireP99;
+    }
+
+    /**
+     * @return the most connections in use as a fraction of the pool size, or NaN if the pool size is not known
+     */
+    public double saturation() {
+      return saturation;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+        "%.1fs: %.1f/s, %d errors, p50 %.3fms, p99 %.3fms, p999 %.3fms, max %.3fms, " +
+          "service p99 %.3fms, in flight %d, connections %d, acquire p99 %.3fms",
+        end.toMillis() / 1e3, throughput(), errors, millis(p50), millis(p99), millis(p999), millis(max),
+        millis(serviceP99), maxInFlight, maxConnectionsInUse, millis(acquireP99)
+      );
+    }
+  }
+}
@@ -0,0 +1,373 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.ConnectionProvider;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action1;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drive a {@link Scenario} through a {@link ConnectionPool} at a fixed arrival rate and record the latencies.
+ * <p>
+ * Requests are dispatched on a schedule, whether or not earlier requests have completed, and run on a fixed number
+ * of worker threads. A request's response time is measured from when it should have started, so time spent queued
+ * behind slow requests is counted rather than omitted. Each interval reports throughput, response time percentiles,
+ * the number of requests in flight and connections in use, and the time to acquire a connection.
+ * <p>
+ * This class is immutable; configure it with the <code>withX</code> methods and then {@link #run()} it.
+ * Load tests with the same seed make the same requests in the same order.
+ */
+public class LoadTest {
+  private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+  public static final int DEFAULT_RATE = 100;
+  public static final Duration DEFAULT_DURATION = Duration.ofSeconds(60);
+  public static final Duration DEFAULT_WARMUP = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofSeconds(1);
+  public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+  public static final int DEFAULT_CONCURRENCY = 64;
+
+  private final ConnectionProvider provider;
+  private final Scenario scenario;
+  private final int rate;
+  private final Duration duration;
+  private final Duration warmup;
+  private final Duration reportInterval;
+  private final Duration drainTimeout;
+  private final int concurrency;
+  private final int poolSize;
+  private final long seed;
+  private final Action1<LoadReport.Interval> reporter;
+
+  public static LoadTest of(ConnectionProvider provider, Scenario scenario) {
+    return new LoadTest(
+      provider,
+      scenario,
+      DEFAULT_RATE,
+      DEFAULT_DURATION,
+      DEFAULT_WARMUP,
+      DEFAULT_REPORT_INTERVAL,
+      DEFAULT_DRAIN_TIMEOUT,
+      DEFAULT_CONCURRENCY,
+      0,
+      0,
+      interval -> log.info("{} {}", scenario.name(), interval)
+    );
+  }
+
+  private LoadTest(
+    ConnectionProvider provider,
+    Scenario scenario,
+    int rate,
+    Duration duration,
+    Duration warmup,
+    Duration reportInterval,
+    Duration drainTimeout,
+    int concurrency,
+    int poolSize,
+    long seed,
+    Action1<LoadReport.Interval> reporter
+  ) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("rate must be positive: " + rate);
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+    }
+    if (reportInterval.isNegative() || reportInterval.isZero()) {
+      throw new IllegalArgumentException("reportInterval must be positive: " + reportInterval);
+    }
+    this.provider = provider;
+    this.scenario = scenario;
+    this.rate = rate;
+    this.duration = duration;
+    this.warmup = warmup;
+    this.reportInterval = reportInterval;
+    this.drainTimeout = drainTimeout;
+    this.concurrency = concurrency;
+    this.poolSize = poolSize;
+    this.seed = seed;
+    this.reporter = reporter;
+  }
+
+  /**
+   * @param rate the requests to start per second
+   */
+  public LoadTest withRate(int rate) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param duration how long to measure for, after the warm up
+   */
+  public LoadTest withDuration(Duration duration) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param warmup how long to run before measuring; intervals ending during the warm up are not reported
+   */
+  public LoadTest withWarmup(Duration warmup) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  public LoadTest withReportInterval(Duration reportInterval) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param drainTimeout how long to wait for requests still running at the end of the load test
+   */
+  public LoadTest withDrainTimeout(Duration drainTimeout) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param concurrency the number of worker threads requests are subscribed on
+   */
+  public LoadTest withConcurrency(int concurrency) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param poolSize the maximum connections the {@link ConnectionProvider} provides, to report saturation
+   */
+  public LoadTest withPoolSize(int poolSize) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  public LoadTest withSeed(long seed) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * @param reporter called with each interval as the load test runs, instead of logging it
+   */
+  public LoadTest withReporter(Action1<LoadReport.Interval> reporter) {
+    return new LoadTest(provider, scenario, rate, duration, warmup, reportInterval, drainTimeout, concurrency, poolSize, seed, reporter);
+  }
+
+  /**
+   * Set up the scenario, then dispatch requests for the warm up and duration and wait for them to finish.
+   *
+   * @return the results, excluding the warm up
+   */
+  public LoadReport run() throws Exception {
+    try (Connection connection = provider.call()) {
+      scenario.setUp(connection);
+    }
+    GaugedConnectionProvider gauged = new GaugedConnectionProvider(provider);
+    ConnectionPool pool = ConnectionPool.from(gauged);
+    Recording recording = new Recording(gauged);
+    ExecutorService workers = Executors.newFixedThreadPool(concurrency, threads("load-worker"));
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(threads("load-sampler"));
+    long start = System.nanoTime();
+    long measureFrom = start + warmup.toNanos();
+    long end = measureFrom + duration.toNanos();
+    try {
+      long intervalNanos = reportInterval.toNanos();
+      sampler.scheduleAtFixedRate(
+        () -> recording.sample(start, measureFrom),
+        intervalNanos,
+        intervalNanos,
+        TimeUnit.NANOSECONDS
+      );
+      dispatch(pool, recording, workers, start, end);
+      long drainUntil = System.nanoTime() + drainTimeout.toNanos();
+      while (recording.inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+      }
+    } finally {
+      workers.shutdownNow();
+      sampler.shutdownNow();
+      sampler.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    recording.sample(start, measureFrom);
+    long incomplete = recording.inFlight.get();
+    if (incomplete > 0) {
+      log.warn("{} requests still running after {}", incomplete, drainTimeout);
+    }
+    return new LoadReport(
+      scenario.name(),
+      rate,
+      Duration.ofNanos(Math.max(0, Math.min(System.nanoTime(), end) - measureFrom)),
+      recording.intervals,
+      recording.responseTotals,
+      recording.serviceTotal,
+      recording.completedTotal,
+      recording.errorsTotal,
+      incomplete
+    );
+  }
+
+  private void dispatch(ConnectionPool pool, Recording recording, ExecutorService workers, long start, long end)
+    throws InterruptedException {
+    Random random = new Random(seed);
+    double nanosPerRequest = 1e9 / rate;
+    for (long n = 0; ; ++n) {
+      long intended = start + (long) (n * nanosPerRequest);
+      if (intended >= end) {
+        return;
+      }
+      long wait;
+      while ((wait = intended - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+      Scenario.Operation operation = scenario.choose(random);
+      recording.dispatched();
+      Observable<?> request;
+      try {
+        request = operation.workload.call(pool, random);
+      } catch (RuntimeException e) {
+        recording.failed(e);
+        continue;
+      }
+      workers.execute(() -> subscribe(request, operation.name, intended, recording));
+    }
+  }
+
+  private static void subscribe(Observable<?> request, String operation, long intended, Recording recording) {
+    long started = System.nanoTime();
+    request.subscribe(
+      new Subscriber<Object>() {
+        @Override
+        public void onCompleted() {
+          recording.completed(operation, intended, started, System.nanoTime());
+        }
+
+        @Override
+        public void onError(Throwable e) {
+          recording.failed(e);
+        }
+
+        @Override
+        public void onNext(Object o) {
+          // only the latency matters
+        }
+      }
+    );
+  }
+
+  private static ThreadFactory threads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Concurrently records each request and, on the sampler thread, rolls them into intervals and totals.
+   */
+  private class Recording {
+    private final GaugedConnectionProvider gauged;
+    private final Map<String, Recorder> responseTimes = new LinkedHashMap<>();
+    private final Recorder serviceTimes = new Recorder(3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+
+    private final List<LoadReport.Interval> intervals = new ArrayList<>();
+    private final Map<String, Histogram> responseTotals = new LinkedHashMap<>();
+    private final Histogram serviceTotal = new Histogram(3);
+    private long completedTotal = 0;
+    private long errorsTotal = 0;
+    private long lastSample = -1;
+
+    Recording(GaugedConnectionProvider gauged) {
+      this.gauged = gauged;
+      for (String operation : scenario.operations()) {
+        responseTimes.put(operation, new Recorder(3));
+        responseTotals.put(operation, new Histogram(3));
+      }
+    }
+
+    void dispatched() {
+      maxInFlight.accumulate(inFlight.incrementAndGet());
+    }
+
+    void completed(String operation, long intended, long started, long ended) {
+      responseTimes.get(operation).recordValue(ended - intended);
+      serviceTimes.recordValue(ended - started);
+      completed.increment();
+      inFlight.decrementAndGet();
+    }
+
+    void failed(Throwable e) {
+      log.debug("Request failed", e);
+      errors.increment();
+      inFlight.decrementAndGet();
+    }
+
+    synchronized void sample(long start, long measureFrom) {
+      long now = System.nanoTime();
+      long from = lastSample < 0 ? start : lastSample;
+      lastSample = now;
+      Histogram response = new Histogram(3);
+      for (Map.Entry<String, Recorder> e : responseTimes.entrySet()) {
+        Histogram operation = e.getValue().getIntervalHistogram();
+        response.add(operation);
+        if (now > measureFrom) {
+          responseTotals.get(e.getKey()).add(operation);
+        }
+      }
+      Histogram service = serviceTimes.getIntervalHistogram();
+      long intervalCompleted = completed.sumThenReset();
+      long intervalErrors = errors.sumThenReset();
+      int intervalMaxInFlight = (int) maxInFlight.getThenReset();
+      maxInFlight.accumulate(inFlight.get());
+      Histogram acquire = gauged.acquireTimes();
+      int maxInUse = gauged.maxInUse();
+      if (now <= measureFrom) {
+        return;
+      }
+      serviceTotal.add(service);
+      completedTotal += intervalCompleted;
+      errorsTotal += intervalErrors;
+      LoadReport.Interval interval = new LoadReport.Interval(
+        Duration.ofNanos(now - measureFrom),
+        Duration.ofNanos(now - from),
+        intervalCompleted,
+        intervalErrors,
+        response,
+        service,
+        intervalMaxInFlight,
+        maxInUse,
+        acquire,
+        poolSize
+      );
+      intervals.add(interval);
+      try {
+        reporter.call(interval);
+      } catch (RuntimeException e) {
+        log.warn("Error reporting interval", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.trunk.rx.jdbc.test.load;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An immutable, named mix of {@link Workload}s, each chosen in proportion to its weight,
+ * and the SQL to set up the database they run against.
+ *
+ * @see Scenarios
+ */
+public final class Scenario {
+  private final String name;
+  private final List<String> setup;
+  private final List<Operation> operations;
+
+  public static Scenario named(String name) {
+    return new Scenario(name, Collections.emptyList(), Collections.emptyList());
+  }
+
+  private Scenario(String name, List<String> setup, List<Operation> operations) {
+    this.name = name;
+    this.setup = Collections.unmodifiableList(setup);
+    this.operations = Collections.unmodifiableList(operations);
+  }
+
+  /**
+   * @param sql a statement to execute before the load test starts, in the order added
+   * @return a new Scenario with the additional statement
+   */
+  public Scenario withSetup(String sql) {
+    List<String> newSetup = new ArrayList<>(setup);
+    newSetup.add(sql);
+    return new Scenario(name, newSetup, operations);
+  }
+
+  /**
+   * @param operation the name the operation's latencies are reported under
+   * @param weight    the relative frequency of the operation
+   * @param workload  the request to make
+   * @return a new Scenario with the additional operation
+   */
+  public Scenario with(String operation, double weight, Workload workload) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("weight must be positive: " + weight);
+    }
+    for (Operation o : operations) {
+      if (o.name.equals(operation)) {
+        throw new IllegalArgumentException("Duplicate operation: " + operation);
+      }
+    }
+    List<Operation> newOperations = new ArrayList<>(operations);
+    newOperations.add(new Operation(operation, weight, workload));
+    return new Scenario(name, setup, newOperations);
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public List<String> setup() {
+    return setup;
+  }
+
+  public List<String> operations() {
+    List<String> names = new ArrayList<>();
+    for (Operation o : operations) {
+      names.add(o.name);
+    }
+    return names;
+  }
+
+  void setUp(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : setup) {
+        statement.execute(sql);
+      }
+    }
+    if (!connection.getAutoCommit()) {
+      connection.commit();
+    }
+  }
+
+  Operation choose(Random random) {
+    if (operations.isEmpty()) {
+      throw new IllegalStateException("Scenario " + name + " has no operations");
+    }
+    double total = 0;
+    for (Operation o : operations) {
+      total += o.weight;
+    }
+    double r = random.nextDouble() * total;
+    for (Operation o : operations) {
+      r -= o.weight;
+      if (r < 0) {
+        return o;
+      }
+    }
+    return operations.get(operations.size() - 1);
+  }
+
+  @Override
+  public String toString() {
+    return "Scenario{" + name + '}';
+  }
+
+  static final class Operation {
+    final String name;
+    final double weight;
+    final Workload workload;
+
+    Operation(String name, double weight, Workload workload) {
+      this.name = name;
+      this.weight = weight;
+      this.workload = workload;
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import com.trunk.rx.jdbc.sql.ExecuteUpdate;
+
+import java.sql.Types;
+import java.util.Random;
+
+/**
+ * Standard {@link Scenario}s over a table of accounts and a table of account events, written for H2.
+ */
+public final class Scenarios {
+  public static final int DEFAULT_ACCOUNTS = 10_000;
+
+  private static final int RANGE = 100;
+
+  private Scenarios() {
+    // prevent instantiation
+  }
+
+  /**
+   * @return the scenario with the given name, ie <code>read-heavy</code>, <code>write-heavy</code> or <code>mixed</code>
+   */
+  public static Scenario named(String name) {
+    switch (name) {
+      case "read-heavy":
+        return readHeavy();
+      case "write-heavy":
+        return writeHeavy();
+      case "mixed":
+        return mixedTransactional();
+      default:
+        throw new IllegalArgumentException("Unknown scenario: " + name);
+    }
+  }
+
+  public static Scenario readHeavy() {
+    return readHeavy(DEFAULT_ACCOUNTS);
+  }
+
+  /**
+   * Mostly single row lookups by primary key with some range scans and a few auto-commit updates.
+   */
+  public static Scenario readHeavy(int accounts) {
+    return schema("read-heavy", accounts)
+      .with("point-read", 90, pointRead(accounts))
+      .with("range-read", 8, rangeRead(accounts))
+      .with("deposit", 2, deposit(accounts));
+  }
+
+  public static Scenario writeHeavy() {
+    return writeHeavy(DEFAULT_ACCOUNTS);
+  }
+
+  /**
+   * Mostly auto-commit inserts and updates with some lookups by primary key.
+   */
+  public static Scenario writeHeavy(int accounts) {
+    return schema("write-heavy", accounts)
+      .with("point-read", 20, pointRead(accounts))
+      .with("insert-event", 50, insertEvent(accounts))
+      .with("deposit", 30, deposit(accounts));
+  }
+
+  public static Scenario mixedTransactional() {
+    return mixedTransactional(DEFAULT_ACCOUNTS);
+  }
+
+  /**
+   * Reads mixed with transfers, each updating two accounts and recording an event in a single transaction.
+   */
+  public static Scenario mixedTransactional(int accounts) {
+    return schema("mixed", accounts)
+      .with("point-read", 50, pointRead(accounts))
+      .with("range-read", 10, rangeRead(accounts))
+      .with("transfer", 40, transfer(accounts));
+  }
+
+  private static Scenario schema(String name, int accounts) {
+    return Scenario.named(name)
+      .withSetup("CREATE TABLE IF NOT EXISTS load_account (id INT PRIMARY KEY, balance BIGINT NOT NULL)")
+      .withSetup(
+        "CREATE TABLE IF NOT EXISTS load_event " +
+          "(id BIGINT AUTO_INCREMENT PRIMARY KEY, account_id INT NOT NULL, amount BIGINT NOT NULL)"
+      )
+      .withSetup("MERGE INTO load_account SELECT x, 1000 FROM SYSTEM_RANGE(1, " + accounts + ")");
+  }
+
+  private static Workload pointRead(int accounts) {
+    return (pool, random) -> {
+      int id = account(random, accounts);
+      return pool.execute(
+        connection -> ExecuteQuery.using(
+          connection,
+          DefaultPreparedStatementBuilder.of("SELECT balance FROM load_account WHERE id = ?").add(id, Types.INTEGER),
+          rs -> rs.getLong(1)
+        )
+      );
+    };
+  }
+
+  private static Workload rangeRead(int accounts) {
+    return (pool, random) -> {
+      int from = account(random, Math.max(1, accounts - RANGE));
+      return pool.execute(
+        connection -> ExecuteQuery.using(
+          connection,
+          DefaultPreparedStatementBuilder.of("SELECT id, balance FROM load_account WHERE id BETWEEN ? AND ?")
+            .add(from, Types.INTEGER)
+            .add(from + RANGE - 1, Types.INTEGER),
+          rs -> rs.getLong(2)
+        )
+      );
+    };
+  }
+
+  private static Workload deposit(int accounts) {
+    return (pool, random) -> {
+      int id = account(random, accounts);
+      long amount = 1 + random.nextInt(100);
+      return pool.execute(connection -> ExecuteUpdate.using(connection, credit(id, amount)));
+    };
+  }
+
+  private static Workload insertEvent(int accounts) {
+    return (pool, random) -> {
+      int id = account(random, accounts);
+      long amount = 1 + random.nextInt(100);
+      return pool.execute(connection -> ExecuteUpdate.using(connection, event(id, amount)));
+    };
+  }
+
+  private static Workload transfer(int accounts) {
+    return (pool, random) -> {
+      int from = account(random, accounts);
+      int to = account(random, accounts);
+      long amount = 1 + random.nextInt(100);
+      // update in id order so concurrent transfers do not deadlock
+      int first = Math.min(from, to);
+      int second = Math.max(from, to);
+      long firstAmount = first == from ? -amount : amount;
+      return pool
+        .execute(
+          connection -> ExecuteUpdate.using(connection, credit(first, firstAmount))
+            .concatWith(ExecuteUpdate.using(connection, credit(second, -firstAmount)))
+            .concatWith(ExecuteUpdate.using(connection, event(from, -amount)))
+            .concatWith(ExecuteUpdate.using(connection, event(to, amount)))
+        )
+        .withSingleTransaction();
+    };
+  }
+
+  private static DefaultPreparedStatementBuilder credit(int id, long amount) {
+    return DefaultPreparedStatementBuilder.of("UPDATE load_account SET balance = balance + ? WHERE id = ?")
+      .add(amount, Types.BIGINT)
+      .add(id, Types.INTEGER);
+  }
+
+  private static DefaultPreparedStatementBuilder event(int id, long amount) {
+    return DefaultPreparedStatementBuilder.of("INSERT INTO load_event (account_id, amount) VALUES (?, ?)")
+      .add(id, Types.INTEGER)
+      .add(amount, Types.BIGINT);
+  }
+
+  private static int account(Random random, int accounts) {
+    return 1 + random.nextInt(accounts);
+  }
+}
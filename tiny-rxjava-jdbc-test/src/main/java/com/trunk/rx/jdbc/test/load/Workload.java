@@ -0,0 +1,24 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import rx.Observable;
+
+import java.util.Random;
+
+/**
+ * A single request made by a {@link LoadTest}, eg a query or a transaction.
+ */
+@FunctionalInterface
+public interface Workload {
+
+  /**
+   * Called on the dispatching thread at the request's intended start time. Choose any parameters
+   * from the given {@link Random} here, not in the returned {@link Observable}, so a seeded load test
+   * makes the same requests every run.
+   *
+   * @param pool   the pool to execute the request with
+   * @param random the load test's random number generator
+   * @return the request, which is subscribed to on a worker thread and timed until it terminates
+   */
+  Observable<?> call(ConnectionPool pool, Random random);
+}
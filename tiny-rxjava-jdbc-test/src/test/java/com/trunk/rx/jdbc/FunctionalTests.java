@@ -1,24 +1,39 @@
 package com.trunk.rx.jdbc;
 
 import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.jooq.QueryTemplate;
 import com.trunk.rx.jdbc.jooq.sql.Execute;
+import com.trunk.rx.jdbc.jooq.sql.ExecuteBatch;
 import com.trunk.rx.jdbc.jooq.sql.InsertReturning;
 import com.trunk.rx.jdbc.jooq.sql.Select;
+import com.trunk.rx.jdbc.jooq.sql.SelectFields;
 import com.trunk.rx.jdbc.pg.PgConnectionProvider;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
 import com.trunk.rx.jdbc.test.LiquibaseBootstrap;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.SQLDialect;
 import org.jooq.Table;
+import org.jooq.conf.StatementType;
 import org.jooq.impl.SQLDataType;
 import org.testng.annotations.Test;
+import rx.Observable;
 import rx.observers.TestSubscriber;
 
 import java.math.BigInteger;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.param;
 import static org.jooq.impl.DSL.table;
 import static org.jooq.impl.DSL.using;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static rx.Observable.error;
 
 /**
@@ -304,6 +319,248 @@ public class FunctionalTests {
     t.assertValues(0, 1, 1, 1, 2);
   }
 
+  @Test
+  public void shouldWorkWithJooqContext() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldWorkWithJooqContext"))
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType()))
+            .cast(Object.class)
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID).values(1))
+            )
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID).values(2))
+            )
+            .concatWith(
+              Select.using(connection, context, dsl -> dsl.select().from(TEST), r -> r.getValue(0))
+            )
+      )
+      .withSingleTransaction()
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(0, 1, 1, 1, 2);
+  }
+
+  @Test
+  public void jooqContextShouldReuseDSLContextPerConnection() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    try (H2ConnectionProvider provider = new H2ConnectionProvider("FuncTest-jooqContextShouldReuseDSLContextPerConnection");
+         Connection first = provider.call();
+         Connection second = provider.call()) {
+      assertSame(context.dsl(first), context.dsl(first));
+      assertSame(context.dsl(first).configuration().connectionProvider().acquire(), first);
+      assertNotSame(context.dsl(second), context.dsl(first));
+      // jOOQ copies the settings when deriving a configuration
+      assertFalse(context.dsl(second).configuration().settings().isExecuteLogging());
+      assertEquals(context.dsl(second).configuration().settings().getStatementType(), StatementType.PREPARED_STATEMENT);
+    }
+  }
+
+  @Test
+  public void shouldBindQueryTemplate() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    QueryTemplate select = QueryTemplate.of(
+      context,
+      dsl -> dsl.select(ID).from(TEST).where(ID.ge(param("min", Integer.class)).and(ID.lt(param("max", 10))))
+    );
+
+    assertEquals(select.parameters(), Arrays.asList("min", "max"));
+    assertFalse(select.sql().contains(":"), select.sql());
+
+    TestSubscriber<Object> t = new TestSubscriber<>();
+    ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldBindQueryTemplate"))
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType()))
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID).values(1).values(2).values(3).values(4).values(5))
+            )
+            .ignoreElements()
+            .cast(Object.class)
+            .concatWith(ExecuteQuery.using(connection, select.bind(2, 4), rs -> rs.getInt(1)))
+            .concatWith(ExecuteQuery.using(connection, select.bind(Collections.singletonMap("min", 4)), rs -> rs.getInt(1)))
+      )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(2, 3, 4, 5);
+  }
+
+  @Test
+  public void shouldExecuteBatchesPerTransaction() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    ConnectionPool pool = ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldExecuteBatchesPerTransaction"));
+    TestSubscriber<int[]> t = new TestSubscriber<>();
+    pool
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType().nullable(false)))
+            .ignoreElements()
+            .cast(int[].class)
+            .concatWith(
+              ExecuteBatch.using(
+                connection,
+                context,
+                dsl -> dsl.insertInto(TEST, ID).values((Integer) null),
+                Observable.range(1, 5).map(i -> new Object[]{i})
+              )
+                .withBatchSize(2)
+            )
+            .concatWith(
+              ExecuteBatch.using(
+                connection,
+                context,
+                dsl -> dsl.insertInto(TEST, ID).values((Integer) null),
+                // jOOQ binds an unconvertible value as null, so violate the NOT NULL constraint directly
+                Observable.just(new Object[]{6}, new Object[]{null})
+              )
+            )
+      )
+      .withTransactionPerEvent()
+      .subscribe(t);
+
+    t.assertError(Exception.class);
+    assertEquals(t.getOnNextEvents().size(), 3);
+    assertEquals(t.getOnNextEvents().get(0), new int[]{1, 1});
+    assertEquals(t.getOnNextEvents().get(2), new int[]{1});
+
+    TestSubscriber<Object> tSelect = new TestSubscriber<>();
+    pool
+      .execute(connection -> Select.using(connection, context, dsl -> dsl.select().from(TEST), r -> r.getValue(0)))
+      .subscribe(tSelect);
+
+    tSelect.assertNoErrors();
+    tSelect.assertValues(1, 2, 3, 4, 5);
+  }
+
+  @Test
+  public void shouldSelectFieldsFromResultSet() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    TestSubscriber<String> t = new TestSubscriber<>();
+    ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldSelectFieldsFromResultSet"))
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType()).column(NAME, NAME.getDataType()))
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID, NAME).values(1, "one").values(2, null).values(3, "three"))
+            )
+            .ignoreElements()
+            .cast(String.class)
+            .concatWith(
+              SelectFields.using(
+                connection,
+                context,
+                dsl -> dsl.select(NAME, ID).from(TEST).where(ID.ge(param("min", 2))),
+                r -> r.getInt(ID) + ":" + r.get(NAME)
+              )
+            )
+      )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues("2:null", "3:three");
+  }
+
+  @Test
+  public void shouldSelectSmallintAndRealFieldsAsTheirTypes() throws Exception {
+    assertSmallintAndRealFields(
+      ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldSelectSmallintAndRealFieldsAsTheirTypes")),
+      JooqContext.of(SQLDialect.H2)
+    );
+  }
+
+  @Test
+  public void shouldSelectSmallintAndRealFieldsAsTheirTypesFromPostgres() throws Exception {
+    // the PostgreSQL driver's getObject returns an Integer for a SMALLINT
+    String host = System.getenv("DB_HOST");
+    String database = System.getenv("DB_NAME");
+    String username = System.getenv("DB_USER");
+    String password = System.getenv("DB_PASSWORD");
+    assertSmallintAndRealFields(
+      ConnectionPool.from(new PgConnectionProvider(host, database, username, password, 4)),
+      JooqContext.of(SQLDialect.POSTGRES)
+    );
+  }
+
+  private static void assertSmallintAndRealFields(ConnectionPool pool, JooqContext context) {
+    Table<Record> numbers = table("numbers");
+    Field<Short> small = field("small", SQLDataType.SMALLINT);
+    Field<Float> ratio = field("ratio", SQLDataType.REAL);
+    TestSubscriber<String> t = new TestSubscriber<>();
+    pool
+      .execute(
+        connection ->
+          Execute.using(
+            connection,
+            context,
+            dsl -> dsl.createTemporaryTable(numbers)
+              .column(ID, ID.getDataType())
+              .column(small, small.getDataType())
+              .column(ratio, ratio.getDataType())
+          )
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(numbers, ID, small, ratio).values(1, (short) 7, 0.5f).values(2, null, null))
+            )
+            .ignoreElements()
+            .cast(String.class)
+            .concatWith(
+              SelectFields.using(
+                connection,
+                context,
+                dsl -> dsl.select(ID, small, ratio).from(numbers).orderBy(ID),
+                r -> {
+                  Short s = r.get(small);
+                  Float f = r.get(ratio);
+                  return s + ":" + f;
+                }
+              )
+            )
+      )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues("7:0.5", "null:null");
+  }
+
+  @Test
+  public void shouldSelectFieldsWithStaticStatements() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2)
+      .withSettings(JooqContext.defaultSettings().withStatementType(StatementType.STATIC_STATEMENT));
+    TestSubscriber<String> t = new TestSubscriber<>();
+    ConnectionPool.from(new H2ConnectionProvider("FuncTest-shouldSelectFieldsWithStaticStatements"))
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType()).column(NAME, NAME.getDataType()))
+            .concatWith(
+              Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID, NAME).values(1, "one").values(2, "two"))
+            )
+            .ignoreElements()
+            .cast(String.class)
+            .concatWith(
+              SelectFields.using(
+                connection,
+                context,
+                dsl -> dsl.select(ID, NAME).from(TEST).where(ID.eq(param("id", 2))),
+                // an equal field rather than the selected instance
+                r -> r.getInt(ID) + ":" + r.get(field("name", SQLDataType.VARCHAR))
+              )
+            )
+      )
+      .subscribe(t);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues("2:two");
+  }
+
   @Test
   public void shouldReturnValuesAfterInsert() throws Exception {
     TestSubscriber<Integer> t = new TestSubscriber<>();
@@ -360,4 +617,112 @@ public class FunctionalTests {
     t.assertCompleted();
     t.assertValues(1, 2, 3);
   }
+
+  @Test
+  public void shouldStreamValuesAfterInsert() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>(1);
+    String host = System.getenv("DB_HOST");
+    String database = System.getenv("DB_NAME");
+    String username = System.getenv("DB_USER");
+    String password = System.getenv("DB_PASSWORD");
+    ConnectionPool.from(
+      LiquibaseBootstrap.using(
+        new PgConnectionProvider(host, database, username, password, 4)
+      )
+    )
+      .execute(
+        connection ->
+          Execute.using(connection, c -> using(c, SQLDialect.POSTGRES).delete(TEST_AUTOID))
+            .ignoreElements()
+            .concatWith(
+              Execute.using(
+                connection,
+                c ->
+                  using(c, SQLDialect.POSTGRES).alterSequence("test_autoid_id_seq").restartWith(BigInteger.ONE)
+              )
+                .ignoreElements()
+            )
+            .concatWith(
+              InsertReturning.usingLazy(
+                connection,
+                c ->
+                  using(c, SQLDialect.POSTGRES)
+                    .insertInto(TEST_AUTOID)
+                    .columns(NAME)
+                    .values("foo")
+                    .values("bar")
+                    .values("baz")
+                    .returning(ID),
+                record -> record.getValue(ID)
+              )
+            )
+      )
+      .subscribe(t);
+
+    t.assertValues(1);
+    t.requestMore(2);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(1, 2, 3);
+  }
+
+  @Test
+  public void shouldStreamValuesAfterInsertWithFetchSizeInTransaction() throws Exception {
+    TestSubscriber<Integer> t = new TestSubscriber<>(1);
+    String host = System.getenv("DB_HOST");
+    String database = System.getenv("DB_NAME");
+    String username = System.getenv("DB_USER");
+    String password = System.getenv("DB_PASSWORD");
+    ConnectionPool.from(
+      LiquibaseBootstrap.using(
+        new PgConnectionProvider(host, database, username, password, 4)
+      )
+    )
+      .execute(
+        connection ->
+          Execute.using(connection, c -> using(c, SQLDialect.POSTGRES).delete(TEST_AUTOID))
+            .ignoreElements()
+            .concatWith(
+              Execute.using(
+                connection,
+                c ->
+                  using(c, SQLDialect.POSTGRES).alterSequence("test_autoid_id_seq").restartWith(BigInteger.ONE)
+              )
+                .ignoreElements()
+            )
+            .concatWith(
+              InsertReturning.usingLazy(
+                connection,
+                c ->
+                  using(c, SQLDialect.POSTGRES)
+                    .insertInto(TEST_AUTOID)
+                    .columns(NAME)
+                    .values("foo")
+                    .values("bar")
+                    .values("baz")
+                    .values("qux")
+                    .values("quux")
+                    .returning(ID),
+                record -> record.getValue(ID),
+                2
+              )
+            )
+      )
+      .withSingleTransaction()
+      .subscribe(t);
+
+    t.assertValues(1);
+    t.requestMore(4);
+
+    t.assertNoErrors();
+    t.assertValues(1, 2, 3, 4, 5);
+
+    // the end of the cursor is only read on demand
+    t.requestMore(1);
+
+    t.assertNoErrors();
+    t.assertCompleted();
+    t.assertValues(1, 2, 3, 4, 5);
+  }
 }
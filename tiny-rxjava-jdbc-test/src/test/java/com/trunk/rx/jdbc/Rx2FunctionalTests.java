@@ -0,0 +1,75 @@
+package com.trunk.rx.jdbc;
+
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.jooq.JooqContext;
+import com.trunk.rx.jdbc.rx2.ConnectionPool;
+import com.trunk.rx.jdbc.rx2.jooq.sql.Execute;
+import com.trunk.rx.jdbc.rx2.jooq.sql.Select;
+import com.trunk.rx.jdbc.rx2.sql.ExecuteQuery;
+import com.trunk.rx.jdbc.rx2.sql.ExecuteUpdate;
+import com.trunk.rx.jdbc.sql.DefaultPreparedStatementBuilder;
+import io.reactivex.Flowable;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.SQLDataType;
+import org.testng.annotations.Test;
+
+import java.sql.Types;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Run the RxJava 2 operators against in-memory H2
+ */
+public class Rx2FunctionalTests {
+
+  private static final Table<Record> TEST = table("test");
+  private static final Field<Integer> ID = field("id", SQLDataType.INTEGER);
+
+  @Test
+  public void shouldSelectWithJooqInSingleTransaction() throws Exception {
+    JooqContext context = JooqContext.of(SQLDialect.H2);
+    ConnectionPool.from(new H2ConnectionProvider("Rx2FuncTest-shouldSelectWithJooqInSingleTransaction"))
+      .execute(
+        connection ->
+          Execute.using(connection, context, dsl -> dsl.createTable(TEST).column(ID, ID.getDataType()))
+            .ignoreElement()
+            .andThen(Execute.using(connection, context, dsl -> dsl.insertInto(TEST, ID).values(1).values(2).values(3)).ignoreElement())
+            .andThen(Select.using(connection, context, dsl -> dsl.select(ID).from(TEST).orderBy(ID), r -> r.getValue(0, Integer.class)))
+      )
+      .withSingleTransaction()
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+      .assertValues(1, 2, 3);
+  }
+
+  @Test
+  public void shouldQueryAndUpdateWithCoreOperators() throws Exception {
+    ConnectionPool.from(new H2ConnectionProvider("Rx2FuncTest-shouldQueryAndUpdateWithCoreOperators"))
+      .execute(
+        connection ->
+          com.trunk.rx.jdbc.rx2.sql.Execute.using(connection, c -> c.prepareStatement("CREATE TABLE test (id INT)"))
+            .andThen(
+              ExecuteUpdate.inChunks(
+                connection,
+                Flowable.range(1, 5),
+                2,
+                ids -> DefaultPreparedStatementBuilder.of("INSERT INTO test (id) SELECT x FROM SYSTEM_RANGE(?, ?)")
+                  .add(ids.get(0), Types.INTEGER)
+                  .add(ids.get(ids.size() - 1), Types.INTEGER)
+              )
+            )
+            .ignoreElements()
+            .andThen(ExecuteQuery.using(connection, c -> c.prepareStatement("SELECT id FROM test ORDER BY id"), rs -> rs.getInt(1)))
+      )
+      .withTransactionPerEvent()
+      .test()
+      .assertNoErrors()
+      .assertComplete()
+      .assertValues(1, 2, 3, 4, 5);
+  }
+}
@@ -0,0 +1,164 @@
+package com.trunk.rx.jdbc.test;
+
+import com.trunk.rx.jdbc.ConnectionPool;
+import com.trunk.rx.jdbc.ConnectionProvider;
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.sql.ExecuteQuery;
+import org.testng.annotations.Test;
+import rx.observers.TestSubscriber;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class LatencyInjectingConnectionProviderTest {
+  private static final String SELECT = "SELECT X FROM SYSTEM_RANGE(1, 10)";
+
+  @Test
+  public void shouldPassThroughWithoutLatency() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldPassThroughWithoutLatency"));
+
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ConnectionPool.from(provider)
+      .execute(connection -> ExecuteQuery.using(connection, c -> c.prepareStatement(SELECT), rs -> rs.getInt(1)))
+      .subscribe(t);
+
+    t.assertValues(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    t.assertCompleted();
+  }
+
+  @Test
+  public void shouldInjectLatencyPerFetch() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldInjectLatencyPerFetch"))
+      .withFetchLatency(Latency.fixed(Duration.ofMillis(50)), 4);
+
+    long start = System.nanoTime();
+    try (Connection connection = provider.call();
+         PreparedStatement statement = connection.prepareStatement(SELECT);
+         ResultSet resultSet = statement.executeQuery()) {
+      int rows = 0;
+      while (resultSet.next()) {
+        ++rows;
+      }
+      assertEquals(rows, 10);
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // rows 1, 5 and 9
+    assertTrue(elapsed >= 150, "elapsed " + elapsed);
+  }
+
+  @Test
+  public void shouldInjectLatencyOnExecute() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldInjectLatencyOnExecute"))
+      .withPrepareLatency(Latency.fixed(Duration.ofMillis(20)))
+      .withExecuteLatency(Latency.fixed(Duration.ofMillis(50)));
+
+    long start = System.nanoTime();
+    try (Connection connection = provider.call();
+         PreparedStatement statement = connection.prepareStatement(SELECT)) {
+      statement.executeQuery().close();
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertTrue(elapsed >= 70, "elapsed " + elapsed);
+  }
+
+  @Test
+  public void shouldTimeOutExecute() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldTimeOutExecute"))
+      .withExecuteLatency(Latency.fixed(Duration.ofSeconds(30)));
+
+    long start = System.nanoTime();
+    try (Connection connection = provider.call();
+         PreparedStatement statement = connection.prepareStatement(SELECT)) {
+      statement.setQueryTimeout(1);
+      statement.executeQuery();
+      fail("expected timeout");
+    } catch (SQLTimeoutException e) {
+      // expected
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertTrue(elapsed >= 1000 && elapsed < 10_000, "elapsed " + elapsed);
+  }
+
+  @Test
+  public void shouldAbandonExecuteOnCancel() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldAbandonExecuteOnCancel"))
+      .withExecuteLatency(Latency.fixed(Duration.ofSeconds(30)));
+
+    try (Connection connection = provider.call();
+         PreparedStatement statement = connection.prepareStatement(SELECT)) {
+      CompletableFuture<Void> cancel = CompletableFuture.runAsync(() -> {
+        try {
+          Thread.sleep(100);
+          statement.cancel();
+        } catch (InterruptedException | SQLException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      try {
+        statement.executeQuery();
+        fail("expected cancel");
+      } catch (SQLException e) {
+        assertEquals(e.getSQLState(), "57014");
+      }
+      cancel.get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void shouldInjectFailures() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldInjectFailures"))
+      .withFailureRate(LatencyInjectingConnectionProvider.Operation.EXECUTE, 1);
+
+    TestSubscriber<Integer> t = new TestSubscriber<>();
+    ConnectionPool.from(provider)
+      .execute(connection -> ExecuteQuery.using(connection, c -> c.prepareStatement(SELECT), rs -> rs.getInt(1)))
+      .subscribe(t);
+
+    t.assertNoValues();
+    t.assertError(SQLTransientException.class);
+  }
+
+  @Test
+  public void shouldWrapConnectFailures() throws Exception {
+    ConnectionProvider provider = LatencyInjectingConnectionProvider.of(new H2ConnectionProvider("LatencyInjectingConnectionProviderTest-shouldWrapConnectFailures"))
+      .withFailureRate(LatencyInjectingConnectionProvider.Operation.CONNECT, 1);
+
+    try {
+      provider.call();
+      fail("expected failure");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof SQLTransientException);
+    }
+  }
+
+  @Test
+  public void shouldSampleLatencies() throws Exception {
+    Random random = new Random(1);
+
+    assertEquals(Latency.none().sample(random), 0);
+    assertEquals(Latency.fixed(Duration.ofMillis(3)).sample(random), 3_000_000);
+    for (int i = 0; i < 1000; ++i) {
+      long uniform = Latency.uniform(Duration.ofMillis(1), Duration.ofMillis(2)).sample(random);
+      assertTrue(uniform >= 1_000_000 && uniform < 2_000_000, "uniform " + uniform);
+      long jittered = Latency.fixed(Duration.ofMillis(1)).withJitter(Duration.ofMillis(1)).sample(random);
+      assertTrue(jittered >= 1_000_000 && jittered < 2_000_000, "jittered " + jittered);
+      assertTrue(Latency.normal(Duration.ZERO, Duration.ofMillis(1)).sample(random) >= 0);
+      assertTrue(Latency.logNormal(Duration.ofMillis(1), 0.5).sample(random) > 0);
+    }
+  }
+}
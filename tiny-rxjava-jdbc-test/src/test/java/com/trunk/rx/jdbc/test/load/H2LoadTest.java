@@ -0,0 +1,31 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Run a {@link Scenarios standard scenario} against in-memory H2 and print the report.
+ * <p>
+ * Arguments: scenario name, requests per second and duration in seconds.
+ */
+public class H2LoadTest {
+  // JdbcConnectionPool's default maximum connections
+  private static final int POOL_SIZE = 10;
+
+  public static void main(String[] args) throws Exception {
+    Scenario scenario = Scenarios.named(args.length > 0 ? args[0] : "mixed");
+    int rate = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+    Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+
+    try (H2ConnectionProvider provider = new H2ConnectionProvider("load", ";DB_CLOSE_DELAY=-1")) {
+      LoadReport report = LoadTest.of(provider, scenario)
+        .withRate(rate)
+        .withDuration(duration)
+        .withPoolSize(POOL_SIZE)
+        .withReporter(System.out::println)
+        .run();
+      report.print(System.out);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.trunk.rx.jdbc.test.load;
+
+import com.trunk.rx.jdbc.h2.H2ConnectionProvider;
+import com.trunk.rx.jdbc.test.Latency;
+import com.trunk.rx.jdbc.test.LatencyInjectingConnectionProvider;
+import org.testng.annotations.Test;
+import rx.Observable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class LoadTestTest {
+
+  @Test
+  public void shouldRunMixedScenario() throws Exception {
+    List<LoadReport.Interval> reported = new ArrayList<>();
+    try (H2ConnectionProvider provider = new H2ConnectionProvider("LoadTestTest-shouldRunMixedScenario", ";DB_CLOSE_DELAY=-1")) {
+      LoadReport report = LoadTest.of(provider, Scenarios.mixedTransactional(100))
+        .withRate(200)
+        .withWarmup(Duration.ofMillis(500))
+        .withDuration(Duration.ofSeconds(2))
+        .withReportInterval(Duration.ofMillis(500))
+        .withPoolSize(10)
+        .withReporter(reported::add)
+        .run();
+
+      assertEquals(report.scenario(), "mixed");
+      assertEquals(report.incomplete(), 0);
+      assertTrue(report.completed() > 200, "completed " + report.completed());
+      assertEquals(report.responseTimes().getTotalCount(), report.completed());
+      assertTrue(report.responseTimes("transfer").getTotalCount() > 0);
+      assertFalse(report.intervals().isEmpty());
+      assertEquals(reported, report.intervals());
+      for (LoadReport.Interval interval : report.intervals()) {
+        assertTrue(interval.saturation() <= 1, "saturation " + interval.saturation());
+      }
+    }
+  }
+
+  @Test
+  public void shouldMeasureFromIntendedStart() throws Exception {
+    // one worker and 20ms per request at 100/s: requests queue, so response times grow while service times do not
+    try (H2ConnectionProvider h2 = new H2ConnectionProvider("LoadTestTest-shouldMeasureFromIntendedStart", ";DB_CLOSE_DELAY=-1")) {
+      LatencyInjectingConnectionProvider provider = LatencyInjectingConnectionProvider.of(h2)
+        .withExecuteLatency(Latency.fixed(Duration.ofMillis(20)));
+      LoadReport report = LoadTest.of(provider, Scenarios.readHeavy(100))
+        .withRate(100)
+        .withWarmup(Duration.ZERO)
+        .withDuration(Duration.ofSeconds(1))
+        .withConcurrency(1)
+        .withReporter(interval -> {})
+        .run();
+
+      long service = report.serviceTimes().getValueAtPercentile(99);
+      long response = report.responseTimes().getValueAtPercentile(99);
+      assertTrue(response > 10 * service, "response p99 " + response + ", service p99 " + service);
+    }
+  }
+
+  @Test
+  public void shouldCountErrors() throws Exception {
+    Scenario failing = Scenario.named("failing")
+      .with("fail", 1, (pool, random) -> Observable.error(new IllegalStateException("failed")));
+    try (H2ConnectionProvider provider = new H2ConnectionProvider("LoadTestTest-shouldCountErrors")) {
+      LoadReport report = LoadTest.of(provider, failing)
+        .withRate(100)
+        .withWarmup(Duration.ZERO)
+        .withDuration(Duration.ofMillis(500))
+        .withReporter(interval -> {})
+        .run();
+
+      assertEquals(report.completed(), 0);
+      assertTrue(report.errors() >= 40, "errors " + report.errors());
+    }
+  }
+
+  @Test
+  public void shouldChooseOperationsByWeight() throws Exception {
+    Scenario scenario = Scenario.named("weighted")
+      .with("rare", 1, (pool, random) -> Observable.empty())
+      .with("common", 9, (pool, random) -> Observable.empty());
+    Random random = new Random(1);
+    int rare = 0;
+    for (int i = 0; i < 10_000; ++i) {
+      if (scenario.choose(random).name.equals("rare")) {
+        ++rare;
+      }
+    }
+
+    assertTrue(rare > 800 && rare < 1200, "rare " + rare);
+  }
+}